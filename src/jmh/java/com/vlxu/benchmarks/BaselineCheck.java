@@ -0,0 +1,140 @@
+package com.vlxu.benchmarks;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compares a JMH result file against the checked-in baseline and fails if
+ * any benchmark regressed.
+ *
+ * <p>Usage: {@code java -cp target/benchmarks.jar
+ * com.vlxu.benchmarks.BaselineCheck benchmarks/baseline.csv results.csv
+ * [tolerance]}, where both files were written with {@code -rf csv} and
+ * {@code tolerance} is the allowed slowdown as a fraction (default 0.25).
+ * Scores and allocation rates ({@code gc.alloc.rate.norm}, reported with
+ * {@code -prof gc}) are compared; other secondary results are ignored, as
+ * are benchmarks that only appear in one of the files.</p>
+ *
+ * <p>Exits with status 1 if any benchmark regressed, 2 on bad usage.</p>
+ */
+public final class BaselineCheck {
+  private static final double defaultTolerance = 0.25;
+  // allocation below this many bytes per op is noise (e.g. escape analysis)
+  private static final double minAllocationBytes = 64;
+
+  private BaselineCheck() {
+  }
+
+  private record Result(String mode, double score) {
+    // Returns whether a higher score is better.
+    boolean higherIsBetter() {
+      return mode.equals("thrpt");
+    }
+  }
+
+  public static void main(String[] args) throws IOException {
+    if (args.length < 2 || args.length > 3) {
+      System.err.println(
+          "Usage: BaselineCheck <baseline.csv> <results.csv> [tolerance]");
+      System.exit(2);
+    }
+    final double tolerance =
+        args.length == 3 ? Double.parseDouble(args[2]) : defaultTolerance;
+    Map<String, Result> baseline = readResults(args[0]);
+    Map<String, Result> results = readResults(args[1]);
+
+    int numCompared = 0;
+    List<String> regressions = new ArrayList<>();
+    for (Map.Entry<String, Result> entry : results.entrySet()) {
+      Result before = baseline.get(entry.getKey());
+      Result after = entry.getValue();
+      if (before == null || !before.mode().equals(after.mode())) {
+        continue;
+      }
+      numCompared++;
+      if (entry.getKey().contains("gc.alloc.rate.norm")
+          && after.score() < minAllocationBytes) {
+        continue;
+      }
+      final double change = after.higherIsBetter()
+          ? before.score() / after.score() - 1
+          : after.score() / before.score() - 1;
+      if (change > tolerance) {
+        regressions.add(String.format("%s: %.3f -> %.3f (%.0f%% worse)",
+            entry.getKey(), before.score(), after.score(), change * 100));
+      }
+    }
+
+    System.out.printf("Compared %d results against %s%n", numCompared,
+        args[0]);
+    for (String regression : regressions) {
+      System.out.println("REGRESSION " + regression);
+    }
+    System.exit(regressions.isEmpty() ? 0 : 1);
+  }
+
+  // Reads a JMH CSV result file, keyed by benchmark name and parameters.
+  private static Map<String, Result> readResults(String path)
+      throws IOException {
+    List<String> lines =
+        Files.readAllLines(Paths.get(path), StandardCharsets.UTF_8);
+    Map<String, Result> results = new LinkedHashMap<>();
+    if (lines.isEmpty()) {
+      return results;
+    }
+    List<String> header = splitCsvLine(lines.get(0));
+    final int benchmarkColumn = header.indexOf("Benchmark");
+    final int modeColumn = header.indexOf("Mode");
+    final int scoreColumn = header.indexOf("Score");
+
+    for (String line : lines.subList(1, lines.size())) {
+      List<String> fields = splitCsvLine(line);
+      if (fields.size() != header.size()) {
+        continue;
+      }
+      String benchmark = fields.get(benchmarkColumn);
+      // secondary results are named `benchmark:gc.alloc.rate.norm` etc.
+      final int secondary = benchmark.indexOf(':');
+      if (secondary >= 0
+          && !benchmark.endsWith("gc.alloc.rate.norm")) {
+        continue;
+      }
+      StringBuilder key = new StringBuilder(benchmark);
+      for (int i = 0; i < header.size(); i++) {
+        if (header.get(i).startsWith("Param: ") && !fields.get(i).isEmpty()) {
+          key.append(' ').append(header.get(i).substring(7)).append('=')
+              .append(fields.get(i));
+        }
+      }
+      results.put(key.toString(), new Result(fields.get(modeColumn),
+          Double.parseDouble(fields.get(scoreColumn))));
+    }
+    return results;
+  }
+
+  // Splits one CSV line as written by JMH (fields optionally double-quoted).
+  private static List<String> splitCsvLine(String line) {
+    List<String> fields = new ArrayList<>();
+    StringBuilder field = new StringBuilder();
+    boolean quoted = false;
+    for (int i = 0; i < line.length(); i++) {
+      final char c = line.charAt(i);
+      if (c == '"') {
+        quoted = !quoted;
+      } else if (c == ',' && !quoted) {
+        fields.add(field.toString());
+        field.setLength(0);
+      } else {
+        field.append(c);
+      }
+    }
+    fields.add(field.toString());
+    return fields;
+  }
+}
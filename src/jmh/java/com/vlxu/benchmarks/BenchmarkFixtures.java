@@ -0,0 +1,141 @@
+package com.vlxu.benchmarks;
+
+import com.vlxu.entities.GuessWord;
+import com.vlxu.entities.User;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Generates the fixture data used by the benchmarks.
+ *
+ * <p>All fixtures are derived from a fixed seed, so every run (and every
+ * fork) measures exactly the same data. Fixture files are written once to
+ * {@code target/bench-fixtures} (override with the {@code bench.fixtures}
+ * system property) and reused by later runs, since generating the larger
+ * ones takes longer than the benchmarks themselves.</p>
+ */
+final class BenchmarkFixtures {
+  static final long SEED = 0x5eedL;
+  private static final String fixturesDir =
+      System.getProperty("bench.fixtures", "target/bench-fixtures");
+
+  private BenchmarkFixtures() {
+  }
+
+  /**
+   * Returns the {@code i}-th generated username (unique for every {@code i}).
+   */
+  static String userName(int i) {
+    return "user" + i;
+  }
+
+  /**
+   * Returns {@code numUsers} users with random scores in [0, 1000). The first
+   * user is root.
+   */
+  static List<User> users(int numUsers) {
+    SplittableRandom random = new SplittableRandom(SEED);
+    List<User> users = new ArrayList<>(numUsers);
+    for (int i = 0; i < numUsers; i++) {
+      users.add(new User(userName(i), random.nextInt(1000), i == 0));
+    }
+    return users;
+  }
+
+  /**
+   * Returns a random valid word-to-guess of length {@code length}.
+   */
+  static String word(SplittableRandom random, int length) {
+    char[] letters = new char[length];
+    for (int i = 0; i < length; i++) {
+      letters[i] = (char) ('a' + random.nextInt(26));
+    }
+    return new String(letters);
+  }
+
+  /**
+   * Returns a random valid word-to-guess of random length.
+   */
+  static String word(SplittableRandom random) {
+    return word(random,
+        random.nextInt(GuessWord.MIN_LENGTH, GuessWord.MAX_LENGTH + 1));
+  }
+
+  /**
+   * Returns a user records file holding {@link #users(int) users(numUsers)},
+   * generating it if needed.
+   */
+  static Path usersFile(int numUsers) {
+    return fixture("users_" + numUsers + ".txt", file -> {
+      for (User user : users(numUsers)) {
+        file.write(String.format("%s#%d#%s", user.getUserName(),
+            user.getNumSuccess(), user.getIsRoot() ? "Y" : "N"));
+        file.newLine();
+      }
+    });
+  }
+
+  /**
+   * Returns a word bank file holding {@code numWords} valid words, generating
+   * it if needed.
+   */
+  static Path wordBankFile(int numWords) {
+    return fixture("word_bank_" + numWords + ".txt", file -> {
+      SplittableRandom random = new SplittableRandom(SEED);
+      for (int i = 0; i < numWords; i++) {
+        file.write(word(random));
+        file.newLine();
+      }
+    });
+  }
+
+  /**
+   * Copies fixture {@code source} to a fresh file in the fixtures directory,
+   * for benchmarks that write to the files they read.
+   */
+  static Path copyOf(Path source) {
+    try {
+      Path copy = Files.createTempFile(source.getParent(), "copy_", ".txt");
+      Files.copy(source, copy, StandardCopyOption.REPLACE_EXISTING);
+      copy.toFile().deleteOnExit();
+      return copy;
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  private interface FixtureWriter {
+    void write(BufferedWriter file) throws IOException;
+  }
+
+  // Returns fixture `name`, generating it with `writer` if it does not exist.
+  // The fixture is written to a temp file first, so an interrupted run never
+  // leaves a truncated fixture behind.
+  private static synchronized Path fixture(String name, FixtureWriter writer) {
+    Path path = Paths.get(fixturesDir, name);
+    if (Files.exists(path)) {
+      return path;
+    }
+    try {
+      Files.createDirectories(path.getParent());
+      Path temp = Files.createTempFile(path.getParent(), name, ".tmp");
+      try (BufferedWriter file =
+               Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+        writer.write(file);
+      }
+      Files.move(temp, path, StandardCopyOption.ATOMIC_MOVE);
+      return path;
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+}
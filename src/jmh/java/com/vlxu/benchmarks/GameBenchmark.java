@@ -0,0 +1,69 @@
+package com.vlxu.benchmarks;
+
+import com.vlxu.coreexceptions.InvalidGuessException;
+import com.vlxu.entities.Game;
+import com.vlxu.entities.GuessWord;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Benchmarks {@link Game#makeGuess(char)} and
+ * {@link Game#getLettersGuessed()}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class GameBenchmark {
+  // guesses in rough order of English letter frequency
+  private static final String guessOrder = "etaoinshrdlcumwfgypbvkjxqz";
+
+  private String word;
+  private Game halfPlayedGame;
+
+  @Setup(Level.Trial)
+  public void setUp() throws InvalidGuessException {
+    word = BenchmarkFixtures.word(new SplittableRandom(BenchmarkFixtures.SEED),
+        GuessWord.MAX_LENGTH);
+    halfPlayedGame = new Game(GuessWord.fromValidatedWord(word));
+    for (int i = 0; i < 13; i++) {
+      halfPlayedGame.makeGuess(guessOrder.charAt(i));
+    }
+  }
+
+  /**
+   * Plays a fresh game to the end, guessing every letter once.
+   */
+  @Benchmark
+  public int makeGuessWholeGame() throws InvalidGuessException {
+    Game game = new Game(GuessWord.fromValidatedWord(word));
+    for (int i = 0; i < guessOrder.length(); i++) {
+      game.makeGuess(guessOrder.charAt(i));
+    }
+    return game.getNumWrongGuesses();
+  }
+
+  /**
+   * Reads and iterates the letters guessed in a game, as a view would.
+   */
+  @Benchmark
+  public void getLettersGuessed(Blackhole blackhole) {
+    for (char letter : halfPlayedGame.getLettersGuessed()) {
+      blackhole.consume(letter);
+    }
+  }
+}
@@ -0,0 +1,98 @@
+package com.vlxu.benchmarks;
+
+import com.vlxu.usecases.GameSessionUseCase;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks the throughput of {@link GameSessionUseCase} with one thread and
+ * with one thread per core, each thread playing whole games in sessions of
+ * its own. Sessions share no lock, so the games per second of
+ * {@link #playGameAllCores()} should grow with the number of cores.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GameSessionBenchmark {
+  // guesses in rough order of English letter frequency
+  private static final String guessOrder = "etaoinshrdlcumwfgypbvkjxqz";
+  private static final int numWords = 64;
+
+  @State(Scope.Benchmark)
+  public static class Sessions {
+    GameSessionUseCase useCase;
+    final AtomicInteger numThreads = new AtomicInteger();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+      SplittableRandom random = new SplittableRandom(BenchmarkFixtures.SEED);
+      String[] words = new String[numWords];
+      for (int i = 0; i < numWords; i++) {
+        words[i] = BenchmarkFixtures.word(random);
+      }
+      AtomicInteger nextWord = new AtomicInteger();
+      useCase = new GameSessionUseCase(
+          () -> words[nextWord.getAndIncrement() & (numWords - 1)], null);
+    }
+  }
+
+  @State(Scope.Thread)
+  public static class Session {
+    String sessionId;
+
+    @Setup(Level.Trial)
+    public void setUp(Sessions sessions) {
+      sessionId = "session" + sessions.numThreads.getAndIncrement();
+    }
+  }
+
+  // Plays one game in `session` to the end and returns whether it was won.
+  private static boolean playGame(Sessions sessions, Session session)
+      throws Exception {
+    GameSessionUseCase useCase = sessions.useCase;
+    useCase.startGame(session.sessionId);
+    try {
+      for (int i = 0; i < guessOrder.length(); i++) {
+        useCase.makeGuess(session.sessionId, guessOrder.charAt(i));
+        if (useCase.checkWinCondition(session.sessionId)) {
+          return true;
+        }
+        if (useCase.checkLoseCondition(session.sessionId)) {
+          return false;
+        }
+      }
+      return false;
+    } finally {
+      useCase.endSession(session.sessionId);
+    }
+  }
+
+  @Benchmark
+  @Threads(1)
+  public boolean playGameOneThread(Sessions sessions, Session session)
+      throws Exception {
+    return playGame(sessions, session);
+  }
+
+  @Benchmark
+  @Threads(Threads.MAX)
+  public boolean playGameAllCores(Sessions sessions, Session session)
+      throws Exception {
+    return playGame(sessions, session);
+  }
+}
@@ -0,0 +1,85 @@
+package com.vlxu.benchmarks;
+
+import com.vlxu.coreexceptions.InvalidGuessException;
+import com.vlxu.entities.GuessWord;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks {@link GuessWord#updateGuessView(char)}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class GuessWordBenchmark {
+  @Param({"7", "21"})
+  public int wordLength;
+
+  private String word;
+  private GuessWord guessWord;
+  private char hit;
+  private char miss;
+
+  @Setup(Level.Trial)
+  public void setUpWord() {
+    word = BenchmarkFixtures.word(new SplittableRandom(BenchmarkFixtures.SEED),
+        wordLength);
+    hit = word.charAt(0);
+    miss = 'a';
+    while (word.indexOf(miss) >= 0) {
+      miss++;
+    }
+  }
+
+  @Setup(Level.Iteration)
+  public void setUpGuessWord() {
+    guessWord = GuessWord.fromValidatedWord(word);
+  }
+
+  /**
+   * Guesses a letter that is in the word (already revealed after the first
+   * call).
+   */
+  @Benchmark
+  public boolean updateGuessViewHit() throws InvalidGuessException {
+    return guessWord.updateGuessView(hit);
+  }
+
+  /**
+   * Guesses a letter that is not in the word.
+   */
+  @Benchmark
+  public boolean updateGuessViewMiss() throws InvalidGuessException {
+    return guessWord.updateGuessView(miss);
+  }
+
+  /**
+   * Reveals a fresh word one letter at a time, reading the guess view after
+   * every guess as a player would.
+   */
+  @Benchmark
+  public String revealWholeWord() throws InvalidGuessException {
+    GuessWord fresh = GuessWord.fromValidatedWord(word);
+    String guessView = fresh.getGuessView();
+    for (char guess = 'a'; guess <= 'z' && !fresh.isFullyGuessed(); guess++) {
+      fresh.updateGuessView(guess);
+      guessView = fresh.getGuessView();
+    }
+    return guessView;
+  }
+}
@@ -0,0 +1,66 @@
+package com.vlxu.benchmarks;
+
+import com.vlxu.coreexceptions.RepoException;
+import com.vlxu.entities.User;
+import com.vlxu.usecases.LeaderBoard;
+import com.vlxu.usecases.ShowLeaderBoardUseCase;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks both rankings of {@link ShowLeaderBoardUseCase}, both when the
+ * rankings are re-sorted from all users on every call and when they are read
+ * from a {@link LeaderBoard} that is kept up to date.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx4g"})
+@State(Scope.Benchmark)
+public class ShowLeaderBoardBenchmark {
+  @Param({"1000", "10000", "100000", "1000000"})
+  public int users;
+
+  private ShowLeaderBoardUseCase rebuilding;
+  private ShowLeaderBoardUseCase incremental;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    List<User> allUsers = BenchmarkFixtures.users(users);
+    rebuilding = new ShowLeaderBoardUseCase(() -> allUsers);
+    incremental = new ShowLeaderBoardUseCase(new LeaderBoard(allUsers));
+  }
+
+  @Benchmark
+  public List<User> rankedByNameRebuilt() throws RepoException {
+    return rebuilding.getRankedByName();
+  }
+
+  @Benchmark
+  public List<User> rankedByScoreRebuilt() throws RepoException {
+    return rebuilding.getRankedByScore();
+  }
+
+  @Benchmark
+  public List<User> rankedByNameIncremental() throws RepoException {
+    return incremental.getRankedByName();
+  }
+
+  @Benchmark
+  public List<User> rankedByScoreIncremental() throws RepoException {
+    return incremental.getRankedByScore();
+  }
+}
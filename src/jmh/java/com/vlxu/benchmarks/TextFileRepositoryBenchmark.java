@@ -0,0 +1,116 @@
+package com.vlxu.benchmarks;
+
+import com.vlxu.coreexceptions.RepoException;
+import com.vlxu.interfaceadapters.TextFileRepository;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks constructing and closing a {@link TextFileRepository}, and
+ * drawing words from it, for word banks and user records files of
+ * {@code records} lines each.
+ *
+ * <p>Every trial works on its own copy of the fixture files, since both
+ * construction and {@code close()} rewrite them.</p>
+ */
+@Fork(value = 1, jvmArgsAppend = {"-Xmx4g"})
+public class TextFileRepositoryBenchmark {
+  @State(Scope.Benchmark)
+  public static class Files {
+    @Param({"1000", "10000", "100000", "1000000", "10000000"})
+    public int records;
+
+    String wordBankFilePath;
+    String usersFilePath;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+      wordBankFilePath = BenchmarkFixtures.copyOf(
+          BenchmarkFixtures.wordBankFile(records)).toString();
+      usersFilePath = BenchmarkFixtures.copyOf(
+          BenchmarkFixtures.usersFile(records)).toString();
+    }
+  }
+
+  @State(Scope.Thread)
+  public static class OpenRepository {
+    TextFileRepository repo;
+
+    @Setup(Level.Iteration)
+    public void setUp(Files files) throws RepoException {
+      repo = new TextFileRepository(files.wordBankFilePath,
+          files.usersFilePath);
+    }
+
+    // let the closed repository be collected before the next one is loaded
+    @TearDown(Level.Iteration)
+    public void tearDown() {
+      repo = null;
+    }
+  }
+
+  @State(Scope.Thread)
+  public static class SharedRepository {
+    TextFileRepository repo;
+
+    @Setup(Level.Trial)
+    public void setUp(Files files) throws RepoException {
+      repo = new TextFileRepository(files.wordBankFilePath,
+          files.usersFilePath);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws RepoException {
+      repo.close();
+    }
+  }
+
+  /**
+   * Loads the word bank and all user records.
+   */
+  @Benchmark
+  @BenchmarkMode(Mode.SingleShotTime)
+  @OutputTimeUnit(TimeUnit.MILLISECONDS)
+  @Warmup(iterations = 2)
+  @Measurement(iterations = 5)
+  public TextFileRepository construct(Files files) throws RepoException {
+    return new TextFileRepository(files.wordBankFilePath, files.usersFilePath);
+  }
+
+  /**
+   * Writes the word bank and all user records back to their files. A new
+   * repository is loaded before every call, outside the measurement.
+   */
+  @Benchmark
+  @BenchmarkMode(Mode.SingleShotTime)
+  @OutputTimeUnit(TimeUnit.MILLISECONDS)
+  @Warmup(iterations = 2)
+  @Measurement(iterations = 5)
+  public void close(OpenRepository open) throws RepoException {
+    open.repo.close();
+  }
+
+  /**
+   * Draws a random word from the word bank.
+   */
+  @Benchmark
+  @BenchmarkMode(Mode.AverageTime)
+  @OutputTimeUnit(TimeUnit.NANOSECONDS)
+  @Warmup(iterations = 3, time = 1)
+  @Measurement(iterations = 5, time = 1)
+  public String getRandomWord(SharedRepository shared) throws RepoException {
+    return shared.repo.getRandomWord();
+  }
+}
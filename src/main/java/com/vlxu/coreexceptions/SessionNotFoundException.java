@@ -0,0 +1,11 @@
+package com.vlxu.coreexceptions;
+
+/**
+ * Exception that indicates an operation failing because a game session does
+ * not exist (e.g., it was never opened or has already ended).
+ */
+public class SessionNotFoundException extends Exception {
+  public SessionNotFoundException(String sessionId) {
+    super(String.format("Session `%s` not found", sessionId));
+  }
+}
@@ -2,7 +2,6 @@ package com.vlxu.entities;
 
 import com.vlxu.coreexceptions.InvalidGuessException;
 import com.vlxu.coreexceptions.InvalidGuessWord;
-import java.util.HashSet;
 import java.util.Set;
 
 /**
@@ -10,7 +9,8 @@ import java.util.Set;
  */
 public class Game {
   private final GuessWord guessWord;
-  private final Set<Character> lettersGuessed;
+  // bit (c - 'a') is set iff. letter c has been guessed
+  private int lettersGuessed;
   private int numWrongGuesses;
 
   /**
@@ -20,8 +20,17 @@ public class Game {
    *                          See {@link GuessWord#isValidGuessWord(String)} for more details on a valid word-to-guess.
    */
   public Game(String wordToGuess) throws InvalidGuessWord {
-    guessWord = new GuessWord(wordToGuess);
-    lettersGuessed = new HashSet<>();
+    this(new GuessWord(wordToGuess));
+  }
+
+  /**
+   * Initialize a new game in which {@code guessWord} is to be guessed.
+   *
+   * @param guessWord a word to guess that has not been guessed at yet
+   */
+  public Game(GuessWord guessWord) {
+    this.guessWord = guessWord;
+    lettersGuessed = 0;
     numWrongGuesses = 0;
   }
 
@@ -34,7 +43,7 @@ public class Game {
    */
   public boolean makeGuess(char guess) throws InvalidGuessException {
     boolean guessCorrect = guessWord.updateGuessView(guess);
-    lettersGuessed.add(guess);
+    lettersGuessed |= 1 << (guess - 'a');
     if (!guessCorrect) {
       numWrongGuesses += 1;
     }
@@ -42,12 +51,99 @@ public class Game {
   }
 
   /**
-   * Returns a copy of the letters already guessed in this game.
+   * Applies {@code guesses} in order, as {@link #makeGuess(char)} would, and
+   * stops right after the guess that decides the game. The game is won once
+   * the word is fully guessed with fewer than {@code maxWrongGuesses} wrong
+   * guesses, and lost once more than {@code maxWrongGuesses} guesses are
+   * wrong (the rules of {@code PlayGameUseCase}).
+   *
+   * <p>Unlike {@code makeGuess}, an invalid guess does not throw: it is
+   * skipped and flagged in the result. Apart from the result, nothing is
+   * allocated, so this is the cheap way to replay a recorded game or to
+   * serve automated players.</p>
+   *
+   * @return which guesses were correct, and how the game stands afterwards
+   */
+  public GuessBatchResult makeGuesses(CharSequence guesses,
+                                      int maxWrongGuesses) {
+    final int numGuesses = guesses.length();
+    long[] hits = new long[(numGuesses + 63) >>> 6];
+    long[] invalid = null;
+    GuessBatchResult.Outcome outcome = outcomeOf(maxWrongGuesses);
+    if (outcome != GuessBatchResult.Outcome.IN_PROGRESS) {
+      return new GuessBatchResult(hits, null, 0, numWrongGuesses, outcome, -1);
+    }
+
+    int i = 0;
+    int decidedAt = -1;
+    while (i < numGuesses && decidedAt < 0) {
+      final int letter = guesses.charAt(i) - 'a';
+      if (letter < 0 || letter >= 26) {
+        if (invalid == null) {
+          invalid = new long[hits.length];
+        }
+        invalid[i >>> 6] |= 1L << i;
+      } else {
+        lettersGuessed |= 1 << letter;
+        if (guessWord.reveal(letter)) {
+          hits[i >>> 6] |= 1L << i;
+          // only a correct guess can win the game
+          if (guessWord.isFullyGuessed() && numWrongGuesses < maxWrongGuesses) {
+            outcome = GuessBatchResult.Outcome.WON;
+            decidedAt = i;
+          }
+        } else if (++numWrongGuesses > maxWrongGuesses) {
+          outcome = GuessBatchResult.Outcome.LOST;
+          decidedAt = i;
+        }
+      }
+      i++;
+    }
+    return new GuessBatchResult(hits, invalid, i, numWrongGuesses, outcome,
+        decidedAt);
+  }
+
+  // Returns how the game stands under the rules of makeGuesses.
+  private GuessBatchResult.Outcome outcomeOf(int maxWrongGuesses) {
+    if (guessWord.isFullyGuessed() && numWrongGuesses < maxWrongGuesses) {
+      return GuessBatchResult.Outcome.WON;
+    }
+    if (numWrongGuesses > maxWrongGuesses) {
+      return GuessBatchResult.Outcome.LOST;
+    }
+    return GuessBatchResult.Outcome.IN_PROGRESS;
+  }
+
+  /**
+   * Returns the letters already guessed in this game. The returned set is an
+   * immutable snapshot that is not affected by later guesses.
    *
-   * @return list of all letters already guessed
+   * @return set of all letters already guessed
    */
   public Set<Character> getLettersGuessed() {
-    return new HashSet<>(lettersGuessed);
+    return new GuessedLetters(lettersGuessed);
+  }
+
+  /**
+   * Returns the letters already guessed in this game as a 26-bit mask, where
+   * bit {@code c - 'a'} is set iff. letter {@code c} has been guessed.
+   *
+   * @return mask of all letters already guessed
+   */
+  public int getLettersGuessedMask() {
+    return lettersGuessed;
+  }
+
+  /**
+   * Returns whether {@code letter} has already been guessed in this game.
+   * Useful to detect a repeated guess before it is made (a repeated wrong
+   * guess still counts as a wrong guess).
+   *
+   * @return whether {@code letter} was already guessed
+   */
+  public boolean hasGuessed(char letter) {
+    return letter >= 'a' && letter <= 'z'
+        && (lettersGuessed & (1 << (letter - 'a'))) != 0;
   }
 
   /**
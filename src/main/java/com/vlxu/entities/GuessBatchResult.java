@@ -0,0 +1,86 @@
+package com.vlxu.entities;
+
+/**
+ * The result of applying a batch of guesses with
+ * {@link Game#makeGuesses(CharSequence, int)}.
+ *
+ * <p>Guesses are identified by their index in the batch. Guesses after the
+ * one that decided the game are not applied, and count as neither hits nor
+ * invalid guesses.</p>
+ */
+public final class GuessBatchResult {
+  /**
+   * The state of a game after a batch of guesses.
+   */
+  public enum Outcome {
+    IN_PROGRESS, WON, LOST
+  }
+
+  // bit (i % 64) of word (i / 64) is set iff. guess i was correct
+  private final long[] hits;
+  // same layout as `hits`; null if no guess was invalid
+  private final long[] invalid;
+  private final int numGuessesApplied;
+  private final int numWrongGuesses;
+  private final Outcome outcome;
+  private final int decidedAt;
+
+  GuessBatchResult(long[] hits, long[] invalid, int numGuessesApplied,
+                   int numWrongGuesses, Outcome outcome, int decidedAt) {
+    this.hits = hits;
+    this.invalid = invalid;
+    this.numGuessesApplied = numGuessesApplied;
+    this.numWrongGuesses = numWrongGuesses;
+    this.outcome = outcome;
+    this.decidedAt = decidedAt;
+  }
+
+  private static boolean isSet(long[] mask, int index) {
+    return mask != null && index >= 0 && (index >>> 6) < mask.length
+        && (mask[index >>> 6] & (1L << index)) != 0;
+  }
+
+  /**
+   * Returns whether guess {@code index} was applied and was correct (i.e.,
+   * revealed at least one letter).
+   */
+  public boolean isHit(int index) {
+    return isSet(hits, index);
+  }
+
+  /**
+   * Returns whether guess {@code index} was not a lowercase letter. Invalid
+   * guesses are skipped: they do not change the game and are not counted as
+   * wrong guesses.
+   */
+  public boolean isInvalid(int index) {
+    return isSet(invalid, index);
+  }
+
+  /**
+   * Returns how many guesses of the batch were applied (including invalid
+   * ones): all of them, unless the game was decided before the last guess.
+   */
+  public int getNumGuessesApplied() {
+    return numGuessesApplied;
+  }
+
+  /**
+   * Returns the number of wrong guesses in the game after the batch.
+   */
+  public int getNumWrongGuesses() {
+    return numWrongGuesses;
+  }
+
+  public Outcome getOutcome() {
+    return outcome;
+  }
+
+  /**
+   * Returns the index of the guess that won or lost the game, or -1 if the
+   * game is still in progress or was decided before the batch.
+   */
+  public int getDecidedAt() {
+    return decidedAt;
+  }
+}
@@ -2,7 +2,6 @@ package com.vlxu.entities;
 
 import com.vlxu.coreexceptions.InvalidGuessException;
 import com.vlxu.coreexceptions.InvalidGuessWord;
-import java.util.regex.Pattern;
 
 /**
  * Abstract representation of a word to be guessed.
@@ -19,8 +18,21 @@ import java.util.regex.Pattern;
  * </p>
  */
 public class GuessWord {
+  /**
+   * The length of the shortest valid word-to-guess.
+   */
+  public static final int MIN_LENGTH = 7;
+  /**
+   * The length of the longest valid word-to-guess.
+   */
+  public static final int MAX_LENGTH = 21;
+
   private final String word;
-  private final String alphabet;
+  // letterPositions[c - 'a'] has bit i set iff. word.charAt(i) == c
+  private final int[] letterPositions;
+  private final int allPositions;
+  private int revealedPositions;
+  // rendered on demand from revealedPositions; null when out of date
   private String guessView;
 
   /**
@@ -29,14 +41,47 @@ public class GuessWord {
    * @param word word to be guessed.
    */
   public GuessWord(String word) throws InvalidGuessWord {
+    this(word, letterPositionsOf(requireValidGuessWord(word)));
+  }
+
+  // Package-private for PackedWord, which locates letters while decoding.
+  GuessWord(String word, int[] letterPositions) {
     this.word = word;
+    this.letterPositions = letterPositions;
+    this.allPositions = (1 << word.length()) - 1;
+    this.revealedPositions = 0;
+    this.guessView = null;
+  }
+
+  /**
+   * Returns a new guess word for {@code word} without validating it again.
+   *
+   * <p>Only use this for words that are already known to be valid (e.g., a
+   * word bank that was validated when it was loaded). Passing a word that is
+   * not a valid guess word results in undefined behaviour.</p>
+   *
+   * @param word a word for which {@link #isValidGuessWord(String)} holds
+   * @return a guess word for {@code word}
+   */
+  public static GuessWord fromValidatedWord(String word) {
+    return new GuessWord(word, letterPositionsOf(word));
+  }
+
+  private static String requireValidGuessWord(String word)
+      throws InvalidGuessWord {
     if (!isValidGuessWord(word)) {
       throw new InvalidGuessWord(word);
     }
-    this.guessView = "-".repeat(word.length());
-    this.alphabet = "abcdefghijklmnopqrstuvwxyz";
+    return word;
   }
 
+  private static int[] letterPositionsOf(String word) {
+    int[] letterPositions = new int[26];
+    for (int i = 0; i < word.length(); i++) {
+      letterPositions[word.charAt(i) - 'a'] |= 1 << i;
+    }
+    return letterPositions;
+  }
 
   /**
    * Returns True iff. {@param guessWord} is a valid guess word. See
@@ -46,7 +91,17 @@ public class GuessWord {
    * @return whether a word is a valid guess word
    */
   public static boolean isValidGuessWord(String guessWord) {
-    return Pattern.matches("^[a-z]{7,21}$", guessWord);
+    final int length = guessWord.length();
+    if (length < MIN_LENGTH || length > MAX_LENGTH) {
+      return false;
+    }
+    for (int i = 0; i < length; i++) {
+      final char c = guessWord.charAt(i);
+      if (c < 'a' || c > 'z') {
+        return false;
+      }
+    }
+    return true;
   }
 
   /**
@@ -65,6 +120,13 @@ public class GuessWord {
    * @return the current guess view for the word to be guessed.
    */
   public String getGuessView() {
+    if (guessView == null) {
+      char[] view = new char[word.length()];
+      for (int i = 0; i < view.length; i++) {
+        view[i] = (revealedPositions & (1 << i)) != 0 ? word.charAt(i) : '-';
+      }
+      guessView = new String(view);
+    }
     return guessView;
   }
 
@@ -75,28 +137,22 @@ public class GuessWord {
    * @throws InvalidGuessException if an invalid guess was made. See {@link GuessWord}.
    */
   public boolean updateGuessView(char guess) throws InvalidGuessException {
-    if (alphabet.indexOf(guess) == -1) {
+    if (guess < 'a' || guess > 'z') {
       throw new InvalidGuessException();
     }
+    return reveal(guess - 'a');
+  }
 
-    StringBuilder newGuessView = new StringBuilder();
-
-    boolean guessedCorrectly = false;
-    for (int i = 0; i < guessView.length(); i++) {
-      if (guessView.charAt(i) == '-') {
-        if (guess == word.charAt(i)) {
-          guessedCorrectly = true;
-          newGuessView.append(guess);
-        } else {
-          newGuessView.append('-');
-        }
-      } else { // already revealed
-        newGuessView.append(guessView.charAt(i));
-      }
+  // Reveals all positions of letter 'a' + `letter` (0 to 25, not checked) and
+  // returns whether any position was newly revealed.
+  boolean reveal(int letter) {
+    final int newlyRevealed = letterPositions[letter] & ~revealedPositions;
+    if (newlyRevealed == 0) {
+      return false;
     }
-
-    guessView = newGuessView.toString();
-    return guessedCorrectly;
+    revealedPositions |= newlyRevealed;
+    guessView = null;
+    return true;
   }
 
   /**
@@ -104,6 +160,6 @@ public class GuessWord {
    * has been correctly guessed)
    */
   public boolean isFullyGuessed() {
-    return guessView.equals(word);
+    return revealedPositions == allPositions;
   }
 }
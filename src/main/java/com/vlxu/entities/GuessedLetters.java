@@ -0,0 +1,54 @@
+package com.vlxu.entities;
+
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Immutable set of letters [a-z] backed by a 26-bit mask, where bit
+ * {@code c - 'a'} is set iff. letter {@code c} is in the set. Iterates in
+ * alphabetical order.
+ */
+final class GuessedLetters extends AbstractSet<Character> {
+  private final int letterMask;
+
+  GuessedLetters(int letterMask) {
+    this.letterMask = letterMask;
+  }
+
+  @Override
+  public boolean contains(Object o) {
+    if (!(o instanceof Character letter)) {
+      return false;
+    }
+    return letter >= 'a' && letter <= 'z'
+        && (letterMask & (1 << (letter - 'a'))) != 0;
+  }
+
+  @Override
+  public int size() {
+    return Integer.bitCount(letterMask);
+  }
+
+  @Override
+  public Iterator<Character> iterator() {
+    return new Iterator<>() {
+      private int remaining = letterMask;
+
+      @Override
+      public boolean hasNext() {
+        return remaining != 0;
+      }
+
+      @Override
+      public Character next() {
+        if (remaining == 0) {
+          throw new NoSuchElementException();
+        }
+        final int letterIndex = Integer.numberOfTrailingZeros(remaining);
+        remaining &= remaining - 1;
+        return (char) ('a' + letterIndex);
+      }
+    };
+  }
+}
@@ -0,0 +1,56 @@
+package com.vlxu.entities;
+
+/**
+ * An inclusive range of integers, such as the lengths of words to draw from a
+ * {@link WordRepository}.
+ */
+public final class IntRange {
+  private final int min;
+  private final int max;
+
+  /**
+   * Initializes the range {@code [min, max]}.
+   *
+   * @throws IllegalArgumentException if {@code min > max}
+   */
+  public IntRange(int min, int max) {
+    if (min > max) {
+      throw new IllegalArgumentException(
+          String.format("Empty range: min %d > max %d", min, max));
+    }
+    this.min = min;
+    this.max = max;
+  }
+
+  public int getMin() {
+    return min;
+  }
+
+  public int getMax() {
+    return max;
+  }
+
+  /**
+   * Returns whether {@code min <= value <= max}.
+   */
+  public boolean contains(int value) {
+    return min <= value && value <= max;
+  }
+
+  @Override
+  public boolean equals(Object other) {
+    return other instanceof IntRange range && range.min == min
+        && range.max == max;
+  }
+
+  @Override
+  public int hashCode() {
+    return 31 * min + max;
+  }
+
+  @Override
+  public String toString() {
+    return min == max ? Integer.toString(min)
+        : String.format("%d to %d", min, max);
+  }
+}
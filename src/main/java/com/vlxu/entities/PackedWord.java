@@ -0,0 +1,102 @@
+package com.vlxu.entities;
+
+/**
+ * Packs a valid guess word (see {@link GuessWord#isValidGuessWord(String)})
+ * into two {@code long}s, at 5 bits per letter.
+ *
+ * <p>Letter {@code i} of the word is stored as {@code c - 'a'} in bits
+ * {@code [5i, 5i + 5)} of the low half for {@code i < 12}, and in bits
+ * {@code [5(i - 12), 5(i - 12) + 5)} of the high half otherwise. The length
+ * of the word is stored in the top 5 bits of the high half. A word of at most
+ * {@value GuessWord#MAX_LENGTH} letters takes 110 bits.</p>
+ */
+public final class PackedWord {
+  private static final int bitsPerLetter = 5;
+  private static final int lettersPerLong = 12;
+  private static final int lengthShift = 59;
+  private static final long letterMask = (1L << bitsPerLetter) - 1;
+
+  private PackedWord() {
+  }
+
+  /**
+   * Returns the low half of the packed form of {@code word}, which must be a
+   * valid guess word.
+   */
+  public static long packLow(CharSequence word) {
+    long low = 0;
+    final int end = Math.min(word.length(), lettersPerLong);
+    for (int i = 0; i < end; i++) {
+      low |= (long) (word.charAt(i) - 'a') << (bitsPerLetter * i);
+    }
+    return low;
+  }
+
+  /**
+   * Returns the high half of the packed form of {@code word}, which must be a
+   * valid guess word.
+   */
+  public static long packHigh(CharSequence word) {
+    long high = (long) word.length() << lengthShift;
+    for (int i = lettersPerLong; i < word.length(); i++) {
+      high |= (long) (word.charAt(i) - 'a')
+          << (bitsPerLetter * (i - lettersPerLong));
+    }
+    return high;
+  }
+
+  /**
+   * Returns the length of the word whose packed form has the high half
+   * {@code high}.
+   */
+  public static int length(long high) {
+    return (int) (high >>> lengthShift);
+  }
+
+  // Returns letter i of the packed word as 0 to 25.
+  private static int letterAt(long low, long high, int i) {
+    return i < lettersPerLong
+        ? (int) ((low >>> (bitsPerLetter * i)) & letterMask)
+        : (int) ((high >>> (bitsPerLetter * (i - lettersPerLong)))
+            & letterMask);
+  }
+
+  /**
+   * Returns the word packed as ({@code low}, {@code high}).
+   */
+  public static String unpack(long low, long high) {
+    char[] word = new char[length(high)];
+    for (int i = 0; i < word.length; i++) {
+      word[i] = (char) ('a' + letterAt(low, high, i));
+    }
+    return new String(word);
+  }
+
+  /**
+   * Returns a guess word for the word packed as ({@code low}, {@code high}),
+   * decoding the word and locating its letters in a single pass. Only the
+   * length and letters are checked, which is all packing can get wrong.
+   *
+   * @throws IllegalArgumentException if ({@code low}, {@code high}) is not the
+   *                                  packed form of a valid guess word
+   */
+  public static GuessWord toGuessWord(long low, long high) {
+    final int length = length(high);
+    if (length < GuessWord.MIN_LENGTH || length > GuessWord.MAX_LENGTH) {
+      throw new IllegalArgumentException(String.format(
+          "Packed word has invalid length %d", length));
+    }
+    char[] word = new char[length];
+    int[] letterPositions = new int[26];
+    for (int i = 0; i < word.length; i++) {
+      final int letter = letterAt(low, high, i);
+      if (letter >= letterPositions.length) {
+        throw new IllegalArgumentException(String.format(
+            "Packed word has invalid letter %d at %d", letter, i));
+      }
+      word[i] = (char) ('a' + letter);
+      letterPositions[letter] |= 1 << i;
+    }
+    return new GuessWord(new String(word), letterPositions);
+  }
+}
@@ -1,12 +1,17 @@
 package com.vlxu.entities;
 
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+
 /**
  * Abstract representation of a Hangman game user.
  */
 public class User {
+  private static final AtomicIntegerFieldUpdater<User> numSuccessUpdater =
+      AtomicIntegerFieldUpdater.newUpdater(User.class, "numSuccess");
+
   private final boolean isRoot;
   private String userName;
-  private int numSuccess;
+  private volatile int numSuccess;
 
   /**
    * Initializes this user with {@code userName}. Number of successful guesses initialized to 0.
@@ -51,10 +56,11 @@ public class User {
   }
 
   /**
-   * Records that the user has successfully guessed another word.
+   * Records that the user has successfully guessed another word. Safe to call
+   * from several threads at once; no increment is lost.
    */
   public void incNumSuccess() {
-    numSuccess += 1;
+    numSuccessUpdater.incrementAndGet(this);
   }
 
   /**
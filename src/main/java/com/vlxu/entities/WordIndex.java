@@ -0,0 +1,262 @@
+package com.vlxu.entities;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * An inverted index over a list of words that answers "which words are
+ * consistent with this guess view" with bitwise operations instead of string
+ * comparisons.
+ *
+ * <p>Words are grouped by length. For every length, the index keeps one
+ * bitset per (position, letter), whose bit {@code i} is set iff. the
+ * {@code i}-th word of that length has the letter at that position, and one
+ * bitset per letter, whose bit {@code i} is set iff. the word contains the
+ * letter anywhere. The bitsets of a length are built the first time that
+ * length is queried, so lengths never asked for cost nothing.</p>
+ *
+ * <p>The index is safe to query from several threads. The list of words
+ * must not change once the index is built.</p>
+ */
+public final class WordIndex {
+  private static final int numLetters = 26;
+
+  // The bitsets for all words of one length.
+  private static final class LengthIndex {
+    // indexes into `words` of the words of this length; bit i of each bitset
+    // is about words.get(wordIds[i])
+    final int[] wordIds;
+    // longs per bitset
+    final int stride;
+    // bitset of (position p, letter c) at [(p * 26 + c) * stride, + stride)
+    final long[] positional;
+    // bitset of letter c at [c * stride, + stride)
+    final long[] contains;
+
+    LengthIndex(List<String> words, int length, int[] wordIds) {
+      this.wordIds = wordIds;
+      stride = (wordIds.length + 63) >>> 6;
+      positional = new long[length * numLetters * stride];
+      contains = new long[numLetters * stride];
+      for (int i = 0; i < wordIds.length; i++) {
+        final String word = words.get(wordIds[i]);
+        final int slot = i >>> 6;
+        final long bit = 1L << i;
+        for (int p = 0; p < length; p++) {
+          final int letter = word.charAt(p) - 'a';
+          positional[(p * numLetters + letter) * stride + slot] |= bit;
+          contains[letter * stride + slot] |= bit;
+        }
+      }
+    }
+  }
+
+  /**
+   * Words consistent with a guess view, as returned by
+   * {@link WordIndex#findCandidates(String, int)}.
+   */
+  public final class CandidateWords {
+    private final LengthIndex lengthIndex;
+    // null if there are no words of the queried length
+    private final long[] bits;
+    private final int size;
+
+    private CandidateWords(LengthIndex lengthIndex, long[] bits) {
+      this.lengthIndex = lengthIndex;
+      this.bits = bits;
+      int count = 0;
+      if (bits != null) {
+        for (long slot : bits) {
+          count += Long.bitCount(slot);
+        }
+      }
+      this.size = count;
+    }
+
+    /**
+     * Returns how many words are candidates.
+     */
+    public int size() {
+      return size;
+    }
+
+    /**
+     * Returns the candidate words, in the order of the indexed list.
+     */
+    public List<String> getWords() {
+      String[] candidates = new String[size];
+      int n = 0;
+      for (int slot = 0; bits != null && slot < bits.length; slot++) {
+        long remaining = bits[slot];
+        while (remaining != 0) {
+          final int i = (slot << 6) + Long.numberOfTrailingZeros(remaining);
+          candidates[n++] = words.get(lengthIndex.wordIds[i]);
+          remaining &= remaining - 1;
+        }
+      }
+      return List.of(candidates);
+    }
+
+    /**
+     * Returns, for every letter {@code c}, how many candidates contain
+     * {@code c} at least once, at index {@code c - 'a'}.
+     */
+    public int[] getLetterCounts() {
+      int[] counts = new int[numLetters];
+      if (bits == null) {
+        return counts;
+      }
+      final int stride = lengthIndex.stride;
+      final long[] contains = lengthIndex.contains;
+      for (int letter = 0; letter < numLetters; letter++) {
+        int count = 0;
+        final int base = letter * stride;
+        for (int slot = 0; slot < stride; slot++) {
+          count += Long.bitCount(bits[slot] & contains[base + slot]);
+        }
+        counts[letter] = count;
+      }
+      return counts;
+    }
+  }
+
+  private final List<String> words;
+  // wordIdsByLength[l] holds the indexes of the words of length l
+  private final int[][] wordIdsByLength;
+  private final AtomicReferenceArray<LengthIndex> lengthIndexes;
+
+  /**
+   * Initializes an index over {@code words}, which are only read, not
+   * copied.
+   *
+   * @throws IllegalArgumentException if a word has a character other than a
+   *                                  lowercase letter
+   */
+  public WordIndex(List<String> words) {
+    this.words = words;
+    int maxLength = 0;
+    int[] counts = new int[GuessWord.MAX_LENGTH + 1];
+    for (int i = 0; i < words.size(); i++) {
+      final String word = words.get(i);
+      for (int p = 0; p < word.length(); p++) {
+        final char letter = word.charAt(p);
+        if (letter < 'a' || letter > 'z') {
+          throw new IllegalArgumentException(
+              String.format("Cannot index \"%s\"", word));
+        }
+      }
+      if (word.length() >= counts.length) {
+        counts = Arrays.copyOf(counts, word.length() + 1);
+      }
+      counts[word.length()]++;
+      maxLength = Math.max(maxLength, word.length());
+    }
+
+    wordIdsByLength = new int[maxLength + 1][];
+    for (int length = 0; length <= maxLength; length++) {
+      wordIdsByLength[length] = new int[counts[length]];
+    }
+    int[] cursors = new int[maxLength + 1];
+    for (int i = 0; i < words.size(); i++) {
+      final int length = words.get(i).length();
+      wordIdsByLength[length][cursors[length]++] = i;
+    }
+    lengthIndexes = new AtomicReferenceArray<>(maxLength + 1);
+  }
+
+  // Returns the bitsets of words of `length`, building them on first use.
+  private LengthIndex indexOfLength(int length) {
+    LengthIndex lengthIndex = lengthIndexes.get(length);
+    if (lengthIndex == null) {
+      // racing threads build the same bitsets; only one set is kept
+      lengthIndexes.compareAndSet(length, null,
+          new LengthIndex(words, length, wordIdsByLength[length]));
+      lengthIndex = lengthIndexes.get(length);
+    }
+    return lengthIndex;
+  }
+
+  /**
+   * Returns how many indexed words are exactly {@code length} letters long.
+   */
+  public int getNumWords(int length) {
+    return length >= 0 && length < wordIdsByLength.length
+        ? wordIdsByLength[length].length : 0;
+  }
+
+  /**
+   * Returns the words that could be the word to guess of a game showing
+   * {@code guessView} after {@code lettersGuessedMask} were guessed: words of
+   * the same length with every revealed letter in place, none of the letters
+   * guessed wrong, and none of the revealed letters at a hidden position.
+   *
+   * @param guessView          the guess view ('-' for each hidden letter)
+   * @param lettersGuessedMask letters guessed so far, as a 26-bit mask (see
+   *                           {@link Game#getLettersGuessedMask()}); letters
+   *                           revealed in {@code guessView} may be left out
+   * @return the candidate words
+   * @throws IllegalArgumentException if {@code guessView} has a character
+   *                                  other than '-' or a lowercase letter
+   */
+  public CandidateWords findCandidates(String guessView,
+                                       int lettersGuessedMask) {
+    final int length = guessView.length();
+    int revealed = 0;
+    for (int p = 0; p < length; p++) {
+      final char shown = guessView.charAt(p);
+      if (shown != '-') {
+        if (shown < 'a' || shown > 'z') {
+          throw new IllegalArgumentException(
+              String.format("Invalid guess view \"%s\"", guessView));
+        }
+        revealed |= 1 << (shown - 'a');
+      }
+    }
+    if (getNumWords(length) == 0) {
+      return new CandidateWords(null, null);
+    }
+
+    LengthIndex lengthIndex = indexOfLength(length);
+    final int stride = lengthIndex.stride;
+    final long[] positional = lengthIndex.positional;
+    long[] bits = new long[stride];
+    Arrays.fill(bits, -1L);
+    final int tail = lengthIndex.wordIds.length & 63;
+    if (tail != 0) {
+      bits[stride - 1] = (1L << tail) - 1;
+    }
+
+    for (int p = 0; p < length; p++) {
+      final char shown = guessView.charAt(p);
+      if (shown != '-') {
+        and(bits, positional, (p * numLetters + shown - 'a') * stride);
+      } else {
+        // a revealed letter is revealed at every position it is at
+        for (int letters = revealed; letters != 0; letters &= letters - 1) {
+          andNot(bits, positional,
+              (p * numLetters + Integer.numberOfTrailingZeros(letters))
+                  * stride);
+        }
+      }
+    }
+    for (int wrong = lettersGuessedMask & ~revealed & ((1 << numLetters) - 1);
+         wrong != 0; wrong &= wrong - 1) {
+      andNot(bits, lengthIndex.contains,
+          Integer.numberOfTrailingZeros(wrong) * stride);
+    }
+    return new CandidateWords(lengthIndex, bits);
+  }
+
+  private static void and(long[] bits, long[] bitsets, int base) {
+    for (int slot = 0; slot < bits.length; slot++) {
+      bits[slot] &= bitsets[base + slot];
+    }
+  }
+
+  private static void andNot(long[] bits, long[] bitsets, int base) {
+    for (int slot = 0; slot < bits.length; slot++) {
+      bits[slot] &= ~bitsets[base + slot];
+    }
+  }
+}
@@ -1,12 +1,21 @@
 package com.vlxu.entities;
 
+import com.vlxu.coreexceptions.InvalidGuessWord;
 import com.vlxu.coreexceptions.RepoException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.random.RandomGenerator;
 
 /**
  * The word repository is responsible for providing a list of words that a user
  * can guess.
  */
 public interface WordRepository {
+  /**
+   * How many words {@link #getRandomWord(IntRange, RandomGenerator)} draws by
+   * default before giving up.
+   */
+  int MAX_LENGTH_DRAW_ATTEMPTS = 1000;
+
   /**
    * Returns a random word to be guessed.
    *
@@ -14,4 +23,96 @@ public interface WordRepository {
    * @throws RepoException see {@link RepoException}
    */
   String getRandomWord() throws RepoException;
+
+  /**
+   * Returns a random word to be guessed, ready to be played.
+   *
+   * <p>Repositories that validate their words ahead of time should override
+   * this to skip validating the word again.</p>
+   *
+   * @return random word to be guessed
+   * @throws RepoException    see {@link RepoException}
+   * @throws InvalidGuessWord when the word drawn is not a valid guess word
+   */
+  default GuessWord getRandomGuessWord() throws RepoException, InvalidGuessWord {
+    return new GuessWord(getRandomWord());
+  }
+
+  /**
+   * Returns a random word to be guessed, drawn using {@code random}, so that
+   * the same sequence of words is drawn from the same seed (e.g., to
+   * reproduce a simulation).
+   *
+   * <p>The default implementation ignores {@code random} and is therefore not
+   * reproducible; repositories should override it.</p>
+   *
+   * @return random word to be guessed
+   * @throws RepoException see {@link RepoException}
+   */
+  default String getRandomWord(RandomGenerator random) throws RepoException {
+    return getRandomWord();
+  }
+
+  /**
+   * Returns a random word to be guessed, drawn using {@code random}, ready to
+   * be played. See {@link #getRandomWord(RandomGenerator)} and
+   * {@link #getRandomGuessWord()}.
+   *
+   * @return random word to be guessed
+   * @throws RepoException    see {@link RepoException}
+   * @throws InvalidGuessWord when the word drawn is not a valid guess word
+   */
+  default GuessWord getRandomGuessWord(RandomGenerator random)
+      throws RepoException, InvalidGuessWord {
+    return new GuessWord(getRandomWord(random));
+  }
+
+  /**
+   * Returns a random word to be guessed that is exactly {@code length}
+   * letters long. See {@link #getRandomWord(IntRange, RandomGenerator)}.
+   *
+   * @return random word of the given length
+   * @throws RepoException if there is no such word, or see
+   *                       {@link RepoException}
+   */
+  default String getRandomWord(int length) throws RepoException {
+    return getRandomWord(new IntRange(length, length));
+  }
+
+  /**
+   * Returns a random word to be guessed whose length is in {@code lengths}.
+   * See {@link #getRandomWord(IntRange, RandomGenerator)}.
+   *
+   * @return random word with a length in the range
+   * @throws RepoException if there is no such word, or see
+   *                       {@link RepoException}
+   */
+  default String getRandomWord(IntRange lengths) throws RepoException {
+    return getRandomWord(lengths, ThreadLocalRandom.current());
+  }
+
+  /**
+   * Returns a random word to be guessed whose length is in {@code lengths},
+   * drawn using {@code random}. Every such word is equally likely.
+   *
+   * <p>The default implementation draws words with
+   * {@link #getRandomWord(RandomGenerator)} until one has a length in the
+   * range, and gives up after {@value #MAX_LENGTH_DRAW_ATTEMPTS} attempts.
+   * Repositories should override it with a draw that needs no retries.</p>
+   *
+   * @return random word with a length in the range
+   * @throws RepoException if there is no such word, or see
+   *                       {@link RepoException}
+   */
+  default String getRandomWord(IntRange lengths, RandomGenerator random)
+      throws RepoException {
+    for (int i = 0; i < MAX_LENGTH_DRAW_ATTEMPTS; i++) {
+      final String word = getRandomWord(random);
+      if (lengths.contains(word.length())) {
+        return word;
+      }
+    }
+    throw new RepoException(
+        String.format("No word of length %s was drawn", lengths));
+  }
 }
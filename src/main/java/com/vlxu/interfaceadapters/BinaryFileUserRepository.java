@@ -0,0 +1,540 @@
+package com.vlxu.interfaceadapters;
+
+import com.vlxu.coreexceptions.FirstUserException;
+import com.vlxu.coreexceptions.InvalidUserNameException;
+import com.vlxu.coreexceptions.NotPermittedException;
+import com.vlxu.coreexceptions.RepoException;
+import com.vlxu.coreexceptions.UserExistsException;
+import com.vlxu.coreexceptions.UserNotFoundException;
+import com.vlxu.entities.User;
+import com.vlxu.entities.UserRepository;
+import com.vlxu.usecases.GetAllUserInfo;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * A {@link UserRepository} backed by a file of fixed-width binary records.
+ *
+ * <p>The file starts with a 16-byte header (magic number, format version and
+ * record size), followed by one 64-byte record per user:</p>
+ * <pre>
+ *   offset 0  int   number of words successfully guessed (big-endian)
+ *   offset 4  byte  flags: 1 = root, 2 = removed (tombstone)
+ *   offset 5  byte  length of the username in bytes
+ *   offset 6  bytes username (US-ASCII, at most 58 bytes), zero padded
+ * </pre>
+ *
+ * <p>Since every record has the same size and stays in place, each change
+ * writes only what changed: {@code saveUserInfo} rewrites the 4 bytes of the
+ * user's score, {@code removeUser} sets the tombstone flag of the user's
+ * record, and {@code addUser} appends one record. Removed records keep their
+ * space until {@link #compact()} rewrites the file; {@link #close()} does so
+ * once at least half of the records are tombstones.</p>
+ *
+ * <p>Changes are written to the file as they are made, but are only forced
+ * to the storage device by {@link #sync()} and {@link #close()}. A record
+ * torn by a crash while it was being appended is discarded on load.</p>
+ *
+ * <p>Use {@link #convertFromText(String, String)} and
+ * {@link #convertToText(String, String)} to move user records between this
+ * format and the text format of {@link TextFileRepository}.</p>
+ */
+public class BinaryFileUserRepository
+    implements UserRepository, GetAllUserInfo, AutoCloseable {
+  /**
+   * The longest username this repository can store.
+   */
+  public static final int MAX_USER_NAME_LENGTH = 58;
+
+  private static final int magic = 0x48475553; // "HGUS"
+  private static final short version = 1;
+  private static final int headerSize = 16;
+  private static final int recordSize = 64;
+  private static final int scoreOffset = 0;
+  private static final int flagsOffset = 4;
+  private static final int nameLengthOffset = 5;
+  private static final int nameOffset = 6;
+  private static final byte rootFlag = 1;
+  private static final byte removedFlag = 2;
+  // records read or written per I/O call when scanning or rewriting the file
+  private static final int recordsPerBatch = 1024;
+  private static final Pattern userNamePattern = Pattern.compile("[a-zA-Z0-9]+");
+
+  private final Path filePath;
+  private FileChannel channel;
+  private final ByteBuffer recordBuffer = ByteBuffer.allocate(recordSize);
+
+  // users by name, each kept with the slot of its record
+  private final UserTable userRecords;
+  private int numSlots;
+  private int numTombstones;
+
+  private User signedInUser = null;
+
+  /**
+   * Initializes a repository backed by the binary user records file at
+   * {@code filePath}, creating the file if it does not exist yet.
+   *
+   * @throws RepoException if the file cannot be read or is not a binary user
+   *                       records file
+   */
+  public BinaryFileUserRepository(String filePath) throws RepoException {
+    this(Paths.get(filePath), false);
+  }
+
+  // Loads the records at `filePath`. A read-only repository never writes to
+  // the file: it is not created or repaired, and must not be changed.
+  private BinaryFileUserRepository(Path filePath, boolean readOnly)
+      throws RepoException {
+    this.filePath = filePath;
+    this.userRecords = new UserTable();
+    this.channel = open(filePath, readOnly);
+    try {
+      load(readOnly);
+    } catch (RepoException e) {
+      closeQuietly(channel);
+      throw e;
+    }
+  }
+
+  private static FileChannel open(Path path, boolean readOnly)
+      throws RepoException {
+    try {
+      return readOnly
+          ? FileChannel.open(path, StandardOpenOption.READ)
+          : FileChannel.open(path, StandardOpenOption.CREATE,
+              StandardOpenOption.READ, StandardOpenOption.WRITE);
+    } catch (IOException e) {
+      throw new RepoException(String.format("Could not open file: %s",
+          path.toAbsolutePath()));
+    }
+  }
+
+  private static void closeQuietly(FileChannel channel) {
+    try {
+      channel.close();
+    } catch (IOException e) {
+      // nothing left to do with this channel
+    }
+  }
+
+  private static long offsetOf(int slot) {
+    return headerSize + (long) slot * recordSize;
+  }
+
+  // Read all records, or write the header if the file is new. A torn last
+  // record is cut off unless `readOnly`.
+  private void load(boolean readOnly) throws RepoException {
+    try {
+      final long fileSize = channel.size();
+      if (fileSize == 0) {
+        if (!readOnly) {
+          writeFully(channel, header(), 0);
+        }
+        return;
+      }
+      ByteBuffer header = ByteBuffer.allocate(headerSize);
+      readFully(header, 0);
+      header.flip();
+      if (header.remaining() < headerSize || header.getInt() != magic
+          || header.getShort() != version || header.getShort() != recordSize) {
+        throw new RepoException(String.format(
+            "Not a binary user records file: %s", filePath.toAbsolutePath()));
+      }
+
+      // a partial last record was torn by a crash while being appended
+      final long numRecords = (fileSize - headerSize) / recordSize;
+      if (numRecords > Integer.MAX_VALUE) {
+        throw new RepoException(String.format("Too many records in %s",
+            filePath.toAbsolutePath()));
+      }
+      if (offsetOf((int) numRecords) != fileSize && !readOnly) {
+        channel.truncate(offsetOf((int) numRecords));
+      }
+
+      ByteBuffer batch = ByteBuffer.allocate(recordsPerBatch * recordSize);
+      for (int first = 0; first < numRecords; first += recordsPerBatch) {
+        batch.clear();
+        batch.limit((int) Math.min(recordsPerBatch, numRecords - first)
+            * recordSize);
+        readFully(batch, offsetOf(first));
+        batch.flip();
+        for (int slot = first; batch.hasRemaining(); slot++) {
+          loadRecord(batch, slot);
+        }
+      }
+      numSlots = (int) numRecords;
+    } catch (IOException e) {
+      throw new RepoException(String.format("Error loading records from %s",
+          filePath.toAbsolutePath()));
+    }
+  }
+
+  // Decode the record at the position of `batch` (stored at `slot`) into the
+  // user table, and advance `batch` to the next record.
+  private void loadRecord(ByteBuffer batch, int slot) throws RepoException {
+    final int start = batch.position();
+    final int score = batch.getInt(start + scoreOffset);
+    final byte flags = batch.get(start + flagsOffset);
+    final int nameLength = batch.get(start + nameLengthOffset);
+    batch.position(start + recordSize);
+
+    if ((flags & removedFlag) != 0) {
+      numTombstones++;
+      return;
+    }
+    if (nameLength < 1 || nameLength > MAX_USER_NAME_LENGTH || score < 0) {
+      throw new RepoException(String.format(
+          "Invalid user record found at slot %d of %s", slot,
+          filePath.toAbsolutePath()));
+    }
+    String userName = new String(batch.array(),
+        batch.arrayOffset() + start + nameOffset, nameLength,
+        StandardCharsets.US_ASCII);
+    User user = new User(userName, score, (flags & rootFlag) != 0);
+    if (userRecords.contains(userName)
+        || (user.getIsRoot() && userRecords.getRootUser() != null)) {
+      throw new RepoException(String.format(
+          "Invalid user record found at slot %d of %s", slot,
+          filePath.toAbsolutePath()));
+    }
+    userRecords.add(user, slot);
+  }
+
+  private void readFully(ByteBuffer buffer, long position) throws IOException {
+    while (buffer.hasRemaining()) {
+      final int read = channel.read(buffer, position);
+      if (read < 0) {
+        break;
+      }
+      position += read;
+    }
+  }
+
+  private static void writeFully(FileChannel channel, ByteBuffer buffer,
+                                 long position) throws IOException {
+    while (buffer.hasRemaining()) {
+      position += channel.write(buffer, position);
+    }
+  }
+
+  // Write `buffer` at `position` of the records file.
+  private void write(ByteBuffer buffer, long position) throws RepoException {
+    try {
+      writeFully(channel, buffer, position);
+    } catch (IOException e) {
+      throw new RepoException(String.format("Error writing to %s",
+          filePath.toAbsolutePath()));
+    }
+  }
+
+  private static ByteBuffer header() {
+    ByteBuffer header = ByteBuffer.allocate(headerSize);
+    header.putInt(magic).putShort(version).putShort((short) recordSize);
+    header.clear();
+    return header;
+  }
+
+  // Encode `user` as a record at the position of `buffer`.
+  private static void putRecord(ByteBuffer buffer, User user) {
+    byte[] name = user.getUserName().getBytes(StandardCharsets.US_ASCII);
+    final int start = buffer.position();
+    buffer.putInt(user.getNumSuccess());
+    buffer.put(user.getIsRoot() ? rootFlag : 0);
+    buffer.put((byte) name.length);
+    buffer.put(name);
+    // zero the padding, which may hold an earlier record
+    while (buffer.position() < start + recordSize) {
+      buffer.put((byte) 0);
+    }
+  }
+
+  // Returns the record of user `userName`.
+  private User findUser(String userName) throws UserNotFoundException {
+    User userFromRecord = userRecords.get(userName);
+    if (userFromRecord == null) {
+      throw new UserNotFoundException(userName);
+    }
+
+    return userFromRecord;
+  }
+
+  @Override
+  public User addUser(String userName)
+      throws InvalidUserNameException, UserExistsException, RepoException {
+    final boolean isValidUserName = userNamePattern.matcher(userName).matches()
+        && userName.length() <= MAX_USER_NAME_LENGTH;
+    if (!isValidUserName) {
+      throw new InvalidUserNameException();
+    }
+
+    if (userRecords.contains(userName)) {
+      throw new UserExistsException(userName);
+    }
+
+    final boolean isFirstUser = userRecords.isEmpty();
+    User newUser = new User(userName, 0, isFirstUser);
+    recordBuffer.clear();
+    putRecord(recordBuffer, newUser);
+    recordBuffer.flip();
+    write(recordBuffer, offsetOf(numSlots));
+
+    userRecords.add(newUser, numSlots);
+    numSlots++;
+    return newUser;
+  }
+
+  @Override
+  public void removeUser(String userName)
+      throws FirstUserException, NotPermittedException, UserNotFoundException,
+      RepoException {
+    if (signedInUser == null || !signedInUser.getIsRoot()) {
+      throw new NotPermittedException(String.format("Delete user %s", userName),
+          "Logged in as root user");
+    }
+
+    User userFromRecord = findUser(userName);
+    if (userFromRecord.getIsRoot()) {
+      throw new FirstUserException(String.format("Delete user %s", userName));
+    }
+
+    recordBuffer.clear();
+    recordBuffer.put(removedFlag).flip();
+    write(recordBuffer,
+        offsetOf(userRecords.getPosition(userName)) + flagsOffset);
+
+    userRecords.remove(userName);
+    numTombstones++;
+  }
+
+  @Override
+  public void saveUserInfo(User user)
+      throws UserNotFoundException, NotPermittedException, RepoException {
+    User userToUpdate = findUser(user.getUserName());
+    if (userToUpdate.getIsRoot() != user.getIsRoot()) {
+      throw new NotPermittedException("Cannot change user privileges",
+          "No Permissions available");
+    }
+
+    if (userToUpdate.getNumSuccess() != user.getNumSuccess()) {
+      recordBuffer.clear();
+      recordBuffer.putInt(user.getNumSuccess()).flip();
+      write(recordBuffer,
+          offsetOf(userRecords.getPosition(user.getUserName())) + scoreOffset);
+    }
+    userRecords.replace(user);
+  }
+
+  @Override
+  public User getUserInfo(String userName) throws UserNotFoundException {
+    return findUser(userName);
+  }
+
+  @Override
+  public void login(String userName) throws UserNotFoundException {
+    signedInUser = getUserInfo(userName);
+  }
+
+  @Override
+  public User getSignedInUser() throws UserNotFoundException {
+    if (signedInUser == null) {
+      throw new UserNotFoundException("null");
+    }
+    signedInUser = getUserInfo(signedInUser.getUserName());
+    return signedInUser;
+  }
+
+  @Override
+  public List<User> getAllUserInfo() {
+    List<User> allUsers = new ArrayList<>(userRecords.size());
+    for (User user : userRecords) {
+      allUsers.add(user);
+    }
+    return allUsers;
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * <p>Users are streamed in the order of their records, straight from the
+   * user table. Saving a user while the stream is in use is fine, but adding
+   * or removing one makes the stream throw
+   * {@link java.util.ConcurrentModificationException}.</p>
+   */
+  @Override
+  public Stream<User> streamAllUserInfo() {
+    return userRecords.stream();
+  }
+
+  /**
+   * Returns the number of removed records still taking up space in the file.
+   */
+  public int getNumTombstones() {
+    return numTombstones;
+  }
+
+  /**
+   * Forces all changes made so far to the storage device.
+   *
+   * @throws RepoException if the file cannot be synced
+   */
+  public void sync() throws RepoException {
+    try {
+      channel.force(false);
+    } catch (IOException e) {
+      throw new RepoException(String.format("Error syncing %s",
+          filePath.toAbsolutePath()));
+    }
+  }
+
+  /**
+   * Rewrites the records file without the records of removed users. The new
+   * file is written next to the current one and then atomically moved over
+   * it, so a crash during compaction leaves the current file intact.
+   *
+   * @throws RepoException if the file cannot be rewritten
+   */
+  public void compact() throws RepoException {
+    writeRecords(userRecords, filePath);
+    closeQuietly(channel);
+    channel = open(filePath, false);
+
+    userRecords.renumberPositions();
+    numSlots = userRecords.size();
+    numTombstones = 0;
+  }
+
+  /**
+   * Compacts the records file if at least half of its records are removed,
+   * then forces all changes to the storage device and closes the file.
+   */
+  @Override
+  public void close() throws RepoException {
+    try {
+      if (numTombstones > 0 && numTombstones >= userRecords.size()) {
+        compact();
+      }
+      sync();
+    } finally {
+      closeQuietly(channel);
+    }
+  }
+
+  // Write a records file holding `users` to a temp file, then atomically
+  // move it to `target`.
+  private static void writeRecords(Iterable<User> users, Path target)
+      throws RepoException {
+    final Path tempFile = target.resolveSibling(target.getFileName() + ".tmp");
+    try (FileChannel tempChannel = FileChannel.open(tempFile,
+        StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+        StandardOpenOption.TRUNCATE_EXISTING)) {
+      writeFully(tempChannel, header(), 0);
+      ByteBuffer batch = ByteBuffer.allocate(recordsPerBatch * recordSize);
+      long position = headerSize;
+      for (User user : users) {
+        if (!batch.hasRemaining()) {
+          batch.flip();
+          writeFully(tempChannel, batch, position);
+          position += batch.limit();
+          batch.clear();
+        }
+        putRecord(batch, user);
+      }
+      batch.flip();
+      writeFully(tempChannel, batch, position);
+      tempChannel.force(true);
+      Files.move(tempFile, target,
+          StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    } catch (IOException e) {
+      throw new RepoException(String.format("Error writing records to %s",
+          target.toAbsolutePath()));
+    }
+  }
+
+  /**
+   * Converts the text user records file at {@code textFilePath} (see
+   * {@link TextFileRepository}) to a binary user records file at
+   * {@code binaryFilePath}, replacing any file already there. The text file
+   * is left unchanged.
+   *
+   * @throws RepoException if the text file cannot be read, holds a record
+   *                       that cannot be stored in binary form, or holds the
+   *                       same username twice or more than one root user
+   */
+  public static void convertFromText(String textFilePath,
+                                     String binaryFilePath)
+      throws RepoException {
+    List<String> records;
+    try {
+      records = Files.readAllLines(Paths.get(textFilePath));
+    } catch (IOException e) {
+      throw new RepoException(String.format("Error loading records from %s",
+          Paths.get(textFilePath).toAbsolutePath()));
+    }
+    UserTable users = new UserTable();
+    for (String record : records) {
+      User user = UserRecordFormat.parse(record);
+      if (user.getUserName().length() > MAX_USER_NAME_LENGTH) {
+        throw new RepoException(String.format(
+            "Username too long for a binary user record: %s",
+            user.getUserName()));
+      }
+      if (users.contains(user.getUserName())) {
+        throw new RepoException(String.format("Duplicate user record for %s",
+            user.getUserName()));
+      }
+      if (user.getIsRoot() && users.getRootUser() != null) {
+        throw new RepoException(String.format(
+            "More than one root user: %s and %s",
+            users.getRootUser().getUserName(), user.getUserName()));
+      }
+      users.add(user);
+    }
+    writeRecords(users, Paths.get(binaryFilePath));
+  }
+
+  /**
+   * Converts the binary user records file at {@code binaryFilePath} to a text
+   * user records file at {@code textFilePath} (see
+   * {@link TextFileRepository}), replacing any file already there. Removed
+   * users are left out; the binary file is left unchanged.
+   *
+   * @throws RepoException if either file cannot be read or written
+   */
+  public static void convertToText(String binaryFilePath, String textFilePath)
+      throws RepoException {
+    if (!Files.exists(Paths.get(binaryFilePath))) {
+      throw new RepoException(String.format("No such file: %s",
+          Paths.get(binaryFilePath).toAbsolutePath()));
+    }
+    List<String> records = new ArrayList<>();
+    BinaryFileUserRepository repo =
+        new BinaryFileUserRepository(Paths.get(binaryFilePath), true);
+    closeQuietly(repo.channel);
+    for (User user : repo.userRecords) {
+      records.add(UserRecordFormat.format(user));
+    }
+
+    final Path target = Paths.get(textFilePath);
+    final Path tempFile = target.resolveSibling(target.getFileName() + ".tmp");
+    try {
+      Files.write(tempFile, records);
+      Files.move(tempFile, target,
+          StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    } catch (IOException e) {
+      throw new RepoException(String.format("Error saving to file at %s",
+          target.toAbsolutePath()));
+    }
+  }
+}
@@ -0,0 +1,84 @@
+package com.vlxu.interfaceadapters;
+
+/**
+ * A Bloom filter over usernames, used by a {@link SortedRun} to skip runs
+ * that cannot hold a username without reading them.
+ *
+ * <p>Keys are hashed once into 64 bits, and the probe positions are derived
+ * from the two halves of the hash by double hashing. At 10 bits per key the
+ * false positive rate is about 1%.</p>
+ */
+final class BloomFilter {
+  private final long[] bits;
+  private final int numHashes;
+
+  /**
+   * Creates an empty filter sized for {@code expectedKeys} keys at
+   * {@code bitsPerKey} bits per key.
+   */
+  BloomFilter(int expectedKeys, int bitsPerKey) {
+    final long numBits = Math.max(64, (long) expectedKeys * bitsPerKey);
+    this.bits = new long[(int) Math.min((numBits + 63) / 64, Integer.MAX_VALUE)];
+    this.numHashes = Math.max(1, (int) Math.round(bitsPerKey * Math.log(2)));
+  }
+
+  /**
+   * Restores a filter from the words returned by {@link #getBits()}.
+   */
+  BloomFilter(long[] bits, int numHashes) {
+    if (bits.length == 0 || numHashes < 1) {
+      throw new IllegalArgumentException("Empty Bloom filter");
+    }
+    this.bits = bits;
+    this.numHashes = numHashes;
+  }
+
+  // FNV-1a over the characters of `key`, then a final mix so that both
+  // halves of the hash are well spread.
+  private static long hash(String key) {
+    long hash = 0xcbf29ce484222325L;
+    for (int i = 0; i < key.length(); i++) {
+      hash = (hash ^ key.charAt(i)) * 0x100000001b3L;
+    }
+    hash ^= hash >>> 33;
+    hash *= 0xff51afd7ed558ccdL;
+    hash ^= hash >>> 33;
+    return hash;
+  }
+
+  void add(String key) {
+    final long hash = hash(key);
+    final int h1 = (int) hash;
+    final int h2 = (int) (hash >>> 32);
+    final long numBits = (long) bits.length * 64;
+    for (int i = 0; i < numHashes; i++) {
+      final long bit = Math.floorMod(h1 + (long) i * h2, numBits);
+      bits[(int) (bit >>> 6)] |= 1L << bit;
+    }
+  }
+
+  /**
+   * Returns {@code false} if {@code key} was certainly never added.
+   */
+  boolean mightContain(String key) {
+    final long hash = hash(key);
+    final int h1 = (int) hash;
+    final int h2 = (int) (hash >>> 32);
+    final long numBits = (long) bits.length * 64;
+    for (int i = 0; i < numHashes; i++) {
+      final long bit = Math.floorMod(h1 + (long) i * h2, numBits);
+      if ((bits[(int) (bit >>> 6)] & (1L << bit)) == 0) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  long[] getBits() {
+    return bits;
+  }
+
+  int getNumHashes() {
+    return numHashes;
+  }
+}
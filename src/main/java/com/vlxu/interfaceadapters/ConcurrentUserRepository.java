@@ -0,0 +1,233 @@
+package com.vlxu.interfaceadapters;
+
+import com.vlxu.coreexceptions.FirstUserException;
+import com.vlxu.coreexceptions.InvalidUserNameException;
+import com.vlxu.coreexceptions.NotPermittedException;
+import com.vlxu.coreexceptions.UserExistsException;
+import com.vlxu.coreexceptions.UserNotFoundException;
+import com.vlxu.entities.User;
+import com.vlxu.entities.UserRepository;
+import com.vlxu.usecases.GetAllUserInfo;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * An in-memory {@link UserRepository} that is safe to use from many threads.
+ *
+ * <p>Lookups ({@code getUserInfo}, {@code login}, {@code getSignedInUser})
+ * never lock. Mutations lock one of a fixed set of stripes chosen by
+ * username, so mutations of different usernames usually proceed in
+ * parallel, while mutations of the same username are serialized.</p>
+ *
+ * <p>The root user is claimed with a single compare-and-set, so exactly one
+ * user ever becomes root even when the first users are added concurrently,
+ * and the root user can never be removed or lose its root status.</p>
+ */
+public class ConcurrentUserRepository
+    implements UserRepository, GetAllUserInfo {
+  private static final int defaultNumStripes = 64;
+  private static final Pattern userNamePattern = Pattern.compile("[a-zA-Z0-9]+");
+
+  private final ConcurrentMap<String, User> users;
+  private final ReentrantLock[] stripes;
+  private final AtomicReference<String> rootUserName;
+  private volatile User signedInUser = null;
+
+  /**
+   * Initializes an empty repository.
+   */
+  public ConcurrentUserRepository() {
+    this(defaultNumStripes);
+  }
+
+  /**
+   * Initializes an empty repository whose mutations are spread over
+   * {@code numStripes} locks.
+   */
+  public ConcurrentUserRepository(int numStripes) {
+    if (numStripes < 1) {
+      throw new IllegalArgumentException("Number of stripes must be positive");
+    }
+    users = new ConcurrentHashMap<>();
+    stripes = new ReentrantLock[numStripes];
+    for (int i = 0; i < numStripes; i++) {
+      stripes[i] = new ReentrantLock();
+    }
+    rootUserName = new AtomicReference<>(null);
+  }
+
+  /**
+   * Initializes a repository holding {@code initialUsers} (e.g., users loaded
+   * from another repository). At most one of them may be root.
+   *
+   * @throws IllegalArgumentException if more than one user is root, or a
+   *                                  username appears twice
+   */
+  public ConcurrentUserRepository(Iterable<User> initialUsers) {
+    this();
+    for (User user : initialUsers) {
+      if (users.putIfAbsent(user.getUserName(), user) != null) {
+        throw new IllegalArgumentException(
+            String.format("User %s appears twice", user.getUserName()));
+      }
+      if (user.getIsRoot()
+          && !rootUserName.compareAndSet(null, user.getUserName())) {
+        throw new IllegalArgumentException("More than one root user");
+      }
+    }
+  }
+
+  private ReentrantLock stripeFor(String userName) {
+    // spread the hash so that similar usernames land on different stripes
+    final int hash = userName.hashCode();
+    return stripes[Math.floorMod(hash ^ (hash >>> 16), stripes.length)];
+  }
+
+  // Returns the record of user `userName`.
+  private User findUser(String userName) throws UserNotFoundException {
+    User userFromRecord = users.get(userName);
+    if (userFromRecord == null) {
+      throw new UserNotFoundException(userName);
+    }
+    return userFromRecord;
+  }
+
+  @Override
+  public User addUser(String userName)
+      throws InvalidUserNameException, UserExistsException {
+    if (!userNamePattern.matcher(userName).matches()) {
+      throw new InvalidUserNameException();
+    }
+
+    ReentrantLock stripe = stripeFor(userName);
+    stripe.lock();
+    try {
+      if (users.containsKey(userName)) {
+        throw new UserExistsException(userName);
+      }
+      final boolean isFirstUser = rootUserName.compareAndSet(null, userName);
+      User newUser = new User(userName, 0, isFirstUser);
+      users.put(userName, newUser);
+      return newUser;
+    } finally {
+      stripe.unlock();
+    }
+  }
+
+  @Override
+  public void removeUser(String userName)
+      throws FirstUserException, NotPermittedException, UserNotFoundException {
+    final User remover = signedInUser;
+    if (remover == null || !remover.getIsRoot()) {
+      throw new NotPermittedException(String.format("Delete user %s", userName),
+          "Logged in as root user");
+    }
+
+    ReentrantLock stripe = stripeFor(userName);
+    stripe.lock();
+    try {
+      User userFromRecord = findUser(userName);
+      if (userFromRecord.getIsRoot()) {
+        throw new FirstUserException(String.format("Delete user %s", userName));
+      }
+      users.remove(userName);
+    } finally {
+      stripe.unlock();
+    }
+  }
+
+  @Override
+  public void saveUserInfo(User user)
+      throws UserNotFoundException, NotPermittedException {
+    ReentrantLock stripe = stripeFor(user.getUserName());
+    stripe.lock();
+    try {
+      User userToUpdate = findUser(user.getUserName());
+      if (userToUpdate.getIsRoot() != user.getIsRoot()) {
+        throw new NotPermittedException("Cannot change user privileges",
+            "No Permissions available");
+      }
+      users.put(user.getUserName(), user);
+    } finally {
+      stripe.unlock();
+    }
+  }
+
+  /**
+   * Atomically records that user {@code userName} has successfully guessed
+   * another word. Unlike reading, incrementing and saving the user, no
+   * concurrent increment or save can be lost.
+   *
+   * @return the user's new score
+   * @throws UserNotFoundException when the user does not exist
+   */
+  public int incNumSuccess(String userName) throws UserNotFoundException {
+    ReentrantLock stripe = stripeFor(userName);
+    stripe.lock();
+    try {
+      User user = findUser(userName);
+      user.incNumSuccess();
+      return user.getNumSuccess();
+    } finally {
+      stripe.unlock();
+    }
+  }
+
+  @Override
+  public User getUserInfo(String userName) throws UserNotFoundException {
+    return findUser(userName);
+  }
+
+  @Override
+  public void login(String userName) throws UserNotFoundException {
+    signedInUser = findUser(userName);
+  }
+
+  @Override
+  public User getSignedInUser() throws UserNotFoundException {
+    final User user = signedInUser;
+    if (user == null) {
+      throw new UserNotFoundException("null");
+    }
+    return findUser(user.getUserName());
+  }
+
+  // Returns a copy of `user` that can be handed out without exposing the record.
+  private static User snapshotOf(User user) {
+    return new User(user.getUserName(), user.getNumSuccess(), user.getIsRoot());
+  }
+
+  @Override
+  public List<User> getAllUserInfo() {
+    List<User> allUsers = new ArrayList<>(users.size());
+    for (User user : users.values()) {
+      allUsers.add(snapshotOf(user));
+    }
+    return allUsers;
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * <p>The stream is weakly consistent: it never fails because of concurrent
+   * changes, and reflects some, all or none of the changes made while it is
+   * in use. Users are streamed in no particular order.</p>
+   */
+  @Override
+  public Stream<User> streamAllUserInfo() {
+    return users.values().stream().map(ConcurrentUserRepository::snapshotOf);
+  }
+
+  /**
+   * Returns the number of users in the repository.
+   */
+  public int size() {
+    return users.size();
+  }
+}
@@ -0,0 +1,25 @@
+package com.vlxu.interfaceadapters;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+
+/**
+ * The size and last modification time of a file, to tell cheaply whether the
+ * file changed since it was last read.
+ */
+record FileFingerprint(long size, FileTime lastModified) {
+  /**
+   * Returns the current fingerprint of {@code file}.
+   *
+   * @throws IOException if the attributes of the file cannot be read
+   */
+  static FileFingerprint of(Path file) throws IOException {
+    BasicFileAttributes attributes =
+        Files.readAttributes(file, BasicFileAttributes.class);
+    return new FileFingerprint(attributes.size(),
+        attributes.lastModifiedTime());
+  }
+}
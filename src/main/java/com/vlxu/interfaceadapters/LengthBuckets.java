@@ -0,0 +1,64 @@
+package com.vlxu.interfaceadapters;
+
+import com.vlxu.entities.GuessWord;
+import com.vlxu.entities.IntRange;
+
+/**
+ * Where each word length starts in a word bank whose valid words are ordered
+ * by length (shortest first, in file order within a length). The words of any
+ * range of lengths are then a contiguous run of indexes, so a uniform draw
+ * from them is a single random index, however rare the lengths are.
+ */
+final class LengthBuckets {
+  private static final int numBuckets =
+      GuessWord.MAX_LENGTH - GuessWord.MIN_LENGTH + 1;
+
+  // words of length l are at indexes [starts[b], starts[b + 1]), where
+  // b = l - GuessWord.MIN_LENGTH
+  private final int[] starts;
+
+  /**
+   * Lays out buckets for the valid words counted in {@code report}.
+   */
+  LengthBuckets(WordBankReport report) {
+    starts = new int[numBuckets + 1];
+    for (int b = 0; b < numBuckets; b++) {
+      starts[b + 1] = starts[b]
+          + report.getNumValidWords(b + GuessWord.MIN_LENGTH);
+    }
+  }
+
+  /**
+   * Returns the next free index of every bucket, indexed by
+   * {@code length - GuessWord.MIN_LENGTH}, for a word bank to place its words
+   * while it is loaded.
+   */
+  int[] newCursors() {
+    return starts.clone();
+  }
+
+  /**
+   * Returns the index of the first word at least {@code length} letters long.
+   */
+  int start(int length) {
+    if (length <= GuessWord.MIN_LENGTH) {
+      return 0;
+    }
+    if (length > GuessWord.MAX_LENGTH) {
+      return starts[numBuckets];
+    }
+    return starts[length - GuessWord.MIN_LENGTH];
+  }
+
+  /**
+   * Returns the index right after the last word whose length is in
+   * {@code lengths}; words in the range are at
+   * {@code [start(lengths.getMin()), end(lengths))}.
+   */
+  int end(IntRange lengths) {
+    if (lengths.getMax() >= GuessWord.MAX_LENGTH) {
+      return starts[numBuckets];
+    }
+    return start(lengths.getMax() + 1);
+  }
+}
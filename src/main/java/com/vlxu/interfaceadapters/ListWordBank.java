@@ -0,0 +1,69 @@
+package com.vlxu.interfaceadapters;
+
+import com.vlxu.entities.GuessWord;
+import java.util.List;
+
+/**
+ * A word bank held entirely on the heap. The lines of the file are kept as
+ * they are, so they can be written back unchanged, next to a table of the
+ * lines that are valid words.
+ */
+final class ListWordBank implements WordBank {
+  private final List<String> lines;
+  private final String[] validWords;
+  private final LengthBuckets lengthBuckets;
+  private final WordBankReport report;
+
+  ListWordBank(List<String> lines) {
+    this.lines = lines;
+
+    // One pass to validate every line and count the valid words of each
+    // length, and one to place the valid words in their length buckets.
+    WordBankReport.Builder reportBuilder = new WordBankReport.Builder();
+    for (int i = 0; i < lines.size(); i++) {
+      final String line = lines.get(i);
+      if (GuessWord.isValidGuessWord(line)) {
+        reportBuilder.addValidWord(line.length());
+      } else {
+        reportBuilder.addInvalidLine(i, line);
+      }
+    }
+    this.report = reportBuilder.build();
+    this.lengthBuckets = new LengthBuckets(report);
+
+    this.validWords = new String[report.getNumValidWords()];
+    int[] cursors = lengthBuckets.newCursors();
+    for (String line : lines) {
+      if (GuessWord.isValidGuessWord(line)) {
+        validWords[cursors[line.length() - GuessWord.MIN_LENGTH]++] = line;
+      }
+    }
+  }
+
+  /**
+   * Returns every line of the word bank file, valid or not, in file order.
+   */
+  List<String> getLines() {
+    return lines;
+  }
+
+  @Override
+  public int size() {
+    return validWords.length;
+  }
+
+  @Override
+  public String getWord(int index) {
+    return validWords[index];
+  }
+
+  @Override
+  public LengthBuckets getLengthBuckets() {
+    return lengthBuckets;
+  }
+
+  @Override
+  public WordBankReport getReport() {
+    return report;
+  }
+}
@@ -0,0 +1,58 @@
+package com.vlxu.interfaceadapters;
+
+/**
+ * Optional settings for an {@link LsmUserRepository}.
+ */
+public class LsmOptions {
+  private int memtableLimit = 4096;
+  private int maxRuns = 4;
+  private boolean syncWrites = false;
+
+  /**
+   * Sets how many entries the memtable may hold before it is written out as
+   * a sorted run. Larger memtables mean fewer, larger runs, at the cost of
+   * memory and of a longer log to replay after a crash.
+   */
+  public LsmOptions withMemtableLimit(int entries) {
+    if (entries < 1) {
+      throw new IllegalArgumentException("Memtable limit must be positive");
+    }
+    this.memtableLimit = entries;
+    return this;
+  }
+
+  /**
+   * Sets how many sorted runs may exist before they are compacted into one
+   * in the background. Every run may have to be checked by a lookup, so this
+   * bounds the cost of a lookup.
+   */
+  public LsmOptions withMaxRuns(int runs) {
+    if (runs < 1) {
+      throw new IllegalArgumentException("Max runs must be positive");
+    }
+    this.maxRuns = runs;
+    return this;
+  }
+
+  /**
+   * Enables or disables forcing the write-ahead log to disk on every change.
+   * Without it, changes survive a crash of the process but may be lost if
+   * the machine fails before the operating system writes them out.
+   */
+  public LsmOptions withSyncWrites(boolean syncWrites) {
+    this.syncWrites = syncWrites;
+    return this;
+  }
+
+  public int getMemtableLimit() {
+    return memtableLimit;
+  }
+
+  public int getMaxRuns() {
+    return maxRuns;
+  }
+
+  public boolean isSyncWrites() {
+    return syncWrites;
+  }
+}
@@ -0,0 +1,668 @@
+package com.vlxu.interfaceadapters;
+
+import com.vlxu.coreexceptions.FirstUserException;
+import com.vlxu.coreexceptions.InvalidUserNameException;
+import com.vlxu.coreexceptions.NotPermittedException;
+import com.vlxu.coreexceptions.RepoException;
+import com.vlxu.coreexceptions.UserExistsException;
+import com.vlxu.coreexceptions.UserNotFoundException;
+import com.vlxu.entities.User;
+import com.vlxu.entities.UserRepository;
+import com.vlxu.usecases.GetAllUserInfo;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+/**
+ * A {@link UserRepository} backed by an embedded log-structured merge
+ * store, for user bases too large to keep in memory.
+ *
+ * <p>Changes are appended to a write-ahead log and applied to an in-memory,
+ * sorted memtable; a removal is recorded as a tombstone. Once the memtable
+ * reaches its limit (see {@link LsmOptions}) it is written out as an
+ * immutable {@link SortedRun} and the log is emptied, so every change costs
+ * one sequential append. A lookup checks the memtable and then the runs,
+ * newest first, skipping runs whose Bloom filter rules the user out and
+ * reading a single block of any other run; the number of runs is bounded by
+ * compacting them into one in the background, which also drops
+ * tombstones.</p>
+ *
+ * <p>The directory holds the log ({@code wal.log}), the runs
+ * ({@code run-<number>.dat}) and a manifest ({@code MANIFEST}) naming the
+ * live runs and the root user. The manifest is replaced atomically whenever
+ * the set of runs changes, and the log is replayed when the repository is
+ * opened, so no acknowledged change is lost if the process dies.</p>
+ *
+ * <p>As in the other repositories, the first user added is root, and the
+ * root user can never be removed or lose its root status. Lookups share a
+ * read lock, while changes are serialized by a write lock. The directory
+ * must not be used by more than one repository at a time.</p>
+ */
+public class LsmUserRepository
+    implements UserRepository, GetAllUserInfo, AutoCloseable {
+  private static final String manifestFileName = "MANIFEST";
+  private static final String logFileName = "wal.log";
+  private static final Pattern userNamePattern = Pattern.compile("[a-zA-Z0-9]+");
+
+  private final Path directory;
+  private final LsmOptions options;
+
+  private final ReadWriteLock lock = new ReentrantReadWriteLock();
+  // changes since the last run was written, by name; a null value is a
+  // tombstone. Guarded by `lock`.
+  private TreeMap<String, User> memtable = new TreeMap<>();
+  // newest first. Guarded by `lock`.
+  private List<SortedRun> runs = new ArrayList<>();
+  private long nextRunNumber = 0;
+  private String rootUserName = null;
+  private final FileChannel log;
+
+  private final ExecutorService compactor;
+  private Future<?> compaction = null;
+  // why the last background compaction failed, until it is reported.
+  // Guarded by `lock`.
+  private Exception compactionFailure = null;
+
+  private volatile User signedInUser = null;
+
+  /**
+   * Opens the store in {@code directoryPath} with default options, creating
+   * it if it does not exist yet.
+   */
+  public LsmUserRepository(String directoryPath) throws RepoException {
+    this(directoryPath, new LsmOptions());
+  }
+
+  /**
+   * Opens the store in {@code directoryPath}, creating it if it does not
+   * exist yet, and replays the write-ahead log.
+   *
+   * @param directoryPath directory holding the log, runs and manifest
+   * @param options       see {@link LsmOptions}
+   * @throws RepoException if the store cannot be read
+   */
+  public LsmUserRepository(String directoryPath, LsmOptions options)
+      throws RepoException {
+    this.directory = Paths.get(directoryPath);
+    this.options = options;
+    try {
+      Files.createDirectories(directory);
+    } catch (IOException e) {
+      throw new RepoException(String.format("Could not create directory: %s",
+          directory.toAbsolutePath()));
+    }
+
+    loadManifest();
+    this.log = replayLog();
+    this.compactor = Executors.newSingleThreadExecutor(r -> {
+      Thread thread = new Thread(r, "lsm-compaction");
+      thread.setDaemon(true);
+      return thread;
+    });
+  }
+
+  // Opens the runs named in the manifest, and deletes runs that are not
+  // (the remains of a flush or compaction that did not complete).
+  private void loadManifest() throws RepoException {
+    final Path manifestFile = directory.resolve(manifestFileName);
+    Set<String> liveRuns = new HashSet<>();
+    if (Files.exists(manifestFile)) {
+      List<String> lines;
+      try {
+        lines = Files.readAllLines(manifestFile);
+      } catch (IOException e) {
+        throw new RepoException(String.format("Error loading records from %s",
+            manifestFile.toAbsolutePath()));
+      }
+      for (String line : lines) {
+        final String[] fields = line.split("#", 2);
+        if (fields.length != 2) {
+          throw new RepoException(String.format("Invalid manifest line: %s",
+              line));
+        }
+        switch (fields[0]) {
+          case "root" -> rootUserName = fields[1].isEmpty() ? null : fields[1];
+          case "next" -> {
+            try {
+              nextRunNumber = Long.parseLong(fields[1]);
+            } catch (NumberFormatException e) {
+              throw new RepoException(String.format(
+                  "Invalid manifest line: %s", line));
+            }
+          }
+          case "run" -> {
+            liveRuns.add(fields[1]);
+            runs.add(SortedRun.open(directory.resolve(fields[1])));
+          }
+          default -> throw new RepoException(String.format(
+              "Invalid manifest line: %s", line));
+        }
+      }
+    }
+
+    try (DirectoryStream<Path> files =
+             Files.newDirectoryStream(directory, "run-*.dat")) {
+      for (Path file : files) {
+        if (!liveRuns.contains(file.getFileName().toString())) {
+          Files.deleteIfExists(file);
+        }
+      }
+    } catch (IOException e) {
+      throw new RepoException(String.format(
+          "Error deleting stale runs in %s", directory.toAbsolutePath()));
+    }
+  }
+
+  // Replays the log into the memtable and opens it for appending. A record
+  // without a trailing newline is the remains of an interrupted write; it is
+  // cut off so that new records start on a line of their own.
+  private FileChannel replayLog() throws RepoException {
+    final Path logFile = directory.resolve(logFileName);
+    try {
+      byte[] contents =
+          Files.exists(logFile) ? Files.readAllBytes(logFile) : new byte[0];
+      int lineStart = 0;
+      for (int i = 0; i < contents.length; i++) {
+        if (contents[i] != '\n') {
+          continue;
+        }
+        if (contents[lineStart] == '-') {
+          memtable.put(new String(contents, lineStart + 1, i - lineStart - 1,
+              StandardCharsets.ISO_8859_1), null);
+        } else {
+          User user = UserRecordFormat.parse(contents, lineStart, i);
+          memtable.put(user.getUserName(), user);
+          if (user.getIsRoot() && rootUserName == null) {
+            rootUserName = user.getUserName();
+          }
+        }
+        lineStart = i + 1;
+      }
+      FileChannel channel = FileChannel.open(logFile, StandardOpenOption.CREATE,
+          StandardOpenOption.WRITE);
+      channel.truncate(lineStart);
+      channel.position(lineStart);
+      return channel;
+    } catch (IOException e) {
+      throw new RepoException(String.format("Error replaying log at %s",
+          logFile.toAbsolutePath()));
+    }
+  }
+
+  // Appends `record` to the log. Called with the write lock held.
+  private void appendToLog(String record) throws RepoException {
+    ByteBuffer bytes =
+        ByteBuffer.wrap((record + "\n").getBytes(StandardCharsets.UTF_8));
+    try {
+      while (bytes.hasRemaining()) {
+        log.write(bytes);
+      }
+      if (options.isSyncWrites()) {
+        log.force(false);
+      }
+    } catch (IOException e) {
+      throw new RepoException(String.format("Error writing to log at %s",
+          directory.resolve(logFileName).toAbsolutePath()));
+    }
+  }
+
+  // Returns the current record of `userName`, or null if there is none. The
+  // record must not be handed out. Called with a lock held.
+  private User lookup(String userName) throws RepoException {
+    if (memtable.containsKey(userName)) {
+      return memtable.get(userName);
+    }
+    for (SortedRun run : runs) {
+      Map.Entry<String, User> entry = run.get(userName);
+      if (entry != null) {
+        return entry.getValue();
+      }
+    }
+    return null;
+  }
+
+  // Returns the record of user `userName`. Called with a lock held.
+  private User findUser(String userName)
+      throws UserNotFoundException, RepoException {
+    User userFromRecord = lookup(userName);
+    if (userFromRecord == null) {
+      throw new UserNotFoundException(userName);
+    }
+    return userFromRecord;
+  }
+
+  private User readUser(String userName)
+      throws UserNotFoundException, RepoException {
+    lock.readLock().lock();
+    try {
+      return snapshotOf(findUser(userName));
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  @Override
+  public User addUser(String userName)
+      throws InvalidUserNameException, UserExistsException, RepoException {
+    if (!userNamePattern.matcher(userName).matches()) {
+      throw new InvalidUserNameException();
+    }
+
+    lock.writeLock().lock();
+    try {
+      if (lookup(userName) != null) {
+        throw new UserExistsException(userName);
+      }
+      final boolean isFirstUser = rootUserName == null;
+      User newUser = new User(userName, 0, isFirstUser);
+      appendToLog(UserRecordFormat.format(newUser));
+      memtable.put(userName, newUser);
+      if (isFirstUser) {
+        rootUserName = userName;
+      }
+      flushIfFull();
+      return snapshotOf(newUser);
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  @Override
+  public void removeUser(String userName)
+      throws FirstUserException, NotPermittedException, UserNotFoundException,
+      RepoException {
+    final User remover = signedInUser;
+    if (remover == null || !remover.getIsRoot()) {
+      throw new NotPermittedException(String.format("Delete user %s", userName),
+          "Logged in as root user");
+    }
+
+    lock.writeLock().lock();
+    try {
+      User userFromRecord = findUser(userName);
+      if (userFromRecord.getIsRoot()) {
+        throw new FirstUserException(String.format("Delete user %s", userName));
+      }
+      appendToLog("-" + userName);
+      memtable.put(userName, null);
+      flushIfFull();
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  @Override
+  public void saveUserInfo(User user)
+      throws UserNotFoundException, NotPermittedException, RepoException {
+    lock.writeLock().lock();
+    try {
+      User userToUpdate = findUser(user.getUserName());
+      if (userToUpdate.getIsRoot() != user.getIsRoot()) {
+        throw new NotPermittedException("Cannot change user privileges",
+            "No Permissions available");
+      }
+      appendToLog(UserRecordFormat.format(user));
+      memtable.put(user.getUserName(), snapshotOf(user));
+      flushIfFull();
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  @Override
+  public User getUserInfo(String userName)
+      throws UserNotFoundException, RepoException {
+    return readUser(userName);
+  }
+
+  @Override
+  public void login(String userName)
+      throws UserNotFoundException, RepoException {
+    signedInUser = readUser(userName);
+  }
+
+  @Override
+  public User getSignedInUser() throws UserNotFoundException, RepoException {
+    final User user = signedInUser;
+    if (user == null) {
+      throw new UserNotFoundException("null");
+    }
+    signedInUser = readUser(user.getUserName());
+    return snapshotOf(signedInUser);
+  }
+
+  // Returns a copy of `user` that can be handed out without exposing the record.
+  private static User snapshotOf(User user) {
+    return new User(user.getUserName(), user.getNumSuccess(), user.getIsRoot());
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * <p>Users are listed in username order, merged from the memtable and
+   * every run.</p>
+   */
+  @Override
+  public List<User> getAllUserInfo() throws RepoException {
+    lock.readLock().lock();
+    try {
+      List<Iterator<Map.Entry<String, User>>> sources = new ArrayList<>();
+      sources.add(memtable.entrySet().iterator());
+      for (SortedRun run : runs) {
+        sources.add(run.iterator());
+      }
+      List<User> allUsers = new ArrayList<>();
+      Iterator<Map.Entry<String, User>> merged = SortedRun.merge(sources);
+      while (merged.hasNext()) {
+        User user = merged.next().getValue();
+        if (user != null) {
+          allUsers.add(snapshotOf(user));
+        }
+      }
+      return allUsers;
+    } catch (UncheckedIOException e) {
+      throw new RepoException(String.format("Error reading runs in %s",
+          directory.toAbsolutePath()));
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  /**
+   * Returns the number of sorted runs on disk.
+   */
+  public int getNumRuns() {
+    lock.readLock().lock();
+    try {
+      return runs.size();
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  // Writes the memtable out once it is full. Called with the write lock held.
+  private void flushIfFull() throws RepoException {
+    if (memtable.size() >= options.getMemtableLimit()) {
+      flushMemtable();
+    }
+  }
+
+  /**
+   * Writes the memtable out as a new sorted run and empties the log.
+   *
+   * @throws RepoException if the run or the manifest cannot be written, in
+   *                       which case the memtable and the log are kept, or if
+   *                       a background compaction has failed since the last
+   *                       call to {@code flush} or {@link #compact()}
+   */
+  public void flush() throws RepoException {
+    lock.writeLock().lock();
+    try {
+      flushMemtable();
+      reportCompactionFailure();
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  // Called with the write lock held.
+  private void flushMemtable() throws RepoException {
+    if (memtable.isEmpty()) {
+      return;
+    }
+    SortedRun run = SortedRun.write(directory.resolve(runFileName(nextRunNumber)),
+        memtable.entrySet().iterator(), memtable.size());
+    nextRunNumber++;
+    List<SortedRun> newRuns = new ArrayList<>(runs.size() + 1);
+    newRuns.add(run);
+    newRuns.addAll(runs);
+    writeManifest(newRuns);
+    runs = newRuns;
+    memtable = new TreeMap<>();
+    try {
+      log.truncate(0);
+      log.position(0);
+      log.force(true);
+    } catch (IOException e) {
+      // replaying the log again over the new run is harmless
+      throw new RepoException(String.format("Error emptying log at %s",
+          directory.resolve(logFileName).toAbsolutePath()));
+    }
+
+    if (runs.size() > options.getMaxRuns() && !compactor.isShutdown()
+        && (compaction == null || compaction.isDone())) {
+      compaction = compactor.submit(this::compactInBackground);
+    }
+  }
+
+  // Compacts the runs until no more than the limit are left, as runs may be
+  // flushed while a compaction is running. Any failure is kept to be
+  // reported by the next call to flush() or compact().
+  private void compactInBackground() {
+    try {
+      do {
+        compactRuns();
+      } while (getNumRuns() > options.getMaxRuns());
+    } catch (RepoException | RuntimeException e) {
+      lock.writeLock().lock();
+      try {
+        compactionFailure = e;
+      } finally {
+        lock.writeLock().unlock();
+      }
+    }
+  }
+
+  // Throws if a background compaction failed since the last report. Called
+  // with the write lock held.
+  private void reportCompactionFailure() throws RepoException {
+    final Exception failure = compactionFailure;
+    if (failure != null) {
+      compactionFailure = null;
+      throw new RepoException(String.format("Background compaction failed: %s",
+          failure.getMessage()));
+    }
+  }
+
+  private static String runFileName(long number) {
+    return String.format("run-%d.dat", number);
+  }
+
+  /**
+   * Compacts every run into a single run, dropping tombstones and
+   * overwritten entries, and waits for it to finish. Runs are otherwise
+   * compacted in the background once there are more than
+   * {@link LsmOptions#getMaxRuns()} of them.
+   *
+   * @throws RepoException if the compaction fails, in which case the runs are
+   *                       kept, if a background compaction has failed since
+   *                       the last call to {@link #flush()} or
+   *                       {@code compact}, or if the store is closed
+   */
+  public void compact() throws RepoException {
+    lock.writeLock().lock();
+    try {
+      reportCompactionFailure();
+    } finally {
+      lock.writeLock().unlock();
+    }
+    try {
+      compactor.submit(() -> {
+        compactRuns();
+        return null;
+      }).get();
+    } catch (RejectedExecutionException e) {
+      throw new RepoException(String.format("Store in %s is closed",
+          directory.toAbsolutePath()));
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new RepoException("Interrupted while waiting for compaction");
+    } catch (ExecutionException e) {
+      throw new RepoException(String.format("Compaction failed: %s",
+          e.getCause().getMessage()));
+    }
+  }
+
+  // Merges the current runs into one. Runs are immutable and only deleted
+  // here, and compactions run one at a time, so the merge itself needs no
+  // lock; runs flushed meanwhile are kept in front of the merged run.
+  private void compactRuns() throws RepoException {
+    List<SortedRun> inputs;
+    long number;
+    lock.writeLock().lock();
+    try {
+      inputs = List.copyOf(runs);
+      number = nextRunNumber++;
+    } finally {
+      lock.writeLock().unlock();
+    }
+    if (inputs.size() < 2) {
+      return;
+    }
+
+    List<Iterator<Map.Entry<String, User>>> sources = new ArrayList<>();
+    int maxEntries = 0;
+    for (SortedRun run : inputs) {
+      sources.add(run.iterator());
+      maxEntries += run.size();
+    }
+    Iterator<Map.Entry<String, User>> merged = SortedRun.merge(sources);
+    // nothing older than the oldest run can be shadowed, so tombstones go
+    Iterator<Map.Entry<String, User>> live = new Iterator<>() {
+      private Map.Entry<String, User> next = advance();
+
+      private Map.Entry<String, User> advance() {
+        while (merged.hasNext()) {
+          Map.Entry<String, User> entry = merged.next();
+          if (entry.getValue() != null) {
+            return entry;
+          }
+        }
+        return null;
+      }
+
+      @Override
+      public boolean hasNext() {
+        return next != null;
+      }
+
+      @Override
+      public Map.Entry<String, User> next() {
+        Map.Entry<String, User> entry = next;
+        next = advance();
+        return entry;
+      }
+    };
+    final Path outputFile = directory.resolve(runFileName(number));
+    SortedRun output;
+    try {
+      output = SortedRun.write(outputFile, live, maxEntries);
+    } catch (UncheckedIOException e) {
+      throw new RepoException(String.format("Error reading runs in %s",
+          directory.toAbsolutePath()));
+    }
+
+    lock.writeLock().lock();
+    try {
+      List<SortedRun> newRuns =
+          new ArrayList<>(runs.subList(0, runs.size() - inputs.size()));
+      if (output.size() > 0) {
+        newRuns.add(output);
+      }
+      writeManifest(newRuns);
+      runs = newRuns;
+      if (output.size() == 0) {
+        output.delete();
+      }
+      for (SortedRun input : inputs) {
+        input.delete();
+      }
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  // Atomically replaces the manifest with one naming `liveRuns`. Called with
+  // the write lock held.
+  private void writeManifest(List<SortedRun> liveRuns) throws RepoException {
+    StringBuilder manifest = new StringBuilder();
+    manifest.append("root#").append(rootUserName == null ? "" : rootUserName)
+        .append('\n');
+    manifest.append("next#").append(nextRunNumber).append('\n');
+    for (SortedRun run : liveRuns) {
+      manifest.append("run#").append(run.getFile().getFileName()).append('\n');
+    }
+
+    ByteBuffer bytes =
+        ByteBuffer.wrap(manifest.toString().getBytes(StandardCharsets.UTF_8));
+    final Path manifestFile = directory.resolve(manifestFileName);
+    final Path tempFile =
+        manifestFile.resolveSibling(manifestFile.getFileName() + ".tmp");
+    try (FileChannel tempChannel = FileChannel.open(tempFile,
+        StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+        StandardOpenOption.TRUNCATE_EXISTING)) {
+      while (bytes.hasRemaining()) {
+        tempChannel.write(bytes);
+      }
+      tempChannel.force(true);
+      Files.move(tempFile, manifestFile,
+          StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    } catch (IOException e) {
+      throw new RepoException(String.format("Error saving to file at %s",
+          manifestFile.toAbsolutePath()));
+    }
+  }
+
+  /**
+   * Waits for a running compaction, writes the memtable out and closes the
+   * store.
+   */
+  @Override
+  public void close() throws RepoException {
+    compactor.shutdown();
+    try {
+      compactor.awaitTermination(1, TimeUnit.MINUTES);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new RepoException("Interrupted while waiting for compaction");
+    }
+
+    lock.writeLock().lock();
+    try {
+      flushMemtable();
+      log.close();
+      for (SortedRun run : runs) {
+        run.close();
+      }
+    } catch (IOException e) {
+      throw new RepoException(String.format("Error closing log at %s",
+          directory.resolve(logFileName).toAbsolutePath()));
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+}
@@ -0,0 +1,148 @@
+package com.vlxu.interfaceadapters;
+
+import com.vlxu.coreexceptions.RepoException;
+import com.vlxu.entities.GuessWord;
+import java.io.File;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * A word bank that memory-maps the word bank file instead of loading it.
+ *
+ * <p>The only heap state is an {@code int[]} holding the offset of every
+ * valid word in the file, so heap use stays at four bytes per word however
+ * large the dictionary is. A word is decoded from the mapping only when it is
+ * asked for. Lines are split the same way as {@code Files.readAllLines}: on
+ * {@code \n}, {@code \r\n} or {@code \r}, without a trailing empty line.</p>
+ *
+ * <p>The file must not be modified while it is mapped, and must be smaller
+ * than 2 GiB.</p>
+ */
+final class MappedWordBank implements WordBank {
+  private final MappedByteBuffer mapping;
+  private final int[] wordStarts;
+  private final LengthBuckets lengthBuckets;
+  private final WordBankReport report;
+
+  /**
+   * Maps {@code wordBankFile} and indexes its valid words.
+   *
+   * @throws RepoException if the file cannot be mapped
+   */
+  MappedWordBank(File wordBankFile) throws RepoException {
+    try (FileChannel channel = FileChannel.open(wordBankFile.toPath(),
+        StandardOpenOption.READ)) {
+      final long fileSize = channel.size();
+      if (fileSize >= Integer.MAX_VALUE) {
+        throw new RepoException(String.format(
+            "Word bank at %s is too large to be memory-mapped",
+            wordBankFile.getAbsolutePath()));
+      }
+      mapping = channel.map(FileChannel.MapMode.READ_ONLY, 0, fileSize);
+    } catch (IOException e) {
+      throw new RepoException(String.format("Error mapping word bank at %s",
+          wordBankFile.getAbsolutePath()));
+    }
+
+    // Two passes over the mapping: one to validate every line and count the
+    // valid words of each length so the index can be allocated at its exact
+    // size, and one to fill the index bucket by bucket.
+    final int limit = mapping.limit();
+    WordBankReport.Builder reportBuilder = new WordBankReport.Builder();
+    int lineIndex = 0;
+    int offset = 0;
+    while (offset < limit) {
+      final int end = lineEnd(offset, limit);
+      if (isValidWord(offset, end)) {
+        reportBuilder.addValidWord(end - offset);
+      } else {
+        reportBuilder.addInvalidLine(lineIndex,
+            reportBuilder.needsInvalidLineSample() ? decode(offset, end) : null);
+      }
+      offset = nextLineStart(end, limit);
+      lineIndex++;
+    }
+    report = reportBuilder.build();
+    lengthBuckets = new LengthBuckets(report);
+
+    wordStarts = new int[report.getNumValidWords()];
+    int[] cursors = lengthBuckets.newCursors();
+    offset = 0;
+    while (offset < limit) {
+      final int end = lineEnd(offset, limit);
+      if (isValidWord(offset, end)) {
+        wordStarts[cursors[end - offset - GuessWord.MIN_LENGTH]++] = offset;
+      }
+      offset = nextLineStart(end, limit);
+    }
+  }
+
+  // Returns the offset of the terminator of the line starting at `offset`,
+  // or `limit` if the line is not terminated.
+  private int lineEnd(int offset, int limit) {
+    while (offset < limit) {
+      final byte b = mapping.get(offset);
+      if (b == '\n' || b == '\r') {
+        return offset;
+      }
+      offset++;
+    }
+    return limit;
+  }
+
+  // Returns the offset right after the terminator at `lineEnd`.
+  private int nextLineStart(int lineEnd, int limit) {
+    if (lineEnd < limit && mapping.get(lineEnd) == '\r') {
+      lineEnd++;
+    }
+    if (lineEnd < limit && mapping.get(lineEnd) == '\n') {
+      lineEnd++;
+    }
+    return lineEnd;
+  }
+
+  // Byte-level equivalent of GuessWord.isValidGuessWord.
+  private boolean isValidWord(int start, int end) {
+    final int length = end - start;
+    if (length < GuessWord.MIN_LENGTH || length > GuessWord.MAX_LENGTH) {
+      return false;
+    }
+    for (int i = start; i < end; i++) {
+      final byte b = mapping.get(i);
+      if (b < 'a' || b > 'z') {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private String decode(int start, int end) {
+    byte[] bytes = new byte[end - start];
+    mapping.get(start, bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
+  @Override
+  public int size() {
+    return wordStarts.length;
+  }
+
+  @Override
+  public String getWord(int index) {
+    final int start = wordStarts[index];
+    return decode(start, lineEnd(start, mapping.limit()));
+  }
+
+  @Override
+  public LengthBuckets getLengthBuckets() {
+    return lengthBuckets;
+  }
+
+  @Override
+  public WordBankReport getReport() {
+    return report;
+  }
+}
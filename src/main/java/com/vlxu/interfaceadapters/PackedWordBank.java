@@ -0,0 +1,141 @@
+package com.vlxu.interfaceadapters;
+
+import com.vlxu.coreexceptions.RepoException;
+import com.vlxu.entities.GuessWord;
+import com.vlxu.entities.PackedWord;
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+
+/**
+ * A word bank that packs every valid word into 16 bytes off the heap.
+ *
+ * <p>Each word is stored as its {@link PackedWord} form (two {@code long}s)
+ * in a direct buffer, so a word bank of any size costs a few objects on the
+ * heap instead of a {@code String} per word, and nothing for the garbage
+ * collector to trace. Words are decoded when they are drawn, straight into a
+ * {@link GuessWord}.</p>
+ *
+ * <p>Unlike a {@link MappedWordBank}, the file is only read while the word
+ * bank is loaded, so it may change afterwards. The word bank must hold fewer
+ * than 2<sup>27</sup> valid words. A packed word bank can also be restored
+ * from a {@link RepositorySnapshot} without reading the file at all.</p>
+ */
+final class PackedWordBank implements WordBank {
+  private static final int bytesPerWord = 2 * Long.BYTES;
+
+  private final ByteBuffer words;
+  private final int size;
+  private final LengthBuckets lengthBuckets;
+  private final WordBankReport report;
+
+  /**
+   * Reads {@code wordBankFile} and packs its valid words.
+   *
+   * @throws RepoException if the file cannot be read, or has too many words
+   */
+  PackedWordBank(File wordBankFile) throws RepoException {
+    // Two passes over the file, as in MappedWordBank: one to validate every
+    // line and count the valid words of each length so the buffer can be
+    // allocated at its exact size, and one to pack the words bucket by
+    // bucket. No line is kept between the passes.
+    WordBankReport.Builder reportBuilder = new WordBankReport.Builder();
+    try (BufferedReader reader = Files.newBufferedReader(wordBankFile.toPath())) {
+      int lineIndex = 0;
+      String line;
+      while ((line = reader.readLine()) != null) {
+        if (GuessWord.isValidGuessWord(line)) {
+          reportBuilder.addValidWord(line.length());
+        } else {
+          reportBuilder.addInvalidLine(lineIndex, line);
+        }
+        lineIndex++;
+      }
+    } catch (IOException e) {
+      throw new RepoException(String.format("Error loading words from %s",
+          wordBankFile.getAbsolutePath()));
+    }
+    report = reportBuilder.build();
+    lengthBuckets = new LengthBuckets(report);
+    size = report.getNumValidWords();
+    if (size > Integer.MAX_VALUE / bytesPerWord) {
+      throw new RepoException(String.format(
+          "Word bank at %s has too many words to be packed",
+          wordBankFile.getAbsolutePath()));
+    }
+
+    words = ByteBuffer.allocateDirect(size * bytesPerWord)
+        .order(ByteOrder.nativeOrder());
+    int[] cursors = lengthBuckets.newCursors();
+    try (BufferedReader reader = Files.newBufferedReader(wordBankFile.toPath())) {
+      String line;
+      int numPacked = 0;
+      while ((line = reader.readLine()) != null && numPacked < size) {
+        if (GuessWord.isValidGuessWord(line)) {
+          final int bucket = line.length() - GuessWord.MIN_LENGTH;
+          if (cursors[bucket] == lengthBuckets.start(line.length() + 1)) {
+            throw new RepoException(String.format(
+                "Word bank at %s changed while it was loaded",
+                wordBankFile.getAbsolutePath()));
+          }
+          final int offset = cursors[bucket]++ * bytesPerWord;
+          words.putLong(offset, PackedWord.packLow(line));
+          words.putLong(offset + Long.BYTES, PackedWord.packHigh(line));
+          numPacked++;
+        }
+      }
+      if (numPacked < size) {
+        throw new RepoException(String.format(
+            "Word bank at %s changed while it was loaded",
+            wordBankFile.getAbsolutePath()));
+      }
+    } catch (IOException e) {
+      throw new RepoException(String.format("Error loading words from %s",
+          wordBankFile.getAbsolutePath()));
+    }
+  }
+
+  /**
+   * Wraps words that are already packed, e.g. in a mapped
+   * {@link RepositorySnapshot}. {@code words} must hold the valid words
+   * counted in {@code report}, ordered by length, at 16 bytes per word.
+   */
+  PackedWordBank(ByteBuffer words, WordBankReport report) {
+    this.words = words;
+    this.report = report;
+    this.lengthBuckets = new LengthBuckets(report);
+    this.size = report.getNumValidWords();
+  }
+
+  @Override
+  public int size() {
+    return size;
+  }
+
+  @Override
+  public String getWord(int index) {
+    final int offset = index * bytesPerWord;
+    return PackedWord.unpack(words.getLong(offset),
+        words.getLong(offset + Long.BYTES));
+  }
+
+  @Override
+  public GuessWord getGuessWord(int index) {
+    final int offset = index * bytesPerWord;
+    return PackedWord.toGuessWord(words.getLong(offset),
+        words.getLong(offset + Long.BYTES));
+  }
+
+  @Override
+  public LengthBuckets getLengthBuckets() {
+    return lengthBuckets;
+  }
+
+  @Override
+  public WordBankReport getReport() {
+    return report;
+  }
+}
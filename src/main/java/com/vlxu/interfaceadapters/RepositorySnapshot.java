@@ -0,0 +1,297 @@
+package com.vlxu.interfaceadapters;
+
+import com.vlxu.coreexceptions.RepoException;
+import com.vlxu.entities.GuessWord;
+import com.vlxu.entities.PackedWord;
+import com.vlxu.entities.User;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32C;
+
+/**
+ * A binary image of a {@link TextFileRepository}: its user table and its
+ * validated word bank, along with the fingerprints of the text files they
+ * were read from.
+ *
+ * <p>A snapshot is little-endian and laid out as:</p>
+ * <ul>
+ *   <li>a header: magic number, format version, body length and the CRC32C
+ *   of the body</li>
+ *   <li>the size, modification time and CRC32C of the word bank file, then of
+ *   the users file</li>
+ *   <li>the users in insertion order, each as its name (length-prefixed),
+ *   score and root flag</li>
+ *   <li>the word bank report: invalid line count and samples, and the number
+ *   of valid words of each length, from which the {@link LengthBuckets} are
+ *   laid out</li>
+ *   <li>every valid word in its {@link PackedWord} form, ordered by
+ *   length</li>
+ * </ul>
+ *
+ * <p>A snapshot is mapped rather than read, and its words are drawn straight
+ * from the mapping by a {@link PackedWordBank}, so restoring it costs a pass
+ * over the users and two checksums. It is only restored if it is intact and
+ * both text files are exactly as they were when it was written.</p>
+ */
+final class RepositorySnapshot {
+  private static final int magic = 0x50534843; // "CHSP"
+  private static final int formatVersion = 1;
+  private static final int headerBytes = 2 * Integer.BYTES + Long.BYTES
+      + Integer.BYTES;
+  private static final int sourceBytes = 2 * Long.BYTES + Integer.BYTES;
+  private static final int numLengths =
+      GuessWord.MAX_LENGTH - GuessWord.MIN_LENGTH + 1;
+  private static final int bytesPerWord = 2 * Long.BYTES;
+  private static final int checksumBufferBytes = 1 << 16;
+
+  private final UserTable users;
+  private final WordBank wordBank;
+
+  private RepositorySnapshot(UserTable users, WordBank wordBank) {
+    this.users = users;
+    this.wordBank = wordBank;
+  }
+
+  // What a snapshot records about a text file it was built from.
+  private record Source(long size, long lastModifiedNanos, int checksum) {
+  }
+
+  static Path snapshotPathFor(Path usersFilePath) {
+    return usersFilePath.resolveSibling(usersFilePath.getFileName() + ".snapshot");
+  }
+
+  UserTable getUsers() {
+    return users;
+  }
+
+  WordBank getWordBank() {
+    return wordBank;
+  }
+
+  // Returns the size and modification time of `file`, with its checksum
+  // left out (0).
+  private static Source attributesOf(Path file) throws IOException {
+    FileFingerprint fingerprint = FileFingerprint.of(file);
+    return new Source(fingerprint.size(),
+        fingerprint.lastModified().to(TimeUnit.NANOSECONDS), 0);
+  }
+
+  private static int checksumOf(Path file) throws IOException {
+    CRC32C crc = new CRC32C();
+    ByteBuffer buffer = ByteBuffer.allocateDirect(checksumBufferBytes);
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      while (channel.read(buffer) >= 0) {
+        buffer.flip();
+        crc.update(buffer);
+        buffer.clear();
+      }
+    }
+    return (int) crc.getValue();
+  }
+
+  private static Source sourceOf(Path file) throws IOException {
+    Source attributes = attributesOf(file);
+    return new Source(attributes.size(), attributes.lastModifiedNanos(),
+        checksumOf(file));
+  }
+
+  // Returns whether `file` still has the size, modification time and
+  // contents recorded in `recorded`. The checksum is only computed if the
+  // attributes match.
+  private static boolean isUnchanged(Path file, Source recorded)
+      throws IOException {
+    Source attributes = attributesOf(file);
+    return attributes.size() == recorded.size()
+        && attributes.lastModifiedNanos() == recorded.lastModifiedNanos()
+        && checksumOf(file) == recorded.checksum();
+  }
+
+  private static Source getSource(ByteBuffer buffer) {
+    return new Source(buffer.getLong(), buffer.getLong(), buffer.getInt());
+  }
+
+  private static void putSource(ByteBuffer buffer, Source source) {
+    buffer.putLong(source.size());
+    buffer.putLong(source.lastModifiedNanos());
+    buffer.putInt(source.checksum());
+  }
+
+  /**
+   * Restores the snapshot at {@code snapshotFile}.
+   *
+   * @return the snapshot, or {@code null} if there is no snapshot, it is
+   *     damaged or of another format version, or either text file changed
+   *     since it was written
+   */
+  static RepositorySnapshot load(Path snapshotFile, Path wordBankFile,
+                                 Path usersFile) {
+    if (!Files.isRegularFile(snapshotFile)) {
+      return null;
+    }
+    try {
+      MappedByteBuffer mapping;
+      try (FileChannel channel = FileChannel.open(snapshotFile,
+          StandardOpenOption.READ)) {
+        if (channel.size() < headerBytes || channel.size() >= Integer.MAX_VALUE) {
+          return null;
+        }
+        mapping = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+      }
+      mapping.order(ByteOrder.LITTLE_ENDIAN);
+
+      if (mapping.getInt() != magic || mapping.getInt() != formatVersion
+          || mapping.getLong() != mapping.capacity() - headerBytes) {
+        return null;
+      }
+      final int checksum = mapping.getInt();
+      CRC32C crc = new CRC32C();
+      crc.update(mapping.slice());
+      if ((int) crc.getValue() != checksum) {
+        return null;
+      }
+
+      if (!isUnchanged(wordBankFile, getSource(mapping))
+          || !isUnchanged(usersFile, getSource(mapping))) {
+        return null;
+      }
+
+      UserTable users = new UserTable();
+      final int numUsers = mapping.getInt();
+      for (int i = 0; i < numUsers; i++) {
+        byte[] name = new byte[Short.toUnsignedInt(mapping.getShort())];
+        mapping.get(name);
+        users.add(new User(new String(name, StandardCharsets.ISO_8859_1),
+            mapping.getInt(), mapping.get() != 0));
+      }
+
+      final int numInvalidLines = mapping.getInt();
+      List<String> invalidLineSamples = new ArrayList<>();
+      final int numSamples = mapping.getInt();
+      for (int i = 0; i < numSamples; i++) {
+        byte[] sample = new byte[mapping.getInt()];
+        mapping.get(sample);
+        invalidLineSamples.add(new String(sample, StandardCharsets.UTF_8));
+      }
+      int[] numValidWordsByLength = new int[numLengths];
+      long numWords = 0;
+      for (int b = 0; b < numLengths; b++) {
+        numValidWordsByLength[b] = mapping.getInt();
+        numWords += numValidWordsByLength[b];
+      }
+      if (numWords * bytesPerWord != mapping.remaining()) {
+        return null;
+      }
+      WordBankReport report = WordBankReport.restore(numValidWordsByLength,
+          numInvalidLines, invalidLineSamples);
+      ByteBuffer words = mapping.slice().order(ByteOrder.LITTLE_ENDIAN);
+      return new RepositorySnapshot(users, new PackedWordBank(words, report));
+    } catch (IOException | BufferUnderflowException
+             | IllegalArgumentException e) {
+      // unreadable or malformed despite its checksum: use the text files
+      return null;
+    }
+  }
+
+  /**
+   * Writes a snapshot of {@code users} and {@code wordBank} to
+   * {@code snapshotFile}, recording the current state of both text files.
+   * The snapshot is written to a temporary file first and then moved over
+   * {@code snapshotFile}, so a crash never leaves a partial snapshot behind.
+   *
+   * <p>{@code users} and {@code wordBank} must hold exactly what the text
+   * files hold.</p>
+   *
+   * @throws RepoException if the snapshot cannot be written
+   */
+  static void write(Path snapshotFile, Path wordBankFile, Path usersFile,
+                    UserTable users, WordBank wordBank) throws RepoException {
+    final Path tempFile =
+        snapshotFile.resolveSibling(snapshotFile.getFileName() + ".tmp");
+    try {
+      final Source wordBankSource = sourceOf(wordBankFile);
+      final Source usersSource = sourceOf(usersFile);
+
+      WordBankReport report = wordBank.getReport();
+      List<byte[]> samples = new ArrayList<>();
+      long bodyBytes = 2L * sourceBytes + Integer.BYTES;
+      for (User user : users) {
+        bodyBytes += Short.BYTES + user.getUserName().length()
+            + Integer.BYTES + 1;
+      }
+      bodyBytes += 2 * Integer.BYTES;
+      for (String sample : report.getInvalidLineSamples()) {
+        byte[] bytes = sample.getBytes(StandardCharsets.UTF_8);
+        samples.add(bytes);
+        bodyBytes += Integer.BYTES + bytes.length;
+      }
+      bodyBytes += (long) numLengths * Integer.BYTES
+          + (long) wordBank.size() * bytesPerWord;
+      if (headerBytes + bodyBytes >= Integer.MAX_VALUE) {
+        throw new RepoException(String.format(
+            "Repository is too large to be snapshotted at %s",
+            snapshotFile.toAbsolutePath()));
+      }
+
+      try (FileChannel channel = FileChannel.open(tempFile,
+          StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+          StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+        MappedByteBuffer mapping = channel.map(FileChannel.MapMode.READ_WRITE,
+            0, headerBytes + bodyBytes);
+        mapping.order(ByteOrder.LITTLE_ENDIAN);
+        mapping.position(headerBytes);
+        putSource(mapping, wordBankSource);
+        putSource(mapping, usersSource);
+
+        mapping.putInt(users.size());
+        for (User user : users) {
+          // names are [a-zA-Z0-9]+, so one byte per character
+          mapping.putShort((short) user.getUserName().length());
+          mapping.put(user.getUserName().getBytes(StandardCharsets.ISO_8859_1));
+          mapping.putInt(user.getNumSuccess());
+          mapping.put((byte) (user.getIsRoot() ? 1 : 0));
+        }
+
+        mapping.putInt(report.getNumInvalidLines());
+        mapping.putInt(samples.size());
+        for (byte[] sample : samples) {
+          mapping.putInt(sample.length);
+          mapping.put(sample);
+        }
+        for (int length = GuessWord.MIN_LENGTH; length <= GuessWord.MAX_LENGTH;
+             length++) {
+          mapping.putInt(report.getNumValidWords(length));
+        }
+        for (int i = 0; i < wordBank.size(); i++) {
+          final String word = wordBank.getWord(i);
+          mapping.putLong(PackedWord.packLow(word));
+          mapping.putLong(PackedWord.packHigh(word));
+        }
+
+        CRC32C crc = new CRC32C();
+        crc.update(mapping.slice(headerBytes, (int) bodyBytes));
+        mapping.putInt(0, magic);
+        mapping.putInt(Integer.BYTES, formatVersion);
+        mapping.putLong(2 * Integer.BYTES, bodyBytes);
+        mapping.putInt(2 * Integer.BYTES + Long.BYTES, (int) crc.getValue());
+        mapping.force();
+      }
+      Files.move(tempFile, snapshotFile, StandardCopyOption.REPLACE_EXISTING,
+          StandardCopyOption.ATOMIC_MOVE);
+    } catch (IOException e) {
+      throw new RepoException(String.format("Error writing snapshot to %s",
+          snapshotFile.toAbsolutePath()));
+    }
+  }
+}
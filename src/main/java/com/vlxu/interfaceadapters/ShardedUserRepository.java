@@ -0,0 +1,523 @@
+package com.vlxu.interfaceadapters;
+
+import com.vlxu.coreexceptions.FirstUserException;
+import com.vlxu.coreexceptions.InvalidUserNameException;
+import com.vlxu.coreexceptions.NotPermittedException;
+import com.vlxu.coreexceptions.RepoException;
+import com.vlxu.coreexceptions.UserExistsException;
+import com.vlxu.coreexceptions.UserNotFoundException;
+import com.vlxu.entities.User;
+import com.vlxu.entities.UserRepository;
+import com.vlxu.usecases.GetAllUserInfo;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * A {@link UserRepository} that partitions users by username hash across a
+ * number of shard files in a directory.
+ *
+ * <p>Each shard has its own in-memory table and read/write lock, so calls on
+ * users of different shards do not contend, and is marked dirty by any
+ * change to its users. {@link #flush()} (and {@link #close()}) rewrite only
+ * the dirty shards, so the cost of persisting a change depends on the size
+ * of its shard rather than of the whole user base. Shard files are in the
+ * format of {@link TextFileRepository}'s users file, and each is written to
+ * a temp file, forced to disk and atomically moved into place.</p>
+ *
+ * <p>The directory holds a manifest, {@code shards.txt}, recording the
+ * number of shards and a generation number, and shard files named
+ * {@code shard-<generation>-<index>.txt}. {@link #reshard(int)} changes the
+ * number of shards while the repository is in use: users are repartitioned
+ * in memory under a brief exclusive lock, then written as a new generation
+ * of shard files, and only then does the manifest switch over to them. A
+ * crash during resharding leaves the previous generation in effect.</p>
+ *
+ * <p>As in {@link ConcurrentUserRepository}, the root user is claimed with a
+ * single compare-and-set across all shards, so exactly one user ever becomes
+ * root, and the root user can never be removed or lose its root status. The
+ * directory must not be used by more than one repository at a time.</p>
+ */
+public class ShardedUserRepository
+    implements UserRepository, GetAllUserInfo, AutoCloseable {
+  private static final String manifestFileName = "shards.txt";
+  private static final Pattern userNamePattern = Pattern.compile("[a-zA-Z0-9]+");
+  private static final Pattern shardFilePattern =
+      Pattern.compile("shard-([0-9]+)-[0-9]+\\.txt");
+
+  private final Path directory;
+  // swapped as a whole by reshard(), under the write lock of `topologyLock`;
+  // every other call holds its read lock while it uses the shards
+  private volatile Topology topology;
+  private final ReadWriteLock topologyLock = new ReentrantReadWriteLock();
+  private final AtomicReference<String> rootUserName;
+  private volatile User signedInUser = null;
+
+  // serializes flushes; the generation named by the manifest on disk is
+  // guarded by it
+  private final Object flushLock = new Object();
+  private long persistedGeneration;
+
+  private static final class Shard {
+    private final UserTable users = new UserTable();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    // set by every change, cleared when the shard is written
+    private volatile boolean dirty = false;
+  }
+
+  // The shards of one generation.
+  private record Topology(long generation, Shard[] shards) {
+    Shard shardFor(String userName) {
+      return shards[shardIndex(userName, shards.length)];
+    }
+  }
+
+  /**
+   * Opens the sharded repository in {@code directoryPath}, creating the
+   * directory if it does not exist yet.
+   *
+   * @param directoryPath directory holding the manifest and shard files
+   * @param numShards     number of shards of a new repository; an existing
+   *                      repository keeps the number of shards in its
+   *                      manifest (see {@link #reshard(int)})
+   * @throws RepoException if a file cannot be read, a record is invalid, a
+   *                       user is in the wrong shard or more than one user
+   *                       is root
+   */
+  public ShardedUserRepository(String directoryPath, int numShards)
+      throws RepoException {
+    if (numShards < 1) {
+      throw new IllegalArgumentException("Number of shards must be positive");
+    }
+    this.directory = Paths.get(directoryPath);
+    this.rootUserName = new AtomicReference<>(null);
+    try {
+      Files.createDirectories(directory);
+    } catch (IOException e) {
+      throw new RepoException(String.format("Could not create directory: %s",
+          directory.toAbsolutePath()));
+    }
+
+    final Path manifestFile = directory.resolve(manifestFileName);
+    if (!Files.exists(manifestFile)) {
+      this.topology = new Topology(0, newShards(numShards));
+      // no manifest on disk yet, so the first flush writes one
+      this.persistedGeneration = -1;
+      return;
+    }
+
+    final String manifest = readManifest(manifestFile);
+    final String[] fields = manifest.split("#");
+    final long generation;
+    final int recordedNumShards;
+    try {
+      if (fields.length != 2) {
+        throw new NumberFormatException();
+      }
+      generation = Long.parseLong(fields[0]);
+      recordedNumShards = Integer.parseInt(fields[1]);
+    } catch (NumberFormatException e) {
+      throw new RepoException(String.format("Invalid shard manifest: %s",
+          manifest));
+    }
+    if (generation < 0 || recordedNumShards < 1) {
+      throw new RepoException(String.format("Invalid shard manifest: %s",
+          manifest));
+    }
+
+    Shard[] shards = newShards(recordedNumShards);
+    for (int i = 0; i < shards.length; i++) {
+      loadShard(shardPath(generation, i), i, shards);
+    }
+    this.topology = new Topology(generation, shards);
+    this.persistedGeneration = generation;
+  }
+
+  private static Shard[] newShards(int numShards) {
+    Shard[] shards = new Shard[numShards];
+    for (int i = 0; i < numShards; i++) {
+      shards[i] = new Shard();
+    }
+    return shards;
+  }
+
+  // Returns the shard of `userName` out of `numShards`. String.hashCode is
+  // specified, so users stay in the same shard across runs.
+  static int shardIndex(String userName, int numShards) {
+    // spread the hash so that similar usernames land on different shards
+    final int hash = userName.hashCode();
+    return Math.floorMod(hash ^ (hash >>> 16), numShards);
+  }
+
+  private Path shardPath(long generation, int index) {
+    return directory.resolve(String.format("shard-%d-%d.txt", generation, index));
+  }
+
+  private static String readManifest(Path manifestFile) throws RepoException {
+    try {
+      return Files.readString(manifestFile).strip();
+    } catch (IOException e) {
+      throw new RepoException(String.format("Error loading records from %s",
+          manifestFile.toAbsolutePath()));
+    }
+  }
+
+  // Loads the users of shard file `shardFile` into shards[index]. A missing
+  // shard file is an empty shard.
+  private void loadShard(Path shardFile, int index, Shard[] shards)
+      throws RepoException {
+    if (!Files.exists(shardFile)) {
+      return;
+    }
+    byte[] contents;
+    try {
+      contents = Files.readAllBytes(shardFile);
+    } catch (IOException e) {
+      throw new RepoException(String.format("Error loading records from %s",
+          shardFile.toAbsolutePath()));
+    }
+    for (User user : UserFileParser.parse(contents, ForkJoinPool.commonPool())) {
+      if (shardIndex(user.getUserName(), shards.length) != index
+          || shards[index].users.contains(user.getUserName())) {
+        throw new RepoException(String.format(
+            "User %s does not belong in %s", user.getUserName(),
+            shardFile.toAbsolutePath()));
+      }
+      if (user.getIsRoot()
+          && !rootUserName.compareAndSet(null, user.getUserName())) {
+        throw new RepoException(String.format(
+            "More than one root user: %s and %s", rootUserName.get(),
+            user.getUserName()));
+      }
+      shards[index].users.add(user);
+    }
+  }
+
+  // Returns the record of user `userName` in `shard`, whose lock the caller
+  // holds.
+  private static User findUser(Shard shard, String userName)
+      throws UserNotFoundException {
+    User userFromRecord = shard.users.get(userName);
+    if (userFromRecord == null) {
+      throw new UserNotFoundException(userName);
+    }
+    return userFromRecord;
+  }
+
+  // Returns the record of user `userName`.
+  private User findUser(String userName) throws UserNotFoundException {
+    topologyLock.readLock().lock();
+    try {
+      Shard shard = topology.shardFor(userName);
+      shard.lock.readLock().lock();
+      try {
+        return findUser(shard, userName);
+      } finally {
+        shard.lock.readLock().unlock();
+      }
+    } finally {
+      topologyLock.readLock().unlock();
+    }
+  }
+
+  @Override
+  public User addUser(String userName)
+      throws InvalidUserNameException, UserExistsException {
+    if (!userNamePattern.matcher(userName).matches()) {
+      throw new InvalidUserNameException();
+    }
+
+    topologyLock.readLock().lock();
+    try {
+      Shard shard = topology.shardFor(userName);
+      shard.lock.writeLock().lock();
+      try {
+        if (shard.users.contains(userName)) {
+          throw new UserExistsException(userName);
+        }
+        final boolean isFirstUser = rootUserName.compareAndSet(null, userName);
+        User newUser = new User(userName, 0, isFirstUser);
+        shard.users.add(newUser);
+        shard.dirty = true;
+        return newUser;
+      } finally {
+        shard.lock.writeLock().unlock();
+      }
+    } finally {
+      topologyLock.readLock().unlock();
+    }
+  }
+
+  @Override
+  public void removeUser(String userName)
+      throws FirstUserException, NotPermittedException, UserNotFoundException {
+    final User remover = signedInUser;
+    if (remover == null || !remover.getIsRoot()) {
+      throw new NotPermittedException(String.format("Delete user %s", userName),
+          "Logged in as root user");
+    }
+
+    topologyLock.readLock().lock();
+    try {
+      Shard shard = topology.shardFor(userName);
+      shard.lock.writeLock().lock();
+      try {
+        User userFromRecord = findUser(shard, userName);
+        if (userFromRecord.getIsRoot()) {
+          throw new FirstUserException(String.format("Delete user %s", userName));
+        }
+        shard.users.remove(userName);
+        shard.dirty = true;
+      } finally {
+        shard.lock.writeLock().unlock();
+      }
+    } finally {
+      topologyLock.readLock().unlock();
+    }
+  }
+
+  @Override
+  public void saveUserInfo(User user)
+      throws UserNotFoundException, NotPermittedException {
+    topologyLock.readLock().lock();
+    try {
+      Shard shard = topology.shardFor(user.getUserName());
+      shard.lock.writeLock().lock();
+      try {
+        User userToUpdate = findUser(shard, user.getUserName());
+        if (userToUpdate.getIsRoot() != user.getIsRoot()) {
+          throw new NotPermittedException("Cannot change user privileges",
+              "No Permissions available");
+        }
+        shard.users.replace(user);
+        shard.dirty = true;
+      } finally {
+        shard.lock.writeLock().unlock();
+      }
+    } finally {
+      topologyLock.readLock().unlock();
+    }
+  }
+
+  @Override
+  public User getUserInfo(String userName) throws UserNotFoundException {
+    return findUser(userName);
+  }
+
+  @Override
+  public void login(String userName) throws UserNotFoundException {
+    signedInUser = findUser(userName);
+  }
+
+  @Override
+  public User getSignedInUser() throws UserNotFoundException {
+    final User user = signedInUser;
+    if (user == null) {
+      throw new UserNotFoundException("null");
+    }
+    return findUser(user.getUserName());
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * <p>Users are listed shard by shard, in insertion order within a shard.
+   * Each shard is read consistently, but changes to other shards may be made
+   * while the list is built.</p>
+   */
+  @Override
+  public List<User> getAllUserInfo() {
+    topologyLock.readLock().lock();
+    try {
+      List<User> allUsers = new ArrayList<>();
+      for (Shard shard : topology.shards()) {
+        shard.lock.readLock().lock();
+        try {
+          for (User user : shard.users) {
+            allUsers.add(user);
+          }
+        } finally {
+          shard.lock.readLock().unlock();
+        }
+      }
+      return allUsers;
+    } finally {
+      topologyLock.readLock().unlock();
+    }
+  }
+
+  /**
+   * Returns the number of shards.
+   */
+  public int getNumShards() {
+    return topology.shards().length;
+  }
+
+  /**
+   * Returns the number of shards with changes that have not been flushed
+   * yet.
+   */
+  public int getNumDirtyShards() {
+    int numDirty = 0;
+    for (Shard shard : topology.shards()) {
+      if (shard.dirty) {
+        numDirty++;
+      }
+    }
+    return numDirty;
+  }
+
+  /**
+   * Repartitions the users across {@code numShards} shards and persists the
+   * new shards. Other calls are blocked only while the users are
+   * repartitioned in memory, not while the shard files are written.
+   *
+   * @throws RepoException if the new shards cannot be persisted; they stay
+   *                       in effect in memory and are persisted by the next
+   *                       flush
+   */
+  public void reshard(int numShards) throws RepoException {
+    if (numShards < 1) {
+      throw new IllegalArgumentException("Number of shards must be positive");
+    }
+    topologyLock.writeLock().lock();
+    try {
+      Topology current = topology;
+      if (current.shards().length == numShards) {
+        return;
+      }
+      Shard[] shards = newShards(numShards);
+      for (Shard oldShard : current.shards()) {
+        for (User user : oldShard.users) {
+          shards[shardIndex(user.getUserName(), numShards)].users.add(user);
+        }
+      }
+      // every shard of a new generation has to be written once
+      for (Shard shard : shards) {
+        shard.dirty = true;
+      }
+      topology = new Topology(current.generation() + 1, shards);
+    } finally {
+      topologyLock.writeLock().unlock();
+    }
+    flush();
+  }
+
+  /**
+   * Writes every dirty shard to its shard file. After a reshard, the
+   * manifest is switched to the new generation once all of its shards are
+   * written, and the shard files of earlier generations are deleted.
+   *
+   * @return the number of shard files written
+   * @throws RepoException if a file cannot be written; shards that were not
+   *                       written stay dirty
+   */
+  public int flush() throws RepoException {
+    synchronized (flushLock) {
+      Topology current;
+      topologyLock.readLock().lock();
+      try {
+        current = topology;
+      } finally {
+        topologyLock.readLock().unlock();
+      }
+
+      int numWritten = 0;
+      for (int i = 0; i < current.shards().length; i++) {
+        Shard shard = current.shards()[i];
+        if (!shard.dirty) {
+          continue;
+        }
+        StringBuilder records = new StringBuilder();
+        shard.lock.readLock().lock();
+        try {
+          for (User user : shard.users) {
+            records.append(UserRecordFormat.format(user)).append('\n');
+          }
+          // no change can be made while the read lock is held, so no change
+          // is lost by clearing the flag here
+          shard.dirty = false;
+        } finally {
+          shard.lock.readLock().unlock();
+        }
+        try {
+          writeAtomically(shardPath(current.generation(), i),
+              records.toString());
+        } catch (RepoException e) {
+          shard.dirty = true;
+          throw e;
+        }
+        numWritten++;
+      }
+
+      if (persistedGeneration != current.generation()) {
+        writeAtomically(directory.resolve(manifestFileName), String.format(
+            "%d#%d\n", current.generation(), current.shards().length));
+        persistedGeneration = current.generation();
+        deleteOtherGenerations(current.generation());
+      }
+      return numWritten;
+    }
+  }
+
+  // Write `contents` to a temp file, then atomically move it over `file`.
+  private static void writeAtomically(Path file, String contents)
+      throws RepoException {
+    ByteBuffer bytes =
+        ByteBuffer.wrap(contents.getBytes(StandardCharsets.UTF_8));
+    final Path tempFile = file.resolveSibling(file.getFileName() + ".tmp");
+    try (FileChannel tempChannel = FileChannel.open(tempFile,
+        StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+        StandardOpenOption.TRUNCATE_EXISTING)) {
+      while (bytes.hasRemaining()) {
+        tempChannel.write(bytes);
+      }
+      tempChannel.force(true);
+      Files.move(tempFile, file,
+          StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    } catch (IOException e) {
+      throw new RepoException(String.format("Error saving to file at %s",
+          file.toAbsolutePath()));
+    }
+  }
+
+  // Deletes the shard files of every generation but `generation`.
+  private void deleteOtherGenerations(long generation) throws RepoException {
+    try (DirectoryStream<Path> files =
+             Files.newDirectoryStream(directory, "shard-*.txt")) {
+      for (Path file : files) {
+        Matcher matcher = shardFilePattern.matcher(file.getFileName().toString());
+        if (matcher.matches()
+            && Long.parseLong(matcher.group(1)) != generation) {
+          Files.deleteIfExists(file);
+        }
+      }
+    } catch (IOException e) {
+      throw new RepoException(String.format(
+          "Error deleting old shard files in %s", directory.toAbsolutePath()));
+    }
+  }
+
+  /**
+   * Flushes every dirty shard.
+   */
+  @Override
+  public void close() throws RepoException {
+    flush();
+  }
+}
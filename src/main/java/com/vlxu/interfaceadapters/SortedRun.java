@@ -0,0 +1,390 @@
+package com.vlxu.interfaceadapters;
+
+import com.vlxu.coreexceptions.RepoException;
+import com.vlxu.entities.User;
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+
+/**
+ * An immutable file of user entries sorted by username, as written by an
+ * {@link LsmUserRepository} when it flushes its memtable or compacts its
+ * runs.
+ *
+ * <p>An entry is a user, or a tombstone (a {@code null} user) recording that
+ * the user was removed. The file holds the entries, then a sparse index
+ * with the username and offset of every {@value #indexInterval}th entry,
+ * then a Bloom filter over all usernames, then a fixed-size footer locating
+ * the index and the filter. Only the index and the filter are kept in
+ * memory: a lookup checks the filter, binary searches the index and reads a
+ * single block of at most {@value #indexInterval} entries, so its cost does
+ * not grow with the size of the run.</p>
+ */
+final class SortedRun implements AutoCloseable {
+  static final int indexInterval = 16;
+  private static final int bloomBitsPerKey = 10;
+  private static final int magic = 0x4c534d31; // "LSM1"
+  private static final int footerBytes = 2 * Long.BYTES + 3 * Integer.BYTES;
+  private static final byte tombstone = 0;
+  private static final byte plainUser = 1;
+  private static final byte rootUser = 2;
+
+  private final Path file;
+  private final FileChannel channel;
+  // the first username of every block, and where each block starts; the
+  // last offset is where the entries end
+  private final String[] blockKeys;
+  private final long[] blockOffsets;
+  private final BloomFilter bloomFilter;
+  private final int numEntries;
+
+  private SortedRun(Path file, FileChannel channel, String[] blockKeys,
+                    long[] blockOffsets, BloomFilter bloomFilter,
+                    int numEntries) {
+    this.file = file;
+    this.channel = channel;
+    this.blockKeys = blockKeys;
+    this.blockOffsets = blockOffsets;
+    this.bloomFilter = bloomFilter;
+    this.numEntries = numEntries;
+  }
+
+  /**
+   * Writes {@code entries}, which must be sorted by username without
+   * duplicates, to a new run at {@code file} and opens it. The file is
+   * forced to disk before this returns.
+   *
+   * @param maxEntries an upper bound on the number of entries, to size the
+   *                   Bloom filter
+   * @throws RepoException if the run cannot be written
+   */
+  static SortedRun write(Path file, Iterator<Map.Entry<String, User>> entries,
+                         int maxEntries) throws RepoException {
+    BloomFilter bloomFilter = new BloomFilter(maxEntries, bloomBitsPerKey);
+    List<String> blockKeys = new ArrayList<>();
+    List<Long> blockOffsets = new ArrayList<>();
+    try (FileChannel writeChannel = FileChannel.open(file,
+        StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+        StandardOpenOption.TRUNCATE_EXISTING)) {
+      DataOutputStream out = new DataOutputStream(
+          new BufferedOutputStream(Channels.newOutputStream(writeChannel)));
+      long offset = 0;
+      int count = 0;
+      while (entries.hasNext()) {
+        Map.Entry<String, User> entry = entries.next();
+        if (count % indexInterval == 0) {
+          blockKeys.add(entry.getKey());
+          blockOffsets.add(offset);
+        }
+        bloomFilter.add(entry.getKey());
+        offset += writeEntry(out, entry.getKey(), entry.getValue());
+        count++;
+      }
+
+      final long indexOffset = offset;
+      for (int i = 0; i < blockKeys.size(); i++) {
+        byte[] key = blockKeys.get(i).getBytes(StandardCharsets.ISO_8859_1);
+        out.writeInt(key.length);
+        out.write(key);
+        out.writeLong(blockOffsets.get(i));
+        offset += Integer.BYTES + key.length + Long.BYTES;
+      }
+      final long bloomOffset = offset;
+      out.writeInt(bloomFilter.getNumHashes());
+      out.writeInt(bloomFilter.getBits().length);
+      for (long word : bloomFilter.getBits()) {
+        out.writeLong(word);
+      }
+
+      out.writeLong(indexOffset);
+      out.writeLong(bloomOffset);
+      out.writeInt(blockKeys.size());
+      out.writeInt(count);
+      out.writeInt(magic);
+      out.flush();
+      writeChannel.force(true);
+    } catch (IOException | UncheckedIOException e) {
+      throw new RepoException(String.format("Error writing run at %s",
+          file.toAbsolutePath()));
+    }
+    return open(file);
+  }
+
+  // Writes one entry and returns its size in bytes.
+  private static int writeEntry(DataOutputStream out, String userName,
+                                User user) throws IOException {
+    byte[] name = userName.getBytes(StandardCharsets.ISO_8859_1);
+    out.writeInt(name.length);
+    out.write(name);
+    out.writeByte(user == null ? tombstone : user.getIsRoot() ? rootUser : plainUser);
+    out.writeInt(user == null ? 0 : user.getNumSuccess());
+    return 2 * Integer.BYTES + name.length + 1;
+  }
+
+  /**
+   * Opens the run at {@code file}, reading its index and Bloom filter.
+   *
+   * @throws RepoException if the run cannot be read or is malformed
+   */
+  static SortedRun open(Path file) throws RepoException {
+    FileChannel channel = null;
+    try {
+      channel = FileChannel.open(file, StandardOpenOption.READ);
+      final long size = channel.size();
+      if (size < footerBytes) {
+        throw new IOException("Run too short");
+      }
+      ByteBuffer footer = readFully(channel, size - footerBytes, footerBytes);
+      final long indexOffset = footer.getLong();
+      final long bloomOffset = footer.getLong();
+      final int numBlocks = footer.getInt();
+      final int numEntries = footer.getInt();
+      if (footer.getInt() != magic || indexOffset < 0
+          || bloomOffset < indexOffset || bloomOffset > size - footerBytes
+          || bloomOffset - indexOffset > Integer.MAX_VALUE
+          || size - footerBytes - bloomOffset > Integer.MAX_VALUE) {
+        throw new IOException("Malformed run footer");
+      }
+
+      ByteBuffer index = readFully(channel, indexOffset,
+          (int) (bloomOffset - indexOffset));
+      String[] blockKeys = new String[numBlocks];
+      long[] blockOffsets = new long[numBlocks + 1];
+      for (int i = 0; i < numBlocks; i++) {
+        blockKeys[i] = readString(index);
+        blockOffsets[i] = index.getLong();
+      }
+      blockOffsets[numBlocks] = indexOffset;
+
+      ByteBuffer bloom = readFully(channel, bloomOffset,
+          (int) (size - footerBytes - bloomOffset));
+      final int numHashes = bloom.getInt();
+      long[] bits = new long[bloom.getInt()];
+      for (int i = 0; i < bits.length; i++) {
+        bits[i] = bloom.getLong();
+      }
+      return new SortedRun(file, channel, blockKeys, blockOffsets,
+          new BloomFilter(bits, numHashes), numEntries);
+    } catch (IOException | BufferUnderflowException
+             | IllegalArgumentException | NegativeArraySizeException e) {
+      if (channel != null) {
+        try {
+          channel.close();
+        } catch (IOException closeFailure) {
+          // reported below
+        }
+      }
+      throw new RepoException(String.format("Error reading run at %s",
+          file.toAbsolutePath()));
+    }
+  }
+
+  private static ByteBuffer readFully(FileChannel channel, long position,
+                                      int length) throws IOException {
+    ByteBuffer buffer = ByteBuffer.allocate(length);
+    while (buffer.hasRemaining()) {
+      if (channel.read(buffer, position + buffer.position()) < 0) {
+        throw new IOException("Unexpected end of run");
+      }
+    }
+    return buffer.flip();
+  }
+
+  private static String readString(ByteBuffer buffer) {
+    byte[] bytes = new byte[buffer.getInt()];
+    buffer.get(bytes);
+    return new String(bytes, StandardCharsets.ISO_8859_1);
+  }
+
+  // Decodes the entries of block `block`.
+  private List<Map.Entry<String, User>> readBlock(int block) throws IOException {
+    ByteBuffer buffer = readFully(channel, blockOffsets[block],
+        (int) (blockOffsets[block + 1] - blockOffsets[block]));
+    List<Map.Entry<String, User>> entries = new ArrayList<>(indexInterval);
+    while (buffer.hasRemaining()) {
+      final String userName = readString(buffer);
+      final byte kind = buffer.get();
+      final int score = buffer.getInt();
+      entries.add(new AbstractMap.SimpleImmutableEntry<>(userName,
+          kind == tombstone ? null : new User(userName, score, kind == rootUser)));
+    }
+    return entries;
+  }
+
+  Path getFile() {
+    return file;
+  }
+
+  /**
+   * Returns the number of entries, tombstones included.
+   */
+  int size() {
+    return numEntries;
+  }
+
+  /**
+   * Returns whether the Bloom filter allows that {@code userName} is in this
+   * run.
+   */
+  boolean mightContain(String userName) {
+    return bloomFilter.mightContain(userName);
+  }
+
+  /**
+   * Looks {@code userName} up in this run.
+   *
+   * @return the entry of {@code userName}, whose value is {@code null} for a
+   *     tombstone, or {@code null} if the run has no entry for it
+   * @throws RepoException if the run cannot be read
+   */
+  Map.Entry<String, User> get(String userName) throws RepoException {
+    if (!bloomFilter.mightContain(userName)) {
+      return null;
+    }
+    int block = Arrays.binarySearch(blockKeys, userName);
+    if (block < 0) {
+      block = -block - 2;
+      if (block < 0) {
+        return null;
+      }
+    }
+    try {
+      for (Map.Entry<String, User> entry : readBlock(block)) {
+        if (entry.getKey().equals(userName)) {
+          return entry;
+        }
+      }
+      return null;
+    } catch (IOException | BufferUnderflowException e) {
+      throw new RepoException(String.format("Error reading run at %s",
+          file.toAbsolutePath()));
+    }
+  }
+
+  /**
+   * Returns an iterator over the entries in username order, which reads one
+   * block at a time. It throws {@link UncheckedIOException} if the run
+   * cannot be read.
+   */
+  Iterator<Map.Entry<String, User>> iterator() {
+    return new Iterator<>() {
+      private int nextBlock = 0;
+      private Iterator<Map.Entry<String, User>> block =
+          Collections.emptyIterator();
+
+      @Override
+      public boolean hasNext() {
+        while (!block.hasNext() && nextBlock < blockKeys.length) {
+          try {
+            block = readBlock(nextBlock++).iterator();
+          } catch (IOException e) {
+            throw new UncheckedIOException(e);
+          }
+        }
+        return block.hasNext();
+      }
+
+      @Override
+      public Map.Entry<String, User> next() {
+        if (!hasNext()) {
+          throw new NoSuchElementException();
+        }
+        return block.next();
+      }
+    };
+  }
+
+  /**
+   * Merges iterators over sorted entries into one sorted iterator. Where
+   * several iterators have an entry for the same username, only the entry
+   * of the earliest iterator in {@code newestFirst} is kept. Tombstones are
+   * kept.
+   */
+  static Iterator<Map.Entry<String, User>> merge(
+      List<Iterator<Map.Entry<String, User>>> newestFirst) {
+    // (entry, age of its iterator, iterator), ordered by username then age
+    record Head(Map.Entry<String, User> entry, int age,
+                Iterator<Map.Entry<String, User>> source) {
+    }
+
+    PriorityQueue<Head> heads = new PriorityQueue<>(
+        Comparator.comparing((Head head) -> head.entry().getKey())
+            .thenComparingInt(Head::age));
+    for (int age = 0; age < newestFirst.size(); age++) {
+      Iterator<Map.Entry<String, User>> source = newestFirst.get(age);
+      if (source.hasNext()) {
+        heads.add(new Head(source.next(), age, source));
+      }
+    }
+
+    return new Iterator<>() {
+      @Override
+      public boolean hasNext() {
+        return !heads.isEmpty();
+      }
+
+      @Override
+      public Map.Entry<String, User> next() {
+        if (heads.isEmpty()) {
+          throw new NoSuchElementException();
+        }
+        Head newest = heads.poll();
+        advance(newest);
+        // drop older entries for the same username
+        while (!heads.isEmpty()
+            && heads.peek().entry().getKey().equals(newest.entry().getKey())) {
+          advance(heads.poll());
+        }
+        return newest.entry();
+      }
+
+      private void advance(Head head) {
+        if (head.source().hasNext()) {
+          heads.add(new Head(head.source().next(), head.age(), head.source()));
+        }
+      }
+    };
+  }
+
+  @Override
+  public void close() throws RepoException {
+    try {
+      channel.close();
+    } catch (IOException e) {
+      throw new RepoException(String.format("Error closing run at %s",
+          file.toAbsolutePath()));
+    }
+  }
+
+  /**
+   * Closes the run and deletes its file.
+   */
+  void delete() throws RepoException {
+    close();
+    try {
+      Files.deleteIfExists(file);
+    } catch (IOException e) {
+      throw new RepoException(String.format("Error deleting run at %s",
+          file.toAbsolutePath()));
+    }
+  }
+}
@@ -7,17 +7,35 @@ import com.vlxu.coreexceptions.RepoException;
 import com.vlxu.coreexceptions.UserExistsException;
 import com.vlxu.coreexceptions.UserNotFoundException;
 import com.vlxu.entities.GuessWord;
+import com.vlxu.entities.IntRange;
 import com.vlxu.entities.User;
 import com.vlxu.entities.UserRepository;
+import com.vlxu.entities.WordIndex;
 import com.vlxu.entities.WordRepository;
+import com.vlxu.usecases.GetAllUserInfo;
 import java.io.File;
 import java.io.IOException;
 import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.AbstractList;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Random;
-import java.util.regex.Matcher;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.random.RandomGenerator;
 import java.util.regex.Pattern;
+import java.util.stream.Stream;
 
 /**
  * A text-based repository implementation.
@@ -25,7 +43,8 @@ import java.util.regex.Pattern;
  * <p>A word bank file is used to store all words that can be guessed.
  * The first line must be an integer indicating how many words there are in the file.
  * Each word must be on a new line and be of valid format (see README for the format
- * of a valid file).</p>
+ * of a valid file). The word bank is validated once when it is loaded; lines that are not
+ * valid words are never drawn and are listed in {@link #getWordBankReport()}.</p>
  *
  * <p>A user records file is used to store all users in the system. There is currently
  * no hard limit on the number of users allowed. Instead, this will be subject to the
@@ -33,22 +52,70 @@ import java.util.regex.Pattern;
  * THe first field is the username, the second field is how many words the user has successfully
  * guessed. The last field indicates whether a user is the first user (i.e., root).
  * </p>
+ *
+ * <p>In journal mode (see {@link TextFileRepositoryOptions#withJournal(boolean)}) user
+ * mutations are appended to a journal file next to the user records file as they happen,
+ * instead of the whole user records file being rewritten on {@link #close()}. Any journal
+ * left next to the user records file is replayed when the repository is constructed.</p>
+ *
+ * <p>With a memory-mapped word bank (see
+ * {@link TextFileRepositoryOptions#withMemoryMappedWordBank(boolean)}) the word bank file is
+ * mapped rather than loaded, and is never rewritten by the repository. The same holds
+ * for a packed word bank (see {@link TextFileRepositoryOptions#withPackedWordBank(boolean)}),
+ * which is loaded off the heap.</p>
+ *
+ * <p>In word bank reload mode (see
+ * {@link TextFileRepositoryOptions#withWordBankReload(boolean)}) the word bank file is
+ * polled for changes. A changed file is loaded and validated on a background thread, then
+ * swapped in atomically: draws never block and never see a partly loaded word bank, and
+ * games in progress keep their word.</p>
+ *
+ * <p>In snapshot mode (see {@link TextFileRepositoryOptions#withSnapshot(boolean)})
+ * {@link #close()} also writes a binary snapshot of the users and the word bank, which
+ * the next repository over unchanged files maps instead of parsing the text files.</p>
  */
 public class TextFileRepository
-    implements UserRepository, WordRepository, AutoCloseable {
+    implements UserRepository, WordRepository, GetAllUserInfo, AutoCloseable {
   private static final String defaultWordBankFilePath =
       "src/main/resources/word_bank.txt";
   private static final String defaultUsersFilePath =
       "src/main/resources/users.txt";
   private static final String defaultWordToGuess = "racecar";
+  private static final Pattern userNamePattern = Pattern.compile("[a-zA-Z0-9]+");
   private final String usersFilePath;
   private final String wordBankFilePath;
-
-  private final List<User> userRecords;
-  private final List<String> wordBank;
+  private final TextFileRepositoryOptions options;
+  private final boolean loadedFromSnapshot;
+
+  // completed in the constructor, or in the background in fast-start mode
+  private final CompletableFuture<UserTable> userRecords;
+  // swapped as a whole when the word bank file is reloaded; read it once per
+  // call so a call sees a single word bank
+  private final AtomicReference<WordBank> wordBank;
+  // the word bank file as it was when the current word bank was loaded
+  private volatile FileFingerprint wordBankFingerprint;
+  // the last version of the word bank file that had no valid word, so it is
+  // not loaded again on every poll. Guarded by `wordBankReloadLock`.
+  private FileFingerprint rejectedWordBankFingerprint = null;
+  private final Object wordBankReloadLock = new Object();
+  private final ScheduledExecutorService wordBankReloader;
+  private final AtomicReference<IndexedWordBank> wordIndex =
+      new AtomicReference<>();
+
+  private final UserJournal journal;
+  private final ScheduledExecutorService journalExecutor;
+  private Future<?> journalCompaction = null;
 
   private User signedInUser = null;
 
+  private final long constructionStartNanos = System.nanoTime();
+  // -1 until the first request is served
+  private final AtomicLong timeToFirstRequestNanos = new AtomicLong(-1);
+
+  // A word bank and the index built over it.
+  private record IndexedWordBank(WordBank wordBank, WordIndex wordIndex) {
+  }
+
   /**
    * Initialize a new {@code TextFileRepository} with default file paths for
    * word bank and user records. Use this constructor to automatically set up
@@ -69,6 +136,23 @@ public class TextFileRepository
    */
   public TextFileRepository(String wordBankFilePath, String usersFilePath)
       throws RepoException {
+    this(wordBankFilePath, usersFilePath, new TextFileRepositoryOptions());
+  }
+
+  /**
+   * Initialize a new {@code TextFileRepository} with custom options. This
+   * repository will create all files as needed, if they don't exist yet.
+   *
+   * @param wordBankFilePath custom word bank file path ({@code null} to use
+   *                         default)
+   * @param usersFilePath    custom user records file path ({@code null} to use
+   *                         default)
+   * @param options          see {@link TextFileRepositoryOptions}
+   */
+  public TextFileRepository(String wordBankFilePath, String usersFilePath,
+                            TextFileRepositoryOptions options)
+      throws RepoException {
+    this.options = options;
     this.wordBankFilePath =
         wordBankFilePath == null ? defaultWordBankFilePath : wordBankFilePath;
     this.usersFilePath =
@@ -77,64 +161,253 @@ public class TextFileRepository
     File wordBankFile = new File(this.wordBankFilePath);
     final boolean wordBankFileNewlyCreated =
         createFileIfNotExists(wordBankFile);
-    if (wordBankFileNewlyCreated) {
-      this.wordBank = new ArrayList<>();
-      this.wordBank.add(defaultWordToGuess);
-    } else {
-      this.wordBank = this.loadFromFile(wordBankFile);
-    }
-    this.saveToFile(wordBank, wordBankFile);
-
     File usersFile = new File(this.usersFilePath);
     final boolean usersFilePathNewlyCreated = createFileIfNotExists(usersFile);
-    this.userRecords = new ArrayList<>();
-    if (!usersFilePathNewlyCreated) {
-      for (String record : this.loadFromFile(usersFile)) {
-        userRecords.add(instantiateUserFromRecord(record));
+    final RepositorySnapshot snapshot =
+        options.isSnapshotted() && !wordBankFileNewlyCreated
+            && !usersFilePathNewlyCreated
+            ? loadSnapshot(wordBankFile, usersFile) : null;
+    this.loadedFromSnapshot = snapshot != null;
+
+    if (snapshot != null) {
+      this.wordBank = new AtomicReference<>(snapshot.getWordBank());
+    } else if (options.isMemoryMappedWordBank() || options.isPackedWordBank()) {
+      if (wordBankFileNewlyCreated) {
+        this.saveToFile(List.of(defaultWordToGuess), wordBankFile);
       }
+      this.wordBank = new AtomicReference<>(loadWordBank(wordBankFile));
+    } else {
+      List<String> words;
+      if (wordBankFileNewlyCreated) {
+        words = new ArrayList<>();
+        words.add(defaultWordToGuess);
+      } else {
+        words = this.loadFromFile(wordBankFile);
+      }
+      // rewriting an existing file only normalizes its line terminators
+      if (wordBankFileNewlyCreated || !options.isFastStart()) {
+        this.saveToFile(words, wordBankFile);
+      }
+      this.wordBank = new AtomicReference<>(new ListWordBank(words));
+    }
+    this.wordBankFingerprint = fingerprintOf(wordBankFile);
+
+    if (snapshot != null) {
+      this.userRecords = CompletableFuture.completedFuture(snapshot.getUsers());
+    } else if (options.isFastStart()) {
+      this.userRecords = CompletableFuture.supplyAsync(() -> {
+        try {
+          return loadUsers(usersFile, usersFilePathNewlyCreated);
+        } catch (RepoException e) {
+          throw new CompletionException(e);
+        }
+      }, ForkJoinPool.commonPool());
+    } else {
+      this.userRecords = CompletableFuture.completedFuture(
+          loadUsers(usersFile, usersFilePathNewlyCreated));
+    }
+
+    if (options.isJournaled()) {
+      this.journal = new UserJournal(usersFile.toPath(),
+          options.getJournalGroupCommitSize());
+      this.journalExecutor = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "users-journal");
+        thread.setDaemon(true);
+        return thread;
+      });
+      final long syncInterval = options.getJournalSyncIntervalMillis();
+      journalExecutor.scheduleWithFixedDelay(this::syncJournalQuietly,
+          syncInterval, syncInterval, TimeUnit.MILLISECONDS);
+    } else {
+      this.journal = null;
+      this.journalExecutor = null;
+    }
+
+    if (options.isWordBankReloaded()) {
+      this.wordBankReloader = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "word-bank-reload");
+        thread.setDaemon(true);
+        return thread;
+      });
+      final long pollInterval = options.getWordBankPollIntervalMillis();
+      wordBankReloader.scheduleWithFixedDelay(this::reloadWordBankQuietly,
+          pollInterval, pollInterval, TimeUnit.MILLISECONDS);
+    } else {
+      this.wordBankReloader = null;
     }
   }
 
-  // Create the file pointed to by filePath if it doesn't exist yet.
-  // Return True iff. the file was successfully created.
-  private boolean createFileIfNotExists(File fileToCreate)
+  // Restores the snapshot of the two files, or returns null if there is no
+  // usable one. A journal left next to the users file holds changes the
+  // snapshot does not have.
+  private static RepositorySnapshot loadSnapshot(File wordBankFile,
+                                                 File usersFile) {
+    final Path usersPath = usersFile.toPath();
+    if (Files.exists(UserJournal.journalPathFor(usersPath))
+        || Files.exists(UserJournal.oldJournalPathFor(usersPath))) {
+      return null;
+    }
+    return RepositorySnapshot.load(
+        RepositorySnapshot.snapshotPathFor(usersPath), wordBankFile.toPath(),
+        usersPath);
+  }
+
+  /**
+   * Returns whether this repository was restored from a snapshot rather
+   * than loaded from its text files (see
+   * {@link TextFileRepositoryOptions#withSnapshot(boolean)}).
+   */
+  public boolean isLoadedFromSnapshot() {
+    return loadedFromSnapshot;
+  }
+
+  // Reads the users file, parsing large files in parallel, and replays any
+  // journal left next to it.
+  private static UserTable loadUsers(File usersFile, boolean newlyCreated)
       throws RepoException {
+    UserTable users = new UserTable();
+    if (!newlyCreated) {
+      byte[] contents;
+      try {
+        contents = Files.readAllBytes(usersFile.toPath());
+      } catch (IOException e) {
+        throw new RepoException(String.format("Error loading records from %s",
+            usersFile.getAbsolutePath()));
+      }
+      for (User user : UserFileParser.parse(contents, ForkJoinPool.commonPool())) {
+        users.add(user);
+      }
+    }
+    UserJournal.recover(usersFile.toPath(), users);
+    return users;
+  }
+
+  // Returns the user table, waiting for it in fast-start mode, without
+  // counting as a request.
+  private UserTable awaitUsers() throws RepoException {
     try {
-      return fileToCreate.createNewFile();
-    } catch (IOException e) {
-      throw new RepoException(
-          String.format("Could not create file: %s",
-              fileToCreate.getAbsolutePath()));
+      return userRecords.join();
+    } catch (CompletionException e) {
+      if (e.getCause() instanceof RepoException repoException) {
+        throw repoException;
+      }
+      throw e;
+    }
+  }
+
+  // Returns the user table for a request.
+  private UserTable users() throws RepoException {
+    UserTable users = awaitUsers();
+    markRequest();
+    return users;
+  }
+
+  // Returns the current word bank, for a request.
+  private WordBank currentWordBank() {
+    markRequest();
+    return wordBank.get();
+  }
+
+  // Records the time to the first request, if this is the first one.
+  private void markRequest() {
+    if (timeToFirstRequestNanos.get() < 0) {
+      timeToFirstRequestNanos.compareAndSet(-1,
+          System.nanoTime() - constructionStartNanos);
     }
   }
 
-  // Validate `userRecord` and instantiate a User object from it.
-  private User instantiateUserFromRecord(String userRecord)
+  /**
+   * Returns how long it took from the start of the constructor until the
+   * first request (a word draw or any access to users) could be served,
+   * including any wait for users being loaded in fast-start mode.
+   *
+   * @return time to the first request, or {@code null} if there was none yet
+   */
+  public Duration getTimeToFirstRequest() {
+    final long nanos = timeToFirstRequestNanos.get();
+    return nanos < 0 ? null : Duration.ofNanos(nanos);
+  }
+
+  // Loads the word bank file into the kind of word bank set in the options.
+  private WordBank loadWordBank(File wordBankFile) throws RepoException {
+    if (options.isMemoryMappedWordBank()) {
+      return new MappedWordBank(wordBankFile);
+    }
+    if (options.isPackedWordBank()) {
+      return new PackedWordBank(wordBankFile);
+    }
+    return new ListWordBank(loadFromFile(wordBankFile));
+  }
+
+  private static FileFingerprint fingerprintOf(File file)
       throws RepoException {
-    String userRecordPattern = "([a-zA-Z0-9]+)#([0-9]+)#([YN])";
-    Matcher userRecordMatcher =
-        Pattern.compile(userRecordPattern).matcher(userRecord);
-    if (!userRecordMatcher.matches()) {
-      throw new RepoException(
-          String.format("Invalid user record found: %s", userRecord));
+    try {
+      return FileFingerprint.of(file.toPath());
+    } catch (IOException e) {
+      throw new RepoException(String.format("Error reading attributes of %s",
+          file.getAbsolutePath()));
     }
+  }
 
-    String userName = userRecordMatcher.group(1);
-    int numWordsSuccessfullyGuessed =
-        Integer.parseInt(userRecordMatcher.group(2));
-    boolean isFirstUser = userRecordMatcher.group(3).equals("Y");
+  /**
+   * Reloads the word bank file if it changed since it was last loaded. The
+   * new word bank is loaded and validated first, then replaces the current
+   * one in a single step; until then, words are drawn from the current one.
+   *
+   * <p>The current word bank is kept if the file changes again while it is
+   * being loaded (it is then reloaded on a later call), or if the file has no
+   * valid word. In reload mode this is called periodically in the
+   * background, but it can be called in any mode.</p>
+   *
+   * @return whether a new word bank was swapped in
+   * @throws RepoException if the word bank file cannot be read
+   */
+  public boolean reloadWordBank() throws RepoException {
+    synchronized (wordBankReloadLock) {
+      File wordBankFile = new File(wordBankFilePath);
+      final FileFingerprint before = fingerprintOf(wordBankFile);
+      if (before.equals(wordBankFingerprint)
+          || before.equals(rejectedWordBankFingerprint)) {
+        return false;
+      }
 
-    return new User(userName, numWordsSuccessfullyGuessed, isFirstUser);
+      WordBank loaded = loadWordBank(wordBankFile);
+      if (!fingerprintOf(wordBankFile).equals(before)) {
+        // still being written
+        return false;
+      }
+      // the file no longer matches the word bank even if it is rejected, so
+      // close() leaves it alone
+      if (loaded.size() == 0) {
+        rejectedWordBankFingerprint = before;
+        return false;
+      }
+      wordBankFingerprint = before;
+      wordBank.set(loaded);
+      return true;
+    }
   }
 
-  // Returns a user record from `user` and adds a newline.
-  private String userRecordFromUser(User user) {
-    return String.format("%s#%d#%s", user.getUserName(), user.getNumSuccess(),
-        user.getIsRoot() ? "Y" : "N");
+  // Polls the word bank file in reload mode.
+  private void reloadWordBankQuietly() {
+    try {
+      reloadWordBank();
+    } catch (RepoException e) {
+      // the file may be missing while it is being replaced; poll again
+    }
   }
 
-  private boolean isValidWord(String word) {
-    return GuessWord.isValidGuessWord(word);
+  // Create the file pointed to by filePath if it doesn't exist yet.
+  // Return True iff. the file was successfully created.
+  private boolean createFileIfNotExists(File fileToCreate)
+      throws RepoException {
+    try {
+      return fileToCreate.createNewFile();
+    } catch (IOException e) {
+      throw new RepoException(
+          String.format("Could not create file: %s",
+              fileToCreate.getAbsolutePath()));
+    }
   }
 
   private List<String> loadFromFile(File fileToLoad) throws RepoException {
@@ -158,117 +431,265 @@ public class TextFileRepository
     }
   }
 
-  // Returns the index of user `userName` in userRecords.
-  private int findUser(String userName) throws UserNotFoundException {
-    int i = 0;
-    User userFromRecord;
-    boolean userFound = false;
-    while (i < this.userRecords.size() && !userFound) {
-      userFromRecord = userRecords.get(i);
-      userFound = userFromRecord.getUserName().equals(userName);
-      i++;
+  // Replaces the word bank file with `lines` unless it was edited since it
+  // was loaded. The lines are written to a temp file first, so only the
+  // final move can race with an edit, and the file is checked right before
+  // it. Returns whether the file was replaced.
+  private boolean replaceIfUnchanged(List<String> lines, File wordBankFile)
+      throws RepoException {
+    final Path target = wordBankFile.toPath();
+    final Path tempFile = target.resolveSibling(target.getFileName() + ".tmp");
+    try {
+      Files.write(tempFile, lines);
+      if (!fingerprintOf(wordBankFile).equals(wordBankFingerprint)) {
+        Files.delete(tempFile);
+        return false;
+      }
+      Files.move(tempFile, target,
+          StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+      return true;
+    } catch (IOException e) {
+      throw new RepoException(String.format("Error saving to file at %s",
+          wordBankFile.getAbsolutePath()));
+    }
+  }
+
+  // Bounds how long a journal record can stay buffered before it is synced.
+  private void syncJournalQuietly() {
+    try {
+      journal.sync();
+    } catch (RepoException e) {
+      // the next append or close() syncs again and reports the failure
     }
-    i--;
+  }
+
+  // Write `record` ahead to the journal (if in journal mode), then start a
+  // compaction if the journal has grown past its threshold.
+  private void writeAhead(String record) throws RepoException {
+    if (journal == null) {
+      return;
+    }
+    journal.append(record);
 
-    if (!userFound) {
+    if (journalCompaction != null && !journalCompaction.isDone()) {
+      return;
+    }
+    // An old journal that is still around means an earlier compaction
+    // failed or was interrupted; retry it before rotating again.
+    if (!journal.hasOldJournal()) {
+      if (journal.size() < options.getJournalCompactionThresholdBytes()) {
+        return;
+      }
+      journal.rotate();
+    }
+    final Path usersFile = new File(usersFilePath).toPath();
+    final Path tempFile =
+        usersFile.resolveSibling(usersFile.getFileName() + ".tmp");
+    journalCompaction = journalExecutor.submit(() -> {
+      UserJournal.compact(usersFile, tempFile);
+      return null;
+    });
+  }
+
+  // Returns the record of user `userName`.
+  private User findUser(String userName)
+      throws UserNotFoundException, RepoException {
+    User userFromRecord = users().get(userName);
+    if (userFromRecord == null) {
       throw new UserNotFoundException(userName);
     }
 
-    return i;
+    return userFromRecord;
   }
 
   @Override
   public User addUser(String userName)
-      throws InvalidUserNameException, UserExistsException {
-    final boolean isValidUserName = Pattern.matches("[a-zA-Z0-9]+", userName);
+      throws InvalidUserNameException, UserExistsException, RepoException {
+    final boolean isValidUserName = userNamePattern.matcher(userName).matches();
     if (!isValidUserName) {
       throw new InvalidUserNameException();
     }
 
-    for (User user : userRecords) {
-      if (user.getUserName().equals(userName)) {
-        throw new UserExistsException(userName);
-      }
+    if (users().contains(userName)) {
+      throw new UserExistsException(userName);
     }
 
-    final boolean isFirstUser = userRecords.isEmpty();
+    final boolean isFirstUser = users().isEmpty();
     User newUser = new User(userName, 0, isFirstUser);
-    userRecords.add(newUser);
+    writeAhead(UserJournal.addRecord(newUser));
+    users().add(newUser);
 
     return newUser;
   }
 
   @Override
   public void removeUser(String userName)
-      throws FirstUserException, NotPermittedException, UserNotFoundException {
+      throws FirstUserException, NotPermittedException, UserNotFoundException,
+      RepoException {
     if (signedInUser == null || !signedInUser.getIsRoot()) {
       throw new NotPermittedException(String.format("Delete user %s", userName),
           "Logged in as root user");
     }
 
-    User userFromRecord = null;
-    int indexToDelete = 0;
-    boolean userFound = false;
-    while (indexToDelete < userRecords.size() && !userFound) {
-      userFromRecord = userRecords.get(indexToDelete);
-      userFound = userFromRecord.getUserName().equals(userName);
-      indexToDelete++;
-    }
-    indexToDelete--;
-
-    if (!userFound) {
-      throw new UserNotFoundException(userName);
-    }
-
+    User userFromRecord = findUser(userName);
     if (userFromRecord.getIsRoot()) {
       throw new FirstUserException(String.format("Delete user %s", userName));
     }
 
-    userRecords.remove(indexToDelete);
+    writeAhead(UserJournal.removeRecord(userName));
+    users().remove(userName);
   }
 
   @Override
   public void saveUserInfo(User user)
-      throws UserNotFoundException, NotPermittedException {
-    int userIndex = findUser(user.getUserName());
-    User userToUpdate = userRecords.get(userIndex);
+      throws UserNotFoundException, NotPermittedException, RepoException {
+    User userToUpdate = findUser(user.getUserName());
     if (userToUpdate.getIsRoot() != user.getIsRoot()) {
       throw new NotPermittedException("Cannot change user privileges",
           "No Permissions available");
     }
-    userRecords.set(userIndex, user);
+    writeAhead(UserJournal.saveRecord(user));
+    users().replace(user);
   }
 
   @Override
   public User getUserInfo(String userName)
-      throws UserNotFoundException {
-    int userIndex = findUser(userName);
-    return userRecords.get(userIndex);
+      throws UserNotFoundException, RepoException {
+    return findUser(userName);
   }
 
   @Override
   public String getRandomWord() throws RepoException {
-    if (wordBank.isEmpty()) {
-      throw new RepoException("Word bank is unexpectedly empty!");
+    return getRandomWord(ThreadLocalRandom.current());
+  }
+
+  @Override
+  public GuessWord getRandomGuessWord() throws RepoException {
+    return getRandomGuessWord(ThreadLocalRandom.current());
+  }
+
+  // Returns the current word bank, or throws if it has no word to draw.
+  private WordBank requireWords() throws RepoException {
+    WordBank currentWordBank = currentWordBank();
+    if (currentWordBank.size() == 0) {
+      throw new RepoException(String.format("No valid words in word bank at %s: %s",
+          new File(this.wordBankFilePath).getAbsolutePath(),
+          currentWordBank.getReport()));
     }
+    return currentWordBank;
+  }
+
+  @Override
+  public String getRandomWord(RandomGenerator random) throws RepoException {
+    WordBank currentWordBank = requireWords();
+    return currentWordBank.getWord(random.nextInt(currentWordBank.size()));
+  }
 
-    final Random rand = new Random();
-    final String selectedWord = wordBank.get(rand.nextInt(wordBank.size()));
-    if (!isValidWord(selectedWord)) {
-      throw new RepoException(String.format("Invalid word found at %s",
-          new File(this.wordBankFilePath).getAbsolutePath()));
+  // Words were validated when the word bank was loaded.
+  @Override
+  public GuessWord getRandomGuessWord(RandomGenerator random)
+      throws RepoException {
+    WordBank currentWordBank = requireWords();
+    return currentWordBank.getGuessWord(
+        random.nextInt(currentWordBank.size()));
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * <p>The word bank is indexed by length when it is loaded, so this takes a
+   * single draw however rare the lengths are. See
+   * {@link WordBankReport#getNumValidWords(IntRange)} for how many words can
+   * be drawn.</p>
+   */
+  @Override
+  public String getRandomWord(IntRange lengths, RandomGenerator random)
+      throws RepoException {
+    WordBank currentWordBank = currentWordBank();
+    LengthBuckets lengthBuckets = currentWordBank.getLengthBuckets();
+    final int start = lengthBuckets.start(lengths.getMin());
+    final int end = lengthBuckets.end(lengths);
+    if (start >= end) {
+      throw new RepoException(String.format(
+          "No valid words of length %s in word bank at %s: %s", lengths,
+          new File(this.wordBankFilePath).getAbsolutePath(),
+          currentWordBank.getReport()));
+    }
+
+    return currentWordBank.getWord(start + random.nextInt(end - start));
+  }
+
+  /**
+   * Returns an index over the valid words of the word bank, to find the words
+   * consistent with a guess view (e.g., for hints or guessing strategies).
+   * The index is built on first use; the bitsets for a word length are built
+   * the first time that length is queried.
+   *
+   * @return index of the word bank
+   */
+  public WordIndex getWordIndex() {
+    WordBank currentWordBank = currentWordBank();
+    IndexedWordBank indexed = wordIndex.get();
+    if (indexed == null || indexed.wordBank() != currentWordBank) {
+      // racing callers may both build an index; either one is correct
+      indexed = new IndexedWordBank(currentWordBank,
+          new WordIndex(new AbstractList<>() {
+            @Override
+            public String get(int i) {
+              return currentWordBank.getWord(i);
+            }
+
+            @Override
+            public int size() {
+              return currentWordBank.size();
+            }
+          }));
+      wordIndex.set(indexed);
+    }
+    return indexed.wordIndex();
+  }
+
+  /**
+   * Returns the outcome of validating the word bank file when it was loaded,
+   * including the lines that were rejected.
+   *
+   * @return report on the loaded word bank
+   */
+  public WordBankReport getWordBankReport() {
+    return wordBank.get().getReport();
+  }
+
+  @Override
+  public List<User> getAllUserInfo() throws RepoException {
+    UserTable users = users();
+    List<User> allUsers = new ArrayList<>(users.size());
+    for (User user : users) {
+      allUsers.add(user);
     }
+    return allUsers;
+  }
 
-    return selectedWord;
+  /**
+   * {@inheritDoc}
+   *
+   * <p>Users are streamed in insertion order, straight from the user table.
+   * Saving a user while the stream is in use is fine, but adding or removing
+   * one makes the stream throw
+   * {@link java.util.ConcurrentModificationException}.</p>
+   */
+  @Override
+  public Stream<User> streamAllUserInfo() throws RepoException {
+    return users().stream();
   }
 
   @Override
-  public void login(String userName) throws UserNotFoundException {
+  public void login(String userName)
+      throws UserNotFoundException, RepoException {
     signedInUser = getUserInfo(userName);
   }
 
   @Override
-  public User getSignedInUser() throws UserNotFoundException {
+  public User getSignedInUser() throws UserNotFoundException, RepoException {
     if (signedInUser == null) {
       throw new UserNotFoundException("null");
     }
@@ -278,11 +699,74 @@ public class TextFileRepository
 
   @Override
   public void close() throws RepoException {
+    if (wordBankReloader != null) {
+      wordBankReloader.shutdownNow();
+    }
+    if (journal != null) {
+      closeJournal();
+      return;
+    }
+
+    final UserTable users = awaitUsers();
     List<String> records = new ArrayList<>();
-    for (User user : userRecords) {
-      records.add(userRecordFromUser(user));
+    for (User user : users) {
+      records.add(UserRecordFormat.format(user));
+    }
+    File usersFile = new File(usersFilePath);
+    saveToFile(records, usersFile);
+    // Memory-mapped and packed word banks never change their file, so there
+    // is nothing to write back. A file edited since it was loaded is not
+    // overwritten either.
+    synchronized (wordBankReloadLock) {
+      File wordBankFile = new File(wordBankFilePath);
+      boolean wordBankMatchesFile = wordBankFile.exists()
+          && fingerprintOf(wordBankFile).equals(wordBankFingerprint);
+      if (wordBank.get() instanceof ListWordBank listWordBank) {
+        if (!wordBankFile.exists()) {
+          saveToFile(listWordBank.getLines(), wordBankFile);
+          wordBankMatchesFile = true;
+        } else if (wordBankMatchesFile) {
+          wordBankMatchesFile =
+              replaceIfUnchanged(listWordBank.getLines(), wordBankFile);
+        }
+      }
+      // A snapshot must match both files, so none is written over a word
+      // bank file edited since it was loaded.
+      if (options.isSnapshotted() && wordBankMatchesFile) {
+        RepositorySnapshot.write(
+            RepositorySnapshot.snapshotPathFor(usersFile.toPath()),
+            wordBankFile.toPath(), usersFile.toPath(), users, wordBank.get());
+      }
+    }
+
+    // The users file now holds every change, so journals left over from an
+    // earlier journal-mode session are obsolete.
+    try {
+      Files.deleteIfExists(UserJournal.journalPathFor(usersFile.toPath()));
+      Files.deleteIfExists(UserJournal.oldJournalPathFor(usersFile.toPath()));
+    } catch (IOException e) {
+      throw new RepoException(String.format("Error deleting journal of %s",
+          usersFile.getAbsolutePath()));
+    }
+  }
+
+  // Flush the journal and wait for any running compaction. The journal keeps
+  // every change, so the users file does not need to be rewritten.
+  private void closeJournal() throws RepoException {
+    journalExecutor.shutdown();
+    try {
+      if (journalCompaction != null) {
+        journalCompaction.get();
+      }
+      journalExecutor.awaitTermination(1, TimeUnit.MINUTES);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new RepoException("Interrupted while waiting for journal compaction");
+    } catch (ExecutionException e) {
+      throw new RepoException(String.format("Journal compaction failed: %s",
+          e.getCause().getMessage()));
+    } finally {
+      journal.close();
     }
-    saveToFile(records, new File(usersFilePath));
-    saveToFile(wordBank, new File(wordBankFilePath));
   }
 }
@@ -0,0 +1,201 @@
+package com.vlxu.interfaceadapters;
+
+/**
+ * Optional settings for a {@link TextFileRepository}. The defaults reproduce
+ * the original behaviour of the repository: everything is kept in memory and
+ * both files are rewritten in full on {@link TextFileRepository#close()}.
+ */
+public class TextFileRepositoryOptions {
+  private boolean journaled = false;
+  private int journalGroupCommitSize = 32;
+  private long journalSyncIntervalMillis = 100;
+  private long journalCompactionThresholdBytes = 1 << 20;
+  private boolean memoryMappedWordBank = false;
+  private boolean packedWordBank = false;
+  private boolean wordBankReloaded = false;
+  private long wordBankPollIntervalMillis = 1000;
+  private boolean fastStart = false;
+  private boolean snapshotted = false;
+
+  /**
+   * Enables or disables write-ahead journal mode.
+   *
+   * <p>In journal mode every {@code addUser}, {@code removeUser} and
+   * {@code saveUserInfo} is appended to a journal next to the users file
+   * instead of being held until {@code close()}. The journal is replayed over
+   * the users file when the repository is constructed, and folded into a fresh
+   * users file in the background once it grows past the compaction
+   * threshold.</p>
+   */
+  public TextFileRepositoryOptions withJournal(boolean journaled) {
+    this.journaled = journaled;
+    return this;
+  }
+
+  /**
+   * Sets how many journal records may be buffered before they are forced to
+   * disk together.
+   */
+  public TextFileRepositoryOptions withJournalGroupCommitSize(int records) {
+    if (records < 1) {
+      throw new IllegalArgumentException("Group commit size must be positive");
+    }
+    this.journalGroupCommitSize = records;
+    return this;
+  }
+
+  /**
+   * Sets the longest time, in milliseconds, that a journal record may stay
+   * buffered before it is forced to disk.
+   */
+  public TextFileRepositoryOptions withJournalSyncInterval(long millis) {
+    if (millis < 1) {
+      throw new IllegalArgumentException("Sync interval must be positive");
+    }
+    this.journalSyncIntervalMillis = millis;
+    return this;
+  }
+
+  /**
+   * Sets the journal size, in bytes, past which the journal is folded into a
+   * fresh users file.
+   */
+  public TextFileRepositoryOptions withJournalCompactionThreshold(long bytes) {
+    if (bytes < 1) {
+      throw new IllegalArgumentException(
+          "Compaction threshold must be positive");
+    }
+    this.journalCompactionThresholdBytes = bytes;
+    return this;
+  }
+
+  /**
+   * Enables or disables the memory-mapped word bank.
+   *
+   * <p>A memory-mapped word bank is not loaded onto the heap. Instead the word
+   * bank file is mapped into memory, only the offset of each line is kept, and
+   * a word is decoded from the mapping when it is drawn. The word bank file is
+   * then never rewritten by the repository, and must not be modified while
+   * the repository is open.</p>
+   */
+  public TextFileRepositoryOptions withMemoryMappedWordBank(boolean mapped) {
+    this.memoryMappedWordBank = mapped;
+    return this;
+  }
+
+  /**
+   * Enables or disables the packed word bank.
+   *
+   * <p>A packed word bank stores every valid word in 16 bytes off the heap
+   * instead of as a {@code String}, which cuts the heap footprint of a large
+   * word bank by an order of magnitude. Like a memory-mapped word bank, the
+   * word bank file is then never rewritten by the repository; unlike it, the
+   * file is only read while the repository is constructed. A memory-mapped
+   * word bank takes precedence if both are enabled.</p>
+   */
+  public TextFileRepositoryOptions withPackedWordBank(boolean packed) {
+    this.packedWordBank = packed;
+    return this;
+  }
+
+  /**
+   * Enables or disables word bank reload mode.
+   *
+   * <p>In reload mode the word bank file is polled for changes to its size or
+   * modification time. A changed file is loaded and validated in the
+   * background and then replaces the word bank in a single step, without
+   * blocking or restarting games in progress. A memory-mapped word bank file
+   * must be replaced (e.g., renamed over) rather than edited in place.</p>
+   */
+  public TextFileRepositoryOptions withWordBankReload(boolean reloaded) {
+    this.wordBankReloaded = reloaded;
+    return this;
+  }
+
+  /**
+   * Sets how often, in milliseconds, the word bank file is checked for
+   * changes in reload mode.
+   */
+  public TextFileRepositoryOptions withWordBankPollInterval(long millis) {
+    if (millis < 1) {
+      throw new IllegalArgumentException("Poll interval must be positive");
+    }
+    this.wordBankPollIntervalMillis = millis;
+    return this;
+  }
+
+  /**
+   * Enables or disables fast-start mode.
+   *
+   * <p>In fast-start mode the constructor does not rewrite an existing word
+   * bank file, and returns without waiting for the users file: users are
+   * loaded in the background, and the first access to users waits for them.
+   * A users file that cannot be loaded is then reported on that first access
+   * (as an {@code IllegalStateException} by calls that cannot throw
+   * {@code RepoException}). See
+   * {@link TextFileRepository#getTimeToFirstRequest()} for the gain.</p>
+   */
+  public TextFileRepositoryOptions withFastStart(boolean fastStart) {
+    this.fastStart = fastStart;
+    return this;
+  }
+
+  /**
+   * Enables or disables snapshot mode.
+   *
+   * <p>In snapshot mode {@link TextFileRepository#close()} also writes a
+   * versioned, checksummed binary snapshot of the users and the validated
+   * word bank next to the users file. The next repository constructed over
+   * the same files maps that snapshot instead of parsing and validating the
+   * text files, as long as the snapshot is intact and the size, modification
+   * time and checksum of both text files are unchanged; otherwise (or if a
+   * journal is left next to the users file) it loads the text files as
+   * usual. A restored word bank is packed (see
+   * {@link #withPackedWordBank(boolean)}) whatever kind of word bank is set.
+   * No snapshot is written in journal mode.</p>
+   */
+  public TextFileRepositoryOptions withSnapshot(boolean snapshotted) {
+    this.snapshotted = snapshotted;
+    return this;
+  }
+
+  public boolean isJournaled() {
+    return journaled;
+  }
+
+  public int getJournalGroupCommitSize() {
+    return journalGroupCommitSize;
+  }
+
+  public long getJournalSyncIntervalMillis() {
+    return journalSyncIntervalMillis;
+  }
+
+  public long getJournalCompactionThresholdBytes() {
+    return journalCompactionThresholdBytes;
+  }
+
+  public boolean isMemoryMappedWordBank() {
+    return memoryMappedWordBank;
+  }
+
+  public boolean isPackedWordBank() {
+    return packedWordBank;
+  }
+
+  public boolean isWordBankReloaded() {
+    return wordBankReloaded;
+  }
+
+  public long getWordBankPollIntervalMillis() {
+    return wordBankPollIntervalMillis;
+  }
+
+  public boolean isFastStart() {
+    return fastStart;
+  }
+
+  public boolean isSnapshotted() {
+    return snapshotted;
+  }
+}
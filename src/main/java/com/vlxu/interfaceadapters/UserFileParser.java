@@ -0,0 +1,115 @@
+package com.vlxu.interfaceadapters;
+
+import com.vlxu.coreexceptions.RepoException;
+import com.vlxu.entities.User;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Parses the contents of a users file into users, in parallel for large
+ * files.
+ *
+ * <p>The file is split into chunks of at least {@link #minChunkBytes} bytes,
+ * each ending at a line break, and the chunks are parsed on a fork/join pool
+ * with {@link UserRecordFormat#parse(byte[], int, int)}. Lines are split the
+ * same way as {@code Files.readAllLines}: on {@code \n}, {@code \r\n} or
+ * {@code \r}, without a trailing empty line.</p>
+ */
+final class UserFileParser {
+  // Below this, forking costs more than it saves.
+  static final int minChunkBytes = 1 << 20;
+
+  private UserFileParser() {
+  }
+
+  // Carries a RepoException out of the pool.
+  private static class ParseFailure extends RuntimeException {
+    ParseFailure(RepoException cause) {
+      super(cause);
+    }
+  }
+
+  private static class Chunks extends RecursiveTask<List<User>> {
+    private final byte[] contents;
+    private final int start;
+    private final int end;
+
+    // parses the lines of contents[start, end), which ends at a line break
+    // or at the end of the contents
+    Chunks(byte[] contents, int start, int end) {
+      this.contents = contents;
+      this.start = start;
+      this.end = end;
+    }
+
+    @Override
+    protected List<User> compute() {
+      if (end - start < 2 * minChunkBytes) {
+        try {
+          return parseLines(contents, start, end);
+        } catch (RepoException e) {
+          throw new ParseFailure(e);
+        }
+      }
+      final int mid = nextLineStart(contents, lineEnd(contents,
+          start + (end - start) / 2, end), end);
+      Chunks right = new Chunks(contents, mid, end);
+      right.fork();
+      List<User> users = new Chunks(contents, start, mid).compute();
+      users.addAll(right.join());
+      return users;
+    }
+  }
+
+  /**
+   * Returns the users in {@code contents}, in file order.
+   *
+   * @throws RepoException if a line is not a valid user record
+   */
+  static List<User> parse(byte[] contents, ForkJoinPool pool)
+      throws RepoException {
+    if (contents.length < 2 * minChunkBytes) {
+      return parseLines(contents, 0, contents.length);
+    }
+    try {
+      return pool.invoke(new Chunks(contents, 0, contents.length));
+    } catch (ParseFailure e) {
+      throw (RepoException) e.getCause();
+    }
+  }
+
+  private static List<User> parseLines(byte[] contents, int start, int end)
+      throws RepoException {
+    List<User> users = new ArrayList<>();
+    int offset = start;
+    while (offset < end) {
+      final int lineEnd = lineEnd(contents, offset, end);
+      users.add(UserRecordFormat.parse(contents, offset, lineEnd));
+      offset = nextLineStart(contents, lineEnd, end);
+    }
+    return users;
+  }
+
+  // Returns the offset of the first line terminator at or after `offset`,
+  // or `limit` if there is none.
+  private static int lineEnd(byte[] contents, int offset, int limit) {
+    while (offset < limit && contents[offset] != '\n'
+        && contents[offset] != '\r') {
+      offset++;
+    }
+    return offset;
+  }
+
+  // Returns the offset right after the terminator at `lineEnd`.
+  private static int nextLineStart(byte[] contents, int lineEnd, int limit) {
+    if (lineEnd < limit && contents[lineEnd] == '\r') {
+      lineEnd++;
+    }
+    if (lineEnd < limit && contents[lineEnd] == '\n') {
+      lineEnd++;
+    }
+    return lineEnd;
+  }
+}
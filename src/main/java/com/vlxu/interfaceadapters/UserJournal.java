@@ -0,0 +1,341 @@
+package com.vlxu.interfaceadapters;
+
+import com.vlxu.coreexceptions.RepoException;
+import com.vlxu.entities.User;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Append-only journal of user mutations, written next to a users file.
+ *
+ * <p>Each mutation is one line:</p>
+ * <ul>
+ *   <li>{@code A#name#Y} or {@code A#name#N}: a user was added</li>
+ *   <li>{@code R#name}: a user was removed</li>
+ *   <li>{@code S#name#score}: a user's score was saved</li>
+ * </ul>
+ *
+ * <p>Records are written to the journal as they arrive but only forced to
+ * disk once {@code groupCommitSize} records are pending, or when
+ * {@link #sync()} is called. A record without a trailing newline is the
+ * remains of an interrupted write and is ignored on replay.</p>
+ *
+ * <p>When the journal grows too large it is rotated: the current file is
+ * renamed to the "old" journal and a fresh journal is started. The old
+ * journal is later folded into the users file by
+ * {@link #compact(Path, Path)}. Replaying a journal is idempotent, so it is
+ * safe to replay an old journal that was already folded into the users file
+ * if the process died before the old journal could be deleted.</p>
+ */
+final class UserJournal implements AutoCloseable {
+  private final Path journalPath;
+  private final Path oldJournalPath;
+  private final int groupCommitSize;
+  private FileChannel channel;
+  private int pendingRecords;
+
+  /**
+   * Opens (or creates) the journal belonging to {@code usersFilePath}.
+   *
+   * @param groupCommitSize the number of records to buffer before forcing
+   *                        them to disk
+   */
+  UserJournal(Path usersFilePath, int groupCommitSize) throws RepoException {
+    this.journalPath = journalPathFor(usersFilePath);
+    this.oldJournalPath = oldJournalPathFor(usersFilePath);
+    this.groupCommitSize = groupCommitSize;
+    this.channel = open(journalPath);
+    this.pendingRecords = 0;
+  }
+
+  static Path journalPathFor(Path usersFilePath) {
+    return usersFilePath.resolveSibling(usersFilePath.getFileName() + ".journal");
+  }
+
+  static Path oldJournalPathFor(Path usersFilePath) {
+    return usersFilePath.resolveSibling(
+        usersFilePath.getFileName() + ".journal.old");
+  }
+
+  private static FileChannel open(Path path) throws RepoException {
+    try {
+      return FileChannel.open(path, StandardOpenOption.CREATE,
+          StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    } catch (IOException e) {
+      throw new RepoException(
+          String.format("Could not open journal at %s", path.toAbsolutePath()));
+    }
+  }
+
+  static String addRecord(User user) {
+    return String.format("A#%s#%s", user.getUserName(),
+        user.getIsRoot() ? "Y" : "N");
+  }
+
+  static String removeRecord(String userName) {
+    return String.format("R#%s", userName);
+  }
+
+  static String saveRecord(User user) {
+    return String.format("S#%s#%d", user.getUserName(), user.getNumSuccess());
+  }
+
+  /**
+   * Appends {@code record} to the journal.
+   */
+  synchronized void append(String record) throws RepoException {
+    ByteBuffer bytes =
+        ByteBuffer.wrap((record + "\n").getBytes(StandardCharsets.UTF_8));
+    try {
+      while (bytes.hasRemaining()) {
+        channel.write(bytes);
+      }
+    } catch (IOException e) {
+      throw new RepoException(String.format("Error writing to journal at %s",
+          journalPath.toAbsolutePath()));
+    }
+
+    pendingRecords += 1;
+    if (pendingRecords >= groupCommitSize) {
+      sync();
+    }
+  }
+
+  /**
+   * Forces all records appended so far to disk.
+   */
+  synchronized void sync() throws RepoException {
+    if (pendingRecords == 0) {
+      return;
+    }
+    try {
+      channel.force(false);
+    } catch (IOException e) {
+      throw new RepoException(String.format("Error syncing journal at %s",
+          journalPath.toAbsolutePath()));
+    }
+    pendingRecords = 0;
+  }
+
+  /**
+   * Returns the size of the current journal in bytes.
+   */
+  synchronized long size() throws RepoException {
+    try {
+      return channel.size();
+    } catch (IOException e) {
+      throw new RepoException(String.format("Error reading journal at %s",
+          journalPath.toAbsolutePath()));
+    }
+  }
+
+  /**
+   * Returns whether an old journal is still waiting to be compacted.
+   */
+  boolean hasOldJournal() {
+    return Files.exists(oldJournalPath);
+  }
+
+  /**
+   * Moves the current journal aside as the old journal and starts a new,
+   * empty journal. Must not be called while an old journal still exists.
+   */
+  synchronized void rotate() throws RepoException {
+    sync();
+    try {
+      channel.close();
+      Files.move(journalPath, oldJournalPath, StandardCopyOption.ATOMIC_MOVE);
+    } catch (IOException e) {
+      throw new RepoException(String.format("Error rotating journal at %s",
+          journalPath.toAbsolutePath()));
+    }
+    channel = open(journalPath);
+  }
+
+  /**
+   * Deletes both the current and the old journal. Used once the users file
+   * has been rewritten with every journaled change.
+   */
+  synchronized void discard() throws RepoException {
+    try {
+      channel.truncate(0);
+      channel.force(true);
+      Files.deleteIfExists(oldJournalPath);
+    } catch (IOException e) {
+      throw new RepoException(String.format("Error discarding journal at %s",
+          journalPath.toAbsolutePath()));
+    }
+    pendingRecords = 0;
+  }
+
+  @Override
+  public synchronized void close() throws RepoException {
+    sync();
+    try {
+      channel.close();
+    } catch (IOException e) {
+      throw new RepoException(String.format("Error closing journal at %s",
+          journalPath.toAbsolutePath()));
+    }
+  }
+
+  /**
+   * Replays the old journal and then the current journal of
+   * {@code usersFilePath} onto {@code userTable}, if they exist. A torn
+   * record at the end of the current journal is cut off, so that records
+   * appended later start on a line of their own.
+   */
+  static void recover(Path usersFilePath, UserTable userTable)
+      throws RepoException {
+    replay(oldJournalPathFor(usersFilePath), userTable);
+    Path journal = journalPathFor(usersFilePath);
+    long completeLength = replay(journal, userTable);
+    try {
+      if (Files.exists(journal) && Files.size(journal) > completeLength) {
+        try (FileChannel channel =
+                 FileChannel.open(journal, StandardOpenOption.WRITE)) {
+          channel.truncate(completeLength);
+          channel.force(true);
+        }
+      }
+    } catch (IOException e) {
+      throw new RepoException(String.format("Error truncating journal at %s",
+          journal.toAbsolutePath()));
+    }
+  }
+
+  /**
+   * Applies every complete record in the journal at {@code path} to
+   * {@code userTable}. Does nothing if the journal does not exist.
+   *
+   * @return the length in bytes of the complete records in the journal
+   */
+  static long replay(Path path, UserTable userTable) throws RepoException {
+    if (!Files.exists(path)) {
+      return 0;
+    }
+
+    String contents;
+    try {
+      contents = Files.readString(path, StandardCharsets.UTF_8);
+    } catch (IOException e) {
+      throw new RepoException(String.format("Error loading journal from %s",
+          path.toAbsolutePath()));
+    }
+
+    int lineStart = 0;
+    int lineEnd = contents.indexOf('\n');
+    while (lineEnd != -1) {
+      apply(contents.substring(lineStart, lineEnd), userTable);
+      lineStart = lineEnd + 1;
+      lineEnd = contents.indexOf('\n', lineStart);
+    }
+    // Anything after the last newline is a torn write and is dropped.
+    return contents.substring(0, lineStart)
+        .getBytes(StandardCharsets.UTF_8).length;
+  }
+
+  private static void apply(String record, UserTable userTable)
+      throws RepoException {
+    String[] fields = record.split("#", -1);
+    boolean valid;
+    switch (fields[0]) {
+      case "A" -> {
+        valid = fields.length == 3 && isFlag(fields[2]);
+        if (valid && !userTable.contains(fields[1])) {
+          userTable.add(new User(fields[1], 0, fields[2].equals("Y")));
+        }
+      }
+      case "R" -> {
+        valid = fields.length == 2;
+        if (valid) {
+          userTable.remove(fields[1]);
+        }
+      }
+      case "S" -> {
+        valid = fields.length == 3 && isScore(fields[2]);
+        User userToUpdate = valid ? userTable.get(fields[1]) : null;
+        if (userToUpdate != null) {
+          userTable.replace(new User(userToUpdate.getUserName(),
+              Integer.parseInt(fields[2]), userToUpdate.getIsRoot()));
+        }
+      }
+      default -> valid = false;
+    }
+
+    if (!valid) {
+      throw new RepoException(
+          String.format("Invalid journal record found: %s", record));
+    }
+  }
+
+  private static boolean isFlag(String field) {
+    return field.equals("Y") || field.equals("N");
+  }
+
+  private static boolean isScore(String field) {
+    if (field.isEmpty() || field.length() > 9) {
+      return false;
+    }
+    for (int i = 0; i < field.length(); i++) {
+      if (field.charAt(i) < '0' || field.charAt(i) > '9') {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Folds the old journal of {@code usersFilePath} into a fresh users file.
+   * The new users file is written to {@code tempFilePath} and then atomically
+   * moved over {@code usersFilePath}, after which the old journal is deleted.
+   * This only touches files, so it can safely run in the background while the
+   * repository keeps appending to the current journal.
+   */
+  static void compact(Path usersFilePath, Path tempFilePath)
+      throws RepoException {
+    UserTable snapshot = new UserTable();
+    try {
+      if (Files.exists(usersFilePath)) {
+        for (String record : Files.readAllLines(usersFilePath)) {
+          snapshot.add(UserRecordFormat.parse(record));
+        }
+      }
+    } catch (IOException e) {
+      throw new RepoException(String.format("Error loading records from %s",
+          usersFilePath.toAbsolutePath()));
+    }
+    Path oldJournal = oldJournalPathFor(usersFilePath);
+    replay(oldJournal, snapshot);
+
+    List<String> records = new ArrayList<>(snapshot.size());
+    for (User user : snapshot) {
+      records.add(UserRecordFormat.format(user));
+    }
+    try (FileChannel tempChannel = FileChannel.open(tempFilePath,
+        StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+        StandardOpenOption.TRUNCATE_EXISTING)) {
+      ByteBuffer bytes = ByteBuffer.wrap(
+          (String.join("\n", records) + (records.isEmpty() ? "" : "\n"))
+              .getBytes(StandardCharsets.UTF_8));
+      while (bytes.hasRemaining()) {
+        tempChannel.write(bytes);
+      }
+      tempChannel.force(true);
+      Files.move(tempFilePath, usersFilePath,
+          StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+      Files.deleteIfExists(oldJournal);
+    } catch (IOException e) {
+      throw new RepoException(String.format("Error compacting journal into %s",
+          usersFilePath.toAbsolutePath()));
+    }
+  }
+}
@@ -0,0 +1,81 @@
+package com.vlxu.interfaceadapters;
+
+import com.vlxu.coreexceptions.RepoException;
+import com.vlxu.entities.User;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Conversion between {@link User} objects and the text user records used by
+ * the file-based repositories. A user record has the form
+ * {@code name#score#Y} (root) or {@code name#score#N}.
+ */
+final class UserRecordFormat {
+  private UserRecordFormat() {
+  }
+
+  // Validate `userRecord` and instantiate a User object from it.
+  static User parse(String userRecord) throws RepoException {
+    // characters outside Latin-1 become '?', which is invalid anyway
+    final byte[] bytes = userRecord.getBytes(StandardCharsets.ISO_8859_1);
+    try {
+      return parse(bytes, 0, bytes.length);
+    } catch (RepoException e) {
+      throw new RepoException(
+          String.format("Invalid user record found: %s", userRecord));
+    }
+  }
+
+  /**
+   * Validates the user record in {@code bytes[start, end)} and instantiates a
+   * User object from it. Equivalent to matching
+   * {@code ([a-zA-Z0-9]+)#([0-9]+)#([YN])}, but scans the record once and
+   * only allocates the username and the user.
+   *
+   * @throws RepoException if the record is invalid, or its score does not
+   *                       fit in an {@code int}
+   */
+  static User parse(byte[] bytes, int start, int end) throws RepoException {
+    int i = start;
+    while (i < end && isNameByte(bytes[i])) {
+      i++;
+    }
+    final int nameEnd = i;
+    if (nameEnd == start || i == end || bytes[i++] != '#') {
+      throw invalidRecord(bytes, start, end);
+    }
+
+    final int scoreStart = i;
+    long score = 0;
+    while (i < end && bytes[i] >= '0' && bytes[i] <= '9') {
+      score = score * 10 + (bytes[i++] - '0');
+      if (score > Integer.MAX_VALUE) {
+        throw invalidRecord(bytes, start, end);
+      }
+    }
+    if (i == scoreStart || end - i != 2 || bytes[i] != '#'
+        || (bytes[i + 1] != 'Y' && bytes[i + 1] != 'N')) {
+      throw invalidRecord(bytes, start, end);
+    }
+
+    return new User(
+        new String(bytes, start, nameEnd - start, StandardCharsets.ISO_8859_1),
+        (int) score, bytes[i + 1] == 'Y');
+  }
+
+  private static boolean isNameByte(byte b) {
+    return (b >= 'a' && b <= 'z') || (b >= 'A' && b <= 'Z')
+        || (b >= '0' && b <= '9');
+  }
+
+  private static RepoException invalidRecord(byte[] bytes, int start,
+                                             int end) {
+    return new RepoException(String.format("Invalid user record found: %s",
+        new String(bytes, start, end - start, StandardCharsets.UTF_8)));
+  }
+
+  // Returns a user record from `user` (without a trailing newline).
+  static String format(User user) {
+    return String.format("%s#%d#%s", user.getUserName(), user.getNumSuccess(),
+        user.getIsRoot() ? "Y" : "N");
+  }
+}
@@ -0,0 +1,384 @@
+package com.vlxu.interfaceadapters;
+
+import com.vlxu.entities.User;
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * In-memory table of user records, indexed by username.
+ *
+ * <p>Lookups, insertions, replacements and removals all run in O(1) expected
+ * time. Iteration order is insertion order, so persisting the table
+ * reproduces the order in which records were loaded or added. The root user
+ * is tracked separately so it never has to be searched for.</p>
+ *
+ * <p>Users are stored by column rather than as objects: each user has a slot,
+ * in insertion order, and its name lives in a shared byte arena, its score in
+ * an {@code int[]} and its root flag in a bitset. An {@code int[]} also keeps
+ * a position per user for the owner of the table, such as where the user's
+ * record is stored. Names are found through an
+ * open-addressing hash index of slots. A user costs a few dozen bytes instead
+ * of a {@code User}, a {@code String} and a hash map entry, and there are no
+ * per-user objects for the garbage collector to trace. The {@code User}s
+ * returned by the table are built on demand; changing them does not change
+ * the table.</p>
+ *
+ * <p>Removing a user marks its slot as removed; the columns are compacted
+ * once removed slots outnumber live ones. Usernames must be Latin-1, which
+ * every valid username (see {@link UserRecordFormat}) is.</p>
+ */
+final class UserTable implements Iterable<User> {
+  private static final int initialCapacity = 16;
+
+  // names of slot s are nameArena[nameStarts[s], nameStarts[s + 1])
+  private byte[] nameArena = new byte[initialCapacity * 8];
+  private int[] nameStarts = new int[initialCapacity + 1];
+  private int[] scores = new int[initialCapacity];
+  private int[] positions = new int[initialCapacity];
+  private long[] rootSlots = new long[bitsetWords(initialCapacity)];
+  private long[] removedSlots = new long[bitsetWords(initialCapacity)];
+  private int numSlots = 0;
+  private int numRemoved = 0;
+  private int rootSlot = -1;
+  // counts additions and removals, so iterators can detect them
+  private int modCount = 0;
+
+  // open-addressing index with linear probing: slot + 1 of the user hashed
+  // there, or 0 if empty. Entries of removed slots are reused by insertions.
+  private int[] index = new int[2 * initialCapacity];
+
+  private static int bitsetWords(int numBits) {
+    return (numBits + 63) >>> 6;
+  }
+
+  private static boolean isSet(long[] bitset, int bit) {
+    return (bitset[bit >>> 6] & (1L << bit)) != 0;
+  }
+
+  private static void set(long[] bitset, int bit, boolean value) {
+    if (value) {
+      bitset[bit >>> 6] |= 1L << bit;
+    } else {
+      bitset[bit >>> 6] &= ~(1L << bit);
+    }
+  }
+
+  // Spreads String.hashCode, which the arena hash below reproduces for
+  // Latin-1 names.
+  private static int spread(int hash) {
+    return hash ^ (hash >>> 16);
+  }
+
+  private int hashOfSlot(int slot) {
+    int hash = 0;
+    for (int i = nameStarts[slot]; i < nameStarts[slot + 1]; i++) {
+      hash = 31 * hash + (nameArena[i] & 0xff);
+    }
+    return spread(hash);
+  }
+
+  private boolean nameEquals(int slot, String userName) {
+    final int start = nameStarts[slot];
+    if (nameStarts[slot + 1] - start != userName.length()) {
+      return false;
+    }
+    for (int i = 0; i < userName.length(); i++) {
+      if ((nameArena[start + i] & 0xff) != userName.charAt(i)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private String nameOf(int slot) {
+    final int start = nameStarts[slot];
+    final int length = nameStarts[slot + 1] - start;
+    char[] name = new char[length];
+    for (int i = 0; i < length; i++) {
+      name[i] = (char) (nameArena[start + i] & 0xff);
+    }
+    return new String(name);
+  }
+
+  // Builds the user of `slot`.
+  private User userAt(int slot) {
+    return new User(nameOf(slot), scores[slot], isSet(rootSlots, slot));
+  }
+
+  // Returns the live slot of `userName`, or -1 if there is none.
+  private int find(String userName) {
+    final int mask = index.length - 1;
+    for (int i = spread(userName.hashCode()) & mask; index[i] != 0;
+         i = (i + 1) & mask) {
+      final int slot = index[i] - 1;
+      if (!isSet(removedSlots, slot) && nameEquals(slot, userName)) {
+        return slot;
+      }
+    }
+    return -1;
+  }
+
+  // Points the index at `slot`, reusing the first entry of a removed slot on
+  // the probe path if there is one. The caller makes sure the name of `slot`
+  // is not indexed yet.
+  private void indexSlot(int slot) {
+    final int mask = index.length - 1;
+    int i = hashOfSlot(slot) & mask;
+    while (index[i] != 0 && !isSet(removedSlots, index[i] - 1)) {
+      i = (i + 1) & mask;
+    }
+    index[i] = slot + 1;
+  }
+
+  /**
+   * Returns the user named {@code userName}, or {@code null} if there is no
+   * such user.
+   */
+  User get(String userName) {
+    final int slot = find(userName);
+    return slot < 0 ? null : userAt(slot);
+  }
+
+  boolean contains(String userName) {
+    return find(userName) >= 0;
+  }
+
+  /**
+   * Returns the position kept with the user named {@code userName} (see
+   * {@link #add(User, int)}), or -1 if there is no such user.
+   */
+  int getPosition(String userName) {
+    final int slot = find(userName);
+    return slot < 0 ? -1 : positions[slot];
+  }
+
+  /**
+   * Sets the position kept with each user to its index in insertion order,
+   * for owners that have just rewritten their storage in that order.
+   */
+  void renumberPositions() {
+    int position = 0;
+    for (int slot = 0; slot < numSlots; slot++) {
+      if (!isSet(removedSlots, slot)) {
+        positions[slot] = position++;
+      }
+    }
+  }
+
+  /**
+   * Appends {@code user} to the table, with no position. The caller must
+   * make sure no user with the same name exists yet.
+   *
+   * @throws IllegalArgumentException if the username is not Latin-1
+   */
+  void add(User user) {
+    add(user, -1);
+  }
+
+  /**
+   * Appends {@code user} to the table and keeps {@code position} with it.
+   * The caller must make sure no user with the same name exists yet.
+   *
+   * @throws IllegalArgumentException if the username is not Latin-1
+   */
+  void add(User user, int position) {
+    final String userName = user.getUserName();
+    for (int i = 0; i < userName.length(); i++) {
+      if (userName.charAt(i) > 0xff) {
+        throw new IllegalArgumentException(
+            String.format("Username %s is not Latin-1", userName));
+      }
+    }
+    if (numRemoved > 0 && numRemoved >= numSlots - numRemoved) {
+      compact();
+    }
+    ensureCapacity(numSlots + 1, nameStarts[numSlots] + userName.length());
+
+    modCount++;
+    final int slot = numSlots++;
+    final int start = nameStarts[slot];
+    for (int i = 0; i < userName.length(); i++) {
+      nameArena[start + i] = (byte) userName.charAt(i);
+    }
+    nameStarts[slot + 1] = start + userName.length();
+    scores[slot] = user.getNumSuccess();
+    positions[slot] = position;
+    set(rootSlots, slot, user.getIsRoot());
+    if (user.getIsRoot()) {
+      rootSlot = slot;
+    }
+    indexSlot(slot);
+  }
+
+  /**
+   * Replaces the record of an existing user while keeping its place in the
+   * table and the position kept with it.
+   */
+  void replace(User user) {
+    final int slot = find(user.getUserName());
+    if (slot < 0) {
+      add(user);
+      return;
+    }
+    scores[slot] = user.getNumSuccess();
+    set(rootSlots, slot, user.getIsRoot());
+    if (user.getIsRoot()) {
+      rootSlot = slot;
+    } else if (rootSlot == slot) {
+      rootSlot = -1;
+    }
+  }
+
+  /**
+   * Removes the user named {@code userName}.
+   *
+   * @return the removed user, or {@code null} if there was no such user
+   */
+  User remove(String userName) {
+    final int slot = find(userName);
+    if (slot < 0) {
+      return null;
+    }
+    User removed = userAt(slot);
+    modCount++;
+    set(removedSlots, slot, true);
+    numRemoved++;
+    if (rootSlot == slot) {
+      rootSlot = -1;
+    }
+    return removed;
+  }
+
+  /**
+   * Returns the root user, or {@code null} if the table has no root user.
+   */
+  User getRootUser() {
+    return rootSlot < 0 ? null : userAt(rootSlot);
+  }
+
+  boolean isEmpty() {
+    return size() == 0;
+  }
+
+  int size() {
+    return numSlots - numRemoved;
+  }
+
+  // Grows the columns to hold `slots` slots and `arenaBytes` bytes of names,
+  // and the index to stay at most half full.
+  private void ensureCapacity(int slots, int arenaBytes) {
+    if (arenaBytes > nameArena.length) {
+      nameArena = Arrays.copyOf(nameArena,
+          Math.max(arenaBytes, nameArena.length + (nameArena.length >> 1)));
+    }
+    if (slots > scores.length) {
+      final int capacity = Math.max(slots, scores.length + (scores.length >> 1));
+      nameStarts = Arrays.copyOf(nameStarts, capacity + 1);
+      scores = Arrays.copyOf(scores, capacity);
+      positions = Arrays.copyOf(positions, capacity);
+      rootSlots = Arrays.copyOf(rootSlots, bitsetWords(capacity));
+      removedSlots = Arrays.copyOf(removedSlots, bitsetWords(capacity));
+    }
+    if (2 * slots > index.length) {
+      index = new int[Integer.highestOneBit(2 * slots - 1) << 1];
+      for (int slot = 0; slot < numSlots; slot++) {
+        if (!isSet(removedSlots, slot)) {
+          indexSlot(slot);
+        }
+      }
+    }
+  }
+
+  // Drops removed slots, keeping the order of the others, and rebuilds the
+  // index.
+  private void compact() {
+    int live = 0;
+    int arenaEnd = 0;
+    rootSlot = -1;
+    for (int slot = 0; slot < numSlots; slot++) {
+      if (isSet(removedSlots, slot)) {
+        continue;
+      }
+      final int start = nameStarts[slot];
+      final int length = nameStarts[slot + 1] - start;
+      System.arraycopy(nameArena, start, nameArena, arenaEnd, length);
+      nameStarts[live] = arenaEnd;
+      arenaEnd += length;
+      scores[live] = scores[slot];
+      positions[live] = positions[slot];
+      final boolean isRoot = isSet(rootSlots, slot);
+      set(rootSlots, live, isRoot);
+      if (isRoot) {
+        rootSlot = live;
+      }
+      live++;
+    }
+    nameStarts[live] = arenaEnd;
+    Arrays.fill(removedSlots, 0);
+    for (int slot = live; slot < numSlots; slot++) {
+      set(rootSlots, slot, false);
+    }
+    numSlots = live;
+    numRemoved = 0;
+    Arrays.fill(index, 0);
+    for (int slot = 0; slot < numSlots; slot++) {
+      indexSlot(slot);
+    }
+  }
+
+  /**
+   * Returns a stream of the users in the table, in insertion order. The
+   * stream reads the live columns one slot at a time rather than copying
+   * them, so it sees replacements made while it is in use, but fails with
+   * {@link ConcurrentModificationException} if a user is added or removed
+   * (see {@link #iterator()}).
+   */
+  Stream<User> stream() {
+    return StreamSupport.stream(Spliterators.spliterator(iterator(), size(),
+        Spliterator.ORDERED | Spliterator.NONNULL), false);
+  }
+
+  /**
+   * Returns an iterator over the users in the table, in insertion order.
+   * Adding or removing a user while it is in use makes it throw
+   * {@link ConcurrentModificationException}; replacing a user does not.
+   */
+  @Override
+  public Iterator<User> iterator() {
+    return new Iterator<>() {
+      private final int expectedModCount = modCount;
+      private int nextSlot = skipRemoved(0);
+
+      private int skipRemoved(int slot) {
+        while (slot < numSlots && isSet(removedSlots, slot)) {
+          slot++;
+        }
+        return slot;
+      }
+
+      @Override
+      public boolean hasNext() {
+        return nextSlot < numSlots;
+      }
+
+      @Override
+      public User next() {
+        if (modCount != expectedModCount) {
+          throw new ConcurrentModificationException();
+        }
+        if (!hasNext()) {
+          throw new NoSuchElementException();
+        }
+        User user = userAt(nextSlot);
+        nextSlot = skipRemoved(nextSlot + 1);
+        return user;
+      }
+    };
+  }
+}
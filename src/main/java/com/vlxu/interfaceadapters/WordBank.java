@@ -0,0 +1,44 @@
+package com.vlxu.interfaceadapters;
+
+import com.vlxu.entities.GuessWord;
+
+/**
+ * Read-only, indexed access to the valid words of a word bank file. Lines of
+ * the file that are not valid guess words (see
+ * {@link com.vlxu.entities.GuessWord#isValidGuessWord(String)}) are dropped
+ * when the word bank is loaded and listed in its {@link WordBankReport}.
+ *
+ * <p>Valid words are indexed by length: shortest first, and in file order
+ * among words of the same length (see {@link LengthBuckets}).</p>
+ */
+interface WordBank {
+  /**
+   * Returns the number of valid words in the word bank.
+   */
+  int size();
+
+  /**
+   * Returns the valid word at {@code index}, where
+   * {@code 0 <= index < size()}.
+   */
+  String getWord(int index);
+
+  /**
+   * Returns the valid word at {@code index} as a guess word, where
+   * {@code 0 <= index < size()}. Word banks that can build a guess word
+   * without going through a {@code String} should override this.
+   */
+  default GuessWord getGuessWord(int index) {
+    return GuessWord.fromValidatedWord(getWord(index));
+  }
+
+  /**
+   * Returns where each word length starts in the word bank.
+   */
+  LengthBuckets getLengthBuckets();
+
+  /**
+   * Returns the outcome of validating the word bank file.
+   */
+  WordBankReport getReport();
+}
@@ -0,0 +1,153 @@
+package com.vlxu.interfaceadapters;
+
+import com.vlxu.entities.GuessWord;
+import com.vlxu.entities.IntRange;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Summary of the validation done when a word bank file is loaded. Lines that
+ * are not valid guess words are left out of the word bank and counted here,
+ * along with the first few of them for diagnostics. Valid words are counted
+ * per length.
+ */
+public class WordBankReport {
+  static final int MAX_INVALID_LINE_SAMPLES = 10;
+
+  private final int numValidWords;
+  // numValidWordsByLength[l - GuessWord.MIN_LENGTH] words are l letters long
+  private final int[] numValidWordsByLength;
+  private final int numInvalidLines;
+  private final List<String> invalidLineSamples;
+
+  private WordBankReport(int numValidWords, int[] numValidWordsByLength,
+                         int numInvalidLines, List<String> invalidLineSamples) {
+    this.numValidWords = numValidWords;
+    this.numValidWordsByLength = numValidWordsByLength;
+    this.numInvalidLines = numInvalidLines;
+    this.invalidLineSamples = Collections.unmodifiableList(invalidLineSamples);
+  }
+
+  /**
+   * Rebuilds a report from its counts, e.g. when a word bank is restored
+   * from a {@link RepositorySnapshot}.
+   *
+   * @throws IllegalArgumentException if a count is negative or there are
+   *     counts for lengths other than the valid ones
+   */
+  static WordBankReport restore(int[] numValidWordsByLength,
+                                int numInvalidLines,
+                                List<String> invalidLineSamples) {
+    if (numValidWordsByLength.length
+        != GuessWord.MAX_LENGTH - GuessWord.MIN_LENGTH + 1
+        || numInvalidLines < invalidLineSamples.size()) {
+      throw new IllegalArgumentException("Inconsistent word bank report");
+    }
+    long numValidWords = 0;
+    for (int count : numValidWordsByLength) {
+      if (count < 0) {
+        throw new IllegalArgumentException("Negative word count");
+      }
+      numValidWords += count;
+    }
+    if (numValidWords > Integer.MAX_VALUE) {
+      throw new IllegalArgumentException("Too many words");
+    }
+    return new WordBankReport((int) numValidWords,
+        numValidWordsByLength.clone(), numInvalidLines,
+        new ArrayList<>(invalidLineSamples));
+  }
+
+  /**
+   * Returns how many lines were valid guess words.
+   */
+  public int getNumValidWords() {
+    return numValidWords;
+  }
+
+  /**
+   * Returns how many valid guess words are exactly {@code length} letters
+   * long.
+   */
+  public int getNumValidWords(int length) {
+    if (length < GuessWord.MIN_LENGTH || length > GuessWord.MAX_LENGTH) {
+      return 0;
+    }
+    return numValidWordsByLength[length - GuessWord.MIN_LENGTH];
+  }
+
+  /**
+   * Returns how many valid guess words have a length in {@code lengths}.
+   */
+  public int getNumValidWords(IntRange lengths) {
+    final int min = Math.max(lengths.getMin(), GuessWord.MIN_LENGTH);
+    final int max = Math.min(lengths.getMax(), GuessWord.MAX_LENGTH);
+    int count = 0;
+    for (int length = min; length <= max; length++) {
+      count += numValidWordsByLength[length - GuessWord.MIN_LENGTH];
+    }
+    return count;
+  }
+
+  /**
+   * Returns how many lines were rejected.
+   */
+  public int getNumInvalidLines() {
+    return numInvalidLines;
+  }
+
+  /**
+   * Returns up to the first {@value #MAX_INVALID_LINE_SAMPLES} rejected lines,
+   * each formatted as {@code line <number>: "<contents>"} with 1-based line
+   * numbers.
+   */
+  public List<String> getInvalidLineSamples() {
+    return invalidLineSamples;
+  }
+
+  @Override
+  public String toString() {
+    if (numInvalidLines == 0) {
+      return String.format("%d valid words", numValidWords);
+    }
+    return String.format("%d valid words, %d invalid lines (%s%s)",
+        numValidWords, numInvalidLines, String.join(", ", invalidLineSamples),
+        numInvalidLines > invalidLineSamples.size() ? ", ..." : "");
+  }
+
+  /**
+   * Collects the outcome of validating a word bank one line at a time.
+   */
+  static class Builder {
+    private int numValidWords = 0;
+    private final int[] numValidWordsByLength =
+        new int[GuessWord.MAX_LENGTH - GuessWord.MIN_LENGTH + 1];
+    private int numInvalidLines = 0;
+    private final List<String> invalidLineSamples = new ArrayList<>();
+
+    void addValidWord(int length) {
+      numValidWords++;
+      numValidWordsByLength[length - GuessWord.MIN_LENGTH]++;
+    }
+
+    // Whether the next invalid line would still be kept as a sample, so
+    // callers can avoid decoding lines that would be thrown away.
+    boolean needsInvalidLineSample() {
+      return invalidLineSamples.size() < MAX_INVALID_LINE_SAMPLES;
+    }
+
+    void addInvalidLine(int lineIndex, String line) {
+      numInvalidLines++;
+      if (invalidLineSamples.size() < MAX_INVALID_LINE_SAMPLES) {
+        invalidLineSamples.add(
+            String.format("line %d: \"%s\"", lineIndex + 1, line));
+      }
+    }
+
+    WordBankReport build() {
+      return new WordBankReport(numValidWords, numValidWordsByLength.clone(),
+          numInvalidLines, invalidLineSamples);
+    }
+  }
+}
@@ -0,0 +1,59 @@
+package com.vlxu.interfaceadapters;
+
+/**
+ * Optional settings for a {@link WriteBehindUserRepository}.
+ */
+public class WriteBehindOptions {
+  private long flushIntervalMillis = 1000;
+  private int flushThreshold = 1024;
+  private int maxPendingUsers = 64 * 1024;
+
+  /**
+   * Sets the longest time, in milliseconds, that a change may stay pending
+   * before it is flushed to the users file.
+   */
+  public WriteBehindOptions withFlushInterval(long millis) {
+    if (millis < 1) {
+      throw new IllegalArgumentException("Flush interval must be positive");
+    }
+    this.flushIntervalMillis = millis;
+    return this;
+  }
+
+  /**
+   * Sets how many users may have pending changes before a flush is started
+   * without waiting for the flush interval.
+   */
+  public WriteBehindOptions withFlushThreshold(int users) {
+    if (users < 1) {
+      throw new IllegalArgumentException("Flush threshold must be positive");
+    }
+    this.flushThreshold = users;
+    return this;
+  }
+
+  /**
+   * Sets how many users may have pending changes at most. Once that many
+   * users are pending, changes to other users block until a flush has caught
+   * up. Must be at least the flush threshold.
+   */
+  public WriteBehindOptions withMaxPendingUsers(int users) {
+    if (users < 1) {
+      throw new IllegalArgumentException("Max pending users must be positive");
+    }
+    this.maxPendingUsers = users;
+    return this;
+  }
+
+  public long getFlushIntervalMillis() {
+    return flushIntervalMillis;
+  }
+
+  public int getFlushThreshold() {
+    return flushThreshold;
+  }
+
+  public int getMaxPendingUsers() {
+    return maxPendingUsers;
+  }
+}
@@ -0,0 +1,476 @@
+package com.vlxu.interfaceadapters;
+
+import com.vlxu.coreexceptions.FirstUserException;
+import com.vlxu.coreexceptions.InvalidUserNameException;
+import com.vlxu.coreexceptions.NotPermittedException;
+import com.vlxu.coreexceptions.RepoException;
+import com.vlxu.coreexceptions.UserExistsException;
+import com.vlxu.coreexceptions.UserNotFoundException;
+import com.vlxu.entities.User;
+import com.vlxu.entities.UserRepository;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * A {@link UserRepository} that persists the changes made to another,
+ * in-memory repository to a user records file in the background.
+ *
+ * <p>Every call is forwarded to the wrapped repository. Once an
+ * {@code addUser}, {@code removeUser} or {@code saveUserInfo} succeeds, the
+ * user is marked dirty; repeated changes to the same user before the next
+ * flush are coalesced into one. A background thread flushes the dirty users
+ * every flush interval, or as soon as the flush threshold is reached (see
+ * {@link WriteBehindOptions}). A flush writes a complete users file (in the
+ * format of {@link TextFileRepository}) to a temp file, forces it to disk
+ * and atomically moves it over the users file, so the users file always
+ * holds the state as of some flush.</p>
+ *
+ * <p>If flushes fall behind and the maximum number of pending users is
+ * reached, changes to users that are not pending yet block until a flush
+ * has taken the pending users off the queue.</p>
+ *
+ * <p>Coalescing saves writes, not bytes: the text format cannot be updated
+ * in place, so every flush rewrites the whole users file, however few users
+ * changed. To build that file without holding the lock that changes wait
+ * for, the repository keeps its own copy of every user as of the last flush,
+ * which doubles the memory the users take. Both costs grow with the number
+ * of users rather than the number of changes, so this repository suits user
+ * tables that are small enough to rewrite on every flush; larger ones are
+ * better served by a store that updates records in place, such as
+ * {@link BinaryFileUserRepository} or {@link LsmUserRepository}.</p>
+ *
+ * <p>Calls may be made from any thread: reads share a read lock, while
+ * changes are serialized by a write lock, so the wrapped repository does not
+ * need to be thread-safe. The wrapped repository must not be changed other
+ * than through this repository, and must not persist the same users file
+ * itself.</p>
+ */
+public class WriteBehindUserRepository implements UserRepository, AutoCloseable {
+  private final UserRepository userRepo;
+  private final Path usersFilePath;
+  private final WriteBehindOptions options;
+
+  private final ReadWriteLock lock = new ReentrantReadWriteLock();
+  private final Condition notFull = lock.writeLock().newCondition();
+  // users changed since the last flush, by name; a null value marks a
+  // removed user. Guarded by `lock`.
+  private Map<String, User> dirtyUsers = new LinkedHashMap<>();
+  private boolean closed = false;
+
+  // the users as of the last flush. Guarded by `flushLock`.
+  private final Object flushLock = new Object();
+  private final Map<String, User> flushedUsers;
+
+  private final ScheduledExecutorService flusher;
+  private final AtomicBoolean flushRequested = new AtomicBoolean(false);
+  private volatile RepoException lastFlushFailure = null;
+
+  private final LongAdder numCoalescedWrites = new LongAdder();
+  private final LongAdder numBlockedWrites = new LongAdder();
+  private volatile long numFlushes = 0;
+  private volatile long bytesWritten = 0;
+  private volatile long lastFlushLatencyNanos = 0;
+  private volatile long maxFlushLatencyNanos = 0;
+
+  /**
+   * Wraps {@code userRepo}, flushing its changes to the user records file at
+   * {@code usersFilePath}.
+   *
+   * @param userRepo       repository that holds all users in memory
+   * @param persistedUsers the users {@code userRepo} holds now, which must be
+   *                       the users already in the users file
+   * @param usersFilePath  user records file to flush changes to
+   * @param options        see {@link WriteBehindOptions}
+   */
+  public WriteBehindUserRepository(UserRepository userRepo,
+                                   Iterable<User> persistedUsers,
+                                   String usersFilePath,
+                                   WriteBehindOptions options) {
+    if (options.getMaxPendingUsers() < options.getFlushThreshold()) {
+      throw new IllegalArgumentException(
+          "Max pending users must be at least the flush threshold");
+    }
+    this.userRepo = userRepo;
+    this.usersFilePath = Paths.get(usersFilePath);
+    this.options = options;
+    this.flushedUsers = new LinkedHashMap<>();
+    for (User user : persistedUsers) {
+      flushedUsers.put(user.getUserName(), snapshotOf(user));
+    }
+
+    this.flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+      Thread thread = new Thread(r, "users-write-behind");
+      thread.setDaemon(true);
+      return thread;
+    });
+    final long interval = options.getFlushIntervalMillis();
+    flusher.scheduleWithFixedDelay(this::flushQuietly, interval, interval,
+        TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * Opens the user records file at {@code usersFilePath} (see
+   * {@link TextFileRepository}), holding its users in a
+   * {@link ConcurrentUserRepository} and flushing their changes back to the
+   * file in the background.
+   *
+   * @throws RepoException if the users file cannot be read
+   */
+  public static WriteBehindUserRepository open(String usersFilePath,
+                                               WriteBehindOptions options)
+      throws RepoException {
+    List<User> users = new ArrayList<>();
+    final Path path = Paths.get(usersFilePath);
+    if (Files.exists(path)) {
+      try {
+        for (String record : Files.readAllLines(path)) {
+          users.add(UserRecordFormat.parse(record));
+        }
+      } catch (IOException e) {
+        throw new RepoException(String.format("Error loading records from %s",
+            path.toAbsolutePath()));
+      }
+    }
+    return new WriteBehindUserRepository(new ConcurrentUserRepository(users),
+        users, usersFilePath, options);
+  }
+
+  // Returns a copy of `user`, so later changes to `user` by the caller do
+  // not leak into a pending flush.
+  private static User snapshotOf(User user) {
+    return new User(user.getUserName(), user.getNumSuccess(), user.getIsRoot());
+  }
+
+  // Acquire the write lock, waiting while the queue of pending users is full
+  // and `userName` is not already pending.
+  private void lockForChange(String userName) throws RepoException {
+    lock.writeLock().lock();
+    try {
+      boolean blocked = false;
+      while (!closed && dirtyUsers.size() >= options.getMaxPendingUsers()
+          && !dirtyUsers.containsKey(userName)) {
+        if (!blocked) {
+          numBlockedWrites.increment();
+          blocked = true;
+        }
+        requestFlush();
+        notFull.await();
+      }
+      if (closed) {
+        throw new RepoException("Repository is closed");
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      lock.writeLock().unlock();
+      throw new RepoException("Interrupted while waiting for a flush");
+    } catch (RepoException e) {
+      lock.writeLock().unlock();
+      throw e;
+    }
+  }
+
+  // Record a change of user `userName` (to `user`, or null if removed).
+  // Must hold the write lock.
+  private void markDirty(String userName, User user) {
+    if (dirtyUsers.containsKey(userName)) {
+      numCoalescedWrites.increment();
+    }
+    dirtyUsers.put(userName, user == null ? null : snapshotOf(user));
+    if (dirtyUsers.size() >= options.getFlushThreshold()) {
+      requestFlush();
+    }
+  }
+
+  // Start a flush now, unless one has been requested already.
+  private void requestFlush() {
+    if (flushRequested.compareAndSet(false, true)) {
+      try {
+        flusher.execute(this::flushQuietly);
+      } catch (RejectedExecutionException e) {
+        // closing; close() flushes one last time
+        flushRequested.set(false);
+      }
+    }
+  }
+
+  @Override
+  public User addUser(String userName)
+      throws InvalidUserNameException, UserExistsException, RepoException {
+    lockForChange(userName);
+    try {
+      User newUser = userRepo.addUser(userName);
+      markDirty(userName, newUser);
+      return newUser;
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  @Override
+  public void removeUser(String userName)
+      throws FirstUserException, NotPermittedException, UserNotFoundException,
+      RepoException {
+    lockForChange(userName);
+    try {
+      userRepo.removeUser(userName);
+      markDirty(userName, null);
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  @Override
+  public void saveUserInfo(User user)
+      throws UserNotFoundException, RepoException, NotPermittedException {
+    lockForChange(user.getUserName());
+    try {
+      userRepo.saveUserInfo(user);
+      markDirty(user.getUserName(), user);
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  @Override
+  public User getUserInfo(String userName)
+      throws UserNotFoundException, RepoException {
+    lock.readLock().lock();
+    try {
+      return userRepo.getUserInfo(userName);
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  @Override
+  public void login(String userName)
+      throws UserNotFoundException, RepoException {
+    lock.writeLock().lock();
+    try {
+      userRepo.login(userName);
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  @Override
+  public User getSignedInUser() throws UserNotFoundException, RepoException {
+    lock.writeLock().lock();
+    try {
+      return userRepo.getSignedInUser();
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  private void flushQuietly() {
+    try {
+      flush();
+    } catch (RepoException e) {
+      // kept in lastFlushFailure; the changes are retried by the next flush
+    }
+  }
+
+  /**
+   * Writes all pending changes to the users file now. If the users file
+   * cannot be written, the changes stay pending and are retried by the next
+   * flush.
+   *
+   * @throws RepoException if the users file cannot be written
+   */
+  public void flush() throws RepoException {
+    synchronized (flushLock) {
+      flushRequested.set(false);
+      Map<String, User> batch;
+      lock.writeLock().lock();
+      try {
+        if (dirtyUsers.isEmpty()) {
+          return;
+        }
+        batch = dirtyUsers;
+        dirtyUsers = new LinkedHashMap<>();
+        notFull.signalAll();
+      } finally {
+        lock.writeLock().unlock();
+      }
+
+      final long start = System.nanoTime();
+      try {
+        for (Map.Entry<String, User> change : batch.entrySet()) {
+          if (change.getValue() == null) {
+            flushedUsers.remove(change.getKey());
+          } else {
+            flushedUsers.put(change.getKey(), change.getValue());
+          }
+        }
+        bytesWritten += writeUsersFile();
+      } catch (RepoException e) {
+        requeue(batch);
+        lastFlushFailure = e;
+        throw e;
+      }
+      final long latency = System.nanoTime() - start;
+      lastFlushLatencyNanos = latency;
+      maxFlushLatencyNanos = Math.max(maxFlushLatencyNanos, latency);
+      numFlushes++;
+      lastFlushFailure = null;
+    }
+  }
+
+  // Put the changes of a failed flush back in the queue, unless the same
+  // users were changed again since.
+  private void requeue(Map<String, User> batch) {
+    lock.writeLock().lock();
+    try {
+      Map<String, User> requeued = new LinkedHashMap<>(batch);
+      requeued.putAll(dirtyUsers);
+      dirtyUsers = requeued;
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  // Write all flushed users to a temp file, then atomically move it over the
+  // users file. Returns the number of bytes written.
+  private long writeUsersFile() throws RepoException {
+    StringBuilder records = new StringBuilder();
+    for (User user : flushedUsers.values()) {
+      records.append(UserRecordFormat.format(user)).append('\n');
+    }
+    ByteBuffer bytes =
+        ByteBuffer.wrap(records.toString().getBytes(StandardCharsets.UTF_8));
+    final long size = bytes.remaining();
+
+    final Path tempFile =
+        usersFilePath.resolveSibling(usersFilePath.getFileName() + ".tmp");
+    try (FileChannel tempChannel = FileChannel.open(tempFile,
+        StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+        StandardOpenOption.TRUNCATE_EXISTING)) {
+      while (bytes.hasRemaining()) {
+        tempChannel.write(bytes);
+      }
+      tempChannel.force(true);
+      Files.move(tempFile, usersFilePath,
+          StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    } catch (IOException e) {
+      throw new RepoException(String.format("Error saving to file at %s",
+          usersFilePath.toAbsolutePath()));
+    }
+    return size;
+  }
+
+  /**
+   * Returns the number of users with changes that have not been flushed yet.
+   */
+  public int getQueueDepth() {
+    lock.readLock().lock();
+    try {
+      return dirtyUsers.size();
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  /**
+   * Returns the number of changes that replaced a pending change of the same
+   * user, and so never had to be written on their own.
+   */
+  public long getNumCoalescedWrites() {
+    return numCoalescedWrites.sum();
+  }
+
+  /**
+   * Returns the number of changes that had to wait because the queue of
+   * pending users was full.
+   */
+  public long getNumBlockedWrites() {
+    return numBlockedWrites.sum();
+  }
+
+  /**
+   * Returns the number of flushes that wrote the users file.
+   */
+  public long getNumFlushes() {
+    return numFlushes;
+  }
+
+  /**
+   * Returns the total number of bytes written to the users file.
+   */
+  public long getBytesWritten() {
+    return bytesWritten;
+  }
+
+  /**
+   * Returns how long the last flush that wrote the users file took, in
+   * nanoseconds.
+   */
+  public long getLastFlushLatencyNanos() {
+    return lastFlushLatencyNanos;
+  }
+
+  /**
+   * Returns how long the slowest flush that wrote the users file took, in
+   * nanoseconds.
+   */
+  public long getMaxFlushLatencyNanos() {
+    return maxFlushLatencyNanos;
+  }
+
+  /**
+   * Returns why the last flush failed, or {@code null} if it succeeded.
+   */
+  public RepoException getLastFlushFailure() {
+    return lastFlushFailure;
+  }
+
+  /**
+   * Stops the background flushes and flushes all pending changes. Changes
+   * made after {@code close()} fail with a {@link RepoException}. The wrapped
+   * repository is not closed.
+   *
+   * @throws RepoException if the last flush failed
+   */
+  @Override
+  public void close() throws RepoException {
+    lock.writeLock().lock();
+    try {
+      if (closed) {
+        return;
+      }
+      closed = true;
+      notFull.signalAll();
+    } finally {
+      lock.writeLock().unlock();
+    }
+
+    flusher.shutdown();
+    try {
+      flusher.awaitTermination(1, TimeUnit.MINUTES);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new RepoException("Interrupted while waiting for a flush");
+    }
+    flush();
+  }
+}
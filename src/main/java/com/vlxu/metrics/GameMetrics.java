@@ -0,0 +1,48 @@
+package com.vlxu.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts the outcomes of games.
+ */
+public final class GameMetrics implements GameMetricsMXBean {
+  private final LongAdder gamesStarted = new LongAdder();
+  private final LongAdder gamesWon = new LongAdder();
+  private final LongAdder gamesLost = new LongAdder();
+
+  GameMetrics() {
+  }
+
+  public void recordGameStarted() {
+    gamesStarted.increment();
+  }
+
+  public void recordGameWon() {
+    gamesWon.increment();
+  }
+
+  public void recordGameLost() {
+    gamesLost.increment();
+  }
+
+  @Override
+  public long getGamesStarted() {
+    return gamesStarted.sum();
+  }
+
+  @Override
+  public long getGamesWon() {
+    return gamesWon.sum();
+  }
+
+  @Override
+  public long getGamesLost() {
+    return gamesLost.sum();
+  }
+
+  @Override
+  public double getWinLossRatio() {
+    final long lost = gamesLost.sum();
+    return lost == 0 ? Double.NaN : (double) gamesWon.sum() / lost;
+  }
+}
@@ -0,0 +1,18 @@
+package com.vlxu.metrics;
+
+/**
+ * Management interface of a {@link GameMetrics}, as exported through JMX.
+ */
+public interface GameMetricsMXBean {
+  long getGamesStarted();
+
+  long getGamesWon();
+
+  long getGamesLost();
+
+  /**
+   * Returns the number of games won per game lost, or {@code NaN} if no game
+   * was lost yet.
+   */
+  double getWinLossRatio();
+}
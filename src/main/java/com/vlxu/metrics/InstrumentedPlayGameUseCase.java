@@ -0,0 +1,105 @@
+package com.vlxu.metrics;
+
+import com.vlxu.coreexceptions.InvalidGuessException;
+import com.vlxu.coreexceptions.InvalidGuessWord;
+import com.vlxu.coreexceptions.RepoException;
+import com.vlxu.entities.GuessBatchResult;
+import com.vlxu.entities.WordRepository;
+import com.vlxu.usecases.PlayGameUseCase;
+
+/**
+ * A {@link PlayGameUseCase} that records guesses and the outcome of every
+ * game in {@link Metrics}. Guesses made through
+ * {@link #makeGuesses(CharSequence)} are counted one by one, each taking an
+ * equal share of the batch's latency.
+ *
+ * <p>A game is counted as won or lost the first time
+ * {@link #checkWinCondition()}, {@link #checkLoseCondition()} or
+ * {@link #makeGuesses(CharSequence)} reports so, however often they are
+ * called afterwards.</p>
+ */
+public class InstrumentedPlayGameUseCase extends PlayGameUseCase {
+  private final Metrics metrics;
+  private boolean outcomeRecorded = false;
+
+  public InstrumentedPlayGameUseCase(WordRepository wordRepo, Metrics metrics) {
+    super(wordRepo);
+    this.metrics = metrics;
+  }
+
+  @Override
+  public boolean checkWinCondition() {
+    final boolean won = super.checkWinCondition();
+    if (won && !outcomeRecorded) {
+      outcomeRecorded = true;
+      metrics.getGames().recordGameWon();
+    }
+    return won;
+  }
+
+  @Override
+  public boolean checkLoseCondition() {
+    final boolean lost = super.checkLoseCondition();
+    if (lost && !outcomeRecorded) {
+      outcomeRecorded = true;
+      metrics.getGames().recordGameLost();
+    }
+    return lost;
+  }
+
+  @Override
+  public boolean makeGuess(char guess) throws InvalidGuessException {
+    final long start = System.nanoTime();
+    boolean failed = true;
+    try {
+      final boolean correct = super.makeGuess(guess);
+      failed = false;
+      return correct;
+    } finally {
+      metrics.getGuesses().record(start, failed);
+    }
+  }
+
+  @Override
+  public GuessBatchResult makeGuesses(CharSequence guesses) {
+    final long start = System.nanoTime();
+    GuessBatchResult result;
+    try {
+      result = super.makeGuesses(guesses);
+    } catch (RuntimeException e) {
+      metrics.getGuesses().record(start, true);
+      throw e;
+    }
+    recordGuesses(start, result);
+    if (!outcomeRecorded) {
+      if (result.getOutcome() == GuessBatchResult.Outcome.WON) {
+        outcomeRecorded = true;
+        metrics.getGames().recordGameWon();
+      } else if (result.getOutcome() == GuessBatchResult.Outcome.LOST) {
+        outcomeRecorded = true;
+        metrics.getGames().recordGameLost();
+      }
+    }
+    return result;
+  }
+
+  // Records the guesses `result` applied, counting the invalid ones as
+  // failed, as makeGuess would have.
+  private void recordGuesses(long start, GuessBatchResult result) {
+    final int numGuesses = result.getNumGuessesApplied();
+    int numInvalid = 0;
+    for (int i = 0; i < numGuesses; i++) {
+      if (result.isInvalid(i)) {
+        numInvalid++;
+      }
+    }
+    metrics.getGuesses().record(start, numGuesses, numInvalid);
+  }
+
+  @Override
+  public void startGame() throws RepoException, InvalidGuessWord {
+    super.startGame();
+    outcomeRecorded = false;
+    metrics.getGames().recordGameStarted();
+  }
+}
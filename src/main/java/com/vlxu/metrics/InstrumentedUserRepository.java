@@ -0,0 +1,126 @@
+package com.vlxu.metrics;
+
+import com.vlxu.coreexceptions.FirstUserException;
+import com.vlxu.coreexceptions.InvalidUserNameException;
+import com.vlxu.coreexceptions.NotPermittedException;
+import com.vlxu.coreexceptions.RepoException;
+import com.vlxu.coreexceptions.UserExistsException;
+import com.vlxu.coreexceptions.UserNotFoundException;
+import com.vlxu.entities.User;
+import com.vlxu.entities.UserRepository;
+
+/**
+ * A {@link UserRepository} that forwards every call to another repository
+ * and records it in {@link Metrics}. Calls that throw are recorded as
+ * failures.
+ */
+public class InstrumentedUserRepository
+    implements UserRepository, AutoCloseable {
+  private final UserRepository userRepo;
+  private final Metrics metrics;
+
+  public InstrumentedUserRepository(UserRepository userRepo, Metrics metrics) {
+    this.userRepo = userRepo;
+    this.metrics = metrics;
+  }
+
+  @Override
+  public User addUser(String userName)
+      throws InvalidUserNameException, UserExistsException, RepoException {
+    final long start = System.nanoTime();
+    boolean failed = true;
+    try {
+      User newUser = userRepo.addUser(userName);
+      failed = false;
+      return newUser;
+    } finally {
+      metrics.getUserUpdates().record(start, failed);
+    }
+  }
+
+  @Override
+  public void removeUser(String userName)
+      throws FirstUserException, NotPermittedException, UserNotFoundException,
+      RepoException {
+    final long start = System.nanoTime();
+    boolean failed = true;
+    try {
+      userRepo.removeUser(userName);
+      failed = false;
+    } finally {
+      metrics.getUserUpdates().record(start, failed);
+    }
+  }
+
+  @Override
+  public void saveUserInfo(User user)
+      throws UserNotFoundException, RepoException, NotPermittedException {
+    final long start = System.nanoTime();
+    boolean failed = true;
+    try {
+      userRepo.saveUserInfo(user);
+      failed = false;
+    } finally {
+      metrics.getUserUpdates().record(start, failed);
+    }
+  }
+
+  @Override
+  public User getUserInfo(String userName)
+      throws UserNotFoundException, RepoException {
+    final long start = System.nanoTime();
+    boolean failed = true;
+    try {
+      User user = userRepo.getUserInfo(userName);
+      failed = false;
+      return user;
+    } finally {
+      metrics.getUserLookups().record(start, failed);
+    }
+  }
+
+  @Override
+  public void login(String userName)
+      throws UserNotFoundException, RepoException {
+    final long start = System.nanoTime();
+    boolean failed = true;
+    try {
+      userRepo.login(userName);
+      failed = false;
+    } finally {
+      metrics.getUserLookups().record(start, failed);
+    }
+  }
+
+  @Override
+  public User getSignedInUser() throws UserNotFoundException, RepoException {
+    final long start = System.nanoTime();
+    boolean failed = true;
+    try {
+      User user = userRepo.getSignedInUser();
+      failed = false;
+      return user;
+    } finally {
+      metrics.getUserLookups().record(start, failed);
+    }
+  }
+
+  /**
+   * Closes the wrapped repository, if it can be closed, recording how long
+   * that took (e.g., how long {@code TextFileRepository} took to persist).
+   */
+  @Override
+  public void close() throws Exception {
+    if (!(userRepo instanceof AutoCloseable closeable)) {
+      return;
+    }
+    final long start = System.nanoTime();
+    boolean failed = true;
+    try {
+      closeable.close();
+      failed = false;
+    } finally {
+      metrics.getRepositoryCloses().record(start, failed);
+    }
+  }
+}
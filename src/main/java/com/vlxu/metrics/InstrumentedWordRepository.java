@@ -0,0 +1,92 @@
+package com.vlxu.metrics;
+
+import com.vlxu.coreexceptions.InvalidGuessWord;
+import com.vlxu.coreexceptions.RepoException;
+import com.vlxu.entities.GuessWord;
+import com.vlxu.entities.IntRange;
+import com.vlxu.entities.WordRepository;
+import java.util.random.RandomGenerator;
+
+/**
+ * A {@link WordRepository} that forwards every call to another repository
+ * and records it in {@link Metrics}. Calls that throw are recorded as
+ * failures.
+ */
+public class InstrumentedWordRepository implements WordRepository {
+  private final WordRepository wordRepo;
+  private final Metrics metrics;
+
+  public InstrumentedWordRepository(WordRepository wordRepo, Metrics metrics) {
+    this.wordRepo = wordRepo;
+    this.metrics = metrics;
+  }
+
+  @Override
+  public String getRandomWord() throws RepoException {
+    final long start = System.nanoTime();
+    boolean failed = true;
+    try {
+      String word = wordRepo.getRandomWord();
+      failed = false;
+      return word;
+    } finally {
+      metrics.getWordDraws().record(start, failed);
+    }
+  }
+
+  // Forwarded, so the wrapped repository's own (possibly cheaper) way of
+  // drawing a GuessWord is kept.
+  @Override
+  public GuessWord getRandomGuessWord() throws RepoException, InvalidGuessWord {
+    final long start = System.nanoTime();
+    boolean failed = true;
+    try {
+      GuessWord guessWord = wordRepo.getRandomGuessWord();
+      failed = false;
+      return guessWord;
+    } finally {
+      metrics.getWordDraws().record(start, failed);
+    }
+  }
+
+  @Override
+  public String getRandomWord(RandomGenerator random) throws RepoException {
+    final long start = System.nanoTime();
+    boolean failed = true;
+    try {
+      String word = wordRepo.getRandomWord(random);
+      failed = false;
+      return word;
+    } finally {
+      metrics.getWordDraws().record(start, failed);
+    }
+  }
+
+  @Override
+  public GuessWord getRandomGuessWord(RandomGenerator random)
+      throws RepoException, InvalidGuessWord {
+    final long start = System.nanoTime();
+    boolean failed = true;
+    try {
+      GuessWord guessWord = wordRepo.getRandomGuessWord(random);
+      failed = false;
+      return guessWord;
+    } finally {
+      metrics.getWordDraws().record(start, failed);
+    }
+  }
+
+  @Override
+  public String getRandomWord(IntRange lengths, RandomGenerator random)
+      throws RepoException {
+    final long start = System.nanoTime();
+    boolean failed = true;
+    try {
+      String word = wordRepo.getRandomWord(lengths, random);
+      failed = false;
+      return word;
+    } finally {
+      metrics.getWordDraws().record(start, failed);
+    }
+  }
+}
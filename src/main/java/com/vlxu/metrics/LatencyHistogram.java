@@ -0,0 +1,133 @@
+package com.vlxu.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A histogram of latencies with a bounded relative error, in the style of
+ * HdrHistogram.
+ *
+ * <p>Every power of two is split into 8 equal sub-buckets, so a recorded
+ * value is off by at most 12.5% when read back, whatever its magnitude.
+ * Values 0 to 7 are recorded exactly. All 8 x 61 buckets are allocated up
+ * front, so recording never allocates and never locks: it increments one
+ * bucket and two {@link LongAdder}s, and is safe from any number of
+ * threads. Reads are not atomic with respect to concurrent recording, which
+ * is fine for monitoring.</p>
+ */
+public final class LatencyHistogram {
+  private static final int subBucketBits = 3;
+  private static final int subBuckets = 1 << subBucketBits;
+  // one group of sub-buckets for 0 to 7, then one per power of two up to 2^62
+  private static final int numBuckets = (64 - subBucketBits) * subBuckets;
+
+  private final AtomicLongArray buckets = new AtomicLongArray(numBuckets);
+  private final LongAdder count = new LongAdder();
+  private final LongAdder sum = new LongAdder();
+  private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+  // Returns the bucket of `value`, which must not be negative.
+  static int bucketOf(long value) {
+    if (value < subBuckets) {
+      return (int) value;
+    }
+    final int exponent = 63 - Long.numberOfLeadingZeros(value);
+    final int subBucket =
+        (int) (value >>> (exponent - subBucketBits)) & (subBuckets - 1);
+    return (exponent - subBucketBits + 1) * subBuckets + subBucket;
+  }
+
+  // Returns the smallest value recorded in `bucket`.
+  static long lowestValueOf(int bucket) {
+    if (bucket < subBuckets) {
+      return bucket;
+    }
+    final int exponent = bucket / subBuckets + subBucketBits - 1;
+    final long subBucket = bucket % subBuckets;
+    return (subBuckets + subBucket) << (exponent - subBucketBits);
+  }
+
+  // Returns the largest value recorded in `bucket`.
+  static long highestValueOf(int bucket) {
+    return bucket + 1 < numBuckets
+        ? lowestValueOf(bucket + 1) - 1 : Long.MAX_VALUE;
+  }
+
+  /**
+   * Records one occurrence of {@code value}. Negative values (e.g., from a
+   * clock going backwards) are recorded as 0.
+   */
+  public void record(long value) {
+    record(value, 1);
+  }
+
+  /**
+   * Records {@code occurrences} occurrences of {@code value}, as many calls
+   * to {@link #record(long)} would.
+   */
+  public void record(long value, long occurrences) {
+    if (occurrences <= 0) {
+      return;
+    }
+    final long recorded = Math.max(value, 0);
+    buckets.addAndGet(bucketOf(recorded), occurrences);
+    count.add(occurrences);
+    sum.add(recorded * occurrences);
+    max.accumulate(recorded);
+  }
+
+  /**
+   * Returns how many values were recorded.
+   */
+  public long getCount() {
+    return count.sum();
+  }
+
+  /**
+   * Returns the mean of all recorded values (exact), or 0 if none were
+   * recorded.
+   */
+  public double getMean() {
+    final long n = count.sum();
+    return n == 0 ? 0 : (double) sum.sum() / n;
+  }
+
+  /**
+   * Returns the largest recorded value (exact), or 0 if none were recorded.
+   */
+  public long getMax() {
+    return max.get();
+  }
+
+  /**
+   * Returns a value that at least {@code percentile} percent of the recorded
+   * values are less than or equal to, accurate to within 12.5%, or 0 if no
+   * values were recorded.
+   *
+   * @param percentile percentile between 0 and 100
+   */
+  public long getValueAtPercentile(double percentile) {
+    if (percentile < 0 || percentile > 100) {
+      throw new IllegalArgumentException("Percentile must be in [0, 100]");
+    }
+    long total = 0;
+    long[] counts = new long[numBuckets];
+    for (int i = 0; i < numBuckets; i++) {
+      counts[i] = buckets.get(i);
+      total += counts[i];
+    }
+    if (total == 0) {
+      return 0;
+    }
+    final long rank = Math.max(1, (long) Math.ceil(percentile / 100 * total));
+    long seen = 0;
+    for (int i = 0; i < numBuckets; i++) {
+      seen += counts[i];
+      if (seen >= rank) {
+        return Math.min(highestValueOf(i), getMax());
+      }
+    }
+    return getMax();
+  }
+}
@@ -0,0 +1,212 @@
+package com.vlxu.metrics;
+
+import com.vlxu.entities.UserRepository;
+import com.vlxu.entities.WordRepository;
+import com.vlxu.usecases.GameSessionUseCase;
+import com.vlxu.usecases.PlayGameUseCase;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.InstanceNotFoundException;
+import javax.management.MBeanRegistrationException;
+import javax.management.MBeanServer;
+import javax.management.MalformedObjectNameException;
+import javax.management.NotCompliantMBeanException;
+import javax.management.ObjectName;
+
+/**
+ * The metrics of the repositories and game use cases.
+ *
+ * <p>Instrumentation is switched on with the system property
+ * {@code com.vlxu.metrics=true}. While it is off, the {@code instrument}
+ * methods return the object they are given, so nothing is measured and
+ * nothing costs anything. While it is on, they wrap the object in a
+ * decorator that records into the {@link #getDefault() default metrics},
+ * which are exported as platform MBeans under the {@code com.vlxu}
+ * domain (e.g., {@code com.vlxu:type=Operation,name=UserLookup}), where
+ * JConsole or any other JMX client can read them.</p>
+ */
+public final class Metrics {
+  private static final String domain = "com.vlxu";
+  private static final boolean enabled = Boolean.getBoolean("com.vlxu.metrics");
+  private static Metrics defaultMetrics = null;
+
+  private final OperationMetrics userLookups = new OperationMetrics("UserLookup");
+  private final OperationMetrics userUpdates = new OperationMetrics("UserUpdate");
+  private final OperationMetrics wordDraws = new OperationMetrics("WordDraw");
+  private final OperationMetrics repositoryCloses =
+      new OperationMetrics("RepositoryClose");
+  private final OperationMetrics guesses = new OperationMetrics("Guess");
+  private final GameMetrics games = new GameMetrics();
+
+  /**
+   * Initializes a new set of metrics, all zero, that is not exported.
+   */
+  public Metrics() {
+  }
+
+  /**
+   * Returns whether instrumentation is switched on.
+   */
+  public static boolean isEnabled() {
+    return enabled;
+  }
+
+  /**
+   * Returns the metrics that instrumented objects record into, exporting
+   * them as platform MBeans on first use.
+   */
+  public static synchronized Metrics getDefault() {
+    if (defaultMetrics == null) {
+      defaultMetrics = new Metrics();
+      try {
+        defaultMetrics.register(ManagementFactory.getPlatformMBeanServer());
+      } catch (IllegalStateException e) {
+        // monitoring is unavailable, but recording still works
+      }
+    }
+    return defaultMetrics;
+  }
+
+  /**
+   * Returns {@code userRepo}, instrumented if instrumentation is switched on.
+   */
+  public static UserRepository instrument(UserRepository userRepo) {
+    return enabled ? new InstrumentedUserRepository(userRepo, getDefault())
+        : userRepo;
+  }
+
+  /**
+   * Returns {@code wordRepo}, instrumented if instrumentation is switched on.
+   */
+  public static WordRepository instrument(WordRepository wordRepo) {
+    return enabled ? new InstrumentedWordRepository(wordRepo, getDefault())
+        : wordRepo;
+  }
+
+  /**
+   * Returns a supplier of games played with words from {@code wordRepo},
+   * instrumented if instrumentation is switched on (e.g., for
+   * {@link GameSessionUseCase}).
+   */
+  public static Supplier<PlayGameUseCase> instrumentedPlayGame(
+      WordRepository wordRepo) {
+    if (!enabled) {
+      return () -> new PlayGameUseCase(wordRepo);
+    }
+    final Metrics metrics = getDefault();
+    return () -> new InstrumentedPlayGameUseCase(wordRepo, metrics);
+  }
+
+  /**
+   * Initializes a session host that plays games with words from
+   * {@code wordRepo} and keeps scores in {@code userRepo}, with both
+   * repositories and every game instrumented if instrumentation is switched
+   * on. This is the way to assemble the game for serving players.
+   */
+  public static GameSessionUseCase newGameSessions(WordRepository wordRepo,
+                                                   UserRepository userRepo) {
+    return new GameSessionUseCase(instrumentedPlayGame(instrument(wordRepo)),
+        instrument(userRepo));
+  }
+
+  /**
+   * Calls to {@code getUserInfo}, {@code login} and {@code getSignedInUser}.
+   */
+  public OperationMetrics getUserLookups() {
+    return userLookups;
+  }
+
+  /**
+   * Calls to {@code addUser}, {@code removeUser} and {@code saveUserInfo}.
+   */
+  public OperationMetrics getUserUpdates() {
+    return userUpdates;
+  }
+
+  /**
+   * Calls to {@code getRandomWord} and {@code getRandomGuessWord}.
+   */
+  public OperationMetrics getWordDraws() {
+    return wordDraws;
+  }
+
+  /**
+   * Calls to {@code close} of an instrumented repository, including all the
+   * time spent persisting it.
+   */
+  public OperationMetrics getRepositoryCloses() {
+    return repositoryCloses;
+  }
+
+  /**
+   * Calls to {@code makeGuess}, and guesses applied by
+   * {@code makeGuesses}.
+   */
+  public OperationMetrics getGuesses() {
+    return guesses;
+  }
+
+  public GameMetrics getGames() {
+    return games;
+  }
+
+  private List<Object> getMBeans() {
+    return List.of(userLookups, userUpdates, wordDraws, repositoryCloses,
+        guesses, games);
+  }
+
+  private static ObjectName objectNameOf(Object mbean) {
+    try {
+      if (mbean instanceof OperationMetrics operation) {
+        return new ObjectName(domain + ":type=Operation,name="
+            + operation.getName());
+      }
+      return new ObjectName(domain + ":type=Game");
+    } catch (MalformedObjectNameException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  /**
+   * Exports these metrics through {@code mbeanServer}.
+   *
+   * @throws IllegalStateException if the metrics cannot be registered (e.g.,
+   *                               other metrics are registered already)
+   */
+  public void register(MBeanServer mbeanServer) {
+    List<ObjectName> registered = new ArrayList<>();
+    try {
+      for (Object mbean : getMBeans()) {
+        registered.add(
+            mbeanServer.registerMBean(mbean, objectNameOf(mbean)).getObjectName());
+      }
+    } catch (InstanceAlreadyExistsException | MBeanRegistrationException
+             | NotCompliantMBeanException e) {
+      for (ObjectName name : registered) {
+        unregisterQuietly(mbeanServer, name);
+      }
+      throw new IllegalStateException("Could not register metrics", e);
+    }
+  }
+
+  /**
+   * Stops exporting these metrics through {@code mbeanServer}.
+   */
+  public void unregister(MBeanServer mbeanServer) {
+    for (Object mbean : getMBeans()) {
+      unregisterQuietly(mbeanServer, objectNameOf(mbean));
+    }
+  }
+
+  private static void unregisterQuietly(MBeanServer mbeanServer,
+                                        ObjectName name) {
+    try {
+      mbeanServer.unregisterMBean(name);
+    } catch (InstanceNotFoundException | MBeanRegistrationException e) {
+      // not registered, so nothing to undo
+    }
+  }
+}
@@ -0,0 +1,99 @@
+package com.vlxu.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts and times one kind of operation (e.g., user lookups).
+ *
+ * <p>Typical use:</p>
+ * <pre>
+ *   final long start = System.nanoTime();
+ *   boolean failed = true;
+ *   try {
+ *     ... the operation ...
+ *     failed = false;
+ *   } finally {
+ *     metrics.record(start, failed);
+ *   }
+ * </pre>
+ */
+public final class OperationMetrics implements OperationMetricsMXBean {
+  private final String name;
+  private final long createdNanos = System.nanoTime();
+  private final LatencyHistogram latencies = new LatencyHistogram();
+  private final LongAdder failures = new LongAdder();
+
+  OperationMetrics(String name) {
+    this.name = name;
+  }
+
+  /**
+   * Returns the name the operation is exported under.
+   */
+  public String getName() {
+    return name;
+  }
+
+  /**
+   * Records that the operation started at {@code startNanos} (as returned
+   * by {@link System#nanoTime()}) has just finished.
+   */
+  public void record(long startNanos, boolean failed) {
+    latencies.record(System.nanoTime() - startNanos);
+    if (failed) {
+      failures.increment();
+    }
+  }
+
+  /**
+   * Records that {@code numOperations} operations, run back to back from
+   * {@code startNanos} on, have just finished and that {@code numFailed} of
+   * them failed. Each is recorded as taking an equal share of the elapsed
+   * time, so batches leave the count and the mean latency exact but flatten
+   * the percentiles.
+   */
+  public void record(long startNanos, int numOperations, int numFailed) {
+    if (numOperations <= 0) {
+      return;
+    }
+    latencies.record((System.nanoTime() - startNanos) / numOperations,
+        numOperations);
+    failures.add(numFailed);
+  }
+
+  @Override
+  public long getCount() {
+    return latencies.getCount();
+  }
+
+  @Override
+  public long getFailures() {
+    return failures.sum();
+  }
+
+  @Override
+  public double getRatePerSecond() {
+    final long elapsedNanos = System.nanoTime() - createdNanos;
+    return elapsedNanos <= 0 ? 0 : getCount() * 1e9 / elapsedNanos;
+  }
+
+  @Override
+  public double getMeanLatencyNanos() {
+    return latencies.getMean();
+  }
+
+  @Override
+  public long getMedianLatencyNanos() {
+    return latencies.getValueAtPercentile(50);
+  }
+
+  @Override
+  public long getP99LatencyNanos() {
+    return latencies.getValueAtPercentile(99);
+  }
+
+  @Override
+  public long getMaxLatencyNanos() {
+    return latencies.getMax();
+  }
+}
@@ -0,0 +1,31 @@
+package com.vlxu.metrics;
+
+/**
+ * Management interface of an {@link OperationMetrics}, as exported through
+ * JMX. All latencies are in nanoseconds.
+ */
+public interface OperationMetricsMXBean {
+  /**
+   * Returns how many times the operation ran.
+   */
+  long getCount();
+
+  /**
+   * Returns how many times the operation failed with an exception.
+   */
+  long getFailures();
+
+  /**
+   * Returns how many times per second the operation ran on average since
+   * the metrics were created.
+   */
+  double getRatePerSecond();
+
+  double getMeanLatencyNanos();
+
+  long getMedianLatencyNanos();
+
+  long getP99LatencyNanos();
+
+  long getMaxLatencyNanos();
+}
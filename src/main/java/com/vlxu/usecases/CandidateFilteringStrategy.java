@@ -0,0 +1,60 @@
+package com.vlxu.usecases;
+
+import com.vlxu.entities.WordIndex;
+import java.util.Collection;
+import java.util.List;
+import java.util.random.RandomGenerator;
+
+/**
+ * Guesses the letter found in the most words that are still possible, given
+ * the guess view and the letters guessed so far (see
+ * {@link WordIndex#findCandidates(String, int)}).
+ *
+ * <p>Ties are broken in {@link FrequencyOrderStrategy#ENGLISH_ORDER}; if no
+ * word is possible (the word to guess is not in the index), letters are
+ * guessed in that order.</p>
+ */
+public class CandidateFilteringStrategy implements GuessingStrategy {
+  private static final char[] fallbackOrder =
+      FrequencyOrderStrategy.ENGLISH_ORDER.toCharArray();
+
+  private final WordIndex wordIndex;
+
+  /**
+   * Initializes a strategy that considers {@code words} (e.g., the word bank)
+   * as the possible words to guess.
+   */
+  public CandidateFilteringStrategy(Collection<String> words) {
+    this(new WordIndex(List.copyOf(words)));
+  }
+
+  /**
+   * Initializes a strategy that considers the words of {@code wordIndex} as
+   * the possible words to guess.
+   */
+  public CandidateFilteringStrategy(WordIndex wordIndex) {
+    this.wordIndex = wordIndex;
+  }
+
+  @Override
+  public char nextGuess(String guessView, int lettersGuessedMask,
+                        RandomGenerator random) {
+    char best = FrequencyOrderStrategy.firstUnguessed(fallbackOrder,
+        lettersGuessedMask);
+    WordIndex.CandidateWords candidates =
+        wordIndex.findCandidates(guessView, lettersGuessedMask);
+    if (candidates.size() == 0) {
+      return best;
+    }
+
+    final int[] counts = candidates.getLetterCounts();
+    for (char letter : fallbackOrder) {
+      final int bit = 1 << (letter - 'a');
+      if ((lettersGuessedMask & bit) == 0
+          && counts[letter - 'a'] > counts[best - 'a']) {
+        best = letter;
+      }
+    }
+    return best;
+  }
+}
@@ -0,0 +1,97 @@
+package com.vlxu.usecases;
+
+import java.util.random.RandomGenerator;
+
+/**
+ * Guesses letters in a fixed order, by default from the most to the least
+ * frequent letter in English text.
+ */
+public class FrequencyOrderStrategy implements GuessingStrategy {
+  /**
+   * Letters from the most to the least frequent in English text.
+   */
+  public static final String ENGLISH_ORDER = "etaoinshrdlcumwfgypbvkjxqz";
+
+  private final char[] order;
+
+  public FrequencyOrderStrategy() {
+    this(ENGLISH_ORDER);
+  }
+
+  /**
+   * Initializes a strategy that guesses the letters of {@code order} in
+   * order.
+   *
+   * @throws IllegalArgumentException unless {@code order} holds each
+   *                                  lowercase letter exactly once
+   */
+  public FrequencyOrderStrategy(String order) {
+    int seen = 0;
+    for (int i = 0; i < order.length(); i++) {
+      final char letter = order.charAt(i);
+      if (letter < 'a' || letter > 'z' || (seen & (1 << (letter - 'a'))) != 0) {
+        throw new IllegalArgumentException(
+            "Order must hold each lowercase letter exactly once");
+      }
+      seen |= 1 << (letter - 'a');
+    }
+    if (order.length() != 26) {
+      throw new IllegalArgumentException(
+          "Order must hold each lowercase letter exactly once");
+    }
+    this.order = order.toCharArray();
+  }
+
+  /**
+   * Initializes a strategy that guesses letters from the most to the least
+   * common in {@code words}, counting each letter once per word (ties are
+   * broken in {@link #ENGLISH_ORDER}).
+   */
+  public static FrequencyOrderStrategy fromWords(Iterable<String> words) {
+    long[] counts = new long[26];
+    for (String word : words) {
+      int letters = 0;
+      for (int i = 0; i < word.length(); i++) {
+        final int letter = word.charAt(i) - 'a';
+        if (letter >= 0 && letter < 26) {
+          letters |= 1 << letter;
+        }
+      }
+      for (int letter = 0; letter < 26; letter++) {
+        counts[letter] += (letters >>> letter) & 1;
+      }
+    }
+
+    StringBuilder order = new StringBuilder(ENGLISH_ORDER);
+    // stable insertion sort by descending count keeps ties in English order
+    for (int i = 1; i < order.length(); i++) {
+      final char letter = order.charAt(i);
+      int j = i;
+      while (j > 0 && counts[order.charAt(j - 1) - 'a'] < counts[letter - 'a']) {
+        order.setCharAt(j, order.charAt(j - 1));
+        j--;
+      }
+      order.setCharAt(j, letter);
+    }
+    return new FrequencyOrderStrategy(order.toString());
+  }
+
+  /**
+   * Returns the first letter of {@code order} not in
+   * {@code lettersGuessedMask}, or 'z' once every letter was guessed.
+   */
+  static char firstUnguessed(char[] order, int lettersGuessedMask) {
+    for (char letter : order) {
+      if ((lettersGuessedMask & (1 << (letter - 'a'))) == 0) {
+        return letter;
+      }
+    }
+    return 'z';
+  }
+
+  @Override
+  public char nextGuess(String guessView, int lettersGuessedMask,
+                        RandomGenerator random) {
+    return firstUnguessed(order, lettersGuessedMask);
+  }
+}
@@ -0,0 +1,248 @@
+package com.vlxu.usecases;
+
+import com.vlxu.coreexceptions.InvalidGuessException;
+import com.vlxu.coreexceptions.InvalidGuessWord;
+import com.vlxu.coreexceptions.RepoException;
+import com.vlxu.coreexceptions.SessionNotFoundException;
+import com.vlxu.coreexceptions.UserNotFoundException;
+import com.vlxu.entities.GuessBatchResult;
+import com.vlxu.entities.User;
+import com.vlxu.entities.UserRepository;
+import com.vlxu.entities.WordRepository;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
+
+/**
+ * Hosts many independent players at once, each identified by a session id.
+ *
+ * <p>Every session has its own signed-in user and its own game, played by the
+ * same rules as {@link PlayGameUseCase}. Sessions are kept in a concurrent map
+ * and each session is locked on its own, so calls for different sessions run
+ * in parallel from any number of threads without a global lock. Calls for the
+ * same session are serialized.</p>
+ *
+ * <p>The word and user repositories must be safe to read from several threads
+ * at once.</p>
+ */
+public class GameSessionUseCase {
+  private final Supplier<PlayGameUseCase> newPlayGame;
+  private final UserRepository userRepo;
+  private final ConcurrentMap<String, Session> sessions;
+
+  private static final class Session {
+    final PlayGameUseCase playGame;
+    User signedInUser = null;
+    // read without the session lock by getSessionWithGame
+    volatile boolean gameStarted = false;
+
+    Session(PlayGameUseCase playGame) {
+      this.playGame = playGame;
+    }
+  }
+
+  public GameSessionUseCase(WordRepository wordRepo, UserRepository userRepo) {
+    this(() -> new PlayGameUseCase(wordRepo), userRepo);
+  }
+
+  /**
+   * Initializes a session host whose sessions each play a game obtained from
+   * {@code newPlayGame} (e.g., an instrumented {@link PlayGameUseCase}).
+   */
+  public GameSessionUseCase(Supplier<PlayGameUseCase> newPlayGame,
+                            UserRepository userRepo) {
+    this.newPlayGame = newPlayGame;
+    this.userRepo = userRepo;
+    this.sessions = new ConcurrentHashMap<>();
+  }
+
+  private Session getSession(String sessionId)
+      throws SessionNotFoundException {
+    Session session = sessions.get(sessionId);
+    if (session == null) {
+      throw new SessionNotFoundException(sessionId);
+    }
+    return session;
+  }
+
+  // Returns the session if it has a game in progress.
+  private Session getSessionWithGame(String sessionId)
+      throws SessionNotFoundException {
+    Session session = getSession(sessionId);
+    if (!session.gameStarted) {
+      throw new SessionNotFoundException(sessionId);
+    }
+    return session;
+  }
+
+  /**
+   * Signs {@code userName} in to session {@code sessionId}, opening the
+   * session if needed. Other sessions are not affected.
+   *
+   * @return the signed-in user
+   * @throws UserNotFoundException when the username does not exist
+   * @throws RepoException         see {@link RepoException}
+   */
+  public User login(String sessionId, String userName)
+      throws UserNotFoundException, RepoException {
+    User user = userRepo.getUserInfo(userName);
+    Session session =
+        sessions.computeIfAbsent(sessionId, id -> new Session(newPlayGame.get()));
+    synchronized (session) {
+      session.signedInUser = user;
+    }
+    return user;
+  }
+
+  /**
+   * Returns the user signed in to session {@code sessionId}.
+   *
+   * @throws SessionNotFoundException when the session does not exist
+   * @throws UserNotFoundException    when no user has signed in to the session
+   * @throws RepoException            see {@link RepoException}
+   */
+  public User getSignedInUser(String sessionId)
+      throws SessionNotFoundException, UserNotFoundException, RepoException {
+    Session session = getSession(sessionId);
+    User signedInUser;
+    synchronized (session) {
+      signedInUser = session.signedInUser;
+    }
+    if (signedInUser == null) {
+      throw new UserNotFoundException("null");
+    }
+    return userRepo.getUserInfo(signedInUser.getUserName());
+  }
+
+  /**
+   * Starts a new game with a new word in session {@code sessionId}, opening
+   * the session if needed. Any game already in progress in that session is
+   * abandoned.
+   *
+   * @throws RepoException    see {@link RepoException}
+   * @throws InvalidGuessWord when an invalid word was detected in the word bank
+   */
+  public void startGame(String sessionId)
+      throws RepoException, InvalidGuessWord {
+    Session session =
+        sessions.computeIfAbsent(sessionId, id -> new Session(newPlayGame.get()));
+    synchronized (session) {
+      session.playGame.startGame();
+      session.gameStarted = true;
+    }
+  }
+
+  /**
+   * Makes a guess in the game of session {@code sessionId}.
+   *
+   * @return whether the guess was correct
+   * @throws SessionNotFoundException when the session has no game in progress
+   * @throws InvalidGuessException    if an invalid guess was made
+   */
+  public boolean makeGuess(String sessionId, char guess)
+      throws SessionNotFoundException, InvalidGuessException {
+    Session session = getSessionWithGame(sessionId);
+    synchronized (session) {
+      return session.playGame.makeGuess(guess);
+    }
+  }
+
+  /**
+   * Makes all of {@code guesses} in the game of session {@code sessionId},
+   * as {@link PlayGameUseCase#makeGuesses(CharSequence)} does.
+   *
+   * @return which guesses were correct, and how the game stands afterwards
+   * @throws SessionNotFoundException when the session has no game in progress
+   */
+  public GuessBatchResult makeGuesses(String sessionId, CharSequence guesses)
+      throws SessionNotFoundException {
+    Session session = getSessionWithGame(sessionId);
+    synchronized (session) {
+      return session.playGame.makeGuesses(guesses);
+    }
+  }
+
+  /**
+   * Returns whether the game of session {@code sessionId} has been won. See
+   * {@link PlayGameUseCase#checkWinCondition()}.
+   *
+   * @throws SessionNotFoundException when the session has no game in progress
+   */
+  public boolean checkWinCondition(String sessionId)
+      throws SessionNotFoundException {
+    Session session = getSessionWithGame(sessionId);
+    synchronized (session) {
+      return session.playGame.checkWinCondition();
+    }
+  }
+
+  /**
+   * Returns whether the game of session {@code sessionId} was lost. See
+   * {@link PlayGameUseCase#checkLoseCondition()}.
+   *
+   * @throws SessionNotFoundException when the session has no game in progress
+   */
+  public boolean checkLoseCondition(String sessionId)
+      throws SessionNotFoundException {
+    Session session = getSessionWithGame(sessionId);
+    synchronized (session) {
+      return session.playGame.checkLoseCondition();
+    }
+  }
+
+  /**
+   * Returns the guess view of the game of session {@code sessionId}.
+   *
+   * @throws SessionNotFoundException when the session has no game in progress
+   */
+  public String getGuessView(String sessionId)
+      throws SessionNotFoundException {
+    Session session = getSessionWithGame(sessionId);
+    synchronized (session) {
+      return session.playGame.getGuessView();
+    }
+  }
+
+  /**
+   * Returns the number of wrong guesses in the game of session
+   * {@code sessionId}.
+   *
+   * @throws SessionNotFoundException when the session has no game in progress
+   */
+  public int getNumWrongGuesses(String sessionId)
+      throws SessionNotFoundException {
+    Session session = getSessionWithGame(sessionId);
+    synchronized (session) {
+      return session.playGame.getNumWrongGuesses();
+    }
+  }
+
+  /**
+   * Returns the letters guessed in the game of session {@code sessionId}, as
+   * a mask (see {@link com.vlxu.entities.Game#getLettersGuessedMask()}).
+   *
+   * @throws SessionNotFoundException when the session has no game in progress
+   */
+  public int getLettersGuessedMask(String sessionId)
+      throws SessionNotFoundException {
+    Session session = getSessionWithGame(sessionId);
+    synchronized (session) {
+      return session.playGame.getLettersGuessedMask();
+    }
+  }
+
+  /**
+   * Ends session {@code sessionId}, discarding its game and signing its user
+   * out. Does nothing if the session does not exist.
+   */
+  public void endSession(String sessionId) {
+    sessions.remove(sessionId);
+  }
+
+  /**
+   * Returns the number of open sessions.
+   */
+  public int getNumSessions() {
+    return sessions.size();
+  }
+}
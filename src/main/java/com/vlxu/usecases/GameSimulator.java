@@ -0,0 +1,172 @@
+package com.vlxu.usecases;
+
+import com.vlxu.coreexceptions.InvalidGuessException;
+import com.vlxu.coreexceptions.InvalidGuessWord;
+import com.vlxu.coreexceptions.RepoException;
+import com.vlxu.entities.Game;
+import com.vlxu.entities.GuessWord;
+import com.vlxu.entities.WordRepository;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Plays many games against words drawn from a {@link WordRepository}, with a
+ * {@link GuessingStrategy} making every guess, and reports how well the
+ * strategy does (see {@link SimulationReport}).
+ *
+ * <p>Games are split into fixed-size chunks that run in parallel on a
+ * fork/join pool. Each chunk draws its words and guesses from its own random
+ * generator, split from a single seed before any chunk runs, so the report
+ * for a given seed does not depend on the pool or on scheduling. This only
+ * holds if the word repository draws words from the generator it is given
+ * (see {@link WordRepository#getRandomWord(java.util.random.RandomGenerator)}).</p>
+ *
+ * <p>A game ends once it is won or lost by the rules of
+ * {@link PlayGameUseCase}, or once the word is fully guessed; a fully guessed
+ * word with exactly the maximum number of wrong guesses counts as a game that
+ * was not won.</p>
+ */
+public class GameSimulator {
+  // Games per fork/join leaf task; large enough to amortize the per-chunk
+  // report, small enough to balance across workers.
+  static final int chunkSize = 4096;
+
+  private final WordRepository wordRepo;
+  private final GuessingStrategy strategy;
+  private final int maxWrongGuesses;
+  private final ForkJoinPool pool;
+
+  /**
+   * Initializes a simulator that plays by the rules of {@link PlayGameUseCase}
+   * on the common fork/join pool.
+   */
+  public GameSimulator(WordRepository wordRepo, GuessingStrategy strategy) {
+    this(wordRepo, strategy, PlayGameUseCase.MAX_WRONG_GUESSES,
+        ForkJoinPool.commonPool());
+  }
+
+  /**
+   * Initializes a simulator.
+   *
+   * @param wordRepo        where words to guess are drawn from; must be safe
+   *                        to use from several threads
+   * @param strategy        makes every guess; must be thread-safe
+   * @param maxWrongGuesses the number of wrong guesses allowed in a game
+   * @param pool            where games are played
+   */
+  public GameSimulator(WordRepository wordRepo, GuessingStrategy strategy,
+                       int maxWrongGuesses, ForkJoinPool pool) {
+    if (maxWrongGuesses < 0) {
+      throw new IllegalArgumentException("maxWrongGuesses must not be negative");
+    }
+    this.wordRepo = wordRepo;
+    this.strategy = strategy;
+    this.maxWrongGuesses = maxWrongGuesses;
+    this.pool = pool;
+  }
+
+  // Carries the checked exceptions of the word repository out of the pool.
+  private static class DrawFailure extends RuntimeException {
+    DrawFailure(Exception cause) {
+      super(cause);
+    }
+  }
+
+  private class Chunks extends RecursiveTask<SimulationReport> {
+    private final SplittableRandom[] rngs;
+    private final long numGames;
+    private final int from;
+    private final int to;
+
+    Chunks(SplittableRandom[] rngs, long numGames, int from, int to) {
+      this.rngs = rngs;
+      this.numGames = numGames;
+      this.from = from;
+      this.to = to;
+    }
+
+    @Override
+    protected SimulationReport compute() {
+      if (to - from == 1) {
+        final long first = (long) from * chunkSize;
+        return playChunk(rngs[from],
+            (int) Math.min(chunkSize, numGames - first));
+      }
+      final int mid = (from + to) >>> 1;
+      Chunks right = new Chunks(rngs, numGames, mid, to);
+      right.fork();
+      SimulationReport report = new Chunks(rngs, numGames, from, mid).compute();
+      report.merge(right.join());
+      return report;
+    }
+  }
+
+  /**
+   * Plays {@code numGames} games and reports their outcomes. The same seed
+   * gives the same report.
+   *
+   * @throws RepoException    if a word could not be drawn
+   * @throws InvalidGuessWord if an invalid word was drawn
+   */
+  public SimulationReport run(long numGames, long seed)
+      throws RepoException, InvalidGuessWord {
+    if (numGames <= 0) {
+      return new SimulationReport(maxWrongGuesses);
+    }
+
+    final long numChunks = (numGames + chunkSize - 1) / chunkSize;
+    if (numChunks > Integer.MAX_VALUE) {
+      throw new IllegalArgumentException("Too many games: " + numGames);
+    }
+    SplittableRandom root = new SplittableRandom(seed);
+    SplittableRandom[] rngs = new SplittableRandom[(int) numChunks];
+    for (int i = 0; i < rngs.length; i++) {
+      rngs[i] = root.split();
+    }
+
+    try {
+      return pool.invoke(new Chunks(rngs, numGames, 0, rngs.length));
+    } catch (DrawFailure e) {
+      if (e.getCause() instanceof RepoException repoException) {
+        throw repoException;
+      }
+      throw (InvalidGuessWord) e.getCause();
+    }
+  }
+
+  // Plays numGames games with randomness from rng only.
+  private SimulationReport playChunk(SplittableRandom rng, int numGames) {
+    SimulationReport report = new SimulationReport(maxWrongGuesses);
+    for (int i = 0; i < numGames; i++) {
+      GuessWord guessWord;
+      try {
+        guessWord = wordRepo.getRandomGuessWord(rng);
+      } catch (RepoException | InvalidGuessWord e) {
+        throw new DrawFailure(e);
+      }
+      final String word = guessWord.getWord();
+      Game game = new Game(guessWord);
+      while (!game.wordIsFullyGuessed()
+          && !PlayGameUseCase.isLost(game, maxWrongGuesses)) {
+        final char guess = strategy.nextGuess(game.getGuessView(),
+            game.getLettersGuessedMask(), rng);
+        if (game.hasGuessed(guess)) {
+          throw new IllegalStateException(String.format(
+              "%s guessed '%s' twice", strategy.getClass().getSimpleName(),
+              guess));
+        }
+        try {
+          game.makeGuess(guess);
+        } catch (InvalidGuessException e) {
+          throw new IllegalStateException(String.format(
+              "%s made an invalid guess '%s'",
+              strategy.getClass().getSimpleName(), guess), e);
+        }
+      }
+      report.record(word, PlayGameUseCase.isWon(game, maxWrongGuesses),
+          game.getNumWrongGuesses());
+    }
+    return report;
+  }
+}
@@ -3,6 +3,7 @@ package com.vlxu.usecases;
 import com.vlxu.coreexceptions.RepoException;
 import com.vlxu.entities.User;
 import java.util.List;
+import java.util.stream.Stream;
 
 public interface GetAllUserInfo
 {
@@ -13,4 +14,33 @@ public interface GetAllUserInfo
      * @throws RepoException See {@link RepoException}.
      */
     public List<User> getAllUserInfo() throws RepoException;
+
+    /**
+     * Returns a lazily evaluated stream of all users in the game, which does
+     * not copy the whole user table up front. Each user in the stream is a
+     * read-only snapshot: changing it does not change the repository.
+     *
+     * <p>The default implementation streams over {@link #getAllUserInfo()};
+     * repositories should override it to stream straight from their
+     * storage.</p>
+     *
+     * @return stream of all game users
+     * @throws RepoException See {@link RepoException}.
+     */
+    default Stream<User> streamAllUserInfo() throws RepoException
+    {
+        return getAllUserInfo().stream();
+    }
+
+    /**
+     * Returns a cursor that reads all users in the game
+     * {@code batchSize} at a time (see {@link #streamAllUserInfo()}).
+     *
+     * @return cursor over all game users
+     * @throws RepoException See {@link RepoException}.
+     */
+    default UserCursor openUserCursor(int batchSize) throws RepoException
+    {
+        return new UserCursor(streamAllUserInfo().iterator(), batchSize);
+    }
 }
@@ -0,0 +1,27 @@
+package com.vlxu.usecases;
+
+import java.util.random.RandomGenerator;
+
+/**
+ * Picks the next letter to guess in a game, for {@link GameSimulator}.
+ *
+ * <p>A strategy only sees what a player sees: the guess view and the letters
+ * already guessed. It is shared by all games of a simulation, which run on
+ * several threads at once, so it must be thread-safe; the simplest way is to
+ * keep no state between calls. All randomness must come from
+ * {@code random}, so that simulations are reproducible.</p>
+ */
+public interface GuessingStrategy {
+  /**
+   * Returns the next letter to guess.
+   *
+   * @param guessView          the current guess view ('-' for each letter
+   *                           not revealed yet)
+   * @param lettersGuessedMask letters already guessed, as a 26-bit mask (see
+   *                           {@link com.vlxu.entities.Game#getLettersGuessedMask()})
+   * @param random             source of randomness for this game
+   * @return a lowercase letter, which should not have been guessed yet
+   */
+  char nextGuess(String guessView, int lettersGuessedMask,
+                 RandomGenerator random);
+}
@@ -0,0 +1,295 @@
+package com.vlxu.usecases;
+
+import com.vlxu.coreexceptions.UserNotFoundException;
+import com.vlxu.entities.User;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.TreeMap;
+
+/**
+ * Incrementally maintained ranking of users.
+ *
+ * <p>Users are ranked by score, highest first, with ties broken by username
+ * in alphabetical order. The ranking is an order-statistic treap (a
+ * randomized balanced search tree whose nodes also count the size of their
+ * subtree), so adding, removing or rescoring a user and looking up a rank
+ * take O(log n) expected time, and reading k consecutive ranks takes
+ * O(log n + k), without ever re-sorting.</p>
+ *
+ * <p>The leader board keeps its own copy of each user's name, score and root
+ * flag. Users returned from it are fresh copies. All methods are
+ * thread-safe.</p>
+ */
+public class LeaderBoard {
+  private static final class Node {
+    final String userName;
+    final int score;
+    final boolean isRoot;
+    final int priority;
+    Node left = null;
+    Node right = null;
+    int size = 1;
+
+    Node(String userName, int score, boolean isRoot, int priority) {
+      this.userName = userName;
+      this.score = score;
+      this.isRoot = isRoot;
+      this.priority = priority;
+    }
+
+    User toUser() {
+      return new User(userName, score, isRoot);
+    }
+  }
+
+  private final TreeMap<String, Node> nodesByName;
+  private final SplittableRandom priorities;
+  private Node root;
+
+  /**
+   * Initializes an empty leader board.
+   */
+  public LeaderBoard() {
+    nodesByName = new TreeMap<>();
+    priorities = new SplittableRandom();
+    root = null;
+  }
+
+  /**
+   * Initializes a leader board holding {@code users}.
+   */
+  public LeaderBoard(Iterable<User> users) {
+    this();
+    for (User user : users) {
+      put(user);
+    }
+  }
+
+  private static int size(Node node) {
+    return node == null ? 0 : node.size;
+  }
+
+  private static void updateSize(Node node) {
+    node.size = 1 + size(node.left) + size(node.right);
+  }
+
+  // Orders by score descending, then by username ascending.
+  private static int compare(int score, String userName, Node node) {
+    if (score != node.score) {
+      return score > node.score ? -1 : 1;
+    }
+    return userName.compareTo(node.userName);
+  }
+
+  private static Node insert(Node node, Node newNode) {
+    if (node == null) {
+      return newNode;
+    }
+    if (compare(newNode.score, newNode.userName, node) < 0) {
+      node.left = insert(node.left, newNode);
+      if (node.left.priority > node.priority) {
+        node = rotateRight(node);
+      }
+    } else {
+      node.right = insert(node.right, newNode);
+      if (node.right.priority > node.priority) {
+        node = rotateLeft(node);
+      }
+    }
+    updateSize(node);
+    return node;
+  }
+
+  private static Node delete(Node node, int score, String userName) {
+    final int cmp = compare(score, userName, node);
+    if (cmp < 0) {
+      node.left = delete(node.left, score, userName);
+    } else if (cmp > 0) {
+      node.right = delete(node.right, score, userName);
+    } else {
+      return merge(node.left, node.right);
+    }
+    updateSize(node);
+    return node;
+  }
+
+  // Joins two treaps where every key of `left` is smaller than every key of
+  // `right`.
+  private static Node merge(Node left, Node right) {
+    if (left == null) {
+      return right;
+    }
+    if (right == null) {
+      return left;
+    }
+    if (left.priority > right.priority) {
+      left.right = merge(left.right, right);
+      updateSize(left);
+      return left;
+    }
+    right.left = merge(left, right.left);
+    updateSize(right);
+    return right;
+  }
+
+  private static Node rotateRight(Node node) {
+    Node newTop = node.left;
+    node.left = newTop.right;
+    newTop.right = node;
+    updateSize(node);
+    updateSize(newTop);
+    return newTop;
+  }
+
+  private static Node rotateLeft(Node node) {
+    Node newTop = node.right;
+    node.right = newTop.left;
+    newTop.left = node;
+    updateSize(node);
+    updateSize(newTop);
+    return newTop;
+  }
+
+  // Appends the nodes at positions [from, to) of the subtree at `node` to
+  // `out`, visiting only subtrees that overlap the range.
+  private static void collect(Node node, int from, int to, List<User> out) {
+    if (node == null || from >= to) {
+      return;
+    }
+    final int leftSize = size(node.left);
+    if (from < leftSize) {
+      collect(node.left, from, Math.min(to, leftSize), out);
+    }
+    if (from <= leftSize && leftSize < to) {
+      out.add(node.toUser());
+    }
+    if (to > leftSize + 1) {
+      collect(node.right, Math.max(0, from - leftSize - 1), to - leftSize - 1,
+          out);
+    }
+  }
+
+  /**
+   * Adds {@code user} to the leader board, or updates their score if they
+   * are already on it.
+   */
+  public synchronized void put(User user) {
+    Node existing = nodesByName.get(user.getUserName());
+    if (existing != null) {
+      if (existing.score == user.getNumSuccess()
+          && existing.isRoot == user.getIsRoot()) {
+        return;
+      }
+      root = delete(root, existing.score, existing.userName);
+    }
+    Node newNode = new Node(user.getUserName(), user.getNumSuccess(),
+        user.getIsRoot(), priorities.nextInt());
+    nodesByName.put(newNode.userName, newNode);
+    root = insert(root, newNode);
+  }
+
+  /**
+   * Removes user {@code userName} from the leader board, if they are on it.
+   */
+  public synchronized void remove(String userName) {
+    Node existing = nodesByName.remove(userName);
+    if (existing != null) {
+      root = delete(root, existing.score, existing.userName);
+    }
+  }
+
+  /**
+   * Returns the number of users on the leader board.
+   */
+  public synchronized int size() {
+    return size(root);
+  }
+
+  /**
+   * Returns the 1-based rank of user {@code userName}, where rank 1 is the
+   * highest score.
+   *
+   * @throws UserNotFoundException when the user is not on the leader board
+   */
+  public synchronized int getRank(String userName)
+      throws UserNotFoundException {
+    Node target = nodesByName.get(userName);
+    if (target == null) {
+      throw new UserNotFoundException(userName);
+    }
+
+    int usersAhead = 0;
+    Node node = root;
+    while (node != target) {
+      if (compare(target.score, target.userName, node) < 0) {
+        node = node.left;
+      } else {
+        usersAhead += size(node.left) + 1;
+        node = node.right;
+      }
+    }
+    return usersAhead + size(node.left) + 1;
+  }
+
+  /**
+   * Returns the users at 0-based positions {@code fromIndex} (inclusive) to
+   * {@code toIndex} (exclusive) of the ranking, highest score first. The
+   * range is clipped to the size of the leader board.
+   */
+  public synchronized List<User> getRange(int fromIndex, int toIndex) {
+    if (fromIndex < 0 || fromIndex > toIndex) {
+      throw new IndexOutOfBoundsException(
+          String.format("Invalid range [%d, %d)", fromIndex, toIndex));
+    }
+    final int clippedTo = Math.min(toIndex, size(root));
+    List<User> users = new ArrayList<>(Math.max(0, clippedTo - fromIndex));
+    collect(root, fromIndex, clippedTo, users);
+    return users;
+  }
+
+  /**
+   * Returns the {@code k} users with the highest scores, highest first.
+   */
+  public List<User> getTopK(int k) {
+    return getRange(0, k);
+  }
+
+  /**
+   * Returns every user, highest score first.
+   */
+  public synchronized List<User> getAllByScoreDescending() {
+    return getRange(0, size(root));
+  }
+
+  /**
+   * Returns every user, lowest score first. Users with the same score are in
+   * alphabetical order, as in every other ranking.
+   */
+  public List<User> getAllByScoreAscending() {
+    List<User> users = getAllByScoreDescending();
+    Collections.reverse(users);
+    // reversing also reversed each run of equal scores; restore those
+    int runStart = 0;
+    for (int i = 1; i <= users.size(); i++) {
+      if (i == users.size() || users.get(i).getNumSuccess()
+          != users.get(runStart).getNumSuccess()) {
+        Collections.reverse(users.subList(runStart, i));
+        runStart = i;
+      }
+    }
+    return users;
+  }
+
+  /**
+   * Returns every user in alphabetical order of username.
+   */
+  public synchronized List<User> getAllByName() {
+    List<User> users = new ArrayList<>(nodesByName.size());
+    for (Node node : nodesByName.values()) {
+      users.add(node.toUser());
+    }
+    return users;
+  }
+}
@@ -0,0 +1,105 @@
+package com.vlxu.usecases;
+
+import com.vlxu.coreexceptions.FirstUserException;
+import com.vlxu.coreexceptions.InvalidUserNameException;
+import com.vlxu.coreexceptions.NotPermittedException;
+import com.vlxu.coreexceptions.RepoException;
+import com.vlxu.coreexceptions.UserExistsException;
+import com.vlxu.coreexceptions.UserNotFoundException;
+import com.vlxu.entities.User;
+import com.vlxu.entities.UserRepository;
+
+/**
+ * A {@link UserRepository} that keeps a {@link LeaderBoard} up to date with
+ * another repository.
+ *
+ * <p>Every call is forwarded to the wrapped repository. Once an
+ * {@code addUser}, {@code removeUser} or {@code saveUserInfo} succeeds, the
+ * same change is applied to the leader board, so the leader board never has
+ * to be rebuilt. All changes to users must go through this repository for
+ * the leader board to stay in sync.</p>
+ *
+ * <p>Changes to the same user hold a lock across both steps, so concurrent
+ * changes reach the wrapped repository and the leader board in the same
+ * order. Changes to different users usually take different locks and run in
+ * parallel, as far as the wrapped repository allows.</p>
+ */
+public class LeaderBoardUserRepository implements UserRepository {
+  private static final int numUserLocks = 64;
+
+  private final UserRepository userRepo;
+  private final LeaderBoard leaderBoard;
+  // the lock of a user is picked by the hash of their name
+  private final Object[] userLocks;
+
+  /**
+   * Wraps {@code userRepo}. {@code leaderBoard} must already hold every user
+   * of {@code userRepo} (see {@link LeaderBoard#LeaderBoard(Iterable)}).
+   */
+  public LeaderBoardUserRepository(UserRepository userRepo,
+                                   LeaderBoard leaderBoard) {
+    this.userRepo = userRepo;
+    this.leaderBoard = leaderBoard;
+    this.userLocks = new Object[numUserLocks];
+    for (int i = 0; i < numUserLocks; i++) {
+      userLocks[i] = new Object();
+    }
+  }
+
+  private Object lockFor(String userName) {
+    return userLocks[Math.floorMod(userName.hashCode(), numUserLocks)];
+  }
+
+  /**
+   * Returns the leader board kept in sync with this repository.
+   */
+  public LeaderBoard getLeaderBoard() {
+    return leaderBoard;
+  }
+
+  @Override
+  public User addUser(String userName)
+      throws InvalidUserNameException, UserExistsException, RepoException {
+    synchronized (lockFor(userName)) {
+      User newUser = userRepo.addUser(userName);
+      leaderBoard.put(newUser);
+      return newUser;
+    }
+  }
+
+  @Override
+  public void removeUser(String userName)
+      throws FirstUserException, NotPermittedException, UserNotFoundException,
+      RepoException {
+    synchronized (lockFor(userName)) {
+      userRepo.removeUser(userName);
+      leaderBoard.remove(userName);
+    }
+  }
+
+  @Override
+  public void saveUserInfo(User user)
+      throws UserNotFoundException, RepoException, NotPermittedException {
+    synchronized (lockFor(user.getUserName())) {
+      userRepo.saveUserInfo(user);
+      leaderBoard.put(user);
+    }
+  }
+
+  @Override
+  public User getUserInfo(String userName)
+      throws UserNotFoundException, RepoException {
+    return userRepo.getUserInfo(userName);
+  }
+
+  @Override
+  public void login(String userName)
+      throws UserNotFoundException, RepoException {
+    userRepo.login(userName);
+  }
+
+  @Override
+  public User getSignedInUser() throws UserNotFoundException, RepoException {
+    return userRepo.getSignedInUser();
+  }
+}
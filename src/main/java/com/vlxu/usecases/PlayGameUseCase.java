@@ -4,11 +4,12 @@ import com.vlxu.coreexceptions.InvalidGuessException;
 import com.vlxu.coreexceptions.InvalidGuessWord;
 import com.vlxu.coreexceptions.RepoException;
 import com.vlxu.entities.Game;
+import com.vlxu.entities.GuessBatchResult;
 import com.vlxu.entities.WordRepository;
 import java.util.Set;
 
 public class PlayGameUseCase {
-  private final static int MAX_WRONG_GUESSES = 6;
+  final static int MAX_WRONG_GUESSES = 6;
   private Game game;
   private final WordRepository wordRepo;
 
@@ -22,8 +23,7 @@ public class PlayGameUseCase {
    * <p>Win condition: less than 7 wrong guesses</p>
    */
   public boolean checkWinCondition() {
-    return game.getNumWrongGuesses() < MAX_WRONG_GUESSES &&
-        game.wordIsFullyGuessed();
+    return isWon(game, MAX_WRONG_GUESSES);
   }
 
   /**
@@ -31,7 +31,17 @@ public class PlayGameUseCase {
    * <p>Lose condition: at least 7 wrong guesses</p>
    */
   public boolean checkLoseCondition() {
-    return game.getNumWrongGuesses() > MAX_WRONG_GUESSES;
+    return isLost(game, MAX_WRONG_GUESSES);
+  }
+
+  // The rules, for any limit on wrong guesses (see GameSimulator).
+  static boolean isWon(Game game, int maxWrongGuesses) {
+    return game.getNumWrongGuesses() < maxWrongGuesses &&
+        game.wordIsFullyGuessed();
+  }
+
+  static boolean isLost(Game game, int maxWrongGuesses) {
+    return game.getNumWrongGuesses() > maxWrongGuesses;
   }
 
   public String getGuessView() {
@@ -46,10 +56,30 @@ public class PlayGameUseCase {
     return game.getLettersGuessed();
   }
 
+  public int getLettersGuessedMask() {
+    return game.getLettersGuessedMask();
+  }
+
+  public boolean hasGuessed(char letter) {
+    return game.hasGuessed(letter);
+  }
+
   public boolean makeGuess(char guess) throws InvalidGuessException {
     return game.makeGuess(guess);
   }
 
+  /**
+   * Makes all of {@code guesses} in one call, stopping once the game is won
+   * or lost by the same rules as {@link #checkWinCondition()} and
+   * {@link #checkLoseCondition()}. Invalid guesses are skipped and flagged in
+   * the result instead of throwing. See {@link Game#makeGuesses}.
+   *
+   * @return which guesses were correct, and how the game stands afterwards
+   */
+  public GuessBatchResult makeGuesses(CharSequence guesses) {
+    return game.makeGuesses(guesses, MAX_WRONG_GUESSES);
+  }
+
   /**
    * Resets the game state to a new game with a new word.
    *
@@ -57,6 +87,6 @@ public class PlayGameUseCase {
    * @throws InvalidGuessWord when an invalid word was detected in the word bank
    */
   public void startGame() throws RepoException, InvalidGuessWord {
-    game = new Game(wordRepo.getRandomWord());
+    game = new Game(wordRepo.getRandomGuessWord());
   }
 }
@@ -0,0 +1,26 @@
+package com.vlxu.usecases;
+
+import java.util.random.RandomGenerator;
+
+/**
+ * Guesses a letter not guessed yet, uniformly at random. Useful as a
+ * baseline for other strategies.
+ */
+public class RandomGuessStrategy implements GuessingStrategy {
+  private static final int allLetters = (1 << 26) - 1;
+
+  @Override
+  public char nextGuess(String guessView, int lettersGuessedMask,
+                        RandomGenerator random) {
+    int unguessed = ~lettersGuessedMask & allLetters;
+    if (unguessed == 0) {
+      return 'z';
+    }
+    // drop a random number of the lowest unguessed letters
+    for (int skip = random.nextInt(Integer.bitCount(unguessed)); skip > 0;
+         skip--) {
+      unguessed &= unguessed - 1;
+    }
+    return (char) ('a' + Integer.numberOfTrailingZeros(unguessed));
+  }
+}
@@ -1,17 +1,63 @@
 package com.vlxu.usecases;
 
 import com.vlxu.coreexceptions.RepoException;
+import com.vlxu.coreexceptions.UserNotFoundException;
 import com.vlxu.entities.User;
+import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.List;
 
 public class ShowLeaderBoardUseCase
 {
+    // the order of LeaderBoard: score descending, then username ascending
+    private static final Comparator<User> byRank =
+            Comparator.comparing(User::getNumSuccess).reversed()
+                    .thenComparing(User::getUserName);
+
     private final GetAllUserInfo getAllUserInfo;
+    private final LeaderBoard leaderBoard;
 
+    /**
+     * Sorts all users every time a ranking is requested.
+     */
     public ShowLeaderBoardUseCase(GetAllUserInfo getAllUserInfo)
     {
         this.getAllUserInfo = getAllUserInfo;
+        this.leaderBoard = null;
+    }
+
+    /**
+     * Reads the rankings from {@code leaderBoard}, which is kept up to date as
+     * users change (see {@link LeaderBoardUserRepository}), so no ranking is
+     * ever re-sorted.
+     */
+    public ShowLeaderBoardUseCase(LeaderBoard leaderBoard)
+    {
+        this.getAllUserInfo = null;
+        this.leaderBoard = leaderBoard;
+    }
+
+    /**
+     * Builds a leader board holding every user of {@code getAllUserInfo}. The
+     * users are streamed into the leader board one at a time, so the whole
+     * user table is never copied into a list first.
+     *
+     * @return leader board of all users
+     * @throws RepoException See {@link RepoException}.
+     */
+    public static LeaderBoard loadLeaderBoard(GetAllUserInfo getAllUserInfo) throws RepoException
+    {
+        LeaderBoard leaderBoard = new LeaderBoard();
+        getAllUserInfo.streamAllUserInfo().forEach(leaderBoard::put);
+        return leaderBoard;
+    }
+
+    // Returns all users, sorted in the order of a leader board.
+    private List<User> getAllByRank() throws RepoException
+    {
+        final List<User> allUsers = getAllUserInfo.getAllUserInfo();
+        allUsers.sort(byRank);
+        return allUsers;
     }
 
     /**
@@ -22,6 +68,10 @@ public class ShowLeaderBoardUseCase
      */
     public List<User> getRankedByName() throws RepoException
     {
+        if (leaderBoard != null)
+        {
+            return leaderBoard.getAllByName();
+        }
         final List<User> allUsers = getAllUserInfo.getAllUserInfo();
         allUsers.sort(Comparator.comparing(User::getUserName));
         return allUsers;
@@ -29,14 +79,83 @@ public class ShowLeaderBoardUseCase
 
     /**
      * Returns a list of all users ranked by how many words they have
-     * successfully guessed (i.e., their score).
+     * successfully guessed (i.e., their score), lowest score first.
+     * Users with the same score keep the order in which
+     * {@link GetAllUserInfo} returned them; a {@link LeaderBoard} has no such
+     * order, so when reading from one they are in alphabetical order instead.
      *
      * @return list of all users sorted by score
      * @throws RepoException See {@link RepoException}.
      */
     public List<User> getRankedByScore() throws RepoException {
+        if (leaderBoard != null)
+        {
+            return leaderBoard.getAllByScoreAscending();
+        }
         final List<User> allUsers = getAllUserInfo.getAllUserInfo();
         allUsers.sort(Comparator.comparing(User::getNumSuccess));
         return allUsers;
     }
+
+    /**
+     * Returns the {@code k} users with the highest scores, highest first.
+     * Users with the same score are in alphabetical order, here and in the
+     * other methods that rank by position.
+     *
+     * @return list of the top {@code k} users
+     * @throws RepoException See {@link RepoException}.
+     */
+    public List<User> getTopK(int k) throws RepoException
+    {
+        return getRankedRange(0, k);
+    }
+
+    /**
+     * Returns the 1-based rank of a user, where rank 1 is the highest score.
+     *
+     * @return rank of user {@code userName}
+     * @throws UserNotFoundException when the user does not exist
+     * @throws RepoException See {@link RepoException}.
+     */
+    public int getRank(String userName) throws UserNotFoundException, RepoException
+    {
+        if (leaderBoard != null)
+        {
+            return leaderBoard.getRank(userName);
+        }
+        final List<User> allUsers = getAllByRank();
+        for (int i = 0; i < allUsers.size(); i++)
+        {
+            if (allUsers.get(i).getUserName().equals(userName))
+            {
+                return i + 1;
+            }
+        }
+        throw new UserNotFoundException(userName);
+    }
+
+    /**
+     * Returns the users ranked {@code fromIndex} (inclusive) to {@code toIndex}
+     * (exclusive), highest score first, with 0-based positions. The range is
+     * clipped to the number of users.
+     *
+     * @return list of the users in the given range of ranks
+     * @throws RepoException See {@link RepoException}.
+     */
+    public List<User> getRankedRange(int fromIndex, int toIndex) throws RepoException
+    {
+        if (leaderBoard != null)
+        {
+            return leaderBoard.getRange(fromIndex, toIndex);
+        }
+        if (fromIndex < 0 || fromIndex > toIndex)
+        {
+            throw new IndexOutOfBoundsException(
+                    String.format("Invalid range [%d, %d)", fromIndex, toIndex));
+        }
+        final List<User> allUsers = getAllByRank();
+        final int clippedTo = Math.min(toIndex, allUsers.size());
+        return new ArrayList<>(
+                allUsers.subList(Math.min(fromIndex, clippedTo), clippedTo));
+    }
 }
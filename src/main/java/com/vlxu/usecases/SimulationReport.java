@@ -0,0 +1,134 @@
+package com.vlxu.usecases;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+/**
+ * The results of a {@link GameSimulator} run: win rates and wrong-guess
+ * distributions overall, per word length, and per word.
+ */
+public class SimulationReport {
+  /**
+   * Outcomes of a set of simulated games.
+   */
+  public static class OutcomeStats {
+    private long numGames;
+    private long numWins;
+    // numGames with exactly i wrong guesses at the end, for i in 0..max + 1
+    private final long[] wrongGuesses;
+
+    OutcomeStats(int maxWrongGuesses) {
+      wrongGuesses = new long[maxWrongGuesses + 2];
+    }
+
+    void record(boolean won, int numWrongGuesses) {
+      numGames++;
+      if (won) {
+        numWins++;
+      }
+      wrongGuesses[numWrongGuesses]++;
+    }
+
+    void merge(OutcomeStats other) {
+      numGames += other.numGames;
+      numWins += other.numWins;
+      for (int i = 0; i < wrongGuesses.length; i++) {
+        wrongGuesses[i] += other.wrongGuesses[i];
+      }
+    }
+
+    public long getNumGames() {
+      return numGames;
+    }
+
+    public long getNumWins() {
+      return numWins;
+    }
+
+    /**
+     * Returns the fraction of games won, or 0 if no game was played.
+     */
+    public double getWinRate() {
+      return numGames == 0 ? 0 : (double) numWins / numGames;
+    }
+
+    /**
+     * Returns the mean number of wrong guesses at the end of a game, or 0 if
+     * no game was played.
+     */
+    public double getMeanWrongGuesses() {
+      if (numGames == 0) {
+        return 0;
+      }
+      long total = 0;
+      for (int i = 0; i < wrongGuesses.length; i++) {
+        total += i * wrongGuesses[i];
+      }
+      return (double) total / numGames;
+    }
+
+    /**
+     * Returns the distribution of wrong guesses: element {@code i} is the
+     * number of games that ended with exactly {@code i} wrong guesses. The
+     * last element counts games lost by going over the limit.
+     */
+    public long[] getWrongGuessDistribution() {
+      return wrongGuesses.clone();
+    }
+  }
+
+  private final int maxWrongGuesses;
+  private final OutcomeStats overall;
+  private final SortedMap<Integer, OutcomeStats> byLength;
+  private final Map<String, OutcomeStats> byWord;
+
+  SimulationReport(int maxWrongGuesses) {
+    this.maxWrongGuesses = maxWrongGuesses;
+    overall = new OutcomeStats(maxWrongGuesses);
+    byLength = new TreeMap<>();
+    byWord = new HashMap<>();
+  }
+
+  void record(String word, boolean won, int numWrongGuesses) {
+    overall.record(won, numWrongGuesses);
+    byLength.computeIfAbsent(word.length(),
+        length -> new OutcomeStats(maxWrongGuesses)).record(won, numWrongGuesses);
+    byWord.computeIfAbsent(word,
+        w -> new OutcomeStats(maxWrongGuesses)).record(won, numWrongGuesses);
+  }
+
+  void merge(SimulationReport other) {
+    overall.merge(other.overall);
+    other.byLength.forEach((length, stats) -> byLength.computeIfAbsent(length,
+        l -> new OutcomeStats(maxWrongGuesses)).merge(stats));
+    other.byWord.forEach((word, stats) -> byWord.computeIfAbsent(word,
+        w -> new OutcomeStats(maxWrongGuesses)).merge(stats));
+  }
+
+  public int getMaxWrongGuesses() {
+    return maxWrongGuesses;
+  }
+
+  public OutcomeStats getOverall() {
+    return overall;
+  }
+
+  /**
+   * Returns the outcomes of games per length of the word to guess, by
+   * increasing length.
+   */
+  public SortedMap<Integer, OutcomeStats> getByLength() {
+    return Collections.unmodifiableSortedMap(byLength);
+  }
+
+  /**
+   * Returns the outcomes of games per word to guess. Words never drawn are
+   * absent.
+   */
+  public Map<String, OutcomeStats> getByWord() {
+    return Collections.unmodifiableMap(byWord);
+  }
+}
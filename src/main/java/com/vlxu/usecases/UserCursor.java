@@ -0,0 +1,53 @@
+package com.vlxu.usecases;
+
+import com.vlxu.entities.User;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Walks over users in batches of a fixed size, so that callers only ever
+ * hold one batch in memory. Obtained from
+ * {@link GetAllUserInfo#openUserCursor(int)}.
+ */
+public class UserCursor
+{
+    private final Iterator<User> users;
+    private final int batchSize;
+
+    /**
+     * Initializes a cursor that reads {@code users} {@code batchSize} at a
+     * time.
+     */
+    public UserCursor(Iterator<User> users, int batchSize)
+    {
+        if (batchSize < 1)
+        {
+            throw new IllegalArgumentException("Batch size must be positive");
+        }
+        this.users = users;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Returns whether there are users left to read.
+     */
+    public boolean hasNext()
+    {
+        return users.hasNext();
+    }
+
+    /**
+     * Returns the next batch of at most {@code batchSize} users. Returns an
+     * empty list once every user has been read.
+     */
+    public List<User> nextBatch()
+    {
+        List<User> batch = new ArrayList<>(batchSize);
+        while (batch.size() < batchSize && users.hasNext())
+        {
+            batch.add(users.next());
+        }
+        return batch;
+    }
+}
@@ -9,6 +9,7 @@ import static org.junit.jupiter.api.Assertions.fail;
 import com.vlxu.coreexceptions.InvalidGuessException;
 import com.vlxu.coreexceptions.InvalidGuessWord;
 import java.util.HashSet;
+import java.util.Random;
 import java.util.Set;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -156,4 +157,101 @@ public class GameTest {
         () -> assertFalse(game.makeGuess(')')));
     assertGameState(game, "-oo------", expectedLettersGuessed, 1);
   }
+
+  @Test
+  @DisplayName("Repeated guesses are detected before they are made")
+  void testHasGuessed() {
+    Game game = initGame("racecar");
+    try {
+      assertFalse(game.hasGuessed('z'));
+      game.makeGuess('z');
+      game.makeGuess('a');
+    } catch (InvalidGuessException e) {
+      fail("Unexpected guess exception");
+    }
+    assertTrue(game.hasGuessed('z'));
+    assertTrue(game.hasGuessed('a'));
+    assertFalse(game.hasGuessed('r'));
+    assertFalse(game.hasGuessed('&'));
+    assertEquals((1 << ('a' - 'a')) | (1 << ('z' - 'a')),
+        game.getLettersGuessedMask());
+  }
+
+  @Test
+  @DisplayName("Letters guessed is an immutable snapshot")
+  void testLettersGuessedSnapshot() {
+    Game game = initGame("racecar");
+    Set<Character> lettersGuessed = game.getLettersGuessed();
+    try {
+      game.makeGuess('e');
+    } catch (InvalidGuessException e) {
+      fail("Unexpected guess exception");
+    }
+    assertTrue(lettersGuessed.isEmpty());
+    assertEquals(Set.of('e'), game.getLettersGuessed());
+    assertThrows(UnsupportedOperationException.class,
+        () -> game.getLettersGuessed().add('x'));
+  }
+
+  @Test
+  @DisplayName("Batch guesses stop once the game is decided")
+  void testMakeGuesses() {
+    Game game = initGame("racecar");
+    GuessBatchResult result = game.makeGuesses("zr&aceq", 6);
+
+    assertEquals(GuessBatchResult.Outcome.WON, result.getOutcome());
+    assertEquals(5, result.getDecidedAt());
+    assertEquals(6, result.getNumGuessesApplied());
+    assertEquals(1, result.getNumWrongGuesses());
+    assertFalse(result.isHit(0));
+    assertTrue(result.isHit(1));
+    assertTrue(result.isInvalid(2));
+    assertFalse(result.isHit(6));
+    assertEquals("racecar", game.getGuessView());
+    assertFalse(game.hasGuessed('q'));
+
+    // a decided game takes no more guesses
+    result = game.makeGuesses("xyz", 6);
+    assertEquals(GuessBatchResult.Outcome.WON, result.getOutcome());
+    assertEquals(0, result.getNumGuessesApplied());
+    assertEquals(-1, result.getDecidedAt());
+  }
+
+  @Test
+  @DisplayName("Batch guesses match guessing one letter at a time")
+  void testMakeGuessesMatchesMakeGuess() throws InvalidGuessException {
+    Random random = new Random(42);
+    for (int trial = 0; trial < 1_000; trial++) {
+      StringBuilder guesses = new StringBuilder();
+      for (int i = 0; i < 100; i++) {
+        guesses.append((char) ('a' + random.nextInt(27)));
+      }
+      Game batchGame = initGame("racecar");
+      GuessBatchResult result = batchGame.makeGuesses(guesses, 6);
+
+      Game game = initGame("racecar");
+      int decidedAt = -1;
+      for (int i = 0; i < guesses.length() && decidedAt < 0; i++) {
+        final char guess = guesses.charAt(i);
+        if (guess > 'z') {
+          assertTrue(result.isInvalid(i));
+          continue;
+        }
+        assertEquals(game.makeGuess(guess), result.isHit(i));
+        final boolean won =
+            game.getNumWrongGuesses() < 6 && game.wordIsFullyGuessed();
+        final boolean lost = game.getNumWrongGuesses() > 6;
+        if (won || lost) {
+          decidedAt = i;
+          assertEquals(won ? GuessBatchResult.Outcome.WON
+              : GuessBatchResult.Outcome.LOST, result.getOutcome());
+        }
+      }
+      assertEquals(decidedAt, result.getDecidedAt());
+      assertEquals(game.getNumWrongGuesses(), result.getNumWrongGuesses());
+      assertEquals(game.getGuessView(), batchGame.getGuessView());
+      assertEquals(game.getLettersGuessedMask(),
+          batchGame.getLettersGuessedMask());
+    }
+  }
 }
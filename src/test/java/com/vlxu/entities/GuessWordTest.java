@@ -1,7 +1,9 @@
 package com.vlxu.entities;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.fail;
 
 import com.vlxu.coreexceptions.InvalidGuessException;
@@ -100,4 +102,33 @@ public class GuessWordTest {
   void testCapitalLettersInWord() {
     assertThrows(InvalidGuessWord.class, () -> new GuessWord("Racecar"));
   }
+
+  @Test
+  @DisplayName("Repeating a correct guess reveals nothing new")
+  void testRepeatedCorrectGuess() {
+    GuessWord guessWord = initGuessWord("racecar");
+    try {
+      assertTrue(guessWord.updateGuessView('r'));
+      assertFalse(guessWord.updateGuessView('r'));
+      assertEquals("r-----r", guessWord.getGuessView());
+    } catch (InvalidGuessException e) {
+      fail("Unexpected guess exception");
+    }
+  }
+
+  @Test
+  @DisplayName("Word is fully guessed once every letter is revealed")
+  void testFullyGuessed() {
+    GuessWord guessWord = initGuessWord("racecar");
+    try {
+      for (char guess : "race".toCharArray()) {
+        assertFalse(guessWord.isFullyGuessed());
+        guessWord.updateGuessView(guess);
+      }
+    } catch (InvalidGuessException e) {
+      fail("Unexpected guess exception");
+    }
+    assertTrue(guessWord.isFullyGuessed());
+    assertEquals("racecar", guessWord.getGuessView());
+  }
 }
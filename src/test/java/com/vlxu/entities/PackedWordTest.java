@@ -0,0 +1,54 @@
+package com.vlxu.entities;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+public class PackedWordTest {
+  @Test
+  @DisplayName("Test packing and unpacking words of every valid length")
+  void testRoundTrip() {
+    final String letters = "zyxwvutsrqponmlkjihgfedcba";
+    for (int length = GuessWord.MIN_LENGTH; length <= GuessWord.MAX_LENGTH;
+         length++) {
+      final String word = letters.substring(0, length);
+      final long low = PackedWord.packLow(word);
+      final long high = PackedWord.packHigh(word);
+      assertEquals(length, PackedWord.length(high));
+      assertEquals(word, PackedWord.unpack(low, high));
+      assertEquals(word, PackedWord.toGuessWord(low, high).getWord());
+    }
+  }
+
+  @Test
+  @DisplayName("Test a guess word decoded from its packed form plays normally")
+  void testToGuessWord() throws Exception {
+    final String word = "onomatopoeia";
+    GuessWord guessWord = PackedWord.toGuessWord(PackedWord.packLow(word),
+        PackedWord.packHigh(word));
+    assertEquals("------------", guessWord.getGuessView());
+    assertTrue(guessWord.updateGuessView('o'));
+    assertEquals("o-o---o-o---", guessWord.getGuessView());
+    assertFalse(guessWord.updateGuessView('z'));
+    for (char letter : "nmatpeia".toCharArray()) {
+      guessWord.updateGuessView(letter);
+    }
+    assertTrue(guessWord.isFullyGuessed());
+  }
+
+  @Test
+  @DisplayName("Test packed forms of invalid words are rejected")
+  void testToGuessWordRejectsInvalid() {
+    final long low = PackedWord.packLow("moonlight");
+    assertThrows(IllegalArgumentException.class,
+        () -> PackedWord.toGuessWord(low, 0));
+    assertThrows(IllegalArgumentException.class,
+        () -> PackedWord.toGuessWord(low, 31L << 59));
+    assertThrows(IllegalArgumentException.class, () -> PackedWord.toGuessWord(
+        low | 31, PackedWord.packHigh("moonlight")));
+  }
+}
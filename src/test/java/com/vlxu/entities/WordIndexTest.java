@@ -0,0 +1,118 @@
+package com.vlxu.entities;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+public class WordIndexTest {
+  static final List<String> WORDS = List.of("racecar", "rangers", "reefer",
+      "reader", "rubber", "goodbye", "moonlight", "remover");
+
+  static int mask(String letters) {
+    int mask = 0;
+    for (char letter : letters.toCharArray()) {
+      mask |= 1 << (letter - 'a');
+    }
+    return mask;
+  }
+
+  // Same rules as WordIndex#findCandidates, by comparing strings.
+  static List<String> scan(List<String> words, String guessView,
+                           int lettersGuessedMask) {
+    List<String> candidates = new ArrayList<>();
+    for (String word : words) {
+      boolean consistent = word.length() == guessView.length();
+      for (int p = 0; consistent && p < word.length(); p++) {
+        final char shown = guessView.charAt(p);
+        final char letter = word.charAt(p);
+        consistent = shown == '-'
+            ? guessView.indexOf(letter) < 0
+              && (lettersGuessedMask & (1 << (letter - 'a'))) == 0
+            : shown == letter;
+      }
+      if (consistent) {
+        candidates.add(word);
+      }
+    }
+    return candidates;
+  }
+
+  @Test
+  @DisplayName("Test finding candidates for a guess view and wrong letters")
+  void testFindCandidates() {
+    WordIndex index = new WordIndex(WORDS);
+    assertEquals(List.of("reefer", "reader", "rubber"),
+        index.findCandidates("r----r", mask("r")).getWords());
+    // revealed letters cannot be at hidden positions
+    assertEquals(List.of("rubber"),
+        index.findCandidates("r---er", mask("re")).getWords());
+    assertEquals(List.of("reader"),
+        index.findCandidates("re--er", mask("reb")).getWords());
+    assertEquals(0, index.findCandidates("re--er", mask("red")).size());
+    assertEquals(List.of("racecar", "remover"),
+        index.findCandidates("r-----r", mask("r")).getWords());
+    assertEquals(0, index.findCandidates("--------", 0).size());
+    assertEquals(0, index.findCandidates("-------------", 0).size());
+
+    WordIndex.CandidateWords candidates = index.findCandidates("-------", 0);
+    assertEquals(4, candidates.size());
+    int[] counts = candidates.getLetterCounts();
+    assertEquals(4, counts['e' - 'a']);
+    assertEquals(3, counts['r' - 'a']);
+    assertEquals(2, counts['g' - 'a']);
+    assertEquals(0, counts['z' - 'a']);
+
+    assertThrows(IllegalArgumentException.class,
+        () -> index.findCandidates("r?-e-r", 0));
+    assertThrows(IllegalArgumentException.class,
+        () -> new WordIndex(List.of("Racecar")));
+  }
+
+  @Test
+  @DisplayName("Test candidates match a scan over many words")
+  void testMatchesScan() {
+    SplittableRandom random = new SplittableRandom(11);
+    List<String> words = new ArrayList<>();
+    for (int i = 0; i < 1000; i++) {
+      char[] word = new char[7 + random.nextInt(3)];
+      for (int p = 0; p < word.length; p++) {
+        // few letters, so views match many words
+        word[p] = (char) ('a' + random.nextInt(6));
+      }
+      words.add(new String(word));
+    }
+    WordIndex index = new WordIndex(words);
+
+    for (int i = 0; i < 200; i++) {
+      String word = words.get(random.nextInt(words.size()));
+      int guessed = random.nextInt(1 << 8);
+      char[] view = word.toCharArray();
+      for (int p = 0; p < view.length; p++) {
+        if ((guessed & (1 << (view[p] - 'a'))) == 0) {
+          view[p] = '-';
+        }
+      }
+      String guessView = new String(view);
+      List<String> expected = scan(words, guessView, guessed);
+      WordIndex.CandidateWords candidates =
+          index.findCandidates(guessView, guessed);
+      assertEquals(expected, candidates.getWords());
+
+      int[] expectedCounts = new int[26];
+      for (String candidate : expected) {
+        for (int letter = 0; letter < 26; letter++) {
+          if (candidate.indexOf('a' + letter) >= 0) {
+            expectedCounts[letter]++;
+          }
+        }
+      }
+      assertArrayEquals(expectedCounts, candidates.getLetterCounts());
+    }
+  }
+}
@@ -0,0 +1,174 @@
+package com.vlxu.interfaceadapters;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+
+import com.vlxu.coreexceptions.InvalidUserNameException;
+import com.vlxu.coreexceptions.NotPermittedException;
+import com.vlxu.coreexceptions.RepoException;
+import com.vlxu.coreexceptions.UserNotFoundException;
+import com.vlxu.entities.User;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class BinaryFileUserRepositoryTest {
+  static final String NO_EDIT = "src/test/resources/NO_EDIT";
+  @TempDir
+  Path autoGen;
+
+  // Returns the path of a fresh binary users file holding sample_users.txt.
+  String setupBinaryFile(String testFileName) throws RepoException {
+    Path testFile = autoGen.resolve(testFileName);
+    BinaryFileUserRepository.convertFromText(NO_EDIT + "/sample_users.txt",
+        testFile.toString());
+    return testFile.toString();
+  }
+
+  long sizeOf(String filePath) {
+    try {
+      return Files.size(Path.of(filePath));
+    } catch (IOException e) {
+      fail(e.getMessage());
+      return -1;
+    }
+  }
+
+  @Test
+  @DisplayName("Changes survive reopening the repository")
+  void testPersistence() throws Exception {
+    String testFilePath = setupBinaryFile("binary_persistence.bin");
+    try (BinaryFileUserRepository repo =
+             new BinaryFileUserRepository(testFilePath)) {
+      repo.login("vallens");
+      repo.saveUserInfo(new User("nevan", 11720, false));
+      repo.addUser("NewUser123");
+      repo.removeUser("hello");
+      assertThrows(NotPermittedException.class,
+          () -> repo.saveUserInfo(new User("nevan", 1, true)));
+    }
+
+    try (BinaryFileUserRepository repo =
+             new BinaryFileUserRepository(testFilePath)) {
+      assertEquals(11720, repo.getUserInfo("nevan").getNumSuccess());
+      assertTrue(repo.getUserInfo("vallens").getIsRoot());
+      assertFalse(repo.getUserInfo("NewUser123").getIsRoot());
+      assertThrows(UserNotFoundException.class,
+          () -> repo.getUserInfo("hello"));
+    }
+  }
+
+  @Test
+  @DisplayName("Saving and removing users updates records in place")
+  void testInPlaceUpdates() throws Exception {
+    String testFilePath = setupBinaryFile("binary_in_place.bin");
+    final long initialSize = sizeOf(testFilePath);
+    try (BinaryFileUserRepository repo =
+             new BinaryFileUserRepository(testFilePath)) {
+      repo.login("vallens");
+      for (int score = 0; score < 100; score++) {
+        repo.saveUserInfo(new User("nevan", score, false));
+      }
+      repo.removeUser("hello");
+      assertEquals(initialSize, sizeOf(testFilePath));
+      assertEquals(1, repo.getNumTombstones());
+
+      repo.compact();
+      assertEquals(0, repo.getNumTombstones());
+      assertEquals(initialSize - 64, sizeOf(testFilePath));
+      assertEquals(99, repo.getUserInfo("nevan").getNumSuccess());
+
+      // records appended after compaction land in the right place
+      repo.addUser("NewUser123");
+      repo.saveUserInfo(new User("NewUser123", 5, false));
+    }
+
+    try (BinaryFileUserRepository repo =
+             new BinaryFileUserRepository(testFilePath)) {
+      assertEquals(List.of("vallens#10#Y", "nevan#99#N", "NewUser123#5#N"),
+          repo.getAllUserInfo().stream().map(UserRecordFormat::format)
+              .toList());
+    }
+  }
+
+  @Test
+  @DisplayName("A torn last record is discarded on load")
+  void testTornRecord() throws Exception {
+    String testFilePath = setupBinaryFile("binary_torn.bin");
+    final long initialSize = sizeOf(testFilePath);
+    Files.write(Path.of(testFilePath), new byte[] {0, 0, 0},
+        StandardOpenOption.APPEND);
+
+    try (BinaryFileUserRepository repo =
+             new BinaryFileUserRepository(testFilePath)) {
+      assertEquals(3, repo.getAllUserInfo().size());
+      repo.addUser("NewUser123");
+      assertEquals(initialSize + 64, sizeOf(testFilePath));
+    }
+  }
+
+  @Test
+  @DisplayName("Converts to and from the text format")
+  void testConversion() throws Exception {
+    String binaryFilePath = setupBinaryFile("binary_convert.bin");
+    String textFilePath = autoGen.resolve("binary_convert.txt").toString();
+    BinaryFileUserRepository.convertToText(binaryFilePath, textFilePath);
+    assertEquals(Files.readAllLines(Path.of(NO_EDIT, "sample_users.txt")),
+        Files.readAllLines(Path.of(textFilePath)));
+
+    // a text file is not mistaken for a binary one
+    assertThrows(RepoException.class,
+        () -> new BinaryFileUserRepository(textFilePath));
+  }
+
+  @Test
+  @DisplayName("Converting to text leaves a torn binary file unchanged")
+  void testConversionLeavesFileUnchanged() throws Exception {
+    String binaryFilePath = setupBinaryFile("binary_convert_torn.bin");
+    Files.write(Path.of(binaryFilePath), new byte[] {0, 0, 0},
+        StandardOpenOption.APPEND);
+    byte[] contents = Files.readAllBytes(Path.of(binaryFilePath));
+
+    String textFilePath = autoGen.resolve("binary_convert_torn.txt").toString();
+    BinaryFileUserRepository.convertToText(binaryFilePath, textFilePath);
+    assertEquals(Files.readAllLines(Path.of(NO_EDIT, "sample_users.txt")),
+        Files.readAllLines(Path.of(textFilePath)));
+    assertArrayEquals(contents, Files.readAllBytes(Path.of(binaryFilePath)));
+  }
+
+  @Test
+  @DisplayName("Converting from text rejects duplicate users and extra roots")
+  void testConversionRejectsInvalidUsers() throws Exception {
+    final Path textFile = autoGen.resolve("binary_invalid_users.txt");
+    final Path binaryFile = autoGen.resolve("binary_invalid_users.bin");
+    Files.write(textFile, List.of("vallens#10#Y", "nevan#5#N", "nevan#2#N"));
+    assertThrows(RepoException.class, () -> BinaryFileUserRepository
+        .convertFromText(textFile.toString(), binaryFile.toString()));
+
+    Files.write(textFile, List.of("vallens#10#Y", "nevan#5#Y"));
+    assertThrows(RepoException.class, () -> BinaryFileUserRepository
+        .convertFromText(textFile.toString(), binaryFile.toString()));
+    assertFalse(Files.exists(binaryFile));
+  }
+
+  @Test
+  @DisplayName("Rejects usernames too long for a record")
+  void testUserNameTooLong() throws Exception {
+    String testFilePath = setupBinaryFile("binary_long_name.bin");
+    try (BinaryFileUserRepository repo =
+             new BinaryFileUserRepository(testFilePath)) {
+      repo.addUser("a".repeat(BinaryFileUserRepository.MAX_USER_NAME_LENGTH));
+      assertThrows(InvalidUserNameException.class, () -> repo.addUser(
+          "b".repeat(BinaryFileUserRepository.MAX_USER_NAME_LENGTH + 1)));
+    }
+  }
+}
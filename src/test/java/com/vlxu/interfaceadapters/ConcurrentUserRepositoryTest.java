@@ -0,0 +1,171 @@
+package com.vlxu.interfaceadapters;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.vlxu.coreexceptions.FirstUserException;
+import com.vlxu.coreexceptions.NotPermittedException;
+import com.vlxu.coreexceptions.UserExistsException;
+import com.vlxu.entities.User;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+public class ConcurrentUserRepositoryTest {
+  static final int NUM_THREADS = 8;
+
+  interface Task {
+    void run(int threadIndex) throws Exception;
+  }
+
+  // Runs `task` on NUM_THREADS threads that all start at the same time, and
+  // rethrows the first failure.
+  void runConcurrently(Task task) throws Exception {
+    ExecutorService executor = Executors.newFixedThreadPool(NUM_THREADS);
+    CountDownLatch startGate = new CountDownLatch(1);
+    try {
+      List<Future<Void>> results = new ArrayList<>();
+      for (int t = 0; t < NUM_THREADS; t++) {
+        final int threadIndex = t;
+        Callable<Void> worker = () -> {
+          startGate.await();
+          task.run(threadIndex);
+          return null;
+        };
+        results.add(executor.submit(worker));
+      }
+      startGate.countDown();
+      for (Future<Void> result : results) {
+        result.get();
+      }
+    } finally {
+      executor.shutdown();
+      assertTrue(executor.awaitTermination(1, TimeUnit.MINUTES));
+    }
+  }
+
+  int countRootUsers(ConcurrentUserRepository repo, List<String> userNames)
+      throws Exception {
+    int numRootUsers = 0;
+    for (String userName : userNames) {
+      if (repo.getUserInfo(userName).getIsRoot()) {
+        numRootUsers++;
+      }
+    }
+    return numRootUsers;
+  }
+
+  @Test
+  @DisplayName("Exactly one root when the first users are added concurrently")
+  void testSingleRootUnderContention() throws Exception {
+    for (int round = 0; round < 50; round++) {
+      ConcurrentUserRepository repo = new ConcurrentUserRepository();
+      runConcurrently(t -> {
+        for (int i = 0; i < 20; i++) {
+          repo.addUser("user" + t + "x" + i);
+        }
+      });
+
+      List<String> userNames = new ArrayList<>();
+      for (int t = 0; t < NUM_THREADS; t++) {
+        for (int i = 0; i < 20; i++) {
+          userNames.add("user" + t + "x" + i);
+        }
+      }
+      assertEquals(NUM_THREADS * 20, repo.size());
+      assertEquals(1, countRootUsers(repo, userNames));
+    }
+  }
+
+  @Test
+  @DisplayName("Only one of many concurrent adds of the same username wins")
+  void testDuplicateAddUnderContention() throws Exception {
+    for (int round = 0; round < 50; round++) {
+      ConcurrentUserRepository repo = new ConcurrentUserRepository();
+      AtomicInteger numAdded = new AtomicInteger();
+      AtomicInteger numRejected = new AtomicInteger();
+      runConcurrently(t -> {
+        try {
+          repo.addUser("contested");
+          numAdded.incrementAndGet();
+        } catch (UserExistsException e) {
+          numRejected.incrementAndGet();
+        }
+      });
+      assertEquals(1, numAdded.get());
+      assertEquals(NUM_THREADS - 1, numRejected.get());
+      assertTrue(repo.getUserInfo("contested").getIsRoot());
+    }
+  }
+
+  @Test
+  @DisplayName("Concurrent score increments are never lost")
+  void testAtomicScoreIncrements() throws Exception {
+    ConcurrentUserRepository repo = new ConcurrentUserRepository();
+    repo.addUser("vallens");
+    repo.addUser("nevan");
+    final int incrementsPerThread = 10_000;
+    runConcurrently(t -> {
+      for (int i = 0; i < incrementsPerThread; i++) {
+        repo.incNumSuccess("nevan");
+        // increments made directly on the user object are atomic as well
+        repo.getUserInfo("vallens").incNumSuccess();
+      }
+    });
+    assertEquals(NUM_THREADS * incrementsPerThread,
+        repo.getUserInfo("nevan").getNumSuccess());
+    assertEquals(NUM_THREADS * incrementsPerThread,
+        repo.getUserInfo("vallens").getNumSuccess());
+  }
+
+  @Test
+  @DisplayName("Root survives concurrent removals and privilege changes")
+  void testRootInvariantsUnderContention() throws Exception {
+    ConcurrentUserRepository repo = new ConcurrentUserRepository();
+    repo.addUser("vallens");
+    for (int t = 0; t < NUM_THREADS; t++) {
+      for (int i = 0; i < 100; i++) {
+        repo.addUser("user" + t + "x" + i);
+      }
+    }
+    repo.login("vallens");
+
+    AtomicInteger numRootRemovalsRejected = new AtomicInteger();
+    AtomicInteger numPrivilegeChangesRejected = new AtomicInteger();
+    runConcurrently(t -> {
+      for (int i = 0; i < 100; i++) {
+        repo.removeUser("user" + t + "x" + i);
+        try {
+          repo.removeUser("vallens");
+        } catch (FirstUserException e) {
+          numRootRemovalsRejected.incrementAndGet();
+        }
+        try {
+          repo.saveUserInfo(new User("vallens", i, false));
+        } catch (NotPermittedException e) {
+          numPrivilegeChangesRejected.incrementAndGet();
+        }
+        try {
+          repo.addUser("user" + t + "x" + i);
+          assertFalse(repo.getUserInfo("user" + t + "x" + i).getIsRoot());
+        } catch (UserExistsException e) {
+          throw new AssertionError("Removed user still exists", e);
+        }
+      }
+    });
+
+    assertEquals(NUM_THREADS * 100, numRootRemovalsRejected.get());
+    assertEquals(NUM_THREADS * 100, numPrivilegeChangesRejected.get());
+    assertTrue(repo.getUserInfo("vallens").getIsRoot());
+    assertEquals(NUM_THREADS * 100 + 1, repo.size());
+  }
+}
@@ -0,0 +1,28 @@
+package com.vlxu.interfaceadapters;
+
+import com.vlxu.entities.UserRepository;
+import java.nio.file.Path;
+import org.junit.jupiter.api.io.TempDir;
+
+// A small memtable, so that the suite runs across several runs and
+// compactions rather than out of the memtable alone.
+public class LsmUserRepositoryConformanceTest
+    extends UserRepositoryConformanceTest {
+  @TempDir
+  Path autoGen;
+
+  String directory(String name) {
+    return autoGen.resolve("conformance_lsm_" + name).toString();
+  }
+
+  @Override
+  UserRepository openEmpty(String name) throws Exception {
+    return reopen(name);
+  }
+
+  @Override
+  UserRepository reopen(String name) throws Exception {
+    return new LsmUserRepository(directory(name),
+        new LsmOptions().withMemtableLimit(8).withMaxRuns(3));
+  }
+}
@@ -0,0 +1,189 @@
+package com.vlxu.interfaceadapters;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.vlxu.coreexceptions.RepoException;
+import com.vlxu.coreexceptions.UserNotFoundException;
+import com.vlxu.entities.User;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class LsmUserRepositoryTest {
+  @TempDir
+  Path autoGen;
+
+  String setupDirectory(String directoryName) {
+    return autoGen.resolve(directoryName).toString();
+  }
+
+  @Test
+  @DisplayName("Lookups see the newest entry across the memtable and runs")
+  void testLookupAcrossRuns() throws Exception {
+    String directory = setupDirectory("lsm_runs");
+    LsmUserRepository repo = new LsmUserRepository(directory,
+        new LsmOptions().withMemtableLimit(10).withMaxRuns(100));
+    repo.addUser("vallens");
+    for (int i = 0; i < 95; i++) {
+      repo.addUser("user" + i);
+    }
+    assertEquals(9, repo.getNumRuns());
+
+    // newer entries in later runs and in the memtable shadow older ones
+    repo.saveUserInfo(new User("user3", 30, false));
+    repo.flush();
+    repo.saveUserInfo(new User("user3", 31, false));
+    repo.login("vallens");
+    repo.removeUser("user50");
+    assertEquals(31, repo.getUserInfo("user3").getNumSuccess());
+    assertThrows(UserNotFoundException.class, () -> repo.getUserInfo("user50"));
+    assertEquals(0, repo.getUserInfo("user94").getNumSuccess());
+    assertTrue(repo.getUserInfo("vallens").getIsRoot());
+
+    List<User> users = repo.getAllUserInfo();
+    assertEquals(95, users.size());
+    for (int i = 1; i < users.size(); i++) {
+      assertTrue(users.get(i - 1).getUserName()
+          .compareTo(users.get(i).getUserName()) < 0);
+    }
+    repo.close();
+  }
+
+  @Test
+  @DisplayName("Compaction merges runs and drops removed users")
+  void testCompaction() throws Exception {
+    String directory = setupDirectory("lsm_compaction");
+    LsmUserRepository repo = new LsmUserRepository(directory,
+        new LsmOptions().withMemtableLimit(16).withMaxRuns(100));
+    repo.addUser("vallens");
+    for (int i = 0; i < 200; i++) {
+      repo.addUser("user" + i);
+    }
+    repo.login("vallens");
+    for (int i = 0; i < 200; i += 2) {
+      repo.removeUser("user" + i);
+    }
+    repo.flush();
+    assertTrue(repo.getNumRuns() > 1);
+
+    repo.compact();
+    assertEquals(1, repo.getNumRuns());
+    assertEquals(101, repo.getAllUserInfo().size());
+    assertThrows(UserNotFoundException.class, () -> repo.getUserInfo("user0"));
+    assertEquals("user1", repo.getUserInfo("user1").getUserName());
+    try (Stream<Path> files = Files.list(Path.of(directory))) {
+      assertEquals(1, files.filter(
+          file -> file.getFileName().toString().endsWith(".dat")).count());
+    }
+    repo.close();
+
+    LsmUserRepository reopened = new LsmUserRepository(directory);
+    assertEquals(101, reopened.getAllUserInfo().size());
+    reopened.close();
+  }
+
+  @Test
+  @DisplayName("Runs are compacted in the background past the run limit")
+  void testBackgroundCompaction() throws Exception {
+    String directory = setupDirectory("lsm_background");
+    LsmUserRepository repo = new LsmUserRepository(directory,
+        new LsmOptions().withMemtableLimit(4).withMaxRuns(2));
+    for (int i = 0; i < 400; i++) {
+      repo.addUser("user" + i);
+    }
+    repo.close();
+
+    LsmUserRepository reopened = new LsmUserRepository(directory,
+        new LsmOptions().withMemtableLimit(4).withMaxRuns(2));
+    assertTrue(reopened.getNumRuns() <= 3);
+    assertEquals(400, reopened.getAllUserInfo().size());
+    assertTrue(reopened.getUserInfo("user0").getIsRoot());
+    reopened.close();
+  }
+
+  @Test
+  @DisplayName("Changes in the log are recovered after a crash")
+  void testRecoverAfterCrash() throws Exception {
+    String directory = setupDirectory("lsm_recover");
+    // never closed, to simulate a crash
+    LsmUserRepository crashed = new LsmUserRepository(directory,
+        new LsmOptions().withMemtableLimit(8));
+    crashed.addUser("vallens");
+    for (int i = 0; i < 20; i++) {
+      crashed.addUser("user" + i);
+    }
+    crashed.saveUserInfo(new User("user19", 5, false));
+
+    // the remains of a record that was being written
+    Files.writeString(Path.of(directory, "wal.log"), "user9#1",
+        StandardOpenOption.APPEND);
+
+    LsmUserRepository recovered = new LsmUserRepository(directory,
+        new LsmOptions().withMemtableLimit(8));
+    assertEquals(21, recovered.getAllUserInfo().size());
+    assertEquals(5, recovered.getUserInfo("user19").getNumSuccess());
+    assertEquals(0, recovered.getUserInfo("user9").getNumSuccess());
+    assertTrue(recovered.getUserInfo("vallens").getIsRoot());
+    assertFalse(recovered.addUser("nevan").getIsRoot());
+    recovered.close();
+
+    LsmUserRepository reopened = new LsmUserRepository(directory);
+    assertEquals(22, reopened.getAllUserInfo().size());
+    reopened.close();
+  }
+
+  @Test
+  @DisplayName("Users handed out are copies of the stored records")
+  void testUsersAreCopies() throws Exception {
+    String directory = setupDirectory("lsm_copies");
+    LsmUserRepository repo = new LsmUserRepository(directory);
+    repo.addUser("vallens").incNumSuccess();
+    User nevan = new User("nevan", 0, false);
+    repo.addUser("nevan");
+    repo.saveUserInfo(nevan);
+    nevan.incNumSuccess();
+    repo.getUserInfo("nevan").incNumSuccess();
+    repo.login("vallens");
+    repo.getSignedInUser().incNumSuccess();
+    assertEquals(0, repo.getUserInfo("vallens").getNumSuccess());
+    assertEquals(0, repo.getUserInfo("nevan").getNumSuccess());
+    repo.close();
+  }
+
+  @Test
+  @DisplayName("Compacting a closed store fails with a RepoException")
+  void testCompactAfterClose() throws Exception {
+    String directory = setupDirectory("lsm_closed");
+    LsmUserRepository repo = new LsmUserRepository(directory);
+    repo.addUser("vallens");
+    repo.close();
+    assertThrows(RepoException.class, repo::compact);
+  }
+
+  @Test
+  @DisplayName("Bloom filters have no false negatives and few false positives")
+  void testBloomFilter() {
+    BloomFilter filter = new BloomFilter(10_000, 10);
+    for (int i = 0; i < 10_000; i++) {
+      filter.add("user" + i);
+    }
+    for (int i = 0; i < 10_000; i++) {
+      assertTrue(filter.mightContain("user" + i));
+    }
+    int numFalsePositives = 0;
+    for (int i = 0; i < 10_000; i++) {
+      if (filter.mightContain("other" + i)) {
+        numFalsePositives++;
+      }
+    }
+    assertTrue(numFalsePositives < 300, numFalsePositives + " false positives");
+  }
+}
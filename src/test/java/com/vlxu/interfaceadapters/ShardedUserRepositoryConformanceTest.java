@@ -0,0 +1,25 @@
+package com.vlxu.interfaceadapters;
+
+import com.vlxu.entities.UserRepository;
+import java.nio.file.Path;
+import org.junit.jupiter.api.io.TempDir;
+
+public class ShardedUserRepositoryConformanceTest
+    extends UserRepositoryConformanceTest {
+  @TempDir
+  Path autoGen;
+
+  String directory(String name) {
+    return autoGen.resolve("conformance_sharded_" + name).toString();
+  }
+
+  @Override
+  UserRepository openEmpty(String name) throws Exception {
+    return reopen(name);
+  }
+
+  @Override
+  UserRepository reopen(String name) throws Exception {
+    return new ShardedUserRepository(directory(name), 4);
+  }
+}
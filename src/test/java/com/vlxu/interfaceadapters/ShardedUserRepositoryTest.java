@@ -0,0 +1,188 @@
+package com.vlxu.interfaceadapters;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.vlxu.coreexceptions.FirstUserException;
+import com.vlxu.coreexceptions.NotPermittedException;
+import com.vlxu.coreexceptions.RepoException;
+import com.vlxu.entities.User;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class ShardedUserRepositoryTest {
+  @TempDir
+  Path autoGen;
+
+  String setupDirectory(String directoryName) {
+    return autoGen.resolve(directoryName).toString();
+  }
+
+  long countShardFiles(String directory) throws IOException {
+    try (Stream<Path> files = Files.list(Path.of(directory))) {
+      return files.filter(
+          file -> file.getFileName().toString().startsWith("shard-")).count();
+    }
+  }
+
+  int countRootUsers(List<User> users) {
+    int numRootUsers = 0;
+    for (User user : users) {
+      if (user.getIsRoot()) {
+        numRootUsers++;
+      }
+    }
+    return numRootUsers;
+  }
+
+  @Test
+  @DisplayName("Users survive closing and reopening the repository")
+  void testPersistence() throws Exception {
+    String directory = setupDirectory("sharded_persistence");
+    ShardedUserRepository repo = new ShardedUserRepository(directory, 4);
+    repo.addUser("vallens");
+    for (int i = 0; i < 50; i++) {
+      repo.addUser("user" + i);
+    }
+    repo.saveUserInfo(new User("user7", 12, false));
+    repo.close();
+
+    ShardedUserRepository reopened = new ShardedUserRepository(directory, 16);
+    assertEquals(4, reopened.getNumShards());
+    assertEquals(51, reopened.getAllUserInfo().size());
+    assertTrue(reopened.getUserInfo("vallens").getIsRoot());
+    assertEquals(12, reopened.getUserInfo("user7").getNumSuccess());
+    assertEquals(1, countRootUsers(reopened.getAllUserInfo()));
+  }
+
+  @Test
+  @DisplayName("Only the shards with changes are written")
+  void testFlushDirtyShardsOnly() throws Exception {
+    String directory = setupDirectory("sharded_dirty");
+    ShardedUserRepository repo = new ShardedUserRepository(directory, 8);
+    for (int i = 0; i < 100; i++) {
+      repo.addUser("user" + i);
+    }
+    assertEquals(8, repo.flush());
+    assertEquals(0, repo.getNumDirtyShards());
+    assertEquals(0, repo.flush());
+
+    repo.saveUserInfo(new User("user42", 3, false));
+    repo.saveUserInfo(new User("user42", 4, false));
+    assertEquals(1, repo.getNumDirtyShards());
+    assertEquals(1, repo.flush());
+    repo.close();
+
+    ShardedUserRepository reopened = new ShardedUserRepository(directory, 8);
+    assertEquals(4, reopened.getUserInfo("user42").getNumSuccess());
+  }
+
+  @Test
+  @DisplayName("Resharding keeps every user and the root user")
+  void testReshard() throws Exception {
+    String directory = setupDirectory("sharded_reshard");
+    ShardedUserRepository repo = new ShardedUserRepository(directory, 2);
+    repo.addUser("vallens");
+    for (int i = 0; i < 200; i++) {
+      repo.addUser("user" + i);
+    }
+    repo.flush();
+
+    repo.reshard(5);
+    assertEquals(5, repo.getNumShards());
+    assertEquals(0, repo.getNumDirtyShards());
+    assertEquals(5, countShardFiles(directory));
+    assertEquals(201, repo.getAllUserInfo().size());
+    repo.login("vallens");
+    assertThrows(FirstUserException.class, () -> repo.removeUser("vallens"));
+    repo.removeUser("user0");
+    repo.close();
+
+    ShardedUserRepository reopened = new ShardedUserRepository(directory, 2);
+    assertEquals(5, reopened.getNumShards());
+    assertEquals(200, reopened.getAllUserInfo().size());
+    assertTrue(reopened.getUserInfo("vallens").getIsRoot());
+    assertEquals(1, countRootUsers(reopened.getAllUserInfo()));
+  }
+
+  @Test
+  @DisplayName("Users added while resharding are not lost")
+  void testOnlineReshard() throws Exception {
+    String directory = setupDirectory("sharded_online");
+    ShardedUserRepository repo = new ShardedUserRepository(directory, 3);
+    final int numThreads = 4;
+    final int usersPerThread = 500;
+    ExecutorService executor = Executors.newFixedThreadPool(numThreads);
+    try {
+      List<Future<Void>> results = new ArrayList<>();
+      for (int t = 0; t < numThreads; t++) {
+        final int threadIndex = t;
+        results.add(executor.submit(() -> {
+          for (int i = 0; i < usersPerThread; i++) {
+            repo.addUser("user" + threadIndex + "x" + i);
+          }
+          return null;
+        }));
+      }
+      for (int numShards = 4; numShards <= 8; numShards++) {
+        repo.reshard(numShards);
+      }
+      for (Future<Void> result : results) {
+        result.get();
+      }
+    } finally {
+      executor.shutdown();
+    }
+    repo.close();
+
+    List<User> users = repo.getAllUserInfo();
+    assertEquals(numThreads * usersPerThread, users.size());
+    assertEquals(1, countRootUsers(users));
+    ShardedUserRepository reopened = new ShardedUserRepository(directory, 1);
+    assertEquals(numThreads * usersPerThread,
+        reopened.getAllUserInfo().size());
+    assertEquals(8, countShardFiles(directory));
+  }
+
+  @Test
+  @DisplayName("Root cannot be removed or demoted, and only root may remove")
+  void testRootInvariants() throws Exception {
+    String directory = setupDirectory("sharded_root");
+    ShardedUserRepository repo = new ShardedUserRepository(directory, 4);
+    repo.addUser("vallens");
+    repo.addUser("nevan");
+    assertFalse(repo.getUserInfo("nevan").getIsRoot());
+
+    repo.login("nevan");
+    assertThrows(NotPermittedException.class, () -> repo.removeUser("vallens"));
+    assertThrows(NotPermittedException.class,
+        () -> repo.saveUserInfo(new User("vallens", 0, false)));
+    assertThrows(NotPermittedException.class,
+        () -> repo.saveUserInfo(new User("nevan", 0, true)));
+    repo.login("vallens");
+    assertThrows(FirstUserException.class, () -> repo.removeUser("vallens"));
+    repo.removeUser("nevan");
+    repo.close();
+
+    // a second root user in the shard files is rejected
+    Path shardFile = Path.of(directory, String.format("shard-0-%d.txt",
+        ShardedUserRepository.shardIndex("intruder", 4)));
+    Files.writeString(shardFile, "intruder#0#Y\n", StandardOpenOption.CREATE,
+        StandardOpenOption.APPEND);
+    assertThrows(RepoException.class,
+        () -> new ShardedUserRepository(directory, 4));
+  }
+}
@@ -0,0 +1,35 @@
+package com.vlxu.interfaceadapters;
+
+import com.vlxu.entities.UserRepository;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import org.junit.jupiter.api.io.TempDir;
+
+public class TextFileRepositoryConformanceTest
+    extends UserRepositoryConformanceTest {
+  static final String NO_EDIT = "src/test/resources/NO_EDIT";
+  @TempDir
+  Path autoGen;
+
+  Path wordBankFile(String name) {
+    return autoGen.resolve("conformance_" + name + "_words.txt");
+  }
+
+  Path usersFile(String name) {
+    return autoGen.resolve("conformance_" + name + "_users.txt");
+  }
+
+  @Override
+  UserRepository openEmpty(String name) throws Exception {
+    Files.copy(Path.of(NO_EDIT, "3random_words.txt"), wordBankFile(name),
+        StandardCopyOption.REPLACE_EXISTING);
+    return reopen(name);
+  }
+
+  @Override
+  UserRepository reopen(String name) throws Exception {
+    return new TextFileRepository(wordBankFile(name).toString(),
+        usersFile(name).toString());
+  }
+}
@@ -2,20 +2,36 @@ package com.vlxu.interfaceadapters;
 
 import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.fail;
 
 import com.vlxu.coreexceptions.RepoException;
+import com.vlxu.entities.GuessWord;
+import com.vlxu.entities.IntRange;
 import java.io.File;
 import java.io.IOException;
 import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
 public class TextFileRepositoryGetRandomWordTest {
+  @TempDir
+  Path autoGen;
+
+  String usersFilePath() {
+    return autoGen.resolve("users.txt").toString();
+  }
 
   TextFileRepository initRepo(String wordBankFilePath, String usersFilePath) {
     try {
@@ -28,16 +44,23 @@ public class TextFileRepositoryGetRandomWordTest {
     return null;
   }
 
+  // One set of options per word bank implementation.
+  static List<TextFileRepositoryOptions> wordBankOptions() {
+    return List.of(new TextFileRepositoryOptions(),
+        new TextFileRepositoryOptions().withMemoryMappedWordBank(true),
+        new TextFileRepositoryOptions().withPackedWordBank(true));
+  }
+
   @Test
   @DisplayName("Test getting random word from non-existent file")
   void testNewlyCreated() {
     String filePath =
-        "src/test/resources/AUTO_GEN/random_word_new_word_bank.txt";
+        autoGen.resolve("random_word_new_word_bank.txt").toString();
     File testFile = new File(filePath);
     testFile.delete();
 
 
-    try (TextFileRepository repo = initRepo(filePath, null)) {
+    try (TextFileRepository repo = initRepo(filePath, usersFilePath())) {
       try {
         // test that the default word to guess is returned
         String wordGotten = repo.getRandomWord();
@@ -67,7 +90,7 @@ public class TextFileRepositoryGetRandomWordTest {
   @DisplayName("Test correct first line but word is less than 7 characters")
   void testWordTooShort() throws Exception {
     final String filePath = "src/test/resources/NO_EDIT/word_too_short.txt";
-    try (TextFileRepository repo = initRepo(filePath, null)) {
+    try (TextFileRepository repo = initRepo(filePath, usersFilePath())) {
       assertThrows(RepoException.class, repo::getRandomWord);
     }
   }
@@ -76,7 +99,7 @@ public class TextFileRepositoryGetRandomWordTest {
   @DisplayName("Test getting random word from existing file")
   void testGetRandomWordSuccess() {
     final String filePath = "src/test/resources/NO_EDIT/3random_words.txt";
-    TextFileRepository repo = initRepo(filePath, null);
+    TextFileRepository repo = initRepo(filePath, usersFilePath());
     try {
       String wordGotten = repo.getRandomWord();
       List<String> wordsInBank = new ArrayList<>();
@@ -89,4 +112,243 @@ public class TextFileRepositoryGetRandomWordTest {
       fail(e.getMessage());
     }
   }
+
+  @Test
+  @DisplayName("Test the same seed draws the same words")
+  void testSeededGetRandomWord() throws Exception {
+    final String filePath = "src/test/resources/NO_EDIT/3random_words.txt";
+    TextFileRepository repo = initRepo(filePath, usersFilePath());
+    SplittableRandom first = new SplittableRandom(42);
+    SplittableRandom second = new SplittableRandom(42);
+    for (int i = 0; i < 20; i++) {
+      assertEquals(repo.getRandomWord(first), repo.getRandomWord(second));
+    }
+  }
+
+  @Test
+  @DisplayName("Test getting random word from a memory-mapped word bank")
+  void testMemoryMappedGetRandomWordSuccess() throws Exception {
+    final String filePath = "src/test/resources/NO_EDIT/3random_words.txt";
+    TextFileRepositoryOptions options =
+        new TextFileRepositoryOptions().withMemoryMappedWordBank(true);
+    try (TextFileRepository repo =
+             new TextFileRepository(filePath, usersFilePath(), options)) {
+      Set<String> wordsGotten = new HashSet<>();
+      for (int i = 0; i < 200; i++) {
+        wordsGotten.add(repo.getRandomWord());
+      }
+      assertEquals(Set.of("moonlight", "sunshine", "goodbye"), wordsGotten);
+    }
+  }
+
+  @Test
+  @DisplayName("Test memory-mapped word bank with mixed line terminators")
+  void testMemoryMappedLineTerminators() throws Exception {
+    final Path filePath = autoGen.resolve("mapped_line_terminators.txt");
+    Files.writeString(filePath, "moonlight\r\nsunshine\rgoodbye");
+    MappedWordBank wordBank = new MappedWordBank(filePath.toFile());
+    assertEquals(3, wordBank.size());
+    // valid words are indexed by length
+    assertEquals("goodbye", wordBank.getWord(0));
+    assertEquals("sunshine", wordBank.getWord(1));
+    assertEquals("moonlight", wordBank.getWord(2));
+  }
+
+  @Test
+  @DisplayName("Test memory-mapped word bank with a word that is too short")
+  void testMemoryMappedWordTooShort() throws Exception {
+    final String filePath = "src/test/resources/NO_EDIT/word_too_short.txt";
+    TextFileRepositoryOptions options =
+        new TextFileRepositoryOptions().withMemoryMappedWordBank(true);
+    try (TextFileRepository repo =
+             new TextFileRepository(filePath, usersFilePath(), options)) {
+      assertThrows(RepoException.class, repo::getRandomWord);
+    }
+  }
+
+  @Test
+  @DisplayName("Test invalid lines are reported and never drawn")
+  void testInvalidLinesReported() throws Exception {
+    final Path filePath = autoGen.resolve("mixed_word_bank.txt");
+    Files.write(filePath, List.of("moonlight", "inval", "Sunshine", "goodbye"));
+    for (TextFileRepositoryOptions options : wordBankOptions()) {
+      try (TextFileRepository repo =
+               new TextFileRepository(filePath.toString(), usersFilePath(),
+                   options)) {
+        WordBankReport report = repo.getWordBankReport();
+        assertEquals(2, report.getNumValidWords());
+        assertEquals(2, report.getNumInvalidLines());
+        assertEquals(List.of("line 2: \"inval\"", "line 3: \"Sunshine\""),
+            report.getInvalidLineSamples());
+
+        Set<String> wordsGotten = new HashSet<>();
+        for (int i = 0; i < 100; i++) {
+          wordsGotten.add(repo.getRandomGuessWord().getWord());
+        }
+        assertEquals(Set.of("moonlight", "goodbye"), wordsGotten);
+      }
+      // invalid lines are kept in the file
+      assertEquals(4, Files.readAllLines(filePath).size());
+    }
+  }
+
+  @Test
+  @DisplayName("Test drawing words of a requested length")
+  void testGetRandomWordOfLength() throws Exception {
+    final Path filePath = autoGen.resolve("length_word_bank.txt");
+    Files.write(filePath, List.of("moonlight", "racecar", "inval", "sunshine",
+        "goodbye", "crossword", "extraordinarily"));
+    for (TextFileRepositoryOptions options : wordBankOptions()) {
+      try (TextFileRepository repo =
+               new TextFileRepository(filePath.toString(), usersFilePath(),
+                   options)) {
+        WordBankReport report = repo.getWordBankReport();
+        assertEquals(2, report.getNumValidWords(7));
+        assertEquals(1, report.getNumValidWords(8));
+        assertEquals(0, report.getNumValidWords(5));
+        assertEquals(3, report.getNumValidWords(new IntRange(8, 9)));
+        assertEquals(6, report.getNumValidWords(new IntRange(0, 100)));
+
+        Set<String> sevens = new HashSet<>();
+        Set<String> eightsToNines = new HashSet<>();
+        for (int i = 0; i < 100; i++) {
+          sevens.add(repo.getRandomWord(7));
+          eightsToNines.add(repo.getRandomWord(new IntRange(8, 9)));
+        }
+        assertEquals(Set.of("racecar", "goodbye"), sevens);
+        assertEquals(Set.of("sunshine", "moonlight", "crossword"),
+            eightsToNines);
+        assertEquals("extraordinarily", repo.getRandomWord(15));
+        assertEquals("extraordinarily",
+            repo.getRandomWord(new IntRange(10, Integer.MAX_VALUE)));
+
+        assertThrows(RepoException.class, () -> repo.getRandomWord(12));
+        assertThrows(RepoException.class, () -> repo.getRandomWord(5));
+        assertThrows(RepoException.class,
+            () -> repo.getRandomWord(new IntRange(16, 21)));
+
+        assertEquals(List.of("moonlight", "crossword"), repo.getWordIndex()
+            .findCandidates("---------", 0).getWords());
+        assertEquals(List.of("moonlight"), repo.getWordIndex()
+            .findCandidates("-oo------", 0).getWords());
+      }
+    }
+  }
+
+  @Test
+  @DisplayName("Test drawing guess words from a packed word bank")
+  void testPackedGetRandomGuessWord() throws Exception {
+    final Path filePath = autoGen.resolve("packed_word_bank.txt");
+    Files.write(filePath, List.of("moonlight", "inval", "sunshine",
+        "abcdefghijklmnopqrstu", "goodbye"));
+    PackedWordBank wordBank = new PackedWordBank(filePath.toFile());
+    assertEquals(4, wordBank.size());
+    assertEquals(1, wordBank.getReport().getNumInvalidLines());
+    assertEquals(List.of("goodbye", "sunshine", "moonlight",
+            "abcdefghijklmnopqrstu"),
+        List.of(wordBank.getWord(0), wordBank.getWord(1), wordBank.getWord(2),
+            wordBank.getWord(3)));
+    assertEquals("moonlight", wordBank.getGuessWord(2).getWord());
+
+    TextFileRepositoryOptions options =
+        new TextFileRepositoryOptions().withPackedWordBank(true);
+    try (TextFileRepository repo =
+             new TextFileRepository(filePath.toString(), usersFilePath(),
+                 options)) {
+      Set<String> wordsGotten = new HashSet<>();
+      for (int i = 0; i < 200; i++) {
+        wordsGotten.add(repo.getRandomGuessWord().getWord());
+      }
+      assertEquals(Set.of("moonlight", "sunshine", "goodbye",
+          "abcdefghijklmnopqrstu"), wordsGotten);
+    }
+    // the file is left as it was
+    assertEquals(5, Files.readAllLines(filePath).size());
+  }
+
+  @Test
+  @DisplayName("Test reloading a changed word bank file")
+  void testReloadWordBank() throws Exception {
+    final Path filePath = autoGen.resolve("reload_word_bank.txt");
+    for (TextFileRepositoryOptions options : wordBankOptions()) {
+      Files.write(filePath, List.of("moonlight"));
+      try (TextFileRepository repo =
+               new TextFileRepository(filePath.toString(), usersFilePath(),
+                   options)) {
+        assertFalse(repo.reloadWordBank());
+        GuessWord inProgress = repo.getRandomGuessWord();
+
+        // atomically replaced, as required for a memory-mapped word bank
+        final Path replacement = filePath.resolveSibling("reload.tmp");
+        Files.write(replacement, List.of("sunshine", "goodbye"));
+        Files.move(replacement, filePath, StandardCopyOption.REPLACE_EXISTING);
+        assertTrue(repo.reloadWordBank());
+        assertEquals(2, repo.getWordBankReport().getNumValidWords());
+        Set<String> wordsGotten = new HashSet<>();
+        for (int i = 0; i < 100; i++) {
+          wordsGotten.add(repo.getRandomWord());
+        }
+        assertEquals(Set.of("sunshine", "goodbye"), wordsGotten);
+        assertEquals("moonlight", inProgress.getWord());
+
+        // a file without valid words is not swapped in
+        Files.write(replacement, List.of("inval"));
+        Files.move(replacement, filePath, StandardCopyOption.REPLACE_EXISTING);
+        assertFalse(repo.reloadWordBank());
+        assertEquals(2, repo.getWordBankReport().getNumValidWords());
+      }
+    }
+  }
+
+  @Test
+  @DisplayName("Test the word bank file is polled in reload mode")
+  void testWordBankReloadMode() throws Exception {
+    final Path filePath = autoGen.resolve("reload_mode_word_bank.txt");
+    Files.write(filePath, List.of("moonlight"));
+    TextFileRepositoryOptions options = new TextFileRepositoryOptions()
+        .withWordBankReload(true).withWordBankPollInterval(10);
+    try (TextFileRepository repo =
+             new TextFileRepository(filePath.toString(), usersFilePath(),
+                 options)) {
+      assertEquals("moonlight", repo.getRandomWord());
+      Files.write(filePath, List.of("sunshine"));
+      final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+      while (!repo.getRandomWord().equals("sunshine")) {
+        assertTrue(System.nanoTime() < deadline, "Word bank was not reloaded");
+        Thread.sleep(10);
+      }
+    }
+  }
+
+  @Test
+  @DisplayName("Test close does not overwrite an edited word bank file")
+  void testCloseKeepsEditedWordBank() throws Exception {
+    final Path filePath = autoGen.resolve("edited_word_bank.txt");
+    Files.write(filePath, List.of("moonlight"));
+    TextFileRepository repo = new TextFileRepository(filePath.toString(),
+        usersFilePath());
+    Files.write(filePath, List.of("sunshine", "goodbye"));
+    repo.close();
+    assertEquals(List.of("sunshine", "goodbye"), Files.readAllLines(filePath));
+    assertFalse(Files.exists(
+        filePath.resolveSibling(filePath.getFileName() + ".tmp")));
+  }
+
+  @Test
+  @DisplayName("Closing after a rejected reload keeps the edited word bank file")
+  void testCloseKeepsRejectedWordBank() throws Exception {
+    final Path filePath = autoGen.resolve("rejected_word_bank.txt");
+    Files.write(filePath, List.of("moonlight"));
+    TextFileRepository repo = new TextFileRepository(filePath.toString(),
+        usersFilePath());
+    final Path tempPath = autoGen.resolve("rejected_word_bank.new");
+    Files.write(tempPath, List.of("inval"));
+    Files.move(tempPath, filePath, StandardCopyOption.REPLACE_EXISTING,
+        StandardCopyOption.ATOMIC_MOVE);
+    assertFalse(repo.reloadWordBank());
+    assertFalse(repo.reloadWordBank());
+    assertEquals("moonlight", repo.getRandomWord());
+    repo.close();
+    assertEquals(List.of("inval"), Files.readAllLines(filePath));
+  }
 }
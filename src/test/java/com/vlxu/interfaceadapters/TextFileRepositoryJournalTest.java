@@ -0,0 +1,176 @@
+package com.vlxu.interfaceadapters;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+
+import com.vlxu.coreexceptions.RepoException;
+import com.vlxu.coreexceptions.UserNotFoundException;
+import com.vlxu.entities.User;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class TextFileRepositoryJournalTest {
+  static final String NO_EDIT = "src/test/resources/NO_EDIT";
+  @TempDir
+  Path autoGen;
+
+  TextFileRepository openRepo(String usersFilePath) throws RepoException {
+    return openRepo(usersFilePath, new TextFileRepositoryOptions());
+  }
+
+  // Opens `usersFilePath` with a word bank of its own, so that the default one
+  // is left alone.
+  TextFileRepository openRepo(String usersFilePath,
+                              TextFileRepositoryOptions options)
+      throws RepoException {
+    return new TextFileRepository(autoGen.resolve("word_bank.txt").toString(),
+        usersFilePath, options);
+  }
+
+  String setupUsersFile(String testFileName) {
+    Path testFile = autoGen.resolve(testFileName);
+    try {
+      Files.copy(Path.of(NO_EDIT, "sample_users.txt"), testFile,
+          StandardCopyOption.REPLACE_EXISTING);
+    } catch (IOException e) {
+      fail(e.getMessage());
+    }
+    return testFile.toString();
+  }
+
+  void assertFileContentsAreEqual(String expectedFilePath,
+                                  String actualFilePath) {
+    try {
+      List<String> expected =
+          Files.readAllLines(new File(expectedFilePath).toPath());
+      List<String> actual =
+          Files.readAllLines(new File(actualFilePath).toPath());
+      assertEquals(expected, actual);
+    } catch (IOException e) {
+      fail(e.getMessage());
+    }
+  }
+
+  @Test
+  @DisplayName("Journaled changes survive a crash")
+  void testRecoverAfterCrash() throws Exception {
+    String testFilePath = setupUsersFile("journal_recover.txt");
+    TextFileRepositoryOptions options = new TextFileRepositoryOptions()
+        .withJournal(true)
+        .withJournalGroupCommitSize(1);
+
+    // never closed, to simulate a crash
+    TextFileRepository crashed =
+        openRepo(testFilePath, options);
+    crashed.login("vallens");
+    crashed.saveUserInfo(new User("nevan", 11720, false));
+    crashed.addUser("NewUser123");
+    crashed.removeUser("hello");
+
+    // the users file itself is untouched until compaction
+    assertFileContentsAreEqual(NO_EDIT + "/sample_users.txt", testFilePath);
+
+    try (TextFileRepository repo = openRepo(testFilePath)) {
+      assertEquals(11720, repo.getUserInfo("nevan").getNumSuccess());
+      assertFalse(repo.getUserInfo("NewUser123").getIsRoot());
+      assertThrows(UserNotFoundException.class,
+          () -> repo.getUserInfo("hello"));
+    }
+
+    // closing without journal mode folds the journal into the users file
+    assertEquals(List.of("vallens#10#Y", "nevan#11720#N", "NewUser123#0#N"),
+        Files.readAllLines(Path.of(testFilePath)));
+    assertFalse(Files.exists(UserJournal.journalPathFor(Path.of(testFilePath))));
+  }
+
+  @Test
+  @DisplayName("Journal is compacted into the users file past the threshold")
+  void testCompaction() throws Exception {
+    String testFilePath = setupUsersFile("journal_compaction.txt");
+    TextFileRepositoryOptions options = new TextFileRepositoryOptions()
+        .withJournal(true)
+        .withJournalCompactionThreshold(1);
+
+    try (TextFileRepository repo =
+             openRepo(testFilePath, options)) {
+      repo.saveUserInfo(new User("nevan", 11720, false));
+    }
+
+    assertFileContentsAreEqual(NO_EDIT + "/expectedTestSaveUserInfo.txt",
+        testFilePath);
+    assertFalse(
+        Files.exists(UserJournal.oldJournalPathFor(Path.of(testFilePath))));
+  }
+
+  @Test
+  @DisplayName("Journal mode does not rewrite the users file on close")
+  void testCloseKeepsJournal() throws Exception {
+    String testFilePath = setupUsersFile("journal_close.txt");
+    TextFileRepositoryOptions options =
+        new TextFileRepositoryOptions().withJournal(true);
+
+    try (TextFileRepository repo =
+             openRepo(testFilePath, options)) {
+      repo.addUser("NewUser123");
+    }
+
+    assertFileContentsAreEqual(NO_EDIT + "/sample_users.txt", testFilePath);
+    assertEquals(List.of("A#NewUser123#N"), Files.readAllLines(
+        UserJournal.journalPathFor(Path.of(testFilePath))));
+
+    try (TextFileRepository repo =
+             openRepo(testFilePath, options)) {
+      assertEquals(0, repo.getUserInfo("NewUser123").getNumSuccess());
+    }
+  }
+
+  @Test
+  @DisplayName("A torn record at the end of the journal is ignored")
+  void testTornRecordIgnored() throws Exception {
+    String testFilePath = setupUsersFile("journal_torn.txt");
+    Files.writeString(UserJournal.journalPathFor(Path.of(testFilePath)),
+        "S#nevan#11720\nS#hello#9", StandardOpenOption.CREATE);
+
+    try (TextFileRepository repo = openRepo(testFilePath)) {
+      assertEquals(11720, repo.getUserInfo("nevan").getNumSuccess());
+      assertEquals(2, repo.getUserInfo("hello").getNumSuccess());
+      assertTrue(repo.getUserInfo("vallens").getIsRoot());
+    }
+  }
+
+  @Test
+  @DisplayName("Records appended after a torn record survive reopening")
+  void testAppendAfterTornRecord() throws Exception {
+    String testFilePath = setupUsersFile("journal_torn_append.txt");
+    Path journalPath = UserJournal.journalPathFor(Path.of(testFilePath));
+    Files.writeString(journalPath, "S#nevan#11720\nS#hello#9",
+        StandardOpenOption.CREATE);
+    TextFileRepositoryOptions options =
+        new TextFileRepositoryOptions().withJournal(true);
+
+    try (TextFileRepository repo =
+             openRepo(testFilePath, options)) {
+      repo.addUser("NewUser123");
+    }
+    assertEquals(List.of("S#nevan#11720", "A#NewUser123#N"),
+        Files.readAllLines(journalPath));
+
+    try (TextFileRepository repo =
+             openRepo(testFilePath, options)) {
+      assertEquals(11720, repo.getUserInfo("nevan").getNumSuccess());
+      assertEquals(2, repo.getUserInfo("hello").getNumSuccess());
+      assertFalse(repo.getUserInfo("NewUser123").getIsRoot());
+    }
+  }
+}
@@ -0,0 +1,115 @@
+package com.vlxu.interfaceadapters;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+
+import com.vlxu.entities.IntRange;
+import com.vlxu.entities.User;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class TextFileRepositorySnapshotTest {
+  static final String NO_EDIT = "src/test/resources/NO_EDIT";
+  @TempDir
+  Path autoGen;
+
+  Path setupFile(String sourceFileName, String testFileName) {
+    Path testFile = autoGen.resolve(testFileName);
+    try {
+      Files.copy(Path.of(NO_EDIT, sourceFileName), testFile,
+          StandardCopyOption.REPLACE_EXISTING);
+    } catch (IOException e) {
+      fail(e.getMessage());
+    }
+    return testFile;
+  }
+
+  TextFileRepository open(Path wordBankFile, Path usersFile) throws Exception {
+    return new TextFileRepository(wordBankFile.toString(), usersFile.toString(),
+        new TextFileRepositoryOptions().withSnapshot(true));
+  }
+
+  @Test
+  @DisplayName("A snapshot restores the users and the word bank")
+  void testRestore() throws Exception {
+    Path wordBankFile = setupFile("3random_words.txt", "snapshot_words.txt");
+    Path usersFile = setupFile("sample_users.txt", "snapshot_users.txt");
+
+    TextFileRepository first = open(wordBankFile, usersFile);
+    assertFalse(first.isLoadedFromSnapshot());
+    first.addUser("snapshotUser");
+    List<User> expectedUsers = first.getAllUserInfo();
+    final String expectedReport = first.getWordBankReport().toString();
+    first.close();
+    assertTrue(Files.exists(RepositorySnapshot.snapshotPathFor(usersFile)));
+
+    TextFileRepository second = open(wordBankFile, usersFile);
+    assertTrue(second.isLoadedFromSnapshot());
+    List<User> users = second.getAllUserInfo();
+    assertEquals(expectedUsers.size(), users.size());
+    for (int i = 0; i < users.size(); i++) {
+      assertEquals(expectedUsers.get(i).getUserName(), users.get(i).getUserName());
+      assertEquals(expectedUsers.get(i).getNumSuccess(),
+          users.get(i).getNumSuccess());
+      assertEquals(expectedUsers.get(i).getIsRoot(), users.get(i).getIsRoot());
+    }
+    assertEquals(expectedReport, second.getWordBankReport().toString());
+    List<String> words = Files.readAllLines(wordBankFile);
+    for (int i = 0; i < 20; i++) {
+      assertTrue(words.contains(second.getRandomWord()));
+      assertTrue(words.contains(second.getRandomGuessWord().getWord()));
+    }
+    assertEquals("goodbye", second.getRandomWord(new IntRange(0, 7)));
+    second.close();
+  }
+
+  @Test
+  @DisplayName("A snapshot of changed text files is not restored")
+  void testStaleSnapshot() throws Exception {
+    Path wordBankFile = setupFile("3random_words.txt", "snapshot_stale_words.txt");
+    Path usersFile = setupFile("sample_users.txt", "snapshot_stale_users.txt");
+    open(wordBankFile, usersFile).close();
+
+    Files.writeString(usersFile, "newRoot#3#Y\n");
+    TextFileRepository repository = open(wordBankFile, usersFile);
+    assertFalse(repository.isLoadedFromSnapshot());
+    assertEquals(1, repository.getAllUserInfo().size());
+    assertEquals(3, repository.getUserInfo("newRoot").getNumSuccess());
+    repository.close();
+
+    // the snapshot written on close matches the files again
+    TextFileRepository restored = open(wordBankFile, usersFile);
+    assertTrue(restored.isLoadedFromSnapshot());
+    assertEquals(3, restored.getUserInfo("newRoot").getNumSuccess());
+    restored.close();
+  }
+
+  @Test
+  @DisplayName("A damaged snapshot is not restored")
+  void testDamagedSnapshot() throws Exception {
+    Path wordBankFile = setupFile("3random_words.txt", "snapshot_damaged_words.txt");
+    Path usersFile = setupFile("sample_users.txt", "snapshot_damaged_users.txt");
+    TextFileRepository first = open(wordBankFile, usersFile);
+    final int numUsers = first.getAllUserInfo().size();
+    first.close();
+
+    Path snapshotFile = RepositorySnapshot.snapshotPathFor(usersFile);
+    byte[] contents = Files.readAllBytes(snapshotFile);
+    contents[contents.length - 1] ^= 1;
+    Files.write(snapshotFile, contents, StandardOpenOption.TRUNCATE_EXISTING);
+
+    TextFileRepository repository = open(wordBankFile, usersFile);
+    assertFalse(repository.isLoadedFromSnapshot());
+    assertEquals(numUsers, repository.getAllUserInfo().size());
+    repository.close();
+  }
+}
@@ -2,6 +2,8 @@ package com.vlxu.interfaceadapters;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.fail;
@@ -13,21 +15,30 @@ import com.vlxu.coreexceptions.RepoException;
 import com.vlxu.coreexceptions.UserExistsException;
 import com.vlxu.coreexceptions.UserNotFoundException;
 import com.vlxu.entities.User;
+import com.vlxu.usecases.UserCursor;
 import java.io.File;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.ConcurrentModificationException;
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 import org.w3c.dom.Text;
 
 public class TextFileRepositoryUserTest {
   static final String NO_EDIT = "src/test/resources/NO_EDIT";
-  static final String AUTO_GEN = "src/test/resources/AUTO_GEN";
+  @TempDir
+  Path autoGen;
 
   String getAutoGenFilePath(String fileName) {
-    return String.format("%s/%s", AUTO_GEN, fileName);
+    return autoGen.resolve(fileName).toString();
   }
 
   String getNoEditFilePath(String fileName) {
@@ -45,6 +56,19 @@ public class TextFileRepositoryUserTest {
     return null;
   }
 
+  TextFileRepository openRepo(String usersFilePath) throws RepoException {
+    return openRepo(usersFilePath, new TextFileRepositoryOptions());
+  }
+
+  // Opens `usersFilePath` with a word bank of its own, so that the default one
+  // is left alone.
+  TextFileRepository openRepo(String usersFilePath,
+                              TextFileRepositoryOptions options)
+      throws RepoException {
+    return new TextFileRepository(getAutoGenFilePath("word_bank.txt"),
+        usersFilePath, options);
+  }
+
   void setupTestFiles(String referenceFilePath, String testFilePath) {
     File referenceFile = new File(referenceFilePath);
     File testFile = new File(testFilePath);
@@ -72,9 +96,10 @@ public class TextFileRepositoryUserTest {
   @Test
   @DisplayName("Test initializing repository without a prior file")
   void testNewlyCreated() {
-    String filePath = "src/test/resources/AUTO_GEN/new_users_file.txt";
+    String filePath = getAutoGenFilePath("new_users_file.txt");
+    String wordBankFilePath = getAutoGenFilePath("word_bank.txt");
     File file = new File(filePath);
-    try (TextFileRepository repo = initRepo(null, filePath)) {
+    try (TextFileRepository repo = initRepo(wordBankFilePath, filePath)) {
       assertTrue(Files.readAllLines(file.toPath()).isEmpty());
     } catch (Exception e) {
       fail(String.format("Unexpected exception: %s", e.getMessage()));
@@ -86,7 +111,7 @@ public class TextFileRepositoryUserTest {
   void testAddUserSuccess() {
     String referenceFilePath = "src/test/resources/NO_EDIT/sample_users.txt";
     File referenceFile = new File(referenceFilePath);
-    String testFilePath = "src/test/resources/AUTO_GEN/add_user_test.txt";
+    String testFilePath = getAutoGenFilePath("add_user_test.txt");
     File testFile = new File(testFilePath);
     try {
       Files.copy(referenceFile.toPath(), testFile.toPath(),
@@ -96,7 +121,7 @@ public class TextFileRepositoryUserTest {
     }
 
     String newUserName = "NewUser123";
-    try (TextFileRepository repo = new TextFileRepository(null, testFilePath)) {
+    try (TextFileRepository repo = openRepo(testFilePath)) {
       User newUser = repo.addUser(newUserName);
       assertEquals(newUserName, newUser.getUserName());
       assertEquals(newUser.getNumSuccess(), 0);
@@ -120,7 +145,7 @@ public class TextFileRepositoryUserTest {
     String referenceFilePath = "src/test/resources/NO_EDIT/sample_users.txt";
     File referenceFile = new File(referenceFilePath);
     String testFilePath =
-        "src/test/resources/AUTO_GEN/add_user_exists_test.txt";
+        getAutoGenFilePath("add_user_exists_test.txt");
     File testFile = new File(testFilePath);
     try {
       Files.copy(referenceFile.toPath(), testFile.toPath(),
@@ -130,7 +155,7 @@ public class TextFileRepositoryUserTest {
     }
 
     String newUserName = "vallens";
-    try (TextFileRepository repo = new TextFileRepository(null, testFilePath)) {
+    try (TextFileRepository repo = openRepo(testFilePath)) {
       assertThrows(UserExistsException.class, () -> repo.addUser(newUserName));
     } catch (RepoException e) {
       fail(e.getMessage());
@@ -143,11 +168,11 @@ public class TextFileRepositoryUserTest {
   @DisplayName("Attempt to add a user with invalid username format")
   void testAddInvalidUserName() {
     String referenceFilePath = "src/test/resources/NO_EDIT/sample_users.txt";
-    String testFilePath = "src/test/resources/AUTO_GEN/add_invalid_user.txt";
+    String testFilePath = getAutoGenFilePath("add_invalid_user.txt");
     setupTestFiles(referenceFilePath, testFilePath);
 
     String invalidUserName = "$%^";
-    try (TextFileRepository repo = new TextFileRepository(null, testFilePath)) {
+    try (TextFileRepository repo = openRepo(testFilePath)) {
       assertThrows(InvalidUserNameException.class,
           () -> repo.addUser(invalidUserName));
     } catch (RepoException e) {
@@ -165,7 +190,7 @@ public class TextFileRepositoryUserTest {
     setupTestFiles(referenceFilePath, testFilePath);
 
     String userNameToRemove = "nevan";
-    try (TextFileRepository repo = new TextFileRepository(null, testFilePath)) {
+    try (TextFileRepository repo = openRepo(testFilePath)) {
       repo.login("vallens");
       repo.removeUser(userNameToRemove);
     } catch (RepoException | UserNotFoundException | FirstUserException |
@@ -185,7 +210,7 @@ public class TextFileRepositoryUserTest {
     setupTestFiles(referenceFilePath, testFilePath);
 
     String userNameToRemove = "vallens";
-    try (TextFileRepository repo = new TextFileRepository(null, testFilePath)) {
+    try (TextFileRepository repo = openRepo(testFilePath)) {
       repo.login("vallens");
       assertThrows(FirstUserException.class, () -> repo.removeUser(userNameToRemove));
     } catch (RepoException | UserNotFoundException e) {
@@ -203,7 +228,7 @@ public class TextFileRepositoryUserTest {
     setupTestFiles(referenceFilePath, testFilePath);
 
     String userNameToRemove = "NotExists";
-    try (TextFileRepository repo = new TextFileRepository(null, testFilePath)) {
+    try (TextFileRepository repo = openRepo(testFilePath)) {
       repo.login("vallens");
       assertThrows(UserNotFoundException.class, () -> repo.removeUser(userNameToRemove));
     } catch (RepoException | UserNotFoundException e) {
@@ -221,7 +246,7 @@ public class TextFileRepositoryUserTest {
     setupTestFiles(referenceFilePath, testFilePath);
 
     String userNameToRemove = "nevan";
-    try (TextFileRepository repo = new TextFileRepository(null, testFilePath)) {
+    try (TextFileRepository repo = openRepo(testFilePath)) {
       repo.login("hello");
       assertThrows(NotPermittedException.class, () -> repo.removeUser(userNameToRemove));
     } catch (RepoException | UserNotFoundException e) {
@@ -239,7 +264,7 @@ public class TextFileRepositoryUserTest {
     setupTestFiles(referenceFilePath, testFilePath);
 
     String userNameToRemove = "nevan";
-    try (TextFileRepository repo = new TextFileRepository(null, testFilePath)) {
+    try (TextFileRepository repo = openRepo(testFilePath)) {
       // no login
       assertThrows(NotPermittedException.class, () -> repo.removeUser(userNameToRemove));
     } catch (RepoException e) {
@@ -253,12 +278,12 @@ public class TextFileRepositoryUserTest {
   @DisplayName("Save updated user info")
   void testSaveUserInfo() {
     String referenceFilePath = "src/test/resources/NO_EDIT/sample_users.txt";
-    String testFilePath = "src/test/resources/AUTO_GEN/testSaveUserInfo.txt";
+    String testFilePath = getAutoGenFilePath("testSaveUserInfo.txt");
     setupTestFiles(referenceFilePath, testFilePath);
 
     String userNameToSave = "nevan";
     User userToSave = new User(userNameToSave, 11720, false);
-    try (TextFileRepository repo = new TextFileRepository(null, testFilePath)) {
+    try (TextFileRepository repo = openRepo(testFilePath)) {
       repo.saveUserInfo(userToSave);
     } catch (RepoException | UserNotFoundException | NotPermittedException e) {
       fail(e.getMessage());
@@ -278,7 +303,7 @@ public class TextFileRepositoryUserTest {
 
     String userNameToSave = "NotExist";
     User userToSave = new User(userNameToSave, 11720, false);
-    try (TextFileRepository repo = new TextFileRepository(null, testFilePath)) {
+    try (TextFileRepository repo = openRepo(testFilePath)) {
       assertThrows(UserNotFoundException.class,
           () -> repo.saveUserInfo(userToSave));
     } catch (RepoException e) {
@@ -298,7 +323,7 @@ public class TextFileRepositoryUserTest {
 
     String rootUserName = "vallens";
     User userToSave = new User(rootUserName, 11720, false);
-    try (TextFileRepository repo = new TextFileRepository(null, testFilePath)) {
+    try (TextFileRepository repo = openRepo(testFilePath)) {
       assertThrows(NotPermittedException.class,
           () -> repo.saveUserInfo(userToSave));
     } catch (RepoException e) {
@@ -316,7 +341,7 @@ public class TextFileRepositoryUserTest {
     setupTestFiles(referenceFilePath, testFilePath);
 
     String rootUserName = "vallens";
-    try (TextFileRepository repo = new TextFileRepository(null, testFilePath)) {
+    try (TextFileRepository repo = openRepo(testFilePath)) {
       User retrievedUserInfo = repo.getUserInfo(rootUserName);
       assertEquals(rootUserName, retrievedUserInfo.getUserName());
       assertEquals(10, retrievedUserInfo.getNumSuccess());
@@ -336,7 +361,7 @@ public class TextFileRepositoryUserTest {
     setupTestFiles(referenceFilePath, testFilePath);
 
     String notExistsUser = "NotExists";
-    try (TextFileRepository repo = new TextFileRepository(null, testFilePath)) {
+    try (TextFileRepository repo = openRepo(testFilePath)) {
       assertThrows(UserNotFoundException.class,
           () -> repo.getUserInfo(notExistsUser));
     } catch (RepoException e) {
@@ -345,4 +370,154 @@ public class TextFileRepositoryUserTest {
 
     assertFileContentsAreEqual(referenceFilePath, testFilePath);
   }
+
+  @Test
+  @DisplayName("Stream and page through all users")
+  void testStreamAllUserInfo() {
+    String referenceFilePath = getNoEditFilePath("sample_users.txt");
+    String testFilePath = getAutoGenFilePath("testStreamAllUserInfo.txt");
+    setupTestFiles(referenceFilePath, testFilePath);
+
+    try (TextFileRepository repo = openRepo(testFilePath)) {
+      assertEquals(List.of("vallens", "nevan", "hello"),
+          repo.streamAllUserInfo().map(User::getUserName)
+              .collect(Collectors.toList()));
+
+      UserCursor cursor = repo.openUserCursor(2);
+      List<Integer> batchSizes = new ArrayList<>();
+      while (cursor.hasNext()) {
+        batchSizes.add(cursor.nextBatch().size());
+      }
+      assertEquals(List.of(2, 1), batchSizes);
+
+      // users handed out are snapshots, not the stored records
+      repo.getAllUserInfo().get(1).incNumSuccess();
+      repo.streamAllUserInfo().forEach(User::incNumSuccess);
+      assertEquals(5, repo.getUserInfo("nevan").getNumSuccess());
+    } catch (RepoException | UserNotFoundException e) {
+      fail(e.getMessage());
+    }
+
+    assertFileContentsAreEqual(referenceFilePath, testFilePath);
+  }
+
+  @Test
+  @DisplayName("Paging sees saved users and fails once users are added or removed")
+  void testCursorReadsLiveTable() throws Exception {
+    String referenceFilePath = getNoEditFilePath("sample_users.txt");
+    String testFilePath = getAutoGenFilePath("testCursorReadsLiveTable.txt");
+    setupTestFiles(referenceFilePath, testFilePath);
+
+    try (TextFileRepository repo = openRepo(testFilePath)) {
+      UserCursor cursor = repo.openUserCursor(1);
+      assertEquals("vallens", cursor.nextBatch().get(0).getUserName());
+      repo.login("vallens");
+      repo.saveUserInfo(new User("nevan", 9, false));
+      assertEquals(9, cursor.nextBatch().get(0).getNumSuccess());
+
+      repo.addUser("NewUser123");
+      assertThrows(ConcurrentModificationException.class, cursor::nextBatch);
+      UserCursor afterRemove = repo.openUserCursor(1);
+      repo.removeUser("NewUser123");
+      assertThrows(ConcurrentModificationException.class,
+          afterRemove::nextBatch);
+    }
+  }
+
+  @Test
+  @DisplayName("Test fast start loads users on first access")
+  void testFastStart() throws Exception {
+    String referenceFilePath = getNoEditFilePath("sample_users.txt");
+    String testFilePath = getAutoGenFilePath("testFastStart.txt");
+    setupTestFiles(referenceFilePath, testFilePath);
+    final Path wordBankFile = Path.of(getAutoGenFilePath("fast_start_words.txt"));
+    Files.writeString(wordBankFile, "moonlight\r\nsunshine");
+
+    TextFileRepositoryOptions options =
+        new TextFileRepositoryOptions().withFastStart(true);
+    try (TextFileRepository repo = new TextFileRepository(
+        wordBankFile.toString(), testFilePath, options)) {
+      // the word bank file is not rewritten
+      assertEquals("moonlight\r\nsunshine", Files.readString(wordBankFile));
+      assertNull(repo.getTimeToFirstRequest());
+
+      assertEquals(10, repo.getUserInfo("vallens").getNumSuccess());
+      assertNotNull(repo.getTimeToFirstRequest());
+      assertEquals(List.of("vallens", "nevan", "hello"),
+          repo.streamAllUserInfo().map(User::getUserName)
+              .collect(Collectors.toList()));
+    }
+
+    assertFileContentsAreEqual(referenceFilePath, testFilePath);
+  }
+
+  @Test
+  @DisplayName("Test a bad users file is reported on first access in fast start")
+  void testFastStartInvalidUsersFile() throws Exception {
+    String testFilePath = getAutoGenFilePath("testFastStartInvalid.txt");
+    Files.write(Path.of(testFilePath), List.of("vallens#10#Y", "bad record"));
+    TextFileRepositoryOptions options =
+        new TextFileRepositoryOptions().withFastStart(true);
+    TextFileRepository repo = openRepo(testFilePath, options);
+    assertThrows(RepoException.class, () -> repo.addUser("newuser"));
+    assertThrows(RepoException.class, repo::getAllUserInfo);
+    assertThrows(RepoException.class, () -> repo.getUserInfo("vallens"));
+    assertThrows(RepoException.class, repo::close);
+  }
+
+  @Test
+  @DisplayName("Test closing the repository is not counted as a request")
+  void testCloseIsNotARequest() throws Exception {
+    String referenceFilePath = getNoEditFilePath("sample_users.txt");
+    String testFilePath = getAutoGenFilePath("testCloseIsNotARequest.txt");
+    setupTestFiles(referenceFilePath, testFilePath);
+
+    TextFileRepository repo = openRepo(testFilePath,
+        new TextFileRepositoryOptions().withFastStart(true));
+    repo.close();
+    assertNull(repo.getTimeToFirstRequest());
+    assertFileContentsAreEqual(referenceFilePath, testFilePath);
+  }
+
+  @Test
+  @DisplayName("Test parsing a large users file in parallel chunks")
+  void testParallelParse() throws Exception {
+    StringBuilder contents = new StringBuilder();
+    List<String> names = new ArrayList<>();
+    for (int i = 0; contents.length() < 5 * UserFileParser.minChunkBytes; i++) {
+      names.add("user" + i);
+      contents.append("user").append(i).append('#').append(i % 1000)
+          .append(i == 0 ? "#Y" : "#N").append(i % 3 == 0 ? "\r\n" : "\n");
+    }
+    ForkJoinPool pool = new ForkJoinPool(4);
+    try {
+      List<User> users = UserFileParser.parse(
+          contents.toString().getBytes(StandardCharsets.US_ASCII), pool);
+      assertEquals(names,
+          users.stream().map(User::getUserName).collect(Collectors.toList()));
+      assertTrue(users.get(0).getIsRoot());
+      assertEquals(999, users.get(999).getNumSuccess());
+
+      contents.append("user#99999999999#N\n");
+      assertThrows(RepoException.class, () -> UserFileParser.parse(
+          contents.toString().getBytes(StandardCharsets.US_ASCII), pool));
+    } finally {
+      pool.shutdown();
+    }
+  }
+
+  @Test
+  @DisplayName("Test parsing user records without a regex")
+  void testParseUserRecord() throws Exception {
+    User user = UserRecordFormat.parse("vallens#10#Y");
+    assertEquals("vallens", user.getUserName());
+    assertEquals(10, user.getNumSuccess());
+    assertTrue(user.getIsRoot());
+    assertFalse(UserRecordFormat.parse("Nevan5#0#N").getIsRoot());
+    for (String record : List.of("", "#1#N", "name#1#", "name##N", "name#1#NN",
+        "na me#1#N", "name#1#n", "name#-1#N", "név#1#N", "name#1#N ")) {
+      assertThrows(RepoException.class, () -> UserRecordFormat.parse(record),
+          record);
+    }
+  }
 }
@@ -0,0 +1,161 @@
+package com.vlxu.interfaceadapters;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.vlxu.coreexceptions.FirstUserException;
+import com.vlxu.coreexceptions.InvalidUserNameException;
+import com.vlxu.coreexceptions.NotPermittedException;
+import com.vlxu.coreexceptions.UserExistsException;
+import com.vlxu.coreexceptions.UserNotFoundException;
+import com.vlxu.entities.User;
+import com.vlxu.entities.UserRepository;
+import com.vlxu.usecases.GetAllUserInfo;
+import java.util.Set;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Behaviour every persistent {@link UserRepository} must share, so that the
+ * backends are interchangeable. Each backend runs the suite by extending
+ * this class.
+ */
+public abstract class UserRepositoryConformanceTest {
+  /**
+   * Returns a new, empty repository whose storage is named after
+   * {@code name}, discarding anything stored under that name before.
+   */
+  abstract UserRepository openEmpty(String name) throws Exception;
+
+  /**
+   * Returns a repository over the storage of {@code name} as it was left by
+   * closing the last repository opened on it.
+   */
+  abstract UserRepository reopen(String name) throws Exception;
+
+  void close(UserRepository repo) throws Exception {
+    ((AutoCloseable) repo).close();
+  }
+
+  Set<String> userNamesOf(UserRepository repo) throws Exception {
+    return ((GetAllUserInfo) repo).getAllUserInfo().stream()
+        .map(User::getUserName).collect(Collectors.toSet());
+  }
+
+  @Test
+  @DisplayName("The first user added is root, later users are not")
+  void testFirstUserIsRoot() throws Exception {
+    UserRepository repo = openEmpty("first_root");
+    assertTrue(repo.addUser("vallens").getIsRoot());
+    assertFalse(repo.addUser("nevan").getIsRoot());
+    assertTrue(repo.getUserInfo("vallens").getIsRoot());
+    assertFalse(repo.getUserInfo("nevan").getIsRoot());
+    close(repo);
+  }
+
+  @Test
+  @DisplayName("Invalid and taken usernames are rejected")
+  void testAddUserRejected() throws Exception {
+    UserRepository repo = openEmpty("add_rejected");
+    repo.addUser("vallens");
+    assertThrows(UserExistsException.class, () -> repo.addUser("vallens"));
+    assertThrows(InvalidUserNameException.class, () -> repo.addUser("no way"));
+    assertThrows(InvalidUserNameException.class, () -> repo.addUser(""));
+    assertEquals(Set.of("vallens"), userNamesOf(repo));
+    close(repo);
+  }
+
+  @Test
+  @DisplayName("Unknown users are not found")
+  void testUnknownUser() throws Exception {
+    UserRepository repo = openEmpty("unknown");
+    repo.addUser("vallens");
+    assertThrows(UserNotFoundException.class, () -> repo.getUserInfo("nevan"));
+    assertThrows(UserNotFoundException.class, () -> repo.login("nevan"));
+    assertThrows(UserNotFoundException.class,
+        () -> repo.saveUserInfo(new User("nevan", 1, false)));
+    assertThrows(UserNotFoundException.class, repo::getSignedInUser);
+    close(repo);
+  }
+
+  @Test
+  @DisplayName("Saved scores are kept, privileges cannot change")
+  void testSaveUserInfo() throws Exception {
+    UserRepository repo = openEmpty("save");
+    repo.addUser("vallens");
+    repo.addUser("nevan");
+    repo.saveUserInfo(new User("nevan", 7, false));
+    assertEquals(7, repo.getUserInfo("nevan").getNumSuccess());
+    assertThrows(NotPermittedException.class,
+        () -> repo.saveUserInfo(new User("nevan", 8, true)));
+    assertThrows(NotPermittedException.class,
+        () -> repo.saveUserInfo(new User("vallens", 8, false)));
+    assertEquals(7, repo.getUserInfo("nevan").getNumSuccess());
+    assertEquals(0, repo.getUserInfo("vallens").getNumSuccess());
+    close(repo);
+  }
+
+  @Test
+  @DisplayName("Only root may remove users, and root cannot be removed")
+  void testRemoveUser() throws Exception {
+    UserRepository repo = openEmpty("remove");
+    repo.addUser("vallens");
+    repo.addUser("nevan");
+    repo.addUser("lin");
+    assertThrows(NotPermittedException.class, () -> repo.removeUser("lin"));
+    repo.login("nevan");
+    assertThrows(NotPermittedException.class, () -> repo.removeUser("lin"));
+
+    repo.login("vallens");
+    assertThrows(FirstUserException.class, () -> repo.removeUser("vallens"));
+    assertThrows(UserNotFoundException.class, () -> repo.removeUser("nobody"));
+    repo.removeUser("lin");
+    assertThrows(UserNotFoundException.class, () -> repo.getUserInfo("lin"));
+    assertEquals(Set.of("vallens", "nevan"), userNamesOf(repo));
+
+    // a removed username can be taken again, without root
+    assertFalse(repo.addUser("lin").getIsRoot());
+    close(repo);
+  }
+
+  @Test
+  @DisplayName("The signed-in user reflects saved changes")
+  void testSignedInUser() throws Exception {
+    UserRepository repo = openEmpty("signed_in");
+    repo.addUser("vallens");
+    repo.login("vallens");
+    repo.saveUserInfo(new User("vallens", 4, true));
+    assertEquals("vallens", repo.getSignedInUser().getUserName());
+    assertEquals(4, repo.getSignedInUser().getNumSuccess());
+    close(repo);
+  }
+
+  @Test
+  @DisplayName("Users, scores and root survive closing and reopening")
+  void testPersistence() throws Exception {
+    UserRepository repo = openEmpty("persistence");
+    repo.addUser("vallens");
+    for (int i = 0; i < 100; i++) {
+      repo.addUser("user" + i);
+    }
+    repo.saveUserInfo(new User("user42", 42, false));
+    repo.login("vallens");
+    repo.removeUser("user7");
+    close(repo);
+
+    UserRepository reopened = reopen("persistence");
+    assertEquals(100, userNamesOf(reopened).size());
+    assertTrue(reopened.getUserInfo("vallens").getIsRoot());
+    assertEquals(42, reopened.getUserInfo("user42").getNumSuccess());
+    assertThrows(UserNotFoundException.class,
+        () -> reopened.getUserInfo("user7"));
+    assertFalse(reopened.addUser("newcomer").getIsRoot());
+    reopened.login("vallens");
+    assertThrows(FirstUserException.class,
+        () -> reopened.removeUser("vallens"));
+    close(reopened);
+  }
+}
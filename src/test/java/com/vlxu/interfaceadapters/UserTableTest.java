@@ -0,0 +1,153 @@
+package com.vlxu.interfaceadapters;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.vlxu.entities.User;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.openjdk.jol.info.GraphLayout;
+
+public class UserTableTest {
+  static final int numFootprintUsers = 200_000;
+
+  List<String> userNamesOf(UserTable table) {
+    return table.stream().map(User::getUserName).toList();
+  }
+
+  @Test
+  @DisplayName("Users are kept in insertion order across replaces and removes")
+  void testOrder() {
+    UserTable table = new UserTable();
+    table.add(new User("vallens", 0, true));
+    table.add(new User("nevan", 3, false));
+    table.add(new User("hello", 0, false));
+    table.replace(new User("nevan", 5, false));
+    assertEquals(List.of("vallens", "nevan", "hello"), userNamesOf(table));
+    assertEquals(5, table.get("nevan").getNumSuccess());
+
+    assertEquals("nevan", table.remove("nevan").getUserName());
+    assertNull(table.remove("nevan"));
+    assertNull(table.get("nevan"));
+    assertFalse(table.contains("nevan"));
+    table.add(new User("nevan", 1, false));
+    assertEquals(List.of("vallens", "hello", "nevan"), userNamesOf(table));
+    assertEquals(1, table.get("nevan").getNumSuccess());
+    assertEquals(3, table.size());
+  }
+
+  @Test
+  @DisplayName("The root user is tracked through removes and compaction")
+  void testRootUser() {
+    UserTable table = new UserTable();
+    assertNull(table.getRootUser());
+    for (int i = 0; i < 1000; i++) {
+      table.add(new User("user" + i, i, false));
+    }
+    table.add(new User("vallens", 9, true));
+    assertEquals("vallens", table.getRootUser().getUserName());
+
+    // removing most users compacts the table on the next add
+    for (int i = 0; i < 1000; i += 4) {
+      table.add(new User("extra" + i, 0, false));
+      for (int j = i; j < i + 4; j++) {
+        table.remove("user" + j);
+      }
+    }
+    assertEquals(251, table.size());
+    assertEquals("vallens", table.getRootUser().getUserName());
+    assertTrue(table.get("vallens").getIsRoot());
+    assertFalse(table.get("extra0").getIsRoot());
+    assertEquals("vallens", userNamesOf(table).get(0));
+
+    table.remove("vallens");
+    assertNull(table.getRootUser());
+  }
+
+  @Test
+  @DisplayName("Users handed out are copies of the stored columns")
+  void testFlyweights() {
+    UserTable table = new UserTable();
+    table.add(new User("vallens", 0, true));
+    table.get("vallens").incNumSuccess();
+    for (User user : table) {
+      user.incNumSuccess();
+    }
+    assertEquals(0, table.get("vallens").getNumSuccess());
+    assertThrows(IllegalArgumentException.class,
+        () -> table.add(new User("Ā", 0, false)));
+  }
+
+  @Test
+  @DisplayName("Positions stay with their users through compaction")
+  void testPositions() {
+    UserTable table = new UserTable();
+    for (int i = 0; i < 100; i++) {
+      table.add(new User("user" + i, 0, false), 2 * i);
+    }
+    for (int i = 0; i < 60; i++) {
+      table.remove("user" + i);
+    }
+    // the next add compacts the table
+    table.add(new User("extra", 0, false));
+    table.replace(new User("user70", 5, false));
+    assertEquals(140, table.getPosition("user70"));
+    assertEquals(-1, table.getPosition("extra"));
+    assertEquals(-1, table.getPosition("user0"));
+
+    table.renumberPositions();
+    assertEquals(0, table.getPosition("user60"));
+    assertEquals(40, table.getPosition("extra"));
+  }
+
+  @Test
+  @DisplayName("A user costs far less heap than a hash map of User objects")
+  void testFootprint() {
+    // the layout the table replaced: User objects in a LinkedHashMap
+    Map<String, User> usersByName = new LinkedHashMap<>();
+    UserTable table = new UserTable();
+    for (int i = 0; i < numFootprintUsers; i++) {
+      User user = new User("user" + i, i, i == 0);
+      usersByName.put(user.getUserName(), user);
+      table.add(user);
+    }
+
+    final double objectBytesPerUser =
+        (double) GraphLayout.parseInstance(usersByName).totalSize()
+            / numFootprintUsers;
+    final double columnBytesPerUser =
+        (double) GraphLayout.parseInstance(table).totalSize()
+            / numFootprintUsers;
+    assertTrue(columnBytesPerUser * 2 < objectBytesPerUser,
+        String.format("%.1f bytes per user in columns, %.1f as objects",
+            columnBytesPerUser, objectBytesPerUser));
+  }
+
+  @Test
+  @DisplayName("Iterators fail fast when users are added or removed")
+  void testIteratorFailsFast() {
+    UserTable table = new UserTable();
+    table.add(new User("vallens", 0, true));
+    table.add(new User("nevan", 3, false));
+
+    Iterator<User> users = table.iterator();
+    users.next();
+    table.replace(new User("nevan", 5, false));
+    assertEquals(5, users.next().getNumSuccess());
+
+    Iterator<User> afterAdd = table.iterator();
+    table.add(new User("hello", 0, false));
+    assertThrows(ConcurrentModificationException.class, afterAdd::next);
+    Iterator<User> afterRemove = table.iterator();
+    table.remove("hello");
+    assertThrows(ConcurrentModificationException.class, afterRemove::next);
+  }
+}
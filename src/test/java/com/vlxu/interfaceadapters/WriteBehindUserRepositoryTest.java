@@ -0,0 +1,122 @@
+package com.vlxu.interfaceadapters;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.vlxu.coreexceptions.RepoException;
+import com.vlxu.entities.User;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class WriteBehindUserRepositoryTest {
+  static final String NO_EDIT = "src/test/resources/NO_EDIT";
+  @TempDir
+  Path autoGen;
+
+  String setupUsersFile(String testFileName) throws Exception {
+    Path testFile = autoGen.resolve(testFileName);
+    Files.copy(Path.of(NO_EDIT, "sample_users.txt"), testFile,
+        StandardCopyOption.REPLACE_EXISTING);
+    return testFile.toString();
+  }
+
+  @Test
+  @DisplayName("Repeated saves of a user are coalesced into one flush")
+  void testCoalescing() throws Exception {
+    String testFilePath = setupUsersFile("write_behind_coalesce.txt");
+    WriteBehindOptions options = new WriteBehindOptions()
+        .withFlushInterval(60_000);
+    try (WriteBehindUserRepository repo =
+             WriteBehindUserRepository.open(testFilePath, options)) {
+      for (int score = 1; score <= 100; score++) {
+        repo.saveUserInfo(new User("nevan", score, false));
+      }
+      assertEquals(1, repo.getQueueDepth());
+      assertEquals(99, repo.getNumCoalescedWrites());
+      // nothing is written before the flush
+      assertEquals(List.of("vallens#10#Y", "nevan#5#N", "hello#2#N"),
+          Files.readAllLines(Path.of(testFilePath)));
+
+      repo.flush();
+      assertEquals(0, repo.getQueueDepth());
+      assertEquals(1, repo.getNumFlushes());
+      assertEquals(List.of("vallens#10#Y", "nevan#100#N", "hello#2#N"),
+          Files.readAllLines(Path.of(testFilePath)));
+      assertEquals(Files.size(Path.of(testFilePath)), repo.getBytesWritten());
+      assertTrue(repo.getLastFlushLatencyNanos() > 0);
+    }
+  }
+
+  @Test
+  @DisplayName("Changes are flushed in the background and on close")
+  void testBackgroundFlush() throws Exception {
+    String testFilePath = setupUsersFile("write_behind_background.txt");
+    WriteBehindOptions options = new WriteBehindOptions()
+        .withFlushInterval(60_000)
+        .withFlushThreshold(2);
+    WriteBehindUserRepository repo =
+        WriteBehindUserRepository.open(testFilePath, options);
+    repo.login("vallens");
+    repo.addUser("NewUser123");
+    repo.removeUser("hello");
+
+    // the flush threshold was reached, so a flush is already under way
+    for (int i = 0; i < 100 && repo.getNumFlushes() == 0; i++) {
+      Thread.sleep(10);
+    }
+    assertEquals(List.of("vallens#10#Y", "nevan#5#N", "NewUser123#0#N"),
+        Files.readAllLines(Path.of(testFilePath)));
+
+    repo.saveUserInfo(new User("nevan", 7, false));
+    repo.close();
+    assertEquals(List.of("vallens#10#Y", "nevan#7#N", "NewUser123#0#N"),
+        Files.readAllLines(Path.of(testFilePath)));
+    assertThrows(RepoException.class, () -> repo.addUser("TooLate"));
+  }
+
+  @Test
+  @DisplayName("Writers block instead of queueing more than the maximum")
+  void testBackPressure() throws Exception {
+    String testFilePath = setupUsersFile("write_behind_back_pressure.txt");
+    WriteBehindOptions options = new WriteBehindOptions()
+        .withFlushInterval(60_000)
+        .withFlushThreshold(4)
+        .withMaxPendingUsers(4);
+    final int numThreads = 4;
+    final int usersPerThread = 250;
+
+    ExecutorService executor = Executors.newFixedThreadPool(numThreads);
+    try (WriteBehindUserRepository repo =
+             WriteBehindUserRepository.open(testFilePath, options)) {
+      List<Future<?>> futures = new ArrayList<>();
+      for (int t = 0; t < numThreads; t++) {
+        final int thread = t;
+        futures.add(executor.submit(() -> {
+          for (int i = 0; i < usersPerThread; i++) {
+            repo.addUser("user" + thread + "x" + i);
+            assertTrue(repo.getQueueDepth() <= 4);
+          }
+          return null;
+        }));
+      }
+      for (Future<?> future : futures) {
+        future.get();
+      }
+    } finally {
+      executor.shutdown();
+    }
+
+    assertEquals(3 + numThreads * usersPerThread,
+        Files.readAllLines(Path.of(testFilePath)).size());
+  }
+}
@@ -0,0 +1,49 @@
+package com.vlxu.metrics;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.Random;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+public class LatencyHistogramTest {
+  @Test
+  @DisplayName("Buckets cover all values without gaps or overlaps")
+  void testBuckets() {
+    assertEquals(0, LatencyHistogram.bucketOf(0));
+    assertEquals(7, LatencyHistogram.bucketOf(7));
+    long[] values = {8, 15, 16, 17, 1000, 123_456_789L, Long.MAX_VALUE};
+    for (long value : values) {
+      final int bucket = LatencyHistogram.bucketOf(value);
+      assertTrue(LatencyHistogram.lowestValueOf(bucket) <= value);
+      assertTrue(LatencyHistogram.highestValueOf(bucket) >= value);
+      assertEquals(LatencyHistogram.highestValueOf(bucket - 1) + 1,
+          LatencyHistogram.lowestValueOf(bucket));
+    }
+  }
+
+  @Test
+  @DisplayName("Percentiles are within 12.5% of the exact values")
+  void testPercentiles() {
+    Random random = new Random(42);
+    LatencyHistogram histogram = new LatencyHistogram();
+    long[] values = new long[10_000];
+    for (int i = 0; i < values.length; i++) {
+      values[i] = (long) Math.exp(random.nextDouble() * 20);
+      histogram.record(values[i]);
+    }
+    Arrays.sort(values);
+
+    assertEquals(values.length, histogram.getCount());
+    assertEquals(values[values.length - 1], histogram.getMax());
+    for (double percentile : new double[] {1, 50, 90, 99, 100}) {
+      final long exact =
+          values[(int) Math.ceil(percentile / 100 * values.length) - 1];
+      final long estimate = histogram.getValueAtPercentile(percentile);
+      assertTrue(estimate >= exact && estimate <= exact * 1.125 + 1,
+          percentile + "th percentile: " + estimate + " vs. " + exact);
+    }
+  }
+}
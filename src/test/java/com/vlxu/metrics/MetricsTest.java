@@ -0,0 +1,132 @@
+package com.vlxu.metrics;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.vlxu.coreexceptions.UserNotFoundException;
+import com.vlxu.entities.GuessWord;
+import com.vlxu.entities.User;
+import com.vlxu.entities.UserRepository;
+import com.vlxu.entities.WordRepository;
+import com.vlxu.usecases.GameSessionUseCase;
+import javax.management.MBeanServer;
+import javax.management.MBeanServerFactory;
+import javax.management.ObjectName;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+public class MetricsTest {
+  @Test
+  @DisplayName("Instrumented repositories record calls and failures")
+  void testInstrumentedUserRepository() throws Exception {
+    UserRepository userRepo = mock(UserRepository.class);
+    when(userRepo.getUserInfo("vallens")).thenReturn(new User("vallens", 0, true));
+    when(userRepo.getUserInfo("NotExists"))
+        .thenThrow(new UserNotFoundException("NotExists"));
+    Metrics metrics = new Metrics();
+    InstrumentedUserRepository repo =
+        new InstrumentedUserRepository(userRepo, metrics);
+
+    repo.getUserInfo("vallens");
+    repo.login("vallens");
+    assertThrows(UserNotFoundException.class,
+        () -> repo.getUserInfo("NotExists"));
+    repo.saveUserInfo(new User("vallens", 1, true));
+
+    assertEquals(3, metrics.getUserLookups().getCount());
+    assertEquals(1, metrics.getUserLookups().getFailures());
+    assertEquals(1, metrics.getUserUpdates().getCount());
+    assertTrue(metrics.getUserLookups().getMaxLatencyNanos()
+        >= metrics.getUserLookups().getMedianLatencyNanos());
+  }
+
+  @Test
+  @DisplayName("Each game outcome is counted once")
+  void testInstrumentedPlayGameUseCase() throws Exception {
+    WordRepository wordRepo = mock(WordRepository.class);
+    when(wordRepo.getRandomGuessWord()).thenReturn(new GuessWord("racecar"));
+    Metrics metrics = new Metrics();
+    InstrumentedPlayGameUseCase playGame =
+        new InstrumentedPlayGameUseCase(wordRepo, metrics);
+
+    playGame.startGame();
+    for (char guess : "race".toCharArray()) {
+      playGame.makeGuess(guess);
+    }
+    assertTrue(playGame.checkWinCondition());
+    assertTrue(playGame.checkWinCondition());
+    assertFalse(playGame.checkLoseCondition());
+
+    assertEquals(1, metrics.getGames().getGamesStarted());
+    assertEquals(1, metrics.getGames().getGamesWon());
+    assertEquals(0, metrics.getGames().getGamesLost());
+    assertEquals(4, metrics.getGuesses().getCount());
+  }
+
+  @Test
+  @DisplayName("Batched guesses are counted one by one")
+  void testInstrumentedMakeGuesses() throws Exception {
+    WordRepository wordRepo = mock(WordRepository.class);
+    when(wordRepo.getRandomGuessWord()).thenReturn(new GuessWord("racecar"));
+    Metrics metrics = new Metrics();
+    InstrumentedPlayGameUseCase playGame =
+        new InstrumentedPlayGameUseCase(wordRepo, metrics);
+
+    playGame.startGame();
+    playGame.makeGuess('r');
+    // the game is won at 'e', so the trailing guesses are not applied
+    playGame.makeGuesses("a1ce!xyz");
+
+    assertEquals(5, metrics.getGuesses().getCount());
+    assertEquals(1, metrics.getGuesses().getFailures());
+    assertEquals(1, metrics.getGames().getGamesWon());
+  }
+
+  @Test
+  @DisplayName("Game sessions are assembled from the given repositories")
+  void testNewGameSessions() throws Exception {
+    WordRepository wordRepo = mock(WordRepository.class);
+    when(wordRepo.getRandomGuessWord()).thenReturn(new GuessWord("racecar"));
+    GameSessionUseCase sessions =
+        Metrics.newGameSessions(wordRepo, mock(UserRepository.class));
+
+    sessions.startGame("session");
+    assertTrue(sessions.makeGuess("session", 'r'));
+    verify(wordRepo).getRandomGuessWord();
+  }
+
+  @Test
+  @DisplayName("Metrics are readable through JMX")
+  void testRegister() throws Exception {
+    MBeanServer mbeanServer = MBeanServerFactory.newMBeanServer();
+    Metrics metrics = new Metrics();
+    metrics.register(mbeanServer);
+    metrics.getGuesses().record(System.nanoTime(), false);
+    metrics.getGames().recordGameLost();
+
+    assertEquals(1L, mbeanServer.getAttribute(
+        new ObjectName("com.vlxu:type=Operation,name=Guess"), "Count"));
+    assertEquals(1L, mbeanServer.getAttribute(
+        new ObjectName("com.vlxu:type=Game"), "GamesLost"));
+    assertThrows(IllegalStateException.class,
+        () -> new Metrics().register(mbeanServer));
+
+    metrics.unregister(mbeanServer);
+    assertFalse(mbeanServer.isRegistered(new ObjectName("com.vlxu:type=Game")));
+  }
+
+  @Test
+  @DisplayName("Nothing is wrapped while instrumentation is off")
+  void testDisabled() {
+    UserRepository userRepo = mock(UserRepository.class);
+    if (!Metrics.isEnabled()) {
+      assertSame(userRepo, Metrics.instrument(userRepo));
+    }
+  }
+}
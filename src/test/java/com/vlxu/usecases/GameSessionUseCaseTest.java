@@ -0,0 +1,149 @@
+package com.vlxu.usecases;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.vlxu.coreexceptions.SessionNotFoundException;
+import com.vlxu.coreexceptions.UserNotFoundException;
+import com.vlxu.entities.User;
+import com.vlxu.entities.UserRepository;
+import com.vlxu.entities.WordRepository;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+public class GameSessionUseCaseTest {
+  static final String[] WORDS = {"moonlight", "sunshine", "goodbye", "racecar"};
+  static final String GUESS_ORDER = "etaoinshrdlcumwfgypbvkjxqz";
+
+  WordRepository randomWordRepo() {
+    return () -> WORDS[ThreadLocalRandom.current().nextInt(WORDS.length)];
+  }
+
+  UserRepository userRepo() throws Exception {
+    UserRepository userRepo = mock(UserRepository.class);
+    when(userRepo.getUserInfo("vallens"))
+        .thenReturn(new User("vallens", 10, true));
+    when(userRepo.getUserInfo("nevan")).thenReturn(new User("nevan", 5, false));
+    when(userRepo.getUserInfo("NotExists"))
+        .thenThrow(new UserNotFoundException("NotExists"));
+    return userRepo;
+  }
+
+  // Plays one full game in `sessionId` and returns whether it was won.
+  static boolean playGame(GameSessionUseCase useCase, String sessionId)
+      throws Exception {
+    useCase.startGame(sessionId);
+    for (int i = 0; i < GUESS_ORDER.length(); i++) {
+      useCase.makeGuess(sessionId, GUESS_ORDER.charAt(i));
+      if (useCase.checkWinCondition(sessionId)) {
+        return true;
+      }
+      if (useCase.checkLoseCondition(sessionId)) {
+        return false;
+      }
+    }
+    throw new AssertionError("Game was never decided");
+  }
+
+  @Test
+  @DisplayName("Sessions keep independent games and users")
+  void testIndependentSessions() throws Exception {
+    GameSessionUseCase useCase =
+        new GameSessionUseCase(() -> "racecar", userRepo());
+    useCase.login("s1", "vallens");
+    useCase.login("s2", "nevan");
+    useCase.startGame("s1");
+    useCase.startGame("s2");
+
+    assertTrue(useCase.makeGuess("s1", 'r'));
+    assertFalse(useCase.makeGuess("s2", 'z'));
+
+    assertEquals("r-----r", useCase.getGuessView("s1"));
+    assertEquals("-------", useCase.getGuessView("s2"));
+    assertEquals(0, useCase.getNumWrongGuesses("s1"));
+    assertEquals(1, useCase.getNumWrongGuesses("s2"));
+    assertEquals("vallens", useCase.getSignedInUser("s1").getUserName());
+    assertEquals("nevan", useCase.getSignedInUser("s2").getUserName());
+    assertEquals(2, useCase.getNumSessions());
+  }
+
+  @Test
+  @DisplayName("Unknown sessions and sessions without a game are rejected")
+  void testSessionNotFound() throws Exception {
+    GameSessionUseCase useCase =
+        new GameSessionUseCase(() -> "racecar", userRepo());
+    assertThrows(SessionNotFoundException.class,
+        () -> useCase.makeGuess("missing", 'a'));
+
+    useCase.login("s1", "vallens");
+    assertThrows(SessionNotFoundException.class,
+        () -> useCase.getGuessView("s1"));
+    assertThrows(UserNotFoundException.class,
+        () -> useCase.login("s2", "NotExists"));
+    assertEquals(1, useCase.getNumSessions());
+
+    useCase.endSession("s1");
+    assertThrows(SessionNotFoundException.class,
+        () -> useCase.getSignedInUser("s1"));
+  }
+
+  // Plays `sessionsPerThread` games on each of `numThreads` threads, with
+  // every thread using its own sessions, and returns the number of games
+  // decided.
+  int playConcurrently(GameSessionUseCase useCase, int numThreads,
+                       int sessionsPerThread) throws Exception {
+    ExecutorService executor = Executors.newFixedThreadPool(numThreads);
+    try {
+      List<Future<Integer>> results = new ArrayList<>();
+      for (int t = 0; t < numThreads; t++) {
+        final String prefix = t + "-";
+        results.add(executor.submit(() -> {
+          int gamesDecided = 0;
+          for (int s = 0; s < sessionsPerThread; s++) {
+            String sessionId = prefix + s;
+            playGame(useCase, sessionId);
+            useCase.endSession(sessionId);
+            gamesDecided++;
+          }
+          return gamesDecided;
+        }));
+      }
+      int totalGames = 0;
+      for (Future<Integer> result : results) {
+        totalGames += result.get();
+      }
+      return totalGames;
+    } finally {
+      executor.shutdown();
+      assertTrue(executor.awaitTermination(1, TimeUnit.MINUTES));
+    }
+  }
+
+  // Throughput across threads is measured by GameSessionBenchmark in the
+  // bench profile; this only checks that concurrent games stay correct.
+  @Test
+  @DisplayName("Stress: many sessions played concurrently from many threads")
+  void testConcurrentSessionsStress() throws Exception {
+    GameSessionUseCase useCase =
+        new GameSessionUseCase(randomWordRepo(), userRepo());
+    final int sessionsPerThread = 5_000;
+    final int numThreads =
+        Math.max(4, Runtime.getRuntime().availableProcessors());
+
+    assertEquals(numThreads * sessionsPerThread,
+        playConcurrently(useCase, numThreads, sessionsPerThread));
+    // every session was ended, so nothing leaks between games
+    assertEquals(0, useCase.getNumSessions());
+  }
+}
@@ -0,0 +1,124 @@
+package com.vlxu.usecases;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.vlxu.coreexceptions.RepoException;
+import com.vlxu.entities.WordRepository;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.random.RandomGenerator;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+public class GameSimulatorTest {
+  static final List<String> WORDS = Arrays.asList("moonlight", "sunshine",
+      "goodbye", "racecar", "elephant", "quizzical", "rhythmic", "jukebox",
+      "crossword", "pneumonia");
+
+  static WordRepository wordRepo() {
+    return new WordRepository() {
+      @Override
+      public String getRandomWord() {
+        throw new AssertionError("Simulations must draw from their seed");
+      }
+
+      @Override
+      public String getRandomWord(RandomGenerator random) {
+        return WORDS.get(random.nextInt(WORDS.size()));
+      }
+    };
+  }
+
+  static void assertSameStats(SimulationReport.OutcomeStats expected,
+                              SimulationReport.OutcomeStats actual) {
+    assertEquals(expected.getNumGames(), actual.getNumGames());
+    assertEquals(expected.getNumWins(), actual.getNumWins());
+    assertArrayEquals(expected.getWrongGuessDistribution(),
+        actual.getWrongGuessDistribution());
+  }
+
+  @Test
+  @DisplayName("Test the same seed gives the same report on any pool")
+  void testReproducible() throws Exception {
+    final long numGames = 3 * GameSimulator.chunkSize + 17;
+    ForkJoinPool single = new ForkJoinPool(1);
+    ForkJoinPool several = new ForkJoinPool(4);
+    try {
+      SimulationReport first = new GameSimulator(wordRepo(),
+          new RandomGuessStrategy(), PlayGameUseCase.MAX_WRONG_GUESSES, single)
+          .run(numGames, 7);
+      SimulationReport second = new GameSimulator(wordRepo(),
+          new RandomGuessStrategy(), PlayGameUseCase.MAX_WRONG_GUESSES, several)
+          .run(numGames, 7);
+
+      assertEquals(numGames, first.getOverall().getNumGames());
+      assertSameStats(first.getOverall(), second.getOverall());
+      assertEquals(first.getByWord().keySet(), second.getByWord().keySet());
+      for (Map.Entry<String, SimulationReport.OutcomeStats> entry
+          : first.getByWord().entrySet()) {
+        assertSameStats(entry.getValue(),
+            second.getByWord().get(entry.getKey()));
+      }
+    } finally {
+      single.shutdown();
+      several.shutdown();
+    }
+  }
+
+  @Test
+  @DisplayName("Test per-length stats add up to the overall stats")
+  void testByLengthAddsUp() throws Exception {
+    SimulationReport report = new GameSimulator(wordRepo(),
+        new FrequencyOrderStrategy()).run(5000, 1);
+
+    long numGames = 0;
+    long numWins = 0;
+    long[] wrongGuesses = new long[PlayGameUseCase.MAX_WRONG_GUESSES + 2];
+    for (SimulationReport.OutcomeStats stats : report.getByLength().values()) {
+      numGames += stats.getNumGames();
+      numWins += stats.getNumWins();
+      long[] distribution = stats.getWrongGuessDistribution();
+      for (int i = 0; i < distribution.length; i++) {
+        wrongGuesses[i] += distribution[i];
+      }
+    }
+    assertEquals(5000, numGames);
+    assertEquals(report.getOverall().getNumWins(), numWins);
+    assertArrayEquals(report.getOverall().getWrongGuessDistribution(),
+        wrongGuesses);
+    assertEquals(Arrays.asList(7, 8, 9),
+        List.copyOf(report.getByLength().keySet()));
+  }
+
+  @Test
+  @DisplayName("Test filtering candidates beats guessing at random")
+  void testCandidateFilteringBeatsRandom() throws Exception {
+    SimulationReport filtering = new GameSimulator(wordRepo(),
+        new CandidateFilteringStrategy(WORDS)).run(2000, 3);
+    SimulationReport random = new GameSimulator(wordRepo(),
+        new RandomGuessStrategy()).run(2000, 3);
+
+    // every word is in the candidate list, and no two words look alike for
+    // long, so the filtering strategy never loses
+    assertEquals(1.0, filtering.getOverall().getWinRate());
+    assertTrue(random.getOverall().getWinRate() < 0.5,
+        String.format("Random guessing won %f of games",
+            random.getOverall().getWinRate()));
+  }
+
+  @Test
+  @DisplayName("Test a failing word repository fails the run")
+  void testRepoFailure() {
+    WordRepository failing = () -> {
+      throw new RepoException("No words");
+    };
+    GameSimulator simulator = new GameSimulator(failing,
+        new FrequencyOrderStrategy());
+    assertThrows(RepoException.class, () -> simulator.run(10, 0));
+  }
+}
@@ -0,0 +1,160 @@
+package com.vlxu.usecases;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.vlxu.coreexceptions.UserNotFoundException;
+import com.vlxu.entities.User;
+import com.vlxu.entities.UserRepository;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+public class LeaderBoardTest {
+  static final Comparator<User> BY_SCORE_DESCENDING =
+      Comparator.comparing(User::getNumSuccess).reversed()
+          .thenComparing(User::getUserName);
+
+  List<String> userNames(List<User> users) {
+    List<String> names = new ArrayList<>();
+    for (User user : users) {
+      names.add(user.getUserName() + "#" + user.getNumSuccess());
+    }
+    return names;
+  }
+
+  @Test
+  @DisplayName("Ranks by score descending, then by name")
+  void testRanking() throws Exception {
+    LeaderBoard leaderBoard = new LeaderBoard(List.of(
+        new User("a", 4, true), new User("c", 3, false),
+        new User("b", 5, false), new User("d", 4, false)));
+
+    assertEquals(List.of("b#5", "a#4", "d#4", "c#3"),
+        userNames(leaderBoard.getAllByScoreDescending()));
+    assertEquals(List.of("c#3", "a#4", "d#4", "b#5"),
+        userNames(leaderBoard.getAllByScoreAscending()));
+    assertEquals(List.of("b#5", "a#4"), userNames(leaderBoard.getTopK(2)));
+    assertEquals(List.of("a#4", "d#4"), userNames(leaderBoard.getRange(1, 3)));
+    assertEquals(List.of("c#3"), userNames(leaderBoard.getRange(3, 10)));
+    assertEquals(1, leaderBoard.getRank("b"));
+    assertEquals(3, leaderBoard.getRank("d"));
+    assertEquals(List.of("a#4", "b#5", "c#3", "d#4"),
+        userNames(leaderBoard.getAllByName()));
+    assertThrows(UserNotFoundException.class,
+        () -> leaderBoard.getRank("NotExists"));
+  }
+
+  @Test
+  @DisplayName("Random updates match a full re-sort")
+  void testMatchesFullSort() throws Exception {
+    Random random = new Random(42);
+    LeaderBoard leaderBoard = new LeaderBoard();
+    Map<String, User> expected = new HashMap<>();
+
+    for (int step = 0; step < 5_000; step++) {
+      String userName = "user" + random.nextInt(300);
+      if (random.nextInt(4) == 0) {
+        leaderBoard.remove(userName);
+        expected.remove(userName);
+      } else {
+        User user = new User(userName, random.nextInt(50), false);
+        leaderBoard.put(user);
+        expected.put(userName, user);
+      }
+
+      if (step % 500 == 0) {
+        List<User> sorted = new ArrayList<>(expected.values());
+        sorted.sort(BY_SCORE_DESCENDING);
+        assertEquals(userNames(sorted),
+            userNames(leaderBoard.getAllByScoreDescending()));
+        for (int i = 0; i < sorted.size(); i++) {
+          assertEquals(i + 1, leaderBoard.getRank(sorted.get(i).getUserName()));
+        }
+        int from = sorted.size() / 3;
+        assertEquals(userNames(sorted.subList(from, sorted.size())),
+            userNames(leaderBoard.getRange(from, sorted.size() + 5)));
+      }
+    }
+  }
+
+  @Test
+  @DisplayName("Repository changes are applied to the leader board")
+  void testLeaderBoardUserRepository() throws Exception {
+    UserRepository userRepo = mock(UserRepository.class);
+    when(userRepo.addUser("vallens")).thenReturn(new User("vallens", 0, true));
+    when(userRepo.addUser("nevan")).thenReturn(new User("nevan", 0, false));
+    when(userRepo.addUser("hello")).thenReturn(new User("hello", 0, false));
+
+    LeaderBoardUserRepository repo =
+        new LeaderBoardUserRepository(userRepo, new LeaderBoard());
+    ShowLeaderBoardUseCase useCase =
+        new ShowLeaderBoardUseCase(repo.getLeaderBoard());
+    repo.addUser("vallens");
+    repo.addUser("nevan");
+    repo.addUser("hello");
+    repo.saveUserInfo(new User("nevan", 7, false));
+    repo.saveUserInfo(new User("hello", 2, false));
+
+    assertEquals(List.of("nevan#7", "hello#2", "vallens#0"),
+        userNames(useCase.getTopK(5)));
+    assertEquals(2, useCase.getRank("hello"));
+
+    repo.removeUser("nevan");
+    assertEquals(List.of("vallens#0", "hello#2"),
+        userNames(useCase.getRankedByScore()));
+    assertEquals(List.of("hello#2", "vallens#0"),
+        userNames(useCase.getRankedByName()));
+  }
+
+  @Test
+  @DisplayName("Concurrent saves of a user leave the leader board in sync")
+  void testConcurrentSaves() throws Exception {
+    AtomicReference<User> lastSaved = new AtomicReference<>();
+    UserRepository userRepo = mock(UserRepository.class);
+    doAnswer(invocation -> {
+      User user = invocation.getArgument(0);
+      lastSaved.set(user);
+      Thread.yield();
+      return null;
+    }).when(userRepo).saveUserInfo(any(User.class));
+    LeaderBoardUserRepository repo =
+        new LeaderBoardUserRepository(userRepo, new LeaderBoard());
+
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    try {
+      List<Future<?>> results = new ArrayList<>();
+      for (int t = 0; t < 4; t++) {
+        final int seed = t;
+        results.add(executor.submit(() -> {
+          Random random = new Random(seed);
+          for (int i = 0; i < 2_000; i++) {
+            repo.saveUserInfo(new User("nevan", random.nextInt(100), false));
+          }
+          return null;
+        }));
+      }
+      for (Future<?> result : results) {
+        result.get();
+      }
+    } finally {
+      executor.shutdown();
+    }
+
+    assertEquals(List.of("nevan#" + lastSaved.get().getNumSuccess()),
+        userNames(repo.getLeaderBoard().getAllByName()));
+  }
+}
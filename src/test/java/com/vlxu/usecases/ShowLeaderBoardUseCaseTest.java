@@ -1,12 +1,15 @@
 package com.vlxu.usecases;
 
 import com.vlxu.coreexceptions.RepoException;
+import com.vlxu.coreexceptions.UserNotFoundException;
 import com.vlxu.entities.User;
 import java.util.ArrayList;
 import java.util.List;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.fail;
 import static org.mockito.Mockito.mock;
@@ -175,4 +178,33 @@ public class ShowLeaderBoardUseCaseTest
             fail(e.getMessage());
         }
     }
+
+    @Test
+    @DisplayName("Test by score keeps the order of users with the same score")
+    void testByScoreTies() throws RepoException
+    {
+        List<User> users = new ArrayList<>();
+        users.add(new User("c", 3, false));
+        users.add(new User("a", 3, false));
+        users.add(new User("b", 1, false));
+        ShowLeaderBoardUseCase useCase = new ShowLeaderBoardUseCase(setMockReturnValue(users));
+
+        assertEquals(List.of("b", "c", "a"),
+                useCase.getRankedByScore().stream().map(User::getUserName).toList());
+    }
+
+    @Test
+    @DisplayName("Test ranks without a leader board match a leader board")
+    void testRanksMatchLeaderBoard() throws Exception
+    {
+        List<User> users = getUnsorted();
+        users.add(new User("d", 4, false));
+        ShowLeaderBoardUseCase sorting = new ShowLeaderBoardUseCase(setMockReturnValue(users));
+        ShowLeaderBoardUseCase incremental = new ShowLeaderBoardUseCase(new LeaderBoard(users));
+
+        assertTrue(compareUsers(incremental.getTopK(3), sorting.getTopK(3)));
+        assertTrue(compareUsers(incremental.getRankedRange(1, 10), sorting.getRankedRange(1, 10)));
+        assertEquals(incremental.getRank("d"), sorting.getRank("d"));
+        assertThrows(UserNotFoundException.class, () -> sorting.getRank("e"));
+    }
 }